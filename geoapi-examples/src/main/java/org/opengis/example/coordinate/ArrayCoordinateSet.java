@@ -0,0 +1,143 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.nio.DoubleBuffer;
+import java.time.temporal.Temporal;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * A coordinate set backed by an array of interleaved {@code double} values.
+ * For example, if the number of dimensions is 3, then the coordinates are packed in this order:
+ * (<var>x₀</var>,<var>y₀</var>,<var>z₀</var>, <var>x₁</var>,<var>y₁</var>,<var>z₁</var> …).
+ * The array is not copied: changes in the array are reflected in this coordinate set.
+ */
+public class ArrayCoordinateSet implements CoordinateSet, CoordinateMetadata {
+    /**
+     * The coordinate reference system of all tuples.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Date at which coordinate tuples are valid, or {@code null} if the <abbr>CRS</abbr> is not dynamic.
+     *
+     * @see #getCoordinateEpoch()
+     */
+    private final Temporal epoch;
+
+    /**
+     * The coordinate values, packed as tuples.
+     */
+    private final double[] coordinates;
+
+    /**
+     * Index of the first coordinate value of the first tuple.
+     */
+    private final int offset;
+
+    /**
+     * Number of coordinate tuples.
+     */
+    private final int count;
+
+    /**
+     * Creates a new coordinate set wrapping the whole given array.
+     *
+     * @param  crs          the coordinate reference system of all tuples.
+     * @param  epoch        date at which coordinate tuples are valid, or {@code null} if the <abbr>CRS</abbr> is not dynamic.
+     * @param  coordinates  the coordinate values packed as tuples. This array is <strong>not</strong> cloned.
+     * @throws MismatchedDimensionException if the array length is not a multiple of the <abbr>CRS</abbr> dimension.
+     */
+    public ArrayCoordinateSet(final CoordinateReferenceSystem crs, final Temporal epoch, final double[] coordinates) {
+        this(crs, epoch, coordinates, 0, coordinates.length / crs.getCoordinateSystem().getDimension());
+        if (coordinates.length % getDimension() != 0) {
+            throw new MismatchedDimensionException("Array length is not a multiple of the CRS dimension.");
+        }
+    }
+
+    /**
+     * Creates a new coordinate set wrapping a sub-region of the given array.
+     *
+     * @param  crs          the coordinate reference system of all tuples.
+     * @param  epoch        date at which coordinate tuples are valid, or {@code null} if the <abbr>CRS</abbr> is not dynamic.
+     * @param  coordinates  the coordinate values packed as tuples. This array is <strong>not</strong> cloned.
+     * @param  offset       index of the first coordinate value of the first tuple.
+     * @param  count        number of coordinate tuples.
+     * @throws IndexOutOfBoundsException if the given offset or count are out of array bounds.
+     */
+    public ArrayCoordinateSet(final CoordinateReferenceSystem crs, final Temporal epoch,
+                              final double[] coordinates, final int offset, final int count)
+    {
+        this.crs         = Objects.requireNonNull(crs);
+        this.epoch       = epoch;
+        this.coordinates = coordinates;
+        this.offset      = offset;
+        this.count       = count;
+        Objects.checkFromIndexSize(offset, count * getDimension(), coordinates.length);
+    }
+
+    /**
+     * Returns the coordinate metadata, which is represented directly by {@code this} implementation.
+     */
+    @Override
+    public CoordinateMetadata getCoordinateMetadata() {
+        return this;
+    }
+
+    /**
+     * Returns the <abbr>CRS</abbr> in which the coordinate tuples are given.
+     */
+    @Override
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the date at which coordinate tuples referenced to a dynamic <abbr>CRS</abbr> are valid.
+     */
+    @Override
+    public Optional<Temporal> getCoordinateEpoch() {
+        return Optional.ofNullable(epoch);
+    }
+
+    /**
+     * Returns the number of coordinate tuples in this set.
+     *
+     * @return number of coordinate tuples.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns an iterator over the positions described by coordinate tuples.
+     * The positions are views over the array.
+     */
+    @Override
+    public Iterator<DirectPosition> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * Returns a view over the array of coordinate values.
+     * Each call to this method returns new buffer instances.
+     */
+    @Override
+    public Optional<Stream<DoubleBuffer>> asDoubleBuffers() {
+        return Optional.of(Stream.of(DoubleBuffer.wrap(coordinates, offset, count * getDimension()).slice()));
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.nio.DoubleBuffer;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.example.referencing.ProjectiveTransform;
+
+
+/**
+ * A coordinate set storing coordinate values in columns (structure of arrays) instead of interleaved tuples.
+ * The values of each dimension are stored in a separated array: (<var>x₀</var>,<var>x₁</var>,<var>x₂</var> …),
+ * (<var>y₀</var>,<var>y₁</var>,<var>y₂</var> …), <i>etc.</i> This layout is preferred by analytic and vectorized
+ * kernels, and compresses better than interleaved tuples.
+ *
+ * <p>Since the coordinates are not interleaved, {@link #asDoubleBuffers()} returns an empty value as required
+ * by the {@link CoordinateSet} contract. The columns are available by {@link #column(int)} instead.
+ * Conversions from and to interleaved layouts are done in parallel, by blocks of tuples small enough
+ * for fitting in the processor cache.</p>
+ */
+public class ColumnarCoordinateSet implements CoordinateSet, CoordinateMetadata {
+    /**
+     * Number of tuples processed together during conversions between layouts.
+     * Blocks of this size, multiplied by the number of dimensions, should fit in the L1 or L2 cache.
+     */
+    static final int BLOCK_SIZE = 1024;
+
+    /**
+     * The coordinate reference system of all tuples.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Date at which coordinate tuples are valid, or {@code null} if the <abbr>CRS</abbr> is not dynamic.
+     *
+     * @see #getCoordinateEpoch()
+     */
+    private final Temporal epoch;
+
+    /**
+     * The coordinate values, one array per dimension. All arrays have the same length.
+     */
+    private final double[][] columns;
+
+    /**
+     * Creates a new coordinate set wrapping the given columns.
+     *
+     * @param  crs      the coordinate reference system of all tuples.
+     * @param  epoch    date at which coordinate tuples are valid, or {@code null} if the <abbr>CRS</abbr> is not dynamic.
+     * @param  columns  the coordinate values, one array per dimension. The arrays are <strong>not</strong> cloned.
+     * @throws MismatchedDimensionException if the number of columns is not the <abbr>CRS</abbr> dimension.
+     * @throws IllegalArgumentException if the columns do not have the same length.
+     */
+    public ColumnarCoordinateSet(final CoordinateReferenceSystem crs, final Temporal epoch, final double[]... columns) {
+        this.crs     = Objects.requireNonNull(crs);
+        this.epoch   = epoch;
+        this.columns = columns.clone();
+        if (columns.length != crs.getCoordinateSystem().getDimension()) {
+            throw new MismatchedDimensionException("Expected one column per CRS dimension.");
+        }
+        for (final double[] column : columns) {
+            if (column.length != columns[0].length) {
+                throw new IllegalArgumentException("All columns shall have the same length.");
+            }
+        }
+    }
+
+    /**
+     * Creates a columnar copy of the given coordinate set.
+     * If the given set is backed by interleaved buffers, the transposition is done in parallel by blocks.
+     *
+     * @param  data  the coordinate set to copy.
+     * @return a columnar copy of the given coordinate set.
+     */
+    public static ColumnarCoordinateSet fromInterleaved(final CoordinateSet data) {
+        if (data instanceof ColumnarCoordinateSet) {
+            return (ColumnarCoordinateSet) data;
+        }
+        final CoordinateMetadata md = data.getCoordinateMetadata();
+        final int dimension = data.getDimension();
+        final Optional<Stream<DoubleBuffer>> buffers = data.asDoubleBuffers();
+        final double[][] columns;
+        if (buffers.isPresent()) {
+            final DoubleBuffer[] parts = buffers.get().toArray(DoubleBuffer[]::new);
+            final int[] starts = new int[parts.length + 1];
+            for (int i=0; i<parts.length; i++) {
+                starts[i+1] = Math.addExact(starts[i], parts[i].remaining() / dimension);
+            }
+            columns = new double[dimension][starts[parts.length]];
+            for (int i=0; i<parts.length; i++) {
+                final DoubleBuffer part = parts[i];
+                final int first = starts[i];
+                final int count = starts[i+1] - first;
+                blocks(count).forEach((lower) -> {
+                    final int upper = Math.min(lower + BLOCK_SIZE, count);
+                    final DoubleBuffer src = part.duplicate();
+                    final double[] block = new double[(upper - lower) * dimension];
+                    src.position(src.position() + lower * dimension).get(block);
+                    for (int d=0; d<dimension; d++) {
+                        final double[] column = columns[d];
+                        for (int t=first+lower, j=d; j<block.length; j += dimension) {
+                            column[t++] = block[j];
+                        }
+                    }
+                });
+            }
+        } else {
+            final var values = CoordinateTuples.chunks(data, BLOCK_SIZE).toArray(CoordinateTuples.Chunk[]::new);
+            int count = 0;
+            for (final CoordinateTuples.Chunk chunk : values) {
+                count = Math.addExact(count, chunk.count);
+            }
+            columns = new double[dimension][count];
+            int t = 0;
+            for (final CoordinateTuples.Chunk chunk : values) {
+                for (int d=0; d<dimension; d++) {
+                    final double[] column = columns[d];
+                    for (int i=0, j=chunk.offset+d; i<chunk.count; i++, j += dimension) {
+                        column[t + i] = chunk.coordinates[j];
+                    }
+                }
+                t += chunk.count;
+            }
+        }
+        return new ColumnarCoordinateSet(md.getCoordinateReferenceSystem(), md.getCoordinateEpoch().orElse(null), columns);
+    }
+
+    /**
+     * Returns a parallel stream of the index of the first tuple of each block.
+     *
+     * @param  count  the number of tuples.
+     * @return index of the first tuple of each block.
+     */
+    private static IntStream blocks(final int count) {
+        return IntStream.range(0, (count + BLOCK_SIZE - 1) / BLOCK_SIZE).parallel().map((b) -> b * BLOCK_SIZE);
+    }
+
+    /**
+     * Returns a copy of this coordinate set with interleaved tuples.
+     * The transposition is done in parallel by blocks.
+     *
+     * @return an interleaved copy of this coordinate set.
+     */
+    public ArrayCoordinateSet toInterleaved() {
+        final int dimension = columns.length;
+        final int count = size();
+        final double[] coordinates = new double[Math.multiplyExact(count, dimension)];
+        blocks(count).forEach((lower) -> {
+            final int upper = Math.min(lower + BLOCK_SIZE, count);
+            for (int d=0; d<dimension; d++) {
+                final double[] column = columns[d];
+                for (int t=lower, j=lower*dimension + d; t<upper; t++, j += dimension) {
+                    coordinates[j] = column[t];
+                }
+            }
+        });
+        return new ArrayCoordinateSet(crs, epoch, coordinates);
+    }
+
+    /**
+     * Returns the coordinate metadata, which is represented directly by {@code this} implementation.
+     */
+    @Override
+    public CoordinateMetadata getCoordinateMetadata() {
+        return this;
+    }
+
+    /**
+     * Returns the <abbr>CRS</abbr> in which the coordinate tuples are given.
+     */
+    @Override
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the date at which coordinate tuples referenced to a dynamic <abbr>CRS</abbr> are valid.
+     */
+    @Override
+    public Optional<Temporal> getCoordinateEpoch() {
+        return Optional.ofNullable(epoch);
+    }
+
+    /**
+     * Returns the number of dimensions, which is the number of columns.
+     */
+    @Override
+    public int getDimension() {
+        return columns.length;
+    }
+
+    /**
+     * Returns the number of coordinate tuples in this set.
+     *
+     * @return number of coordinate tuples.
+     */
+    public int size() {
+        return columns[0].length;
+    }
+
+    /**
+     * Returns a view over the coordinate values of the given dimension.
+     * Each call to this method returns a new buffer instance.
+     *
+     * @param  dimension  the dimension of the column to return.
+     * @return the coordinate values of all tuples in the given dimension.
+     * @throws IndexOutOfBoundsException if the given dimension is out of bounds.
+     */
+    public DoubleBuffer column(final int dimension) {
+        return DoubleBuffer.wrap(columns[dimension]);
+    }
+
+    /**
+     * Returns an iterator over the positions described by coordinate tuples.
+     */
+    @Override
+    public Iterator<DirectPosition> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * Returns a stream of views over the coordinate tuples.
+     * The stream can be split efficiently for parallel processing.
+     */
+    @Override
+    public Stream<DirectPosition> stream() {
+        return IntStream.range(0, size()).mapToObj(Position::new);
+    }
+
+    /**
+     * A view over the coordinate values at a given index in all columns.
+     */
+    private final class Position implements DirectPosition {
+        /** Index of the tuple in each column. */
+        private final int index;
+
+        /**
+         * Creates a new view for the tuple at the given index.
+         *
+         * @param  index  index of the tuple.
+         */
+        Position(final int index) {
+            this.index = index;
+        }
+
+        /** Returns the <abbr>CRS</abbr> of the enclosing coordinate set. */
+        @Override public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+            return crs;
+        }
+
+        /** Returns the number of columns. */
+        @Override public int getDimension() {
+            return columns.length;
+        }
+
+        /** Returns the coordinate value in the given column. */
+        @Override public double getCoordinate(final int dimension) {
+            return columns[dimension][index];
+        }
+
+        /** Sets the coordinate value in the given column. */
+        @Override public void setCoordinate(final int dimension, final double value) {
+            columns[dimension][index] = value;
+        }
+
+        /** Compares coordinate values and <abbr>CRS</abbr> as required by {@link DirectPosition#equals(Object)}. */
+        @Override public boolean equals(final Object object) {
+            if (object instanceof DirectPosition) {
+                final var other = (DirectPosition) object;
+                return Arrays.equals(getCoordinates(), other.getCoordinates()) &&
+                       Objects.equals(crs, other.getCoordinateReferenceSystem());
+            }
+            return false;
+        }
+
+        /** Returns a hash code as required by {@link DirectPosition#hashCode()}. */
+        @Override public int hashCode() {
+            return Arrays.hashCode(getCoordinates()) + Objects.hashCode(crs);
+        }
+    }
+
+    /**
+     * Transforms this coordinate set with the given math transform, keeping the columnar layout.
+     * If the transform is an affine {@link ProjectiveTransform}, then each target column is computed
+     * by a linear combination of source columns, which is a loop suitable for auto-vectorization.
+     * Otherwise, the tuples are transformed in parallel by blocks: each block is gathered in a small
+     * interleaved array, transformed by a single call to {@link MathTransform#transform(double[], int,
+     * double[], int, int)}, then scattered to the target columns. There is no transposition of the
+     * whole coordinate set.
+     *
+     * @param  transform  the transform to apply.
+     * @param  targetCRS  the <abbr>CRS</abbr> of the result.
+     * @return the transformed coordinates in a new columnar coordinate set.
+     * @throws MismatchedDimensionException if the transform dimensions do not match the coordinate set or the target <abbr>CRS</abbr>.
+     * @throws TransformException if a coordinate cannot be transformed.
+     */
+    public ColumnarCoordinateSet transform(final MathTransform transform, final CoordinateReferenceSystem targetCRS)
+            throws TransformException
+    {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        if (srcDim != columns.length || tgtDim != targetCRS.getCoordinateSystem().getDimension()) {
+            throw new MismatchedDimensionException();
+        }
+        final int count = size();
+        final double[][] target = new double[tgtDim][count];
+        final Matrix matrix = affine(transform);
+        if (matrix != null) {
+            blocks(count).forEach((lower) -> {
+                final int upper = Math.min(lower + BLOCK_SIZE, count);
+                for (int j=0; j<tgtDim; j++) {
+                    final double[] dst = target[j];
+                    Arrays.fill(dst, lower, upper, matrix.getElement(j, srcDim));
+                    for (int i=0; i<srcDim; i++) {
+                        final double m = matrix.getElement(j, i);
+                        if (m != 0) {
+                            final double[] src = columns[i];
+                            for (int t=lower; t<upper; t++) {
+                                dst[t] += m * src[t];
+                            }
+                        }
+                    }
+                }
+            });
+        } else try {
+            blocks(count).forEach((lower) -> {
+                final int n = Math.min(lower + BLOCK_SIZE, count) - lower;
+                final double[] block = new double[n * Math.max(srcDim, tgtDim)];
+                for (int i=0; i<srcDim; i++) {
+                    final double[] src = columns[i];
+                    for (int t=0, j=i; t<n; t++, j += srcDim) {
+                        block[j] = src[lower + t];
+                    }
+                }
+                try {
+                    transform.transform(block, 0, block, 0, n);
+                } catch (TransformException e) {
+                    throw new TransformFailure(e);      // Checked exception not allowed here.
+                }
+                for (int i=0; i<tgtDim; i++) {
+                    final double[] dst = target[i];
+                    for (int t=0, j=i; t<n; t++, j += tgtDim) {
+                        dst[lower + t] = block[j];
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            /*
+             * The fork/join framework may wrap the exception thrown by a worker thread
+             * in another exception, so search for our wrapper in the chain of causes.
+             */
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof TransformFailure) {
+                    throw (TransformException) cause.getCause();    // The checked exception that we couldn't throw in above lambda.
+                }
+            }
+            throw e;
+        }
+        return new ColumnarCoordinateSet(targetCRS, epoch, target);
+    }
+
+    /**
+     * Unchecked exception wrapping a {@link TransformException} thrown in a parallel stream.
+     * This dedicated type allows to recognize the wrapper in the chain of causes.
+     */
+    private static final class TransformFailure extends RuntimeException {
+        /**
+         * For cross-version compatibility.
+         */
+        private static final long serialVersionUID = 4712850309458841366L;
+
+        /**
+         * Wraps the given exception.
+         *
+         * @param  cause  the exception to wrap.
+         */
+        TransformFailure(final TransformException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Returns the matrix of the given transform if it is known to be affine, or {@code null} otherwise.
+     * The matrix may be non-square if the transform changes the number of dimensions.
+     *
+     * @param  transform  the transform for which to get the matrix.
+     * @return the affine matrix, or {@code null} if the transform is not known to be affine.
+     */
+    private static Matrix affine(final MathTransform transform) {
+        if (transform instanceof ProjectiveTransform) {
+            final Matrix matrix = ((ProjectiveTransform) transform).getMatrix();
+            if (matrix == null) {
+                return null;
+            }
+            final int lastRow = matrix.getNumRow() - 1;
+            final int lastCol = matrix.getNumCol() - 1;
+            for (int i = lastCol; i >= 0; i--) {
+                if (matrix.getElement(lastRow, i) != (i == lastCol ? 1 : 0)) {
+                    return null;
+                }
+            }
+            return matrix;
+        }
+        return null;
+    }
+}
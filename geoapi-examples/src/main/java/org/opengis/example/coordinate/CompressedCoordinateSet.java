@@ -0,0 +1,387 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.nio.DoubleBuffer;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.measure.Unit;
+import javax.measure.Quantity;
+import javax.measure.IncommensurableException;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.crs.GeodeticCRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.GeodeticDatum;
+import tech.uom.seshat.Units;
+
+
+/**
+ * A coordinate set storing quantized coordinate values in a compact binary form.
+ * Each coordinate value is rounded to an integer multiple of the resolution of its axis,
+ * then the difference with the value of the previous tuple is stored as a variable-length integer.
+ * Trajectories and survey points, where consecutive tuples are close to each other,
+ * typically need 1 to 3 bytes per coordinate value instead of 8.
+ *
+ * <h2>Blocks</h2>
+ * Tuples are stored in blocks of fixed size (except the last block).
+ * The first tuple of each block is stored as absolute values, so each block can be decoded
+ * independently of other blocks. The {@link #asDoubleBuffers()} method returns a stream
+ * which decodes the blocks only when requested and can be split for decoding blocks in parallel.
+ * The {@link #decode(int)} method gives random access to a block.
+ *
+ * <h2>Encoding</h2>
+ * Each coordinate value is encoded as an unsigned variable-length integer (7 bits per byte,
+ * with the most significant bit set if more bytes follow). The value 0 means NaN.
+ * Other values are the <i>zigzag</i> encoding of the difference with the quantized value
+ * of the previous tuple in the same block, plus one.
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public class CompressedCoordinateSet implements CoordinateSet, CoordinateMetadata {
+    /**
+     * The default number of tuples in a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    /**
+     * Maximal absolute value, in units of the resolution, of quantized coordinates.
+     * This limit ensures that differences between two quantized values do not overflow.
+     */
+    private static final double MAX_QUANTIZED = 0x1p52;
+
+    /**
+     * The coordinate reference system of all tuples.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Date at which coordinate tuples are valid, or {@code null} if the <abbr>CRS</abbr> is not dynamic.
+     *
+     * @see #getCoordinateEpoch()
+     */
+    private final Temporal epoch;
+
+    /**
+     * The quantization step in each dimension, in units of the corresponding axis.
+     */
+    private final double[] resolution;
+
+    /**
+     * Number of coordinate tuples.
+     */
+    private final int count;
+
+    /**
+     * Maximal number of tuples in a block.
+     */
+    private final int blockSize;
+
+    /**
+     * The encoded coordinate values of all blocks.
+     */
+    private final byte[] data;
+
+    /**
+     * Index in {@link #data} of the first byte of each block.
+     * The last element is the length of valid data.
+     */
+    private final int[] blockStarts;
+
+    /**
+     * Compresses the given coordinate set with the given resolution.
+     * The maximal error is half the resolution.
+     *
+     * @param  source      the coordinate set to compress.
+     * @param  resolution  the quantization step in each dimension, in units of the corresponding axis.
+     * @param  blockSize   maximal number of tuples in a block.
+     * @throws MismatchedDimensionException if the resolution array length is not the number of dimensions.
+     * @throws IllegalArgumentException if a resolution is not strictly positive, or if a coordinate
+     *         value is infinite or too large for the given resolution.
+     */
+    public CompressedCoordinateSet(final CoordinateSet source, final double[] resolution, final int blockSize) {
+        final CoordinateMetadata md = source.getCoordinateMetadata();
+        final int dimension = source.getDimension();
+        if (resolution.length != dimension) {
+            throw new MismatchedDimensionException("Expected one resolution per dimension.");
+        }
+        for (final double r : resolution) {
+            if (!(r > 0 && r < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Illegal resolution: " + r);
+            }
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        }
+        this.crs        = Objects.requireNonNull(md.getCoordinateReferenceSystem());
+        this.epoch      = md.getCoordinateEpoch().orElse(null);
+        this.resolution = resolution.clone();
+        this.blockSize  = blockSize;
+        final var encoder = new Encoder(this.resolution);
+        CoordinateTuples.forEach(source, encoder);
+        count       = encoder.count;
+        data        = Arrays.copyOf(encoder.data, encoder.length);
+        blockStarts = Arrays.copyOf(encoder.blockStarts, encoder.numBlocks + 1);
+        blockStarts[encoder.numBlocks] = encoder.length;
+    }
+
+    /**
+     * Compresses the given coordinate set with a tolerance applied on all axes.
+     * The resolution of each axis is derived from the tolerance converted to the axis unit.
+     * If the tolerance is a length and an axis is angular, the tolerance is converted to
+     * an angle on the ellipsoid of the geodetic <abbr>CRS</abbr>. The maximal error
+     * introduced by the compression is the given tolerance.
+     *
+     * @param  source     the coordinate set to compress.
+     * @param  tolerance  the maximal error, as a length or an angle for example.
+     * @return the compressed coordinate set.
+     * @throws IllegalArgumentException if the tolerance cannot be converted to the unit of an axis.
+     */
+    public static CompressedCoordinateSet compress(final CoordinateSet source, final Quantity<?> tolerance) {
+        final CoordinateReferenceSystem crs = source.getCoordinateMetadata().getCoordinateReferenceSystem();
+        final CoordinateSystem cs = crs.getCoordinateSystem();
+        final double[] resolution = new double[cs.getDimension()];
+        for (int i=0; i<resolution.length; i++) {
+            resolution[i] = 2 * convert(crs, cs.getAxis(i).getUnit(), tolerance);
+        }
+        return new CompressedCoordinateSet(source, resolution, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Converts the given tolerance to the given axis unit.
+     *
+     * @param  crs        the <abbr>CRS</abbr> of the coordinates, used for converting linear tolerances to angles.
+     * @param  axisUnit   the unit of measurement of the axis.
+     * @param  tolerance  the tolerance to convert.
+     * @return the tolerance in units of the axis.
+     * @throws IllegalArgumentException if the tolerance cannot be converted to the axis unit.
+     */
+    private static double convert(final CoordinateReferenceSystem crs, final Unit<?> axisUnit, final Quantity<?> tolerance) {
+        Unit<?> unit = tolerance.getUnit();
+        double value = tolerance.getValue().doubleValue();
+        try {
+            if (!unit.isCompatible(axisUnit) && unit.isCompatible(Units.METRE)
+                    && axisUnit.isCompatible(Units.RADIAN) && crs instanceof GeodeticCRS)
+            {
+                final GeodeticDatum datum = ((GeodeticCRS) crs).getDatum();
+                final Ellipsoid ellipsoid = (datum != null) ? datum.getEllipsoid() : null;
+                if (ellipsoid != null) {
+                    value = unit.getConverterToAny(ellipsoid.getAxisUnit()).convert(value) / ellipsoid.getSemiMajorAxis();
+                    unit  = Units.RADIAN;
+                }
+            }
+            return unit.getConverterToAny(axisUnit).convert(value);
+        } catch (IncommensurableException e) {
+            throw new IllegalArgumentException("Tolerance cannot be converted to " + axisUnit + " units.", e);
+        }
+    }
+
+    /**
+     * Accumulates tuples in the encoded form.
+     */
+    private final class Encoder implements CoordinateTuples.TupleConsumer {
+        /** The quantization step in each dimension. */
+        private final double[] resolution;
+
+        /** Quantized values of the previous tuple in the current block. */
+        private final long[] previous;
+
+        /** The encoded data. Length may be greater than the amount of valid data. */
+        byte[] data;
+
+        /** Number of valid bytes in {@link #data}. */
+        int length;
+
+        /** Index of the first byte of each block. Length may be greater than the number of blocks. */
+        int[] blockStarts;
+
+        /** Number of blocks started. */
+        int numBlocks;
+
+        /** Number of tuples encoded. */
+        int count;
+
+        /**
+         * Creates a new encoder.
+         *
+         * @param  resolution  the quantization step in each dimension.
+         */
+        Encoder(final double[] resolution) {
+            this.resolution = resolution;
+            previous    = new long[resolution.length];
+            data        = new byte[1024];
+            blockStarts = new int[16];
+        }
+
+        /** Encodes the tuple at the given offset in the given array. */
+        @Override
+        public void accept(final double[] buffer, final int offset) {
+            if (count % blockSize == 0) {
+                if (numBlocks + 1 >= blockStarts.length) {
+                    blockStarts = Arrays.copyOf(blockStarts, blockStarts.length * 2);
+                }
+                blockStarts[numBlocks++] = length;
+                Arrays.fill(previous, 0);
+            }
+            if (data.length - length < resolution.length * 10) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + resolution.length * 10));
+            }
+            for (int i=0; i<resolution.length; i++) {
+                final double value = buffer[offset + i];
+                if (Double.isNaN(value)) {
+                    data[length++] = 0;
+                    continue;
+                }
+                final double q = Math.rint(value / resolution[i]);
+                if (!(Math.abs(q) <= MAX_QUANTIZED)) {
+                    throw new IllegalArgumentException("Coordinate value too large for the resolution: " + value);
+                }
+                final long v = (long) q;
+                final long delta = v - previous[i];
+                previous[i] = v;
+                long z = ((delta << 1) ^ (delta >> 63)) + 1;        // Zigzag encoding, 0 reserved for NaN.
+                while ((z & ~0x7FL) != 0) {
+                    data[length++] = (byte) (z | 0x80);
+                    z >>>= 7;
+                }
+                data[length++] = (byte) z;
+            }
+            count = Math.incrementExact(count);
+        }
+    }
+
+    /**
+     * Returns the coordinate metadata, which is represented directly by {@code this} implementation.
+     */
+    @Override
+    public CoordinateMetadata getCoordinateMetadata() {
+        return this;
+    }
+
+    /**
+     * Returns the <abbr>CRS</abbr> in which the coordinate tuples are given.
+     */
+    @Override
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the date at which coordinate tuples referenced to a dynamic <abbr>CRS</abbr> are valid.
+     */
+    @Override
+    public Optional<Temporal> getCoordinateEpoch() {
+        return Optional.ofNullable(epoch);
+    }
+
+    /**
+     * Returns the number of dimensions of all tuples.
+     */
+    @Override
+    public int getDimension() {
+        return resolution.length;
+    }
+
+    /**
+     * Returns the number of coordinate tuples in this set.
+     *
+     * @return number of coordinate tuples.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the quantization step in the given dimension, in units of the corresponding axis.
+     *
+     * @param  dimension  the dimension for which to get the resolution.
+     * @return the quantization step in the given dimension.
+     */
+    public double getResolution(final int dimension) {
+        return resolution[dimension];
+    }
+
+    /**
+     * Returns the number of bytes used for storing the encoded coordinates.
+     *
+     * @return size of the encoded coordinates, in bytes.
+     */
+    public int getCompressedSize() {
+        return data.length;
+    }
+
+    /**
+     * Returns the number of blocks. Each block can be decoded independently.
+     *
+     * @return number of blocks.
+     */
+    public int getBlockCount() {
+        return blockStarts.length - 1;
+    }
+
+    /**
+     * Decodes the coordinate tuples of the block at the given index.
+     *
+     * @param  block  index of the block to decode.
+     * @return interleaved coordinate values of all tuples in the block.
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     */
+    public double[] decode(final int block) {
+        Objects.checkIndex(block, getBlockCount());
+        final int dimension = resolution.length;
+        final long[] previous = new long[dimension];
+        final double[] values = new double[Math.min(blockSize, count - block * blockSize) * dimension];
+        int p = blockStarts[block];
+        for (int j=0; j<values.length; j++) {
+            long z = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[p++];
+                z |= (b & 0x7FL) << shift;
+                shift += 7;
+            } while (b < 0);
+            final int i = j % dimension;
+            if (z == 0) {
+                values[j] = Double.NaN;
+            } else {
+                z--;
+                previous[i] += (z >>> 1) ^ -(z & 1);
+                values[j] = previous[i] * resolution[i];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns an iterator over the positions described by decoded coordinate tuples.
+     */
+    @Override
+    public Iterator<DirectPosition> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * Returns a stream of decoded blocks, in the order of tuples.
+     * Blocks are decoded only when the stream requests them.
+     * The stream can be split for decoding blocks in parallel.
+     */
+    @Override
+    public Optional<Stream<DoubleBuffer>> asDoubleBuffers() {
+        return Optional.of(IntStream.range(0, getBlockCount()).mapToObj((block) -> DoubleBuffer.wrap(decode(block))));
+    }
+}
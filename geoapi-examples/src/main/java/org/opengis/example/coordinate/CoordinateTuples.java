@@ -0,0 +1,369 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+
+/**
+ * Traversal of the tuples of a {@link CoordinateSet} as primitive values, without {@link DirectPosition} objects.
+ * The {@link CoordinateSet#stream()} method creates a {@code DirectPosition} view for each tuple, which is
+ * convenient but costly when the consumer only reads numbers. The methods in this class use the buffers
+ * returned by {@link CoordinateSet#asDoubleBuffers()} or {@link CoordinateSet#asFloatBuffers()} instead:
+ *
+ * <ul>
+ *   <li>{@link #forEach(CoordinateSet, TupleConsumer)} gives each tuple as an array and an offset in that array.
+ *       When the buffers are backed by Java arrays, the arrays are given directly. Otherwise, the values are copied
+ *       by blocks in a single temporary array reused for the whole traversal.</li>
+ *   <li>{@link #chunks(CoordinateSet, int)} gives a stream of blocks of consecutive tuples.
+ *       The stream can be split for parallel processing at tuple boundaries.</li>
+ * </ul>
+ *
+ * If the coordinate set does not provide buffers, then the above methods fallback on
+ * {@link CoordinateSet#iterator()}.
+ */
+public final class CoordinateTuples {
+    /**
+     * Default number of tuples in the blocks of coordinates copied in temporary arrays.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private CoordinateTuples() {
+    }
+
+    /**
+     * An action to execute on a coordinate tuple given as primitive values.
+     * The tuple values are {@code buffer[offset]} (inclusive) to {@code buffer[offset + dimension]} (exclusive).
+     * The array content is valid only during the method call, because the array may be reused for the next tuples.
+     */
+    @FunctionalInterface
+    public interface TupleConsumer {
+        /**
+         * Performs an action on the coordinate tuple at the given offset.
+         *
+         * @param  buffer  the array containing the coordinate values. Shall not be modified.
+         * @param  offset  index of the first coordinate value of the tuple.
+         */
+        void accept(double[] buffer, int offset);
+    }
+
+    /**
+     * A block of consecutive coordinate tuples stored in an array of primitive values.
+     * The values are {@code coordinates[offset]} (inclusive) to {@code coordinates[offset + count*dimension]} (exclusive).
+     * The array may be a view over the array backing the coordinate set, in which case it shall not be modified.
+     */
+    public static final class Chunk {
+        /** The array containing the coordinate values. May be larger than needed. */
+        public final double[] coordinates;
+
+        /** Index of the first coordinate value of the first tuple. */
+        public final int offset;
+
+        /** Number of coordinate tuples in this block. */
+        public final int count;
+
+        /** Number of dimensions of each coordinate tuple. */
+        public final int dimension;
+
+        /**
+         * Creates a new block of coordinate tuples.
+         *
+         * @param coordinates  the array containing the coordinate values.
+         * @param offset       index of the first coordinate value of the first tuple.
+         * @param count        number of coordinate tuples.
+         * @param dimension    number of dimensions of each coordinate tuple.
+         */
+        public Chunk(final double[] coordinates, final int offset, final int count, final int dimension) {
+            this.coordinates = coordinates;
+            this.offset      = offset;
+            this.count       = count;
+            this.dimension   = dimension;
+        }
+
+        /**
+         * Invokes the given action for each tuple in this block.
+         *
+         * @param  action  the action to invoke for each tuple.
+         */
+        public void forEach(final TupleConsumer action) {
+            final int end = offset + count * dimension;
+            for (int i = offset; i < end; i += dimension) {
+                action.accept(coordinates, i);
+            }
+        }
+    }
+
+    /**
+     * Performs the given action for each coordinate tuple, in encounter order.
+     *
+     * @param  data    the coordinate set to traverse.
+     * @param  action  the action to execute for each tuple.
+     */
+    public static void forEach(final CoordinateSet data, final TupleConsumer action) {
+        final int dimension = data.getDimension();
+        final Optional<Stream<DoubleBuffer>> doubles = data.asDoubleBuffers();
+        if (doubles.isPresent()) {
+            final double[] chunk = new double[dimension * DEFAULT_CHUNK_SIZE];
+            doubles.get().sequential().forEachOrdered((buffer) -> {
+                if (buffer.hasArray()) {
+                    final double[] array = buffer.array();
+                    int offset = buffer.arrayOffset() + buffer.position();
+                    final int end = offset + (buffer.remaining() / dimension) * dimension;
+                    for (; offset < end; offset += dimension) {
+                        action.accept(array, offset);
+                    }
+                } else {
+                    int n;
+                    while ((n = Math.min(buffer.remaining() / dimension, DEFAULT_CHUNK_SIZE) * dimension) != 0) {
+                        buffer.get(chunk, 0, n);
+                        for (int i=0; i<n; i += dimension) {
+                            action.accept(chunk, i);
+                        }
+                    }
+                }
+            });
+            return;
+        }
+        final Optional<Stream<FloatBuffer>> floats = data.asFloatBuffers();
+        if (floats.isPresent()) {
+            final double[] chunk = new double[dimension * DEFAULT_CHUNK_SIZE];
+            floats.get().sequential().forEachOrdered((buffer) -> {
+                int n;
+                while ((n = Math.min(buffer.remaining() / dimension, DEFAULT_CHUNK_SIZE) * dimension) != 0) {
+                    for (int i=0; i<n; i++) {
+                        chunk[i] = buffer.get();
+                    }
+                    for (int i=0; i<n; i += dimension) {
+                        action.accept(chunk, i);
+                    }
+                }
+            });
+            return;
+        }
+        final double[] tuple = new double[dimension];
+        for (final DirectPosition position : data) {
+            for (int i=0; i<dimension; i++) {
+                tuple[i] = position.getCoordinate(i);
+            }
+            action.accept(tuple, 0);
+        }
+    }
+
+    /**
+     * Returns a stream of blocks of at most {@code chunkSize} tuples.
+     * If the coordinate set is backed by arrays of {@code double} values, then the blocks are views over
+     * those arrays without copy. Otherwise, each block is a copy of a fragment of the coordinate set.
+     * The returned stream is sequential but can be made parallel, in which case the blocks are split
+     * at tuple boundaries.
+     *
+     * @param  data       the coordinate set for which to get blocks of tuples.
+     * @param  chunkSize  maximal number of tuples in each block.
+     * @return a stream of blocks of coordinate tuples, in encounter order.
+     */
+    public static Stream<Chunk> chunks(final CoordinateSet data, final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size shall be positive.");
+        }
+        final int dimension = data.getDimension();
+        final Optional<Stream<DoubleBuffer>> doubles = data.asDoubleBuffers();
+        if (doubles.isPresent()) {
+            return chunks(doubles.get().toArray(Buffer[]::new), dimension, chunkSize);
+        }
+        final Optional<Stream<FloatBuffer>> floats = data.asFloatBuffers();
+        if (floats.isPresent()) {
+            return chunks(floats.get().toArray(Buffer[]::new), dimension, chunkSize);
+        }
+        final Iterator<DirectPosition> positions = data.iterator();
+        final var chunks = new Iterator<Chunk>() {
+            @Override public boolean hasNext() {
+                return positions.hasNext();
+            }
+
+            @Override public Chunk next() {
+                if (!positions.hasNext()) throw new NoSuchElementException();
+                final double[] coordinates = new double[chunkSize * dimension];
+                int n = 0;
+                do {
+                    final DirectPosition position = positions.next();
+                    for (int i=0; i<dimension; i++) {
+                        coordinates[n++] = position.getCoordinate(i);
+                    }
+                } while (n < coordinates.length && positions.hasNext());
+                return new Chunk(coordinates, 0, n / dimension, dimension);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns a stream of blocks of tuples from the given buffers.
+     * In the common case of a single buffer, the stream is created directly from the spliterator
+     * instead of using {@link Stream#flatMap flatMap(…)}, because the latter does not split the
+     * inner streams in parallel pipelines.
+     *
+     * @param  buffers    the buffers of {@code double} or {@code float} values.
+     * @param  dimension  number of dimensions of each tuple.
+     * @param  chunkSize  maximal number of tuples in each block.
+     * @return a stream of blocks of tuples.
+     */
+    private static Stream<Chunk> chunks(final Buffer[] buffers, final int dimension, final int chunkSize) {
+        if (buffers.length == 1) {
+            return StreamSupport.stream(new Chunks(buffers[0], dimension, chunkSize), false);
+        }
+        return Arrays.stream(buffers).flatMap((buffer) -> StreamSupport.stream(new Chunks(buffer, dimension, chunkSize), false));
+    }
+
+    /**
+     * A spliterator producing blocks of tuples from a buffer of {@code double} or {@code float} values.
+     * The {@link #trySplit()} method splits the buffer in halves, at a tuple boundary.
+     */
+    private static final class Chunks implements Spliterator<Chunk> {
+        /** The buffer of {@code double} or {@code float} values. */
+        private final Buffer buffer;
+
+        /** Number of dimensions of each tuple. */
+        private final int dimension;
+
+        /** Maximal number of tuples in each block. */
+        private final int chunkSize;
+
+        /**
+         * Creates a new spliterator over the given buffer.
+         *
+         * @param  buffer     the buffer of {@code double} or {@code float} values.
+         * @param  dimension  number of dimensions of each tuple.
+         * @param  chunkSize  maximal number of tuples in each block.
+         */
+        Chunks(final Buffer buffer, final int dimension, final int chunkSize) {
+            this.buffer    = buffer;
+            this.dimension = dimension;
+            this.chunkSize = chunkSize;
+        }
+
+        /** Declares that the number of blocks is known and there is a defined encounter order. */
+        @Override public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+
+        /** Returns the number of blocks remaining. */
+        @Override public long estimateSize() {
+            final long tuples = buffer.remaining() / dimension;
+            return (tuples + chunkSize - 1) / chunkSize;
+        }
+
+        /**
+         * Splits the remaining tuples in two halves, or returns {@code null} if too few tuples remain.
+         * The split point is rounded to a multiple of the block size, for making the sum of the sizes
+         * of the two halves equal to the size of this spliterator before the split.
+         */
+        @Override public Spliterator<Chunk> trySplit() {
+            final int half = (buffer.remaining() / dimension / 2 / chunkSize) * chunkSize;
+            if (half == 0) {
+                return null;
+            }
+            final int splitAt = buffer.position() + half * dimension;
+            final Buffer prefix = duplicate(buffer).limit(splitAt);
+            buffer.position(splitAt);
+            return new Chunks(prefix, dimension, chunkSize);
+        }
+
+        /**
+         * Returns a new buffer sharing the same content.
+         *
+         * @param  buffer  the buffer to duplicate.
+         * @return a buffer sharing the same content but with independent position and limit.
+         */
+        private static Buffer duplicate(final Buffer buffer) {
+            return (buffer instanceof DoubleBuffer) ? ((DoubleBuffer) buffer).duplicate() : ((FloatBuffer) buffer).duplicate();
+        }
+
+        /** Provides the next block of tuples to the given action. */
+        @Override public boolean tryAdvance(final Consumer<? super Chunk> action) {
+            final int count = Math.min(buffer.remaining() / dimension, chunkSize);
+            if (count == 0) {
+                return false;
+            }
+            final int n = count * dimension;
+            final int start = buffer.position();
+            final Chunk chunk;
+            if (buffer.hasArray() && buffer instanceof DoubleBuffer) {
+                chunk = new Chunk(((DoubleBuffer) buffer).array(), buffer.arrayOffset() + start, count, dimension);
+                buffer.position(start + n);
+            } else {
+                final double[] coordinates = new double[n];
+                if (buffer instanceof DoubleBuffer) {
+                    ((DoubleBuffer) buffer).get(coordinates);
+                } else {
+                    final FloatBuffer floats = (FloatBuffer) buffer;
+                    for (int i=0; i<n; i++) {
+                        coordinates[i] = floats.get();
+                    }
+                }
+                chunk = new Chunk(coordinates, 0, count, dimension);
+            }
+            action.accept(chunk);
+            return true;
+        }
+    }
+
+    /**
+     * Computes the envelope of all coordinate tuples in the given set.
+     * The computation is done in parallel over blocks of tuples,
+     * without creating {@code DirectPosition} objects.
+     * If the coordinate set is empty, then all envelope bounds are NaN.
+     *
+     * @param  data  the coordinate set for which to compute the envelope.
+     * @return the envelope of all coordinate tuples.
+     */
+    public static SimpleEnvelope envelope(final CoordinateSet data) {
+        final int dimension = data.getDimension();
+        final double[] bounds = chunks(data, DEFAULT_CHUNK_SIZE).parallel().map((chunk) -> {
+            final double[] b = new double[dimension * 2];
+            Arrays.fill(b, 0, dimension, Double.POSITIVE_INFINITY);
+            Arrays.fill(b, dimension, b.length, Double.NEGATIVE_INFINITY);
+            chunk.forEach((c, offset) -> {
+                for (int i=0; i<dimension; i++) {
+                    final double v = c[offset + i];
+                    if (v < b[i]) b[i] = v;
+                    if (v > b[i + dimension]) b[i + dimension] = v;
+                }
+            });
+            return b;
+        }).reduce((a, b) -> {
+            for (int i=0; i<dimension; i++) {
+                a[i] = Math.min(a[i], b[i]);
+                a[i + dimension] = Math.max(a[i + dimension], b[i + dimension]);
+            }
+            return a;
+        }).orElseGet(() -> {
+            final double[] b = new double[dimension * 2];
+            Arrays.fill(b, Double.NaN);
+            return b;
+        });
+        final CoordinateReferenceSystem crs = data.getCoordinateMetadata().getCoordinateReferenceSystem();
+        return new SimpleEnvelope(new SimpleDirectPosition(crs, Arrays.copyOfRange(bounds, 0, dimension)),
+                                  new SimpleDirectPosition(crs, Arrays.copyOfRange(bounds, dimension, bounds.length)));
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.opengis.util.FactoryException;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * A coordinate set backed by a memory-mapped file of interleaved single- or double-precision tuples.
+ * The coordinate values are not loaded in the Java heap. Instead, {@link #asDoubleBuffers()} or
+ * {@link #asFloatBuffers()} (depending on the file data type) return views over the mapped file,
+ * which can be split for parallel processing without copying.
+ *
+ * <h2>File format</h2>
+ * The file starts with a header in big-endian byte order, followed by the coordinate values:
+ *
+ * <table class="ogc">
+ *   <caption>File header</caption>
+ *   <tr><th>Offset</th> <th>Type</th>  <th>Content</th></tr>
+ *   <tr><td>0</td>  <td>int</td>   <td>Magic number {@value #MAGIC} ("GCS1" in ASCII).</td></tr>
+ *   <tr><td>4</td>  <td>byte</td>  <td>Byte order of coordinate values: 0 for big-endian, 1 for little-endian.</td></tr>
+ *   <tr><td>5</td>  <td>byte</td>  <td>Number of bytes per coordinate value: 4 for {@code float}, 8 for {@code double}.</td></tr>
+ *   <tr><td>6</td>  <td>short</td> <td>Number of dimensions of coordinate tuples.</td></tr>
+ *   <tr><td>8</td>  <td>long</td>  <td>Number of coordinate tuples.</td></tr>
+ *   <tr><td>16</td> <td>long</td>  <td>Coordinate epoch in seconds since 1970-01-01T00:00Z, or {@link Long#MIN_VALUE} if none.</td></tr>
+ *   <tr><td>24</td> <td>int</td>   <td>Nanoseconds to add to the coordinate epoch.</td></tr>
+ *   <tr><td>28</td> <td>short</td> <td>Length <var>n</var> in bytes of the <abbr>CRS</abbr> authority code.</td></tr>
+ *   <tr><td>30</td> <td>UTF-8</td> <td>The <abbr>CRS</abbr> authority code, followed by zero padding to a multiple of 8 bytes.</td></tr>
+ * </table>
+ *
+ * <h2>Large files</h2>
+ * Because a single mapped buffer cannot be larger than 2 gigabytes, files larger than that
+ * are mapped in many windows. Each window contains an integer number of coordinate tuples.
+ * Each window is seen as a separated buffer in the stream returned by {@code asDoubleBuffers()}.
+ *
+ * <h2>Replacing a file</h2>
+ * The content of a mapped file shall not be truncated while a {@code MappedCoordinateSet} is alive,
+ * because reading a truncated part of a mapped buffer may crash the <abbr>JVM</abbr>.
+ * For this reason, {@link #write write(…)} never overwrites an existing file in place.
+ * It writes a temporary file in the same directory, then replaces the target file by a rename.
+ * On most platforms, existing mappings continue to see the previous content after the rename.
+ * On platforms which do not allow to replace a mapped file, the rename fails with an exception.
+ *
+ * <p>Instances of this class are immutable and thread-safe.
+ * The mapping is read-only.</p>
+ */
+public class MappedCoordinateSet implements CoordinateSet, CoordinateMetadata {
+    /**
+     * The magic number at the beginning of coordinate files.
+     */
+    public static final int MAGIC = 0x47435331;
+
+    /**
+     * Maximal number of bytes in a mapped window. Slightly less than 2 gigabytes.
+     * The value used for a given file is rounded to an integer number of tuples.
+     */
+    static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 7;
+
+    /**
+     * The coordinate reference system of all tuples.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * The authority code of the coordinate reference system, as stored in the file header.
+     */
+    private final String crsCode;
+
+    /**
+     * Date at which coordinate tuples are valid, or {@code null} if the <abbr>CRS</abbr> is not dynamic.
+     *
+     * @see #getCoordinateEpoch()
+     */
+    private final Instant epoch;
+
+    /**
+     * Number of dimensions of coordinate tuples.
+     */
+    private final int dimension;
+
+    /**
+     * Number of coordinate tuples.
+     */
+    private final long count;
+
+    /**
+     * Whether the coordinates are stored as single-precision values.
+     */
+    private final boolean singlePrecision;
+
+    /**
+     * The mapped windows, each of them containing an integer number of tuples.
+     * Byte order is set to the order declared in the file header.
+     */
+    private final MappedByteBuffer[] windows;
+
+    /**
+     * Opens the given file and maps its content in memory.
+     * The <abbr>CRS</abbr> declared in the file header is created by the given factory.
+     *
+     * @param  file     the file to open.
+     * @param  factory  the factory to use for creating the <abbr>CRS</abbr> from the code stored in the header.
+     * @throws IOException if an error occurred while reading the file, or if the file format is invalid.
+     * @throws FactoryException if the <abbr>CRS</abbr> cannot be created.
+     */
+    public MappedCoordinateSet(final Path file, final CRSAuthorityFactory factory) throws IOException, FactoryException {
+        this(file, factory, MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens the given file and maps its content in windows of the given maximal size.
+     * This constructor is used for testing files mapped in many windows without creating huge files.
+     *
+     * @param  file           the file to open.
+     * @param  factory        the factory to use for creating the <abbr>CRS</abbr> from the code stored in the header.
+     * @param  maxWindowSize  maximal number of bytes in a mapped window, at most {@link #MAX_WINDOW_SIZE}.
+     * @throws IOException if an error occurred while reading the file, or if the file format is invalid.
+     * @throws FactoryException if the <abbr>CRS</abbr> cannot be created.
+     */
+    MappedCoordinateSet(final Path file, final CRSAuthorityFactory factory, final int maxWindowSize)
+            throws IOException, FactoryException
+    {
+        if (maxWindowSize <= 0 || maxWindowSize > MAX_WINDOW_SIZE) {
+            throw new IllegalArgumentException("Illegal window size: " + maxWindowSize);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(30);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a coordinate file: " + file);
+            }
+            final ByteOrder order = (header.get(4) != 0) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            final int valueSize = header.get(5);
+            if (valueSize != Float.BYTES && valueSize != Double.BYTES) {
+                throw new IOException("Unsupported value size: " + valueSize);
+            }
+            singlePrecision = (valueSize == Float.BYTES);
+            dimension = header.getShort(6);
+            count     = header.getLong(8);
+            final long seconds = header.getLong(16);
+            epoch = (seconds != Long.MIN_VALUE) ? Instant.ofEpochSecond(seconds, header.getInt(24)) : null;
+            final int codeLength = header.getShort(28);
+            if (dimension <= 0 || count < 0 || codeLength < 0) {
+                throw new IOException("Invalid header in " + file);
+            }
+            final ByteBuffer code = ByteBuffer.allocate(codeLength);
+            readFully(channel, code, header.capacity());
+            crsCode = new String(code.array(), StandardCharsets.UTF_8);
+            crs = factory.createCoordinateReferenceSystem(crsCode);
+            if (crs.getCoordinateSystem().getDimension() != dimension) {
+                throw new MismatchedDimensionException("The CRS dimension does not match the file header.");
+            }
+            /*
+             * Map the coordinate values in windows of an integer number of tuples.
+             */
+            final long dataStart = dataStart(codeLength);
+            final long tupleSize = (long) dimension * valueSize;
+            final long length    = count * tupleSize;
+            if (dataStart + length > channel.size()) {
+                throw new IOException("Truncated file: " + file);
+            }
+            final long windowSize = Math.max(1, maxWindowSize / tupleSize) * tupleSize;
+            windows = new MappedByteBuffer[(int) ((length + windowSize - 1) / windowSize)];
+            for (int i=0; i<windows.length; i++) {
+                final long offset = i * windowSize;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + offset, Math.min(windowSize, length - offset));
+                windows[i].order(order);
+            }
+        }
+    }
+
+    /**
+     * Reads bytes from the given channel until the given buffer is full.
+     *
+     * @param  channel   the channel from which to read the bytes.
+     * @param  buffer    the buffer to fill.
+     * @param  position  the file position of the first byte to read.
+     * @throws IOException if an error occurred while reading, or if the end of file is reached.
+     */
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("Unexpected end of file.");
+            position += n;
+        }
+    }
+
+    /**
+     * Returns the position of the first coordinate value for a header with a <abbr>CRS</abbr> code of the given length.
+     *
+     * @param  codeLength  number of characters in the <abbr>CRS</abbr> code.
+     * @return file position of the first coordinate value.
+     */
+    private static long dataStart(final int codeLength) {
+        return (30 + codeLength + 7) & ~7L;
+    }
+
+    /**
+     * Writes the given coordinate set in a file which can be read by this class.
+     * The coordinate values are written in the native byte order of the platform.
+     * The values are first written in a temporary file, which then replaces the given file.
+     * Consequently, the given file can be replaced while a previous version is mapped
+     * by a {@code MappedCoordinateSet}, on platforms allowing to replace a mapped file.
+     *
+     * @param  data             the coordinate tuples to write.
+     * @param  crsCode          authority code of the <abbr>CRS</abbr> of the coordinate set.
+     * @param  singlePrecision  whether to store coordinates as {@code float} instead of {@code double} values.
+     * @param  file             the file to write.
+     * @throws IOException if an error occurred while writing the file, or if the file cannot be replaced.
+     * @throws java.time.DateTimeException if the coordinate epoch cannot be converted to an instant.
+     */
+    public static void write(final CoordinateSet data, final String crsCode, final boolean singlePrecision, final Path file)
+            throws IOException
+    {
+        final Path parent = file.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(parent, String.valueOf(file.getFileName()), ".tmp");
+        try {
+            writeNew(data, crsCode, singlePrecision, temp);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the given coordinate set in a file which is not mapped by any {@code MappedCoordinateSet}.
+     *
+     * @param  data             the coordinate tuples to write.
+     * @param  crsCode          authority code of the <abbr>CRS</abbr> of the coordinate set.
+     * @param  singlePrecision  whether to store coordinates as {@code float} instead of {@code double} values.
+     * @param  file             the file to write, truncated if it already exists.
+     * @throws IOException if an error occurred while writing the file.
+     */
+    private static void writeNew(final CoordinateSet data, final String crsCode, final boolean singlePrecision, final Path file)
+            throws IOException
+    {
+        final int dimension = data.getDimension();
+        final Optional<Temporal> epoch = data.getCoordinateMetadata().getCoordinateEpoch();
+        final byte[] code = crsCode.getBytes(StandardCharsets.UTF_8);
+        final int valueSize = singlePrecision ? Float.BYTES : Double.BYTES;
+        final ByteOrder order = ByteOrder.nativeOrder();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            final long dataStart = dataStart(code.length);
+            final ByteBuffer buffer = ByteBuffer.allocate(Math.max(64 * 1024, (int) dataStart));
+            buffer.position((int) dataStart).order(order);
+            long count = 0;
+            for (final DirectPosition position : data) {
+                if (position.getDimension() != dimension) {
+                    throw new MismatchedDimensionException();
+                }
+                if (buffer.remaining() < dimension * valueSize) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    buffer.clear();
+                }
+                for (int i=0; i<dimension; i++) {
+                    final double value = position.getCoordinate(i);
+                    if (singlePrecision) buffer.putFloat((float) value);
+                    else buffer.putDouble(value);
+                }
+                count++;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            /*
+             * Write the header last, since the number of tuples was unknown before the iteration.
+             */
+            final Instant instant = epoch.map(Instant::from).orElse(null);
+            final ByteBuffer header = ByteBuffer.allocate((int) dataStart);
+            header.putInt(MAGIC)
+                  .put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 1 : 0))
+                  .put((byte) valueSize)
+                  .putShort((short) dimension)
+                  .putLong(count)
+                  .putLong(instant != null ? instant.getEpochSecond() : Long.MIN_VALUE)
+                  .putInt (instant != null ? instant.getNano() : 0)
+                  .putShort((short) code.length)
+                  .put(code)
+                  .clear();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        }
+    }
+
+    /**
+     * Returns the coordinate metadata, which is represented directly by {@code this} implementation.
+     */
+    @Override
+    public CoordinateMetadata getCoordinateMetadata() {
+        return this;
+    }
+
+    /**
+     * Returns the <abbr>CRS</abbr> in which the coordinate tuples are given.
+     */
+    @Override
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the authority code of the <abbr>CRS</abbr>, as stored in the file header.
+     *
+     * @return the <abbr>CRS</abbr> authority code.
+     */
+    public String getCrsCode() {
+        return crsCode;
+    }
+
+    /**
+     * Returns the date at which coordinate tuples referenced to a dynamic <abbr>CRS</abbr> are valid.
+     */
+    @Override
+    public Optional<Temporal> getCoordinateEpoch() {
+        return Optional.ofNullable(epoch);
+    }
+
+    /**
+     * Returns the number of dimensions of coordinate tuples, as declared in the file header.
+     */
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of coordinate tuples in this set.
+     *
+     * @return number of coordinate tuples.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Returns an iterator over the positions described by coordinate tuples.
+     * The positions are views over the mapped file.
+     */
+    @Override
+    public Iterator<DirectPosition> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * Returns views over the mapped windows if the coordinates are stored as double-precision values.
+     * Each window is a separated buffer, and each call to this method returns new buffer instances.
+     */
+    @Override
+    public Optional<Stream<DoubleBuffer>> asDoubleBuffers() {
+        if (singlePrecision) {
+            return Optional.empty();
+        }
+        return Optional.of(Arrays.stream(windows).map((w) -> w.duplicate().order(w.order()).asDoubleBuffer()));
+    }
+
+    /**
+     * Returns views over the mapped windows if the coordinates are stored as single-precision values.
+     * Each window is a separated buffer, and each call to this method returns new buffer instances.
+     */
+    @Override
+    public Optional<Stream<FloatBuffer>> asFloatBuffers() {
+        if (!singlePrecision) {
+            return Optional.empty();
+        }
+        return Optional.of(Arrays.stream(windows).map((w) -> w.duplicate().order(w.order()).asFloatBuffer()));
+    }
+
+    /**
+     * Returns a string representation of this coordinate set for debugging purposes.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '[' + crsCode + ", " + count + " tuples of "
+                + dimension + (singlePrecision ? " floats]" : " doubles]");
+    }
+}
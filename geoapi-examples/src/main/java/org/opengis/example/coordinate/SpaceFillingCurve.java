@@ -0,0 +1,503 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import org.opengis.geometry.Envelope;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+
+
+/**
+ * Computes Morton (Z-order) or Hilbert keys of coordinate tuples in a bounded domain of 2 to 4 dimensions.
+ * Coordinates are normalized to the domain, quantized on {@linkplain #getBitsPerDimension() 63 / <var>n</var>}
+ * bits per dimension, then the bits of all dimensions are interleaved in a {@code long} key.
+ * Coordinates outside the domain are clamped to the domain bounds.
+ * Sorting data by key gives a good locality: tuples close in the key order are close in space.
+ * The Hilbert curve gives a better locality than the Morton curve, at the cost of a slower encoding.
+ *
+ * <p>The keys are non-negative, so they can be compared with the usual signed comparisons.
+ * Instances of this class are immutable and thread-safe.</p>
+ */
+public final class SpaceFillingCurve {
+    /**
+     * The kind of space-filling curve.
+     */
+    public enum Type {
+        /** The Morton curve, also known as Z-order curve. */
+        MORTON,
+
+        /** The Hilbert curve. */
+        HILBERT
+    }
+
+    /**
+     * Minimal number of tuples for encoding keys in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
+    /**
+     * Number of tuples encoded by each parallel task.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The kind of space-filling curve.
+     */
+    private final Type type;
+
+    /**
+     * Minimal coordinate values of the domain.
+     */
+    private final double[] minimum;
+
+    /**
+     * Factors converting coordinates relative to the minimum into cell indices.
+     */
+    private final double[] scales;
+
+    /**
+     * Number of bits of the cell indices in each dimension.
+     */
+    private final int bits;
+
+    /**
+     * Creates a new space-filling curve for the given domain.
+     *
+     * @param  type     the kind of space-filling curve.
+     * @param  minimum  minimal coordinate values of the domain.
+     * @param  maximum  maximal coordinate values of the domain.
+     * @throws IllegalArgumentException if the number of dimensions is not 2, 3 or 4,
+     *         or if the domain bounds are not finite with maximum greater than minimum.
+     */
+    public SpaceFillingCurve(final Type type, final double[] minimum, final double[] maximum) {
+        final int dimension = minimum.length;
+        if (dimension < 2 || dimension > 4 || maximum.length != dimension) {
+            throw new IllegalArgumentException("Unsupported number of dimensions.");
+        }
+        this.type    = Objects.requireNonNull(type);
+        this.minimum = minimum.clone();
+        this.bits    = (Long.SIZE - 1) / dimension;
+        this.scales  = new double[dimension];
+        for (int i=0; i<dimension; i++) {
+            final double span = maximum[i] - minimum[i];
+            if (!(span > 0 && span < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Invalid domain in dimension " + i + '.');
+            }
+            scales[i] = (1L << bits) / span;
+        }
+    }
+
+    /**
+     * Creates a space-filling curve for the domain of the axes of the given coordinate system.
+     *
+     * @param  type  the kind of space-filling curve.
+     * @param  cs    the coordinate system from which to get the minimum and maximum axis values.
+     * @return space-filling curve for the domain of the given coordinate system.
+     * @throws IllegalArgumentException if an axis has an infinite range or if the number of dimensions is not supported.
+     */
+    public static SpaceFillingCurve forDomain(final Type type, final CoordinateSystem cs) {
+        final int dimension = cs.getDimension();
+        final double[] minimum = new double[dimension];
+        final double[] maximum = new double[dimension];
+        for (int i=0; i<dimension; i++) {
+            final CoordinateSystemAxis axis = cs.getAxis(i);
+            minimum[i] = axis.getMinimumValue();
+            maximum[i] = axis.getMaximumValue();
+        }
+        return new SpaceFillingCurve(type, minimum, maximum);
+    }
+
+    /**
+     * Creates a space-filling curve for the given domain.
+     *
+     * @param  type    the kind of space-filling curve.
+     * @param  domain  the domain of coordinate values.
+     * @return space-filling curve for the given domain.
+     * @throws IllegalArgumentException if the domain is empty or if the number of dimensions is not supported.
+     */
+    public static SpaceFillingCurve forDomain(final Type type, final Envelope domain) {
+        return new SpaceFillingCurve(type, domain.getLowerCorner().getCoordinates(),
+                                           domain.getUpperCorner().getCoordinates());
+    }
+
+    /**
+     * Returns the number of dimensions of the coordinate tuples.
+     *
+     * @return number of dimensions, between 2 and 4 inclusive.
+     */
+    public int getDimension() {
+        return minimum.length;
+    }
+
+    /**
+     * Returns the number of bits used for the cell index in each dimension.
+     * This is 31 in 2D, 21 in 3D and 15 in 4D.
+     *
+     * @return number of bits per dimension.
+     */
+    public int getBitsPerDimension() {
+        return bits;
+    }
+
+    /**
+     * Returns the key of the given coordinate tuple.
+     *
+     * @param  coordinates  the coordinate tuple.
+     * @return the key of the given tuple.
+     * @throws MismatchedDimensionException if the tuple does not have the expected number of dimensions.
+     */
+    public long encode(final double... coordinates) {
+        if (coordinates.length != minimum.length) {
+            throw new MismatchedDimensionException();
+        }
+        return encode(coordinates, 0, new long[minimum.length]);
+    }
+
+    /**
+     * Computes the keys of many coordinate tuples. The computation is done in parallel for large arrays.
+     *
+     * @param  source     the coordinate values as interleaved tuples.
+     * @param  srcOffset  index of the first coordinate value of the first tuple.
+     * @param  keys       where to store the keys.
+     * @param  keyOffset  index where to store the first key.
+     * @param  count      number of tuples.
+     */
+    public void encode(final double[] source, final int srcOffset, final long[] keys, final int keyOffset, final int count) {
+        final int dimension = minimum.length;
+        Objects.checkFromIndexSize(srcOffset, Math.multiplyExact(count, dimension), source.length);
+        Objects.checkFromIndexSize(keyOffset, count, keys.length);
+        final int numChunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream chunks = IntStream.range(0, numChunks);
+        if (count >= PARALLEL_THRESHOLD) {
+            chunks = chunks.parallel();
+        }
+        chunks.forEach((chunk) -> {
+            final long[] cells = new long[dimension];
+            final int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                keys[keyOffset + i] = encode(source, srcOffset + i * dimension, cells);
+            }
+        });
+    }
+
+    /**
+     * Computes the key of the tuple at the given offset.
+     *
+     * @param  source  the coordinate values.
+     * @param  offset  index of the first coordinate value of the tuple.
+     * @param  cells   a work array of length equal to the number of dimensions.
+     * @return the key of the tuple.
+     */
+    private long encode(final double[] source, final int offset, final long[] cells) {
+        final long max = (1L << bits) - 1;
+        for (int i=0; i<cells.length; i++) {
+            final double c = Math.floor((source[offset + i] - minimum[i]) * scales[i]);
+            cells[i] = (c >= max) ? max : (c > 0) ? (long) c : 0;               // NaN mapped to 0.
+        }
+        if (type == Type.HILBERT) {
+            axesToTranspose(cells);
+        }
+        return interleave(cells);
+    }
+
+    /**
+     * Returns the center of the cell identified by the given key.
+     *
+     * @param  key  the key of a cell.
+     * @return coordinates of the center of the cell.
+     */
+    public double[] decode(final long key) {
+        final double[] result = new double[minimum.length];
+        decode(key, result, 0, new long[minimum.length]);
+        return result;
+    }
+
+    /**
+     * Computes the centers of the cells identified by the given keys.
+     *
+     * @param  keys       the keys of the cells.
+     * @param  keyOffset  index of the first key.
+     * @param  target     where to store the coordinates as interleaved tuples.
+     * @param  tgtOffset  index where to store the first coordinate value.
+     * @param  count      number of keys.
+     */
+    public void decode(final long[] keys, final int keyOffset, final double[] target, final int tgtOffset, final int count) {
+        final int dimension = minimum.length;
+        Objects.checkFromIndexSize(keyOffset, count, keys.length);
+        Objects.checkFromIndexSize(tgtOffset, Math.multiplyExact(count, dimension), target.length);
+        final long[] cells = new long[dimension];
+        for (int i=0; i<count; i++) {
+            decode(keys[keyOffset + i], target, tgtOffset + i * dimension, cells);
+        }
+    }
+
+    /**
+     * Computes the center of the cell identified by the given key.
+     *
+     * @param  key     the key of a cell.
+     * @param  target  where to store the coordinates of the cell center.
+     * @param  offset  index where to store the first coordinate value.
+     * @param  cells   a work array of length equal to the number of dimensions.
+     */
+    private void decode(final long key, final double[] target, final int offset, final long[] cells) {
+        deinterleave(key, cells);
+        if (type == Type.HILBERT) {
+            transposeToAxes(cells);
+        }
+        for (int i=0; i<cells.length; i++) {
+            target[offset + i] = minimum[i] + (cells[i] + 0.5) / scales[i];
+        }
+    }
+
+    /**
+     * Interleaves the bits of the given cell indices, with the first dimension as the most significant.
+     *
+     * @param  cells  the cell indices in each dimension.
+     * @return the key made of the interleaved bits.
+     */
+    private long interleave(final long[] cells) {
+        long key = 0;
+        for (int b = bits; --b >= 0;) {
+            for (final long cell : cells) {
+                key = (key << 1) | ((cell >>> b) & 1);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Separates the interleaved bits of the given key into cell indices.
+     *
+     * @param  key    the key to separate.
+     * @param  cells  where to store the cell indices in each dimension.
+     */
+    private void deinterleave(long key, final long[] cells) {
+        Arrays.fill(cells, 0);
+        for (int b = 0; b < bits; b++) {
+            for (int i = cells.length; --i >= 0;) {
+                cells[i] |= (key & 1) << b;
+                key >>>= 1;
+            }
+        }
+    }
+
+    /**
+     * Converts cell indices to the transposed form of the Hilbert index, using Skilling's algorithm.
+     * The Hilbert index is obtained by interleaving the bits of the transposed form.
+     *
+     * @param  x  the cell indices, replaced by the transposed form of the Hilbert index.
+     */
+    private void axesToTranspose(final long[] x) {
+        final int n = x.length;
+        for (long q = 1L << (bits - 1); q > 1; q >>>= 1) {
+            final long p = q - 1;
+            for (int i=0; i<n; i++) {
+                if ((x[i] & q) != 0) {
+                    x[0] ^= p;                                  // Invert low bits of x[0].
+                } else {
+                    final long t = (x[0] ^ x[i]) & p;           // Exchange low bits of x[i] and x[0].
+                    x[0] ^= t;
+                    x[i] ^= t;
+                }
+            }
+        }
+        for (int i=1; i<n; i++) {                               // Gray encode.
+            x[i] ^= x[i-1];
+        }
+        long t = 0;
+        for (long q = 1L << (bits - 1); q > 1; q >>>= 1) {
+            if ((x[n-1] & q) != 0) t ^= q - 1;
+        }
+        for (int i=0; i<n; i++) {
+            x[i] ^= t;
+        }
+    }
+
+    /**
+     * Converts the transposed form of a Hilbert index to cell indices, using Skilling's algorithm.
+     *
+     * @param  x  the transposed form of the Hilbert index, replaced by the cell indices.
+     */
+    private void transposeToAxes(final long[] x) {
+        final int n = x.length;
+        final long t = x[n-1] >>> 1;                           // Gray decode.
+        for (int i = n; --i > 0;) {
+            x[i] ^= x[i-1];
+        }
+        x[0] ^= t;
+        for (long q = 2; q != (1L << bits); q <<= 1) {          // Undo excess work.
+            final long p = q - 1;
+            for (int i = n; --i >= 0;) {
+                if ((x[i] & q) != 0) {
+                    x[0] ^= p;
+                } else {
+                    final long s = (x[0] ^ x[i]) & p;
+                    x[0] ^= s;
+                    x[i] ^= s;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indices of the tuples sorted by keys. Tuples having the same key are in increasing index order.
+     * Each key is packed with its index in a {@code long} value, so the sort is a parallel sort of primitive values.
+     * If the key and the index do not fit together in 63 bits, the lowest bits of the keys are dropped, then each
+     * run of tuples having the same truncated key is sorted again on the dropped bits packed with the positions
+     * in the run.
+     *
+     * @param  keys  the keys of all tuples.
+     * @return indices of the tuples in increasing key order.
+     */
+    private static int[] sortOrder(final long[] keys) {
+        final int n = keys.length;
+        long union = 0;
+        for (final long key : keys) {
+            union |= key;
+        }
+        final int indexBits = bitCount(n);
+        final int keyBits = Long.SIZE - Long.numberOfLeadingZeros(union);
+        final int shift = Math.max(0, keyBits + indexBits - (Long.SIZE - 1));
+        final long[] packed = new long[n];
+        Arrays.parallelSetAll(packed, (i) -> ((keys[i] >>> shift) << indexBits) | i);
+        Arrays.parallelSort(packed);
+        final int[] order = new int[n];
+        final long indexMask = (1L << indexBits) - 1;
+        Arrays.parallelSetAll(order, (i) -> (int) (packed[i] & indexMask));
+        if (shift != 0) {
+            final long lowMask = (1L << shift) - 1;
+            int start = 0;
+            while (start < n) {
+                final long high = keys[order[start]] >>> shift;
+                int end = start + 1;
+                while (end < n && (keys[order[end]] >>> shift) == high) {
+                    end++;
+                }
+                final int length = end - start;
+                if (length > 1) {
+                    final int positionBits = bitCount(length);
+                    final long positionMask = (1L << positionBits) - 1;
+                    final long[] run = new long[length];
+                    for (int k=0; k<length; k++) {
+                        run[k] = ((keys[order[start + k]] & lowMask) << positionBits) | k;
+                    }
+                    Arrays.sort(run);
+                    final int[] indices = Arrays.copyOfRange(order, start, end);
+                    for (int k=0; k<length; k++) {
+                        order[start + k] = indices[(int) (run[k] & positionMask)];
+                    }
+                }
+                start = end;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns the number of bits needed for storing all integers from 0 inclusive to the given value exclusive.
+     *
+     * @param  count  the number of distinct values to store.
+     * @return number of bits for storing values from 0 to {@code count - 1}.
+     */
+    private static int bitCount(final long count) {
+        return (count > 1) ? Long.SIZE - Long.numberOfLeadingZeros(count - 1) : 0;
+    }
+
+    /**
+     * Returns the indices of the tuples of the given coordinate set, sorted by key.
+     * The keys are computed in parallel and sorted with a parallel sort.
+     *
+     * @param  data  the coordinate tuples to sort.
+     * @return indices of the tuples in increasing key order.
+     * @throws MismatchedDimensionException if the coordinate set does not have the expected number of dimensions.
+     */
+    public int[] sortOrder(final CoordinateSet data) {
+        return sortOrder(encodeAll(toArray(data)));
+    }
+
+    /**
+     * Returns a copy of the given coordinate set with tuples sorted by key.
+     *
+     * @param  data  the coordinate tuples to sort.
+     * @return the sorted coordinate tuples.
+     * @throws MismatchedDimensionException if the coordinate set does not have the expected number of dimensions.
+     */
+    public ArrayCoordinateSet reorder(final CoordinateSet data) {
+        final int dimension = minimum.length;
+        final double[] source = toArray(data);
+        final int[] order = sortOrder(encodeAll(source));
+        final double[] target = new double[source.length];
+        IntStream.range(0, order.length).parallel().forEach((i) ->
+                System.arraycopy(source, order[i] * dimension, target, i * dimension, dimension));
+        final CoordinateMetadata md = data.getCoordinateMetadata();
+        return new ArrayCoordinateSet(md.getCoordinateReferenceSystem(), md.getCoordinateEpoch().orElse(null), target);
+    }
+
+    /**
+     * Returns the indices of the given envelopes sorted by the keys of their centers.
+     *
+     * @param  envelopes  the envelopes to sort.
+     * @return indices of the envelopes in increasing key order.
+     * @throws MismatchedDimensionException if an envelope does not have the expected number of dimensions.
+     */
+    public int[] sortOrder(final List<? extends Envelope> envelopes) {
+        final int dimension = minimum.length;
+        final double[] centers = new double[Math.multiplyExact(envelopes.size(), dimension)];
+        IntStream.range(0, envelopes.size()).parallel().forEach((i) -> {
+            final Envelope envelope = envelopes.get(i);
+            if (envelope.getDimension() != dimension) {
+                throw new MismatchedDimensionException();
+            }
+            for (int j=0; j<dimension; j++) {
+                centers[i * dimension + j] = envelope.getMedian(j);
+            }
+        });
+        return sortOrder(encodeAll(centers));
+    }
+
+    /**
+     * Computes the keys of all tuples in the given array.
+     *
+     * @param  coordinates  the coordinate values as interleaved tuples.
+     * @return the keys of all tuples.
+     */
+    private long[] encodeAll(final double[] coordinates) {
+        final long[] keys = new long[coordinates.length / minimum.length];
+        encode(coordinates, 0, keys, 0, keys.length);
+        return keys;
+    }
+
+    /**
+     * Copies all tuples of the given coordinate set in an array.
+     *
+     * @param  data  the coordinate set to copy.
+     * @return the coordinate values as interleaved tuples.
+     * @throws MismatchedDimensionException if the coordinate set does not have the expected number of dimensions.
+     */
+    private double[] toArray(final CoordinateSet data) {
+        final int dimension = minimum.length;
+        if (data.getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final var values = new double[][] {new double[dimension * 1024]};
+        final int[] length = new int[1];
+        CoordinateTuples.forEach(data, (buffer, offset) -> {
+            if (length[0] + dimension > values[0].length) {
+                values[0] = Arrays.copyOf(values[0], values[0].length * 2);
+            }
+            System.arraycopy(buffer, offset, values[0], length[0], dimension);
+            length[0] += dimension;
+        });
+        return Arrays.copyOf(values[0], length[0]);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.feature;
+
+import java.util.Objects;
+import org.opengis.util.LocalName;
+import org.opengis.util.InternationalString;
+import org.opengis.feature.Attribute;
+import org.opengis.feature.AttributeType;
+import org.opengis.example.util.SimpleNameFactory;
+
+
+/**
+ * An {@link AttributeType} with a name, a value class, a cardinality and an optional default value.
+ * Attribute characteristics are not supported.
+ *
+ * <p>Instances of this class are immutable and thread-safe if the default value is immutable.</p>
+ *
+ * @param <V>  the type of attribute values.
+ */
+public class SimpleAttributeType<V> implements AttributeType<V> {
+    /**
+     * The name of the attribute type.
+     */
+    private final LocalName name;
+
+    /**
+     * The type of attribute values.
+     */
+    private final Class<V> valueClass;
+
+    /**
+     * The minimum and maximum number of occurrences of the attribute in a feature.
+     */
+    private final int minimumOccurs, maximumOccurs;
+
+    /**
+     * The default value, or {@code null} if none.
+     */
+    private final V defaultValue;
+
+    /**
+     * Creates a new attribute type.
+     *
+     * @param  name           the name of the attribute type.
+     * @param  valueClass     the type of attribute values.
+     * @param  minimumOccurs  the minimum number of occurrences of the attribute in a feature.
+     * @param  maximumOccurs  the maximum number of occurrences of the attribute in a feature.
+     * @param  defaultValue   the default value, or {@code null} if none.
+     * @throws IllegalArgumentException if the cardinality is invalid or the default value is not an instance of the value class.
+     */
+    public SimpleAttributeType(final String name, final Class<V> valueClass,
+                               final int minimumOccurs, final int maximumOccurs, final V defaultValue)
+    {
+        if (minimumOccurs < 0 || maximumOccurs < minimumOccurs || maximumOccurs == 0) {
+            throw new IllegalArgumentException("Invalid cardinality: [" + minimumOccurs + " … " + maximumOccurs + "].");
+        }
+        this.name          = SimpleNameFactory.provider().createLocalName(null, name);
+        this.valueClass    = Objects.requireNonNull(valueClass);
+        this.minimumOccurs = minimumOccurs;
+        this.maximumOccurs = maximumOccurs;
+        this.defaultValue  = (defaultValue != null) ? valueClass.cast(defaultValue) : null;
+    }
+
+    /**
+     * Creates a new attribute type for a mandatory singleton value without default value.
+     *
+     * @param  name        the name of the attribute type.
+     * @param  valueClass  the type of attribute values.
+     */
+    public SimpleAttributeType(final String name, final Class<V> valueClass) {
+        this(name, valueClass, 1, 1, null);
+    }
+
+    /**
+     * Returns the name of this attribute type.
+     *
+     * @return the attribute type name.
+     */
+    @Override
+    public LocalName getName() {
+        return name;
+    }
+
+    /**
+     * Returns the name as a definition, since this simple implementation has no other text.
+     *
+     * @return the name of this attribute type.
+     */
+    @Override
+    public InternationalString getDefinition() {
+        return name.toInternationalString();
+    }
+
+    /**
+     * Returns the type of attribute values.
+     *
+     * @return the type of attribute values.
+     */
+    @Override
+    public Class<V> getValueClass() {
+        return valueClass;
+    }
+
+    /**
+     * Returns the minimum number of occurrences of the attribute in a feature.
+     *
+     * @return the minimum number of occurrences.
+     */
+    @Override
+    public int getMinimumOccurs() {
+        return minimumOccurs;
+    }
+
+    /**
+     * Returns the maximum number of occurrences of the attribute in a feature.
+     *
+     * @return the maximum number of occurrences.
+     */
+    @Override
+    public int getMaximumOccurs() {
+        return maximumOccurs;
+    }
+
+    /**
+     * Returns the default value, or {@code null} if none.
+     *
+     * @return the default value, or {@code null}.
+     */
+    @Override
+    public V getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Unsupported operation, since attributes exist only as views over {@link SimpleFeature} values.
+     *
+     * @return never returned.
+     * @throws UnsupportedOperationException always thrown.
+     */
+    @Override
+    public Attribute<V> newInstance() {
+        throw new UnsupportedOperationException("Attributes are created by SimpleFeature.");
+    }
+
+    /**
+     * Compares this attribute type with the given object for equality.
+     *
+     * @param  other  the object to compare with this attribute type.
+     * @return whether the two objects are equal.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof SimpleAttributeType<?>) {
+            final var that = (SimpleAttributeType<?>) other;
+            return name.equals(that.name) && valueClass == that.valueClass
+                    && minimumOccurs == that.minimumOccurs && maximumOccurs == that.maximumOccurs
+                    && Objects.equals(defaultValue, that.defaultValue);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this attribute type.
+     *
+     * @return a hash code value.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, valueClass, minimumOccurs, maximumOccurs, defaultValue);
+    }
+
+    /**
+     * Returns a string representation of this attribute type.
+     *
+     * @return the name, value class and cardinality.
+     */
+    @Override
+    public String toString() {
+        return name + " : " + valueClass.getSimpleName() + " [" + minimumOccurs + " … " + maximumOccurs + ']';
+    }
+}
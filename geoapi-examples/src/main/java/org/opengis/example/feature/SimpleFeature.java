@@ -0,0 +1,405 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.feature;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import org.opengis.util.GenericName;
+import org.opengis.feature.Feature;
+import org.opengis.feature.Property;
+import org.opengis.feature.Attribute;
+import org.opengis.feature.AttributeType;
+import org.opengis.feature.FeatureAssociation;
+import org.opengis.feature.FeatureAssociationRole;
+import org.opengis.feature.PropertyType;
+import org.opengis.feature.PropertyNotFoundException;
+import org.opengis.feature.InvalidPropertyValueException;
+import org.opengis.feature.MultiValuedPropertyException;
+
+
+/**
+ * A {@link Feature} storing its property values in an array.
+ * The value of a property having a maximum number of occurrences greater than 1
+ * is stored as an unmodifiable {@link List}, possibly empty.
+ * Values can be read and written by property name or, more efficiently,
+ * by the {@linkplain SimpleFeatureType#indexOf(String) index} of the property.
+ *
+ * <p>This class is not thread-safe. Concurrent reads are safe if there is no concurrent write.</p>
+ */
+public class SimpleFeature implements Feature {
+    /**
+     * The type of this feature.
+     */
+    private final SimpleFeatureType type;
+
+    /**
+     * The property values, in the order of the properties in the feature type.
+     */
+    private final Object[] values;
+
+    /**
+     * Creates a new feature of the given type, with all properties initialized to their default values.
+     *
+     * @param  type  the type of the new feature.
+     */
+    public SimpleFeature(final SimpleFeatureType type) {
+        this.type = type;
+        values = new Object[type.size()];
+        for (int i=0; i<values.length; i++) {
+            final PropertyType property = type.getProperty(i);
+            if (isMultiValued(property)) {
+                values[i] = List.of();
+            } else if (property instanceof AttributeType<?>) {
+                values[i] = ((AttributeType<?>) property).getDefaultValue();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given property may have more than one value.
+     *
+     * @param  property  the property to test.
+     * @return whether the property maximum occurrence is greater than 1.
+     */
+    private static boolean isMultiValued(final PropertyType property) {
+        if (property instanceof AttributeType<?>) {
+            return ((AttributeType<?>) property).getMaximumOccurs() > 1;
+        }
+        if (property instanceof FeatureAssociationRole) {
+            return ((FeatureAssociationRole) property).getMaximumOccurs() > 1;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the type of this feature.
+     *
+     * @return the feature type.
+     */
+    @Override
+    public SimpleFeatureType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the value of the property at the given index.
+     * This method is faster than {@link #getPropertyValue(String)} since it does not need to search the property.
+     *
+     * @param  index  index of the property in the feature type.
+     * @return value of the property, or a list if the property is multi-valued.
+     */
+    public Object getPropertyValue(final int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the value of the property of the given name.
+     *
+     * @param  name  name of the property.
+     * @return value of the property, or a list if the property is multi-valued.
+     * @throws PropertyNotFoundException if the feature type has no property of the given name.
+     */
+    @Override
+    public Object getPropertyValue(final String name) throws PropertyNotFoundException {
+        return values[type.index(name)];
+    }
+
+    /**
+     * Sets the value of the property at the given index.
+     *
+     * @param  index  index of the property in the feature type.
+     * @param  value  the new value, or a collection of values if the property is multi-valued.
+     * @throws InvalidPropertyValueException if the value is not of the type expected by the property.
+     */
+    public void setPropertyValue(final int index, final Object value) {
+        values[index] = verify(type.getProperty(index), value);
+    }
+
+    /**
+     * Sets the value of the property of the given name.
+     *
+     * @param  name   name of the property.
+     * @param  value  the new value, or a collection of values if the property is multi-valued.
+     * @throws PropertyNotFoundException if the feature type has no property of the given name.
+     * @throws InvalidPropertyValueException if the value is not of the type expected by the property.
+     */
+    @Override
+    public void setPropertyValue(final String name, final Object value) {
+        setPropertyValue(type.index(name), value);
+    }
+
+    /**
+     * Verifies that the given value is valid for the given property, and returns the value to store.
+     *
+     * @param  property  the property for which to verify the value.
+     * @param  value     the value to verify, or {@code null}.
+     * @return the value to store, as an unmodifiable list if the property is multi-valued.
+     * @throws InvalidPropertyValueException if the value is not valid for the property.
+     */
+    private static Object verify(final PropertyType property, final Object value) {
+        if (isMultiValued(property)) {
+            if (value == null) {
+                return List.of();
+            }
+            if (!(value instanceof Collection<?>)) {
+                throw new InvalidPropertyValueException("Property " + property.getName() + " expects a collection.");
+            }
+            final List<?> list = List.copyOf((Collection<?>) value);
+            for (final Object element : list) {
+                verifyElement(property, element);
+            }
+            return list;
+        }
+        if (value != null) {
+            verifyElement(property, value);
+        }
+        return value;
+    }
+
+    /**
+     * Verifies that the given non-null value is valid for a single occurrence of the given property.
+     *
+     * @param  property  the property for which to verify the value.
+     * @param  value     the value to verify.
+     * @throws InvalidPropertyValueException if the value is not valid for the property.
+     */
+    private static void verifyElement(final PropertyType property, final Object value) {
+        final boolean valid;
+        if (property instanceof AttributeType<?>) {
+            valid = ((AttributeType<?>) property).getValueClass().isInstance(value);
+        } else if (property instanceof FeatureAssociationRole) {
+            valid = (value instanceof Feature) && ((FeatureAssociationRole) property).getValueType()
+                                                        .isAssignableFrom(((Feature) value).getType());
+        } else {
+            valid = true;
+        }
+        if (!valid) {
+            throw new InvalidPropertyValueException("Invalid value for property " + property.getName() + ": " + value);
+        }
+    }
+
+    /**
+     * Returns a view over the property of the given name.
+     * Changes in the returned property are reflected in this feature.
+     *
+     * @param  name  name of the property.
+     * @return a view over the property.
+     * @throws PropertyNotFoundException if the feature type has no property of the given name.
+     */
+    @Override
+    public Property getProperty(final String name) throws PropertyNotFoundException {
+        final int index = type.index(name);
+        final PropertyType property = type.getProperty(index);
+        if (property instanceof AttributeType<?>) {
+            return new AttributeView<>((AttributeType<?>) property, index);
+        }
+        if (property instanceof FeatureAssociationRole) {
+            return new AssociationView((FeatureAssociationRole) property, index);
+        }
+        throw new PropertyNotFoundException("Property " + name + " is neither an attribute or an association.");
+    }
+
+    /**
+     * Sets the value of a property from the value of the given property.
+     *
+     * @param  property  the property from which to copy the value.
+     * @throws PropertyNotFoundException if the feature type has no property of the same name.
+     * @throws InvalidPropertyValueException if the value is not of the type expected by the property.
+     */
+    @Override
+    public void setProperty(final Property property) {
+        final int index = type.index(property.getName().toString());
+        final Object value;
+        if (isMultiValued(type.getProperty(index))) {
+            if (property instanceof Attribute<?>) {
+                value = ((Attribute<?>) property).getValues();
+            } else if (property instanceof FeatureAssociation) {
+                value = ((FeatureAssociation) property).getValues();
+            } else {
+                value = property.getValue();
+            }
+        } else {
+            value = property.getValue();
+        }
+        setPropertyValue(index, value);
+    }
+
+    /**
+     * Base class of views over a property value.
+     */
+    private abstract class View {
+        /** Index of the property in the feature type. */
+        final int index;
+
+        /**
+         * Creates a new view over the property at the given index.
+         *
+         * @param  index  index of the property.
+         */
+        View(final int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the singleton value, or throws an exception if the property has many values.
+         *
+         * @param  name  name of the property, for the error message.
+         * @return the singleton value, or {@code null} if none.
+         * @throws MultiValuedPropertyException if the property has more than one value.
+         */
+        final Object single(final GenericName name) {
+            final Object value = values[index];
+            if (isMultiValued(type.getProperty(index))) {
+                final List<?> list = (List<?>) value;
+                switch (list.size()) {
+                    case 0:  return null;
+                    case 1:  return list.get(0);
+                    default: throw new MultiValuedPropertyException("Property " + name + " has many values.");
+                }
+            }
+            return value;
+        }
+
+        /**
+         * Returns all values as a collection.
+         *
+         * @return the values of the property.
+         */
+        final List<?> all() {
+            final Object value = values[index];
+            if (isMultiValued(type.getProperty(index))) return (List<?>) value;
+            return (value != null) ? List.of(value) : List.of();
+        }
+
+        /**
+         * Sets the property to the given single value.
+         *
+         * @param  value  the new value, or {@code null}.
+         */
+        final void set(final Object value) {
+            setPropertyValue(index, isMultiValued(type.getProperty(index))
+                    ? ((value != null) ? List.of(value) : null) : value);
+        }
+
+        /**
+         * Sets the property to the given values.
+         *
+         * @param  values  the new values.
+         */
+        final void setAll(final Collection<?> values) {
+            if (isMultiValued(type.getProperty(index))) {
+                setPropertyValue(index, values);
+            } else if (values.size() <= 1) {
+                setPropertyValue(index, values.isEmpty() ? null : values.iterator().next());
+            } else {
+                throw new InvalidPropertyValueException("Property does not accept many values.");
+            }
+        }
+    }
+
+    /**
+     * A view over an attribute value.
+     *
+     * @param <V>  the type of attribute values.
+     */
+    private final class AttributeView<V> extends View implements Attribute<V> {
+        /** The attribute type. */
+        private final AttributeType<V> attributeType;
+
+        /**
+         * Creates a new view over the attribute at the given index.
+         *
+         * @param  attributeType  the type of the attribute.
+         * @param  index          index of the attribute.
+         */
+        AttributeView(final AttributeType<V> attributeType, final int index) {
+            super(index);
+            this.attributeType = attributeType;
+        }
+
+        @Override public AttributeType<V> getType() {return attributeType;}
+        @Override public V getValue() {return attributeType.getValueClass().cast(single(getName()));}
+        @Override public void setValue(final V value) {set(value);}
+        @Override public void setValues(final Collection<? extends V> values) {setAll(values);}
+
+        @Override
+        @SuppressWarnings("unchecked")      // Values have been verified at insertion time.
+        public Collection<V> getValues() {
+            return (Collection<V>) all();
+        }
+    }
+
+    /**
+     * A view over an association value.
+     */
+    private final class AssociationView extends View implements FeatureAssociation {
+        /** The association role. */
+        private final FeatureAssociationRole role;
+
+        /**
+         * Creates a new view over the association at the given index.
+         *
+         * @param  role   the association role.
+         * @param  index  index of the association.
+         */
+        AssociationView(final FeatureAssociationRole role, final int index) {
+            super(index);
+            this.role = role;
+        }
+
+        @Override public FeatureAssociationRole getRole() {return role;}
+        @Override public Feature getValue() {return (Feature) single(getName());}
+        @Override public void setValue(final Feature value) {set(value);}
+        @Override public void setValues(final Collection<? extends Feature> values) {setAll(values);}
+
+        @Override
+        @SuppressWarnings("unchecked")      // Values have been verified at insertion time.
+        public Collection<Feature> getValues() {
+            return (Collection<Feature>) all();
+        }
+    }
+
+    /**
+     * Compares this feature with the given object for equality.
+     *
+     * @param  other  the object to compare with this feature.
+     * @return whether the two objects are features of the same type with equal values.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof SimpleFeature) {
+            final var that = (SimpleFeature) other;
+            return type.equals(that.type) && Arrays.equals(values, that.values);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this feature.
+     *
+     * @return a hash code value.
+     */
+    @Override
+    public int hashCode() {
+        return type.hashCode() + 31 * Arrays.hashCode(values);
+    }
+
+    /**
+     * Returns a string representation of this feature.
+     *
+     * @return the type name and property values.
+     */
+    @Override
+    public String toString() {
+        final var buffer = new StringBuilder(String.valueOf(type.getName())).append('[');
+        for (int i=0; i<values.length; i++) {
+            if (i != 0) buffer.append(", ");
+            buffer.append(type.getProperty(i).getName()).append('=').append(values[i]);
+        }
+        return buffer.append(']').toString();
+    }
+}
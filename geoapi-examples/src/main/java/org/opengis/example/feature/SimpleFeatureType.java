@@ -0,0 +1,256 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.feature;
+
+import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import org.opengis.util.LocalName;
+import org.opengis.util.InternationalString;
+import org.opengis.feature.AttributeType;
+import org.opengis.feature.FeatureType;
+import org.opengis.feature.PropertyType;
+import org.opengis.feature.PropertyNotFoundException;
+import org.opengis.example.util.SimpleNameFactory;
+
+
+/**
+ * A {@link FeatureType} with a fixed list of properties and no super-type.
+ * Each property is identified by its index in the list, which is also the index
+ * of the property value in the {@link SimpleFeature} instances of this type.
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public class SimpleFeatureType implements FeatureType {
+    /**
+     * The name of this feature type.
+     */
+    private final LocalName name;
+
+    /**
+     * The properties, in the order of their indices.
+     */
+    private final PropertyType[] properties;
+
+    /**
+     * Index of each property, for fetching values by name.
+     */
+    private final Map<String,Integer> indices;
+
+    /**
+     * Creates a new feature type.
+     *
+     * @param  name        the name of the feature type.
+     * @param  properties  the properties of the feature type.
+     * @throws IllegalArgumentException if two properties have the same name.
+     */
+    public SimpleFeatureType(final String name, final PropertyType... properties) {
+        this.name = SimpleNameFactory.provider().createLocalName(null, name);
+        this.properties = properties.clone();
+        indices = new HashMap<>();
+        for (int i=0; i<properties.length; i++) {
+            if (indices.put(properties[i].getName().toString(), i) != null) {
+                throw new IllegalArgumentException("Duplicated property: " + properties[i].getName());
+            }
+        }
+    }
+
+    /**
+     * Returns the name of this feature type.
+     *
+     * @return the feature type name.
+     */
+    @Override
+    public LocalName getName() {
+        return name;
+    }
+
+    /**
+     * Returns the name as a definition, since this simple implementation has no other text.
+     *
+     * @return the name of this feature type.
+     */
+    @Override
+    public InternationalString getDefinition() {
+        return name.toInternationalString();
+    }
+
+    /**
+     * Returns {@code false} since instances of this type can be created.
+     *
+     * @return {@code false}.
+     */
+    @Override
+    public boolean isAbstract() {
+        return false;
+    }
+
+    /**
+     * Returns whether all properties are attributes with at most one value.
+     *
+     * @return whether this feature type is simple.
+     */
+    @Override
+    public boolean isSimple() {
+        for (final PropertyType property : properties) {
+            if (!(property instanceof AttributeType<?>) || ((AttributeType<?>) property).getMaximumOccurs() > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the property of the given name.
+     *
+     * @param  name  name of the property to search.
+     * @return index of the property, or -1 if none.
+     */
+    public int indexOf(final String name) {
+        final Integer index = indices.get(name);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Returns whether this feature type contains a property of the given name.
+     *
+     * @param  name  name of the property to search.
+     * @return whether the property exists.
+     */
+    @Override
+    public boolean hasProperty(final String name) {
+        return indices.containsKey(name);
+    }
+
+    /**
+     * Returns the property of the given name.
+     *
+     * @param  name  name of the property to search.
+     * @return the property of the given name.
+     * @throws PropertyNotFoundException if this feature type has no property of the given name.
+     */
+    @Override
+    public PropertyType getProperty(final String name) throws PropertyNotFoundException {
+        return properties[index(name)];
+    }
+
+    /**
+     * Returns the property at the given index.
+     *
+     * @param  index  index of the property.
+     * @return the property at the given index.
+     */
+    public PropertyType getProperty(final int index) {
+        return properties[index];
+    }
+
+    /**
+     * Returns the index of the property of the given name, or throws an exception if none.
+     *
+     * @param  name  name of the property to search.
+     * @return index of the property.
+     * @throws PropertyNotFoundException if no property has the given name.
+     */
+    final int index(final String name) throws PropertyNotFoundException {
+        final Integer index = indices.get(name);
+        if (index == null) {
+            throw new PropertyNotFoundException("No property named \"" + name + "\" in " + this.name + '.');
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of properties.
+     *
+     * @return the number of properties.
+     */
+    final int size() {
+        return properties.length;
+    }
+
+    /**
+     * Returns all properties of this feature type.
+     *
+     * @param  includeSuperTypes  ignored, since this feature type has no super-type.
+     * @return all properties, in the order of their indices.
+     */
+    @Override
+    public Collection<? extends PropertyType> getProperties(final boolean includeSuperTypes) {
+        return List.of(properties);
+    }
+
+    /**
+     * Returns an empty set, since this feature type has no super-type.
+     *
+     * @return an empty set.
+     */
+    @Override
+    public Set<? extends FeatureType> getSuperTypes() {
+        return Set.of();
+    }
+
+    /**
+     * Returns whether the given type is equal to this type, since there is no super-type.
+     *
+     * @param  type  the type to test.
+     * @return whether instances of the given type can be used as instances of this type.
+     */
+    @Override
+    public boolean isAssignableFrom(final FeatureType type) {
+        return equals(type);
+    }
+
+    /**
+     * Creates a new feature of this type, with all properties initialized to their default values.
+     *
+     * @return a new feature of this type.
+     */
+    @Override
+    public SimpleFeature newInstance() {
+        return new SimpleFeature(this);
+    }
+
+    /**
+     * Compares this feature type with the given object for equality.
+     *
+     * @param  other  the object to compare with this feature type.
+     * @return whether the two objects are equal.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (other instanceof SimpleFeatureType) {
+            final var that = (SimpleFeatureType) other;
+            return name.equals(that.name) && Arrays.equals(properties, that.properties);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this feature type.
+     *
+     * @return a hash code value.
+     */
+    @Override
+    public int hashCode() {
+        return name.hashCode() + 31 * Arrays.hashCode(properties);
+    }
+
+    /**
+     * Returns a string representation of this feature type.
+     *
+     * @return the name and properties.
+     */
+    @Override
+    public String toString() {
+        return name + Arrays.toString(properties);
+    }
+}
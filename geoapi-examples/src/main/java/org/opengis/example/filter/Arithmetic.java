@@ -0,0 +1,221 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import org.opengis.util.TypeName;
+import org.opengis.util.LocalName;
+import org.opengis.util.ScopedName;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Expression;
+import org.opengis.filter.capability.AvailableFunction;
+import org.opengis.example.util.SimpleNameFactory;
+
+
+/**
+ * An arithmetic operation on two numbers. Integer operands are added, subtracted and multiplied
+ * as {@code long} values when the result does not overflow. All other operations use {@code double} values.
+ * If an operand is null or is not a number, the result is null.
+ */
+final class Arithmetic implements Expression<Feature,Number> {
+    /**
+     * The arithmetic operators. Each operator is also described as a function
+     * available through {@link SimpleFilterFactory#function(String, Expression[])}.
+     */
+    enum Operator implements AvailableFunction {
+        /** Addition.       */ ADD("Add"),
+        /** Subtraction.    */ SUBTRACT("Sub"),
+        /** Multiplication. */ MULTIPLY("Mul"),
+        /** Division.       */ DIVIDE("Div");
+
+        /** The function name. */
+        final ScopedName name;
+
+        /**
+         * Creates a new operator of the given name.
+         *
+         * @param  name  the function name in the {@code "fes"} namespace.
+         */
+        private Operator(final String name) {
+            this.name = (ScopedName) SimpleNameFactory.provider().createGenericName(null, "fes", name);
+        }
+
+        /**
+         * The type of values returned by all arithmetic functions.
+         */
+        private static final TypeName RETURN_TYPE = SimpleNameFactory.provider().createTypeName(null, "Number", Number.class);
+
+        /**
+         * Returns the name of the function, without the {@code "fes"} namespace.
+         *
+         * @return the function name.
+         */
+        @Override
+        public LocalName getName() {
+            return name.tip();
+        }
+
+        /**
+         * Returns the type of values computed by the function.
+         *
+         * @return the {@code Number} type name.
+         */
+        @Override
+        public TypeName getReturnType() {
+            return RETURN_TYPE;
+        }
+
+        /**
+         * Returns the operator for the given function name, or {@code null} if none.
+         *
+         * @param  name  the function name, without namespace.
+         * @return the operator, or {@code null}.
+         */
+        static Operator forName(final String name) {
+            for (final Operator op : values()) {
+                if (op.name.tip().toString().equals(name)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Applies the operation on {@code double} values.
+         *
+         * @param  a  the first operand.
+         * @param  b  the second operand.
+         * @return the result of the operation.
+         */
+        final double apply(final double a, final double b) {
+            switch (this) {
+                case ADD:      return a + b;
+                case SUBTRACT: return a - b;
+                case MULTIPLY: return a * b;
+                default:       return a / b;
+            }
+        }
+    }
+
+    /**
+     * The operation to apply.
+     */
+    final Operator operator;
+
+    /**
+     * The operands.
+     */
+    private final Expression<Feature, ? extends Number> operand1, operand2;
+
+    /**
+     * Creates a new arithmetic operation.
+     *
+     * @param  operator  the operation to apply.
+     * @param  operand1  the first operand.
+     * @param  operand2  the second operand.
+     */
+    Arithmetic(final Operator operator, final Expression<Feature, ? extends Number> operand1,
+                                        final Expression<Feature, ? extends Number> operand2)
+    {
+        this.operator = operator;
+        this.operand1 = operand1;
+        this.operand2 = operand2;
+    }
+
+    /**
+     * Returns the name of the arithmetic function.
+     */
+    @Override
+    public ScopedName getFunctionName() {
+        return operator.name;
+    }
+
+    /**
+     * Returns the type of resources accepted by this expression.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the two operands.
+     */
+    @Override
+    public List<Expression<Feature,?>> getParameters() {
+        return List.of(operand1, operand2);
+    }
+
+    /**
+     * Computes the result of the operation for the given feature.
+     */
+    @Override
+    public Number apply(final Feature feature) {
+        final Object a = operand1.apply(feature);
+        final Object b = operand2.apply(feature);
+        if (!(a instanceof Number && b instanceof Number)) {
+            return null;
+        }
+        final Number na = (Number) a;
+        final Number nb = (Number) b;
+        if (operator != Operator.DIVIDE && Values.isIntegral(na) && Values.isIntegral(nb)) {
+            final long x = na.longValue();
+            final long y = nb.longValue();
+            try {
+                switch (operator) {
+                    case ADD:      return Math.addExact(x, y);
+                    case SUBTRACT: return Math.subtractExact(x, y);
+                    default:       return Math.multiplyExact(x, y);
+                }
+            } catch (ArithmeticException e) {
+                // Overflow: fallback on floating point arithmetic.
+            }
+        }
+        return operator.apply(na.doubleValue(), nb.doubleValue());
+    }
+
+    /**
+     * Returns this expression if the given type is assignable from {@code Number}.
+     *
+     * @throws ClassCastException if the given type is not assignable from {@code Number}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <N> Expression<Feature,N> toValueType(final Class<N> target) {
+        if (target.isAssignableFrom(Number.class)) {
+            return (Expression<Feature,N>) this;
+        }
+        throw new ClassCastException("Arithmetic operations produce numbers.");
+    }
+
+    /**
+     * Compares this expression with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof Arithmetic) {
+            final var that = (Arithmetic) other;
+            return operator == that.operator && operand1.equals(that.operand1) && operand2.equals(that.operand2);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this expression.
+     */
+    @Override
+    public int hashCode() {
+        return operator.hashCode() + 31 * (operand1.hashCode() + 31 * operand2.hashCode());
+    }
+
+    /**
+     * Returns a string representation of this expression.
+     */
+    @Override
+    public String toString() {
+        return operator.name.tip() + "(" + operand1 + ", " + operand2 + ')';
+    }
+}
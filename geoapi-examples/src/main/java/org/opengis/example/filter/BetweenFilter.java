@@ -0,0 +1,136 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Collection;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.BetweenComparisonOperator;
+
+
+/**
+ * Tests whether a value is between two boundaries, inclusive.
+ * If both boundaries are numeric literals, numbers are compared as {@code double} values without boxing.
+ * A multi-valued property matches if any of its values is between the boundaries.
+ */
+final class BetweenFilter implements BetweenComparisonOperator<Feature> {
+    /**
+     * The expression to test, followed by the lower and upper boundaries.
+     */
+    private final Expression<Feature,?> expression, lowerBoundary, upperBoundary;
+
+    /**
+     * The boundaries as {@code double} values, or NaN if the boundaries are not numeric literals.
+     */
+    private final double lower, upper;
+
+    /**
+     * Whether the boundaries are numeric literals.
+     */
+    private final boolean numeric;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param  expression     the expression providing the values to test.
+     * @param  lowerBoundary  the lower boundary, inclusive.
+     * @param  upperBoundary  the upper boundary, inclusive.
+     */
+    BetweenFilter(final Expression<Feature,?> expression,
+                  final Expression<Feature,?> lowerBoundary,
+                  final Expression<Feature,?> upperBoundary)
+    {
+        this.expression    = expression;
+        this.lowerBoundary = lowerBoundary;
+        this.upperBoundary = upperBoundary;
+        final Object lv = (lowerBoundary instanceof Literal<?,?>) ? ((Literal<?,?>) lowerBoundary).getValue() : null;
+        final Object uv = (upperBoundary instanceof Literal<?,?>) ? ((Literal<?,?>) upperBoundary).getValue() : null;
+        numeric = (lv instanceof Number) && (uv instanceof Number);
+        lower   = numeric ? ((Number) lv).doubleValue() : Double.NaN;
+        upper   = numeric ? ((Number) uv).doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the expression to test, followed by the lower and upper boundaries.
+     */
+    @Override
+    public List<Expression<Feature,?>> getExpressions() {
+        return List.of(expression, lowerBoundary, upperBoundary);
+    }
+
+    /**
+     * Tests whether the value of the expression is between the boundaries.
+     */
+    @Override
+    public boolean test(final Feature feature) {
+        final Object value = expression.apply(feature);
+        if (numeric) {
+            if (value instanceof Number) {
+                final double v = ((Number) value).doubleValue();
+                return v >= lower && v <= upper;
+            }
+            if (value instanceof Collection<?>) {
+                return Values.match(MatchAction.ANY, (Collection<?>) value,
+                        (e) -> (e instanceof Number) && ((Number) e).doubleValue() >= lower
+                                                     && ((Number) e).doubleValue() <= upper);
+            }
+        }
+        final Object lv = lowerBoundary.apply(feature);
+        final Object uv = upperBoundary.apply(feature);
+        if (value instanceof Collection<?>) {
+            return Values.match(MatchAction.ANY, (Collection<?>) value, (e) -> isBetween(e, lv, uv));
+        }
+        return isBetween(value, lv, uv);
+    }
+
+    /**
+     * Tests whether the given value is between the given boundaries.
+     *
+     * @param  value  the value to test.
+     * @param  lower  the lower boundary value.
+     * @param  upper  the upper boundary value.
+     * @return whether the value is between the boundaries, inclusive.
+     */
+    private static boolean isBetween(final Object value, final Object lower, final Object upper) {
+        return (Values.compare(value, lower, true) & (Values.GREATER | Values.EQUAL)) != 0
+            && (Values.compare(value, upper, true) & (Values.LESS    | Values.EQUAL)) != 0;
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return (other instanceof BetweenFilter) && getExpressions().equals(((BetweenFilter) other).getExpressions());
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public int hashCode() {
+        return getExpressions().hashCode() ^ 0x3E1A74D2;
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return "PropertyIsBetween" + getExpressions();
+    }
+}
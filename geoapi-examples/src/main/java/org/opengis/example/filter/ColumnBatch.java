@@ -0,0 +1,144 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+
+/**
+ * A batch of records stored in columns, for evaluation by {@link VectorizedFilter}.
+ * Each column contains the values of the property identified by a {@linkplain org.opengis.filter.ValueReference
+ * value reference}, stored in a {@code double[]}, {@code long[]} or {@code Object[]} array where the element at
+ * index <var>i</var> is the value for the record <var>i</var>. Primitive arrays cannot contain null values;
+ * properties which may be null or multi-valued shall be stored in {@code Object[]} arrays.
+ * Integer values of any size can be stored in {@code long[]} arrays, since all integer types are compared
+ * in the same way by the filters.
+ *
+ * <p>Filters which cannot be evaluated on the columns are evaluated on the records,
+ * if a function providing the records has been specified at construction time.</p>
+ *
+ * <p>Columns can be added or replaced between evaluations, but shall not be modified during an evaluation.</p>
+ *
+ * @param <R>  the type of records in the batch.
+ */
+public final class ColumnBatch<R> {
+    /**
+     * The number of records in this batch.
+     */
+    private final int size;
+
+    /**
+     * The columns for each XPath. Values are {@code double[]}, {@code long[]} or {@code Object[]} arrays.
+     */
+    private final Map<String,Object> columns;
+
+    /**
+     * The function providing the record at a given index, or {@code null} if none.
+     */
+    private final IntFunction<? extends R> records;
+
+    /**
+     * Creates a new batch of the given number of records.
+     *
+     * @param  size     the number of records in the batch.
+     * @param  records  the function providing the record at a given index, or {@code null} if none.
+     * @throws IllegalArgumentException if the size is negative.
+     */
+    public ColumnBatch(final int size, final IntFunction<? extends R> records) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+        this.size    = size;
+        this.records = records;
+        columns = new HashMap<>();
+    }
+
+    /**
+     * Returns the number of records in this batch.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the floating point values of the property identified by the given XPath.
+     *
+     * @param  xpath   the XPath of the property, as given by {@link org.opengis.filter.ValueReference#getXPath()}.
+     * @param  values  the property values for each record. The array is not cloned.
+     * @throws IllegalArgumentException if the array is shorter than the number of records.
+     */
+    public void setColumn(final String xpath, final double[] values) {
+        put(xpath, values, values.length);
+    }
+
+    /**
+     * Sets the integer values of the property identified by the given XPath.
+     *
+     * @param  xpath   the XPath of the property, as given by {@link org.opengis.filter.ValueReference#getXPath()}.
+     * @param  values  the property values for each record. The array is not cloned.
+     * @throws IllegalArgumentException if the array is shorter than the number of records.
+     */
+    public void setColumn(final String xpath, final long[] values) {
+        put(xpath, values, values.length);
+    }
+
+    /**
+     * Sets the arbitrary values of the property identified by the given XPath.
+     * Elements may be null or collections (for multi-valued properties).
+     *
+     * @param  xpath   the XPath of the property, as given by {@link org.opengis.filter.ValueReference#getXPath()}.
+     * @param  values  the property values for each record. The array is not cloned.
+     * @throws IllegalArgumentException if the array is shorter than the number of records.
+     */
+    public void setColumn(final String xpath, final Object[] values) {
+        put(xpath, values, values.length);
+    }
+
+    /**
+     * Stores the given column after verification of its length.
+     *
+     * @param  xpath   the XPath of the property stored in the column.
+     * @param  values  the column values.
+     * @param  length  the number of values in the column.
+     * @throws IllegalArgumentException if the column has less values than the number of records.
+     */
+    private void put(final String xpath, final Object values, final int length) {
+        if (length < size) {
+            throw new IllegalArgumentException("Column \"" + xpath + "\" has " + length + " values but " + size + " are required.");
+        }
+        columns.put(Objects.requireNonNull(xpath), values);
+    }
+
+    /**
+     * Returns the column for the given XPath, or {@code null} if none.
+     * The returned value is a {@code double[]}, {@code long[]} or {@code Object[]} array.
+     *
+     * @param  xpath  the XPath of the property.
+     * @return the column values, or {@code null}.
+     */
+    final Object column(final String xpath) {
+        return columns.get(xpath);
+    }
+
+    /**
+     * Returns the record at the given index.
+     *
+     * @param  index  index of the record.
+     * @throws UnsupportedOperationException if this batch does not provide records.
+     * @return the record at the given index.
+     */
+    final R record(final int index) {
+        if (records == null) {
+            throw new UnsupportedOperationException("The filter cannot be vectorized and the batch provides no records.");
+        }
+        return records.apply(index);
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Collection;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.ComparisonOperatorName;
+
+
+/**
+ * Base class of binary comparison operators. The comparison is specialized by the type of the literal
+ * when exactly one operand is a literal: a numeric value is compared to a {@code double} or {@code long}
+ * literal without boxing, and a character string is compared to a {@code String} literal.
+ * When the evaluated value is a collection (a multi-valued property), each element is compared
+ * and the results are combined according to the {@linkplain #getMatchAction() match action}.
+ *
+ * <p>The operator is encoded as a mask of {@link Values#LESS}, {@link Values#EQUAL},
+ * {@link Values#GREATER} and {@link Values#UNORDERED} bits. A value matches if the
+ * result of its comparison with the other operand is one of the bits of the mask.</p>
+ */
+abstract class ComparisonFilter implements BinaryComparisonOperator<Feature> {
+    /**
+     * The type of comparison.
+     */
+    private final ComparisonOperatorName type;
+
+    /**
+     * The operands, in the order specified by the user.
+     */
+    final Expression<Feature,?> expression1, expression2;
+
+    /**
+     * The comparison bits accepted by this operator, for the operands in the order of the evaluation.
+     */
+    final int mask;
+
+    /**
+     * Whether string comparisons are case-sensitive.
+     */
+    final boolean matchCase;
+
+    /**
+     * How to combine the results of comparisons on multi-valued properties.
+     */
+    final MatchAction matchAction;
+
+    /**
+     * Creates a new comparison operator.
+     *
+     * @param  type         the type of comparison.
+     * @param  expression1  the first operand.
+     * @param  expression2  the second operand.
+     * @param  mask         the comparison bits accepted by the operator.
+     * @param  matchCase    whether string comparisons are case sensitive.
+     * @param  matchAction  how to combine the results of comparisons on multi-valued properties.
+     */
+    ComparisonFilter(final ComparisonOperatorName type, final Expression<Feature,?> expression1,
+                     final Expression<Feature,?> expression2, final int mask,
+                     final boolean matchCase, final MatchAction matchAction)
+    {
+        this.type        = type;
+        this.expression1 = expression1;
+        this.expression2 = expression2;
+        this.mask        = mask;
+        this.matchCase   = matchCase;
+        this.matchAction = matchAction;
+    }
+
+    /**
+     * Creates a comparison operator specialized for the types of the given operands.
+     *
+     * @param  type  the type of comparison.
+     * @param  mask  the comparison bits accepted by the operator.
+     * @param  expression1  the first operand.
+     * @param  expression2  the second operand.
+     * @param  matchCase    whether string comparisons are case sensitive.
+     * @param  matchAction  how to combine the results of comparisons on multi-valued properties.
+     * @return the comparison operator.
+     */
+    static ComparisonFilter create(final ComparisonOperatorName type, final int mask,
+                                   final Expression<Feature,?> expression1, final Expression<Feature,?> expression2,
+                                   final boolean matchCase, final MatchAction matchAction)
+    {
+        final boolean literal1 = expression1 instanceof Literal<?,?>;
+        final boolean literal2 = expression2 instanceof Literal<?,?>;
+        if (literal1 != literal2) {
+            final Expression<Feature,?> operand;
+            final Object value;
+            final int m;
+            if (literal2) {
+                operand = expression1;
+                value   = ((Literal<?,?>) expression2).getValue();
+                m       = mask;
+            } else {
+                operand = expression2;
+                value   = ((Literal<?,?>) expression1).getValue();
+                m       = Values.mirror(mask);
+            }
+            if (Values.isIntegral(value)) {
+                return new Integral(type, expression1, expression2, operand, ((Number) value).longValue(), m, matchCase, matchAction);
+            }
+            if (value instanceof Double || value instanceof Float) {
+                return new Real(type, expression1, expression2, operand, ((Number) value).doubleValue(), m, matchCase, matchAction);
+            }
+            if (value instanceof CharSequence) {
+                return new Text(type, expression1, expression2, operand, value.toString(), m, matchCase, matchAction);
+            }
+        }
+        return new General(type, expression1, expression2, mask, matchCase, matchAction);
+    }
+
+    /**
+     * Returns the type of comparison.
+     */
+    @Override
+    public final ComparisonOperatorName getOperatorType() {
+        return type;
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public final Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the two operands, in the order specified by the user.
+     */
+    @Override
+    public final List<Expression<Feature,?>> getExpressions() {
+        return List.of(expression1, expression2);
+    }
+
+    /**
+     * Returns whether string comparisons are case-sensitive.
+     */
+    @Override
+    public final boolean isMatchingCase() {
+        return matchCase;
+    }
+
+    /**
+     * Returns how to combine the results of comparisons on multi-valued properties.
+     */
+    @Override
+    public final MatchAction getMatchAction() {
+        return matchAction;
+    }
+
+    /**
+     * Comparison of an arbitrary expression with a literal.
+     */
+    private abstract static class WithLiteral extends ComparisonFilter {
+        /** The operand which is not a literal. */
+        final Expression<Feature,?> operand;
+
+        /**
+         * Creates a new comparison with a literal.
+         *
+         * @param  type         the type of comparison.
+         * @param  expression1  the first operand.
+         * @param  expression2  the second operand.
+         * @param  operand      the operand which is not a literal.
+         * @param  mask         the comparison bits accepted by the operator.
+         * @param  matchCase    whether string comparisons are case sensitive.
+         * @param  matchAction  how to combine the results of comparisons on multi-valued properties.
+         */
+        WithLiteral(final ComparisonOperatorName type, final Expression<Feature,?> expression1,
+                    final Expression<Feature,?> expression2, final Expression<Feature,?> operand,
+                    final int mask, final boolean matchCase, final MatchAction matchAction)
+        {
+            super(type, expression1, expression2, mask, matchCase, matchAction);
+            this.operand = operand;
+        }
+
+        /** Evaluates the operand and compares the result with the literal. */
+        @Override
+        public final boolean test(final Feature feature) {
+            final Object value = operand.apply(feature);
+            if (value instanceof Collection<?>) {
+                return Values.match(matchAction, (Collection<?>) value, this::testValue);
+            }
+            return testValue(value);
+        }
+
+        /**
+         * Compares a single value with the literal.
+         *
+         * @param  value  a value of the operand which is not a literal.
+         * @return whether the value satisfies the comparison.
+         */
+        abstract boolean testValue(Object value);
+    }
+
+    /**
+     * Comparison of a numeric expression with an integer literal.
+     */
+    private static final class Integral extends WithLiteral {
+        /** The literal value. */
+        private final long literal;
+
+        /**
+         * Creates a new comparison with an integer literal.
+         *
+         * @param  type         the type of comparison.
+         * @param  expression1  the first operand.
+         * @param  expression2  the second operand.
+         * @param  operand      the operand which is not a literal.
+         * @param  literal      the literal value.
+         * @param  mask         the comparison bits accepted by the operator.
+         * @param  matchCase    whether string comparisons are case sensitive.
+         * @param  matchAction  how to combine the results of comparisons on multi-valued properties.
+         */
+        Integral(final ComparisonOperatorName type, final Expression<Feature,?> expression1,
+                 final Expression<Feature,?> expression2, final Expression<Feature,?> operand,
+                 final long literal, final int mask, final boolean matchCase, final MatchAction matchAction)
+        {
+            super(type, expression1, expression2, operand, mask, matchCase, matchAction);
+            this.literal = literal;
+        }
+
+        @Override
+        boolean testValue(final Object value) {
+            if (Values.isIntegral(value)) {
+                return (mask & Values.compare(((Number) value).longValue(), literal)) != 0;
+            }
+            if (value instanceof Number) {
+                return (mask & Values.compare(((Number) value).doubleValue(), literal)) != 0;
+            }
+            return (mask & Values.compare(value, literal, matchCase)) != 0;
+        }
+    }
+
+    /**
+     * Comparison of a numeric expression with a floating point literal.
+     */
+    private static final class Real extends WithLiteral {
+        /** The literal value. */
+        private final double literal;
+
+        /**
+         * Creates a new comparison with a floating point literal.
+         *
+         * @param  type         the type of comparison.
+         * @param  expression1  the first operand.
+         * @param  expression2  the second operand.
+         * @param  operand      the operand which is not a literal.
+         * @param  literal      the literal value.
+         * @param  mask         the comparison bits accepted by the operator.
+         * @param  matchCase    whether string comparisons are case sensitive.
+         * @param  matchAction  how to combine the results of comparisons on multi-valued properties.
+         */
+        Real(final ComparisonOperatorName type, final Expression<Feature,?> expression1,
+             final Expression<Feature,?> expression2, final Expression<Feature,?> operand,
+             final double literal, final int mask, final boolean matchCase, final MatchAction matchAction)
+        {
+            super(type, expression1, expression2, operand, mask, matchCase, matchAction);
+            this.literal = literal;
+        }
+
+        @Override
+        boolean testValue(final Object value) {
+            if (value instanceof Number) {
+                return (mask & Values.compare(((Number) value).doubleValue(), literal)) != 0;
+            }
+            return (mask & Values.compare(value, literal, matchCase)) != 0;
+        }
+    }
+
+    /**
+     * Comparison of an expression with a character string literal.
+     */
+    private static final class Text extends WithLiteral {
+        /** The literal value. */
+        private final String literal;
+
+        /**
+         * Creates a new comparison with a character string literal.
+         *
+         * @param  type         the type of comparison.
+         * @param  expression1  the first operand.
+         * @param  expression2  the second operand.
+         * @param  operand      the operand which is not a literal.
+         * @param  literal      the literal value.
+         * @param  mask         the comparison bits accepted by the operator.
+         * @param  matchCase    whether string comparisons are case sensitive.
+         * @param  matchAction  how to combine the results of comparisons on multi-valued properties.
+         */
+        Text(final ComparisonOperatorName type, final Expression<Feature,?> expression1,
+             final Expression<Feature,?> expression2, final Expression<Feature,?> operand,
+             final String literal, final int mask, final boolean matchCase, final MatchAction matchAction)
+        {
+            super(type, expression1, expression2, operand, mask, matchCase, matchAction);
+            this.literal = literal;
+        }
+
+        @Override
+        boolean testValue(final Object value) {
+            if (value instanceof CharSequence) {
+                return (mask & Values.compare(value.toString(), literal, matchCase)) != 0;
+            }
+            return (mask & Values.compare(value, literal, matchCase)) != 0;
+        }
+    }
+
+    /**
+     * Comparison of two arbitrary expressions. If both values are collections,
+     * the match action is applied on all pairs of elements.
+     */
+    private static final class General extends ComparisonFilter {
+        /**
+         * Creates a new comparison.
+         *
+         * @param  type         the type of comparison.
+         * @param  expression1  the first operand.
+         * @param  expression2  the second operand.
+         * @param  mask         the comparison bits accepted by the operator.
+         * @param  matchCase    whether string comparisons are case sensitive.
+         * @param  matchAction  how to combine the results of comparisons on multi-valued properties.
+         */
+        General(final ComparisonOperatorName type, final Expression<Feature,?> expression1,
+                final Expression<Feature,?> expression2, final int mask,
+                final boolean matchCase, final MatchAction matchAction)
+        {
+            super(type, expression1, expression2, mask, matchCase, matchAction);
+        }
+
+        @Override
+        public boolean test(final Feature feature) {
+            final Object a = expression1.apply(feature);
+            final Object b = expression2.apply(feature);
+            if (a instanceof Collection<?>) {
+                return Values.match(matchAction, (Collection<?>) a, (e) -> compare(e, b));
+            }
+            return compare(a, b);
+        }
+
+        /**
+         * Compares a value of the first operand with the value of the second operand.
+         *
+         * @param  a  a value of the first operand.
+         * @param  b  a value of the second operand.
+         * @return whether the values satisfy the comparison.
+         */
+        private boolean compare(final Object a, final Object b) {
+            if (b instanceof Collection<?>) {
+                return Values.match(matchAction, (Collection<?>) b, (e) -> (mask & Values.compare(a, e, matchCase)) != 0);
+            }
+            return (mask & Values.compare(a, b, matchCase)) != 0;
+        }
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public final boolean equals(final Object other) {
+        if (other instanceof ComparisonFilter) {
+            final var that = (ComparisonFilter) other;
+            return type == that.type && matchCase == that.matchCase && matchAction == that.matchAction
+                    && expression1.equals(that.expression1) && expression2.equals(that.expression2);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public final int hashCode() {
+        return type.hashCode() + 31 * (expression1.hashCode() + 31 * expression2.hashCode()) + (matchCase ? 0 : 7);
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public final String toString() {
+        return type.identifier().orElse(type.name()) + '(' + expression1 + ", " + expression2 + ')';
+    }
+}
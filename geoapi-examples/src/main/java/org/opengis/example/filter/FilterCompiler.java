@@ -0,0 +1,346 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.ValueReference;
+import org.opengis.filter.NullOperator;
+import org.opengis.filter.LogicalOperator;
+import org.opengis.filter.LogicalOperatorName;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BetweenComparisonOperator;
+
+
+/**
+ * Compiles a tree of filters and expressions into a tree of specialized predicates.
+ * Each node of the filter tree is replaced by a lambda specialized for the operator and for the types
+ * of its operands, so that the evaluation does not need to inspect the operator or the literal types,
+ * and compares numbers as primitive {@code double} values without boxing intermediate results:
+ *
+ * <ul>
+ *   <li>{@code And}, {@code Or} and {@code Not} operators, with short-circuit evaluation.</li>
+ *   <li>Binary comparisons where both operands are numeric expressions (literals, value references
+ *       or the {@code Add}, {@code Sub}, {@code Mul} and {@code Div} functions), with the literal
+ *       captured as a primitive constant and one lambda per comparison operator.</li>
+ *   <li>Binary comparisons of an expression with a character string literal.</li>
+ *   <li>{@code Between} operators with numeric literal boundaries.</li>
+ *   <li>{@code IsNull} operators.</li>
+ * </ul>
+ *
+ * Only the operators and arithmetic functions created by {@link SimpleFilterFactory} are specialized,
+ * because the compiled lambdas reproduce the comparison rules of this module. Operators and functions from other
+ * implementations may have different rules (for example for comparing numbers of different types), so they are
+ * kept unchanged.
+ *
+ * The membership tests created by {@link FilterOptimizer} are kept unchanged, since they are already
+ * evaluated by a hash set lookup instead of by their equality operands.
+ * All other nodes are kept unchanged, i.e. they are evaluated by their own {@link Filter#test(Object)}
+ * method. A compiled node also delegates to the original filter for the values that it cannot handle
+ * exactly on the fast path, for example multi-valued properties (which depend on the match action),
+ * values of unexpected types, or integers too large for being represented exactly as {@code double}.
+ * Consequently the compiled predicate always returns the same result as the original filter.
+ *
+ * <p>The predicates returned by this class are immutable and thread-safe
+ * if the original filters and expressions are thread-safe.</p>
+ */
+public final class FilterCompiler {
+    /**
+     * The magnitude of integers above which results of integer arithmetic may not be represented exactly
+     * as {@code double} values. This value itself is excluded because it may be the rounding of 2⁵³ + 1.
+     */
+    private static final double EXACT = 0x1p53;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private FilterCompiler() {
+    }
+
+    /**
+     * Compiles the given filter into a predicate specialized for the operators and the operand types.
+     * The returned predicate gives the same results as the given filter.
+     *
+     * @param  <R>     the type of resources to filter.
+     * @param  filter  the filter to compile.
+     * @return a predicate equivalent to the given filter.
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> Predicate<R> compile(final Filter<R> filter) {
+        if (filter == Filter.include()) return (r) -> true;
+        if (filter == Filter.exclude()) return (r) -> false;
+        if (filter instanceof MembershipFilter<?>) {
+            return filter;                  // Already optimized with a hash set lookup.
+        }
+        if (filter instanceof LogicalOperator<?>) {
+            return logical((LogicalOperator<R>) filter);
+        }
+        /*
+         * Only the comparison filters of this module are known to follow the rules of the `Values` class.
+         * Other implementations of comparison operators are kept unchanged.
+         */
+        if (filter instanceof ComparisonFilter) {
+            return comparison((BinaryComparisonOperator<R>) filter);
+        }
+        if (filter instanceof BetweenFilter) {
+            return between((BetweenComparisonOperator<R>) filter);
+        }
+        if (filter instanceof NullFilter) {
+            /*
+             * Only the filters of this module are known to consider empty collections as null.
+             * Other implementations of `NullOperator` may have different rules, so they are
+             * kept unchanged.
+             */
+            final Function<? super R, ?> expression = ((NullOperator<R>) filter).getExpressions().get(0);
+            return (r) -> {
+                final Object value = expression.apply(r);
+                return (value == null) || (value instanceof Collection<?> && ((Collection<?>) value).isEmpty());
+            };
+        }
+        return filter;
+    }
+
+    /**
+     * Compiles a logical operator. Operators with two operands, the most common case,
+     * are compiled without loop.
+     *
+     * @param  <R>     the type of resources to filter.
+     * @param  filter  the logical operator to compile.
+     * @return the compiled predicate, or the given filter if it cannot be compiled.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> Predicate<R> logical(final LogicalOperator<R> filter) {
+        final List<Filter<R>> operands = filter.getOperands();
+        final Predicate<R>[] compiled = (Predicate<R>[]) new Predicate<?>[operands.size()];
+        for (int i=0; i<compiled.length; i++) {
+            compiled[i] = compile(operands.get(i));
+        }
+        final LogicalOperatorName type = filter.getOperatorType();
+        if (type == LogicalOperatorName.NOT && compiled.length == 1) {
+            final Predicate<R> operand = compiled[0];
+            return (r) -> !operand.test(r);
+        }
+        if (compiled.length == 2) {
+            final Predicate<R> a = compiled[0];
+            final Predicate<R> b = compiled[1];
+            if (type == LogicalOperatorName.AND) return (r) -> a.test(r) && b.test(r);
+            if (type == LogicalOperatorName.OR)  return (r) -> a.test(r) || b.test(r);
+        } else if (compiled.length != 0) {
+            if (type == LogicalOperatorName.AND) {
+                return (r) -> {
+                    for (final Predicate<R> operand : compiled) {
+                        if (!operand.test(r)) return false;
+                    }
+                    return true;
+                };
+            }
+            if (type == LogicalOperatorName.OR) {
+                return (r) -> {
+                    for (final Predicate<R> operand : compiled) {
+                        if (operand.test(r)) return true;
+                    }
+                    return false;
+                };
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Compiles a binary comparison operator. Numeric comparisons with a literal capture the literal as a
+     * {@code double} constant, and each comparison operator has its own lambda. If the value evaluated on
+     * a resource is not a number representable exactly as a {@code double} (including multi-valued
+     * properties), the evaluation is delegated to the original filter.
+     *
+     * @param  <R>     the type of resources to filter.
+     * @param  filter  the comparison operator to compile.
+     * @return the compiled predicate, or the given filter if it cannot be compiled.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> Predicate<R> comparison(final BinaryComparisonOperator<R> filter) {
+        int mask = Values.mask(filter.getOperatorType());
+        if (mask == 0) {
+            return filter;
+        }
+        Expression<R,?> operand = filter.getOperand1();
+        Expression<R,?> other   = filter.getOperand2();
+        if (operand instanceof Literal<?,?> && !(other instanceof Literal<?,?>)) {
+            final Expression<R,?> swap = operand;
+            operand = other;
+            other   = swap;
+            mask    = Values.mirror(mask);
+        }
+        final ToDoubleFunction<R> f1 = numeric(operand);
+        if (other instanceof Literal<?,?>) {
+            final Object literal = ((Literal<R,?>) other).getValue();
+            if (f1 != null && Values.isExact(literal)) {
+                return compare(f1, mask, ((Number) literal).doubleValue(), filter);
+            }
+            if (literal instanceof CharSequence) {
+                return compare(operand, mask, literal.toString(), filter.isMatchingCase(), filter);
+            }
+        } else if (f1 != null) {
+            final ToDoubleFunction<R> f2 = numeric(other);
+            if (f2 != null) {
+                final int m = mask;
+                return (r) -> {
+                    final double a = f1.applyAsDouble(r);
+                    final double b = f2.applyAsDouble(r);
+                    return (a == a && b == b) ? (m & Values.compare(a, b)) != 0 : filter.test(r);
+                };
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Returns a predicate comparing the given numeric expression with a constant.
+     * The {@code NaN} value means that the expression could not be evaluated exactly.
+     *
+     * @param  <R>       the type of resources to filter.
+     * @param  f         the function computing the numeric value, or {@code NaN} if the value is not exact.
+     * @param  mask      the comparison bits accepted by the operator.
+     * @param  c         the constant to compare with.
+     * @param  fallback  the original filter, for values that cannot be compared exactly.
+     * @return the compiled predicate.
+     */
+    private static <R> Predicate<R> compare(final ToDoubleFunction<R> f, final int mask, final double c, final Predicate<R> fallback) {
+        switch (mask) {
+            case Values.LESS: {
+                return (r) -> {final double v = f.applyAsDouble(r); return (v == v) ? v < c : fallback.test(r);};
+            }
+            case Values.LESS | Values.EQUAL: {
+                return (r) -> {final double v = f.applyAsDouble(r); return (v == v) ? v <= c : fallback.test(r);};
+            }
+            case Values.GREATER: {
+                return (r) -> {final double v = f.applyAsDouble(r); return (v == v) ? v > c : fallback.test(r);};
+            }
+            case Values.GREATER | Values.EQUAL: {
+                return (r) -> {final double v = f.applyAsDouble(r); return (v == v) ? v >= c : fallback.test(r);};
+            }
+            case Values.EQUAL: {
+                return (r) -> {final double v = f.applyAsDouble(r); return (v == v) ? v == c : fallback.test(r);};
+            }
+            default: {
+                return (r) -> {final double v = f.applyAsDouble(r); return (v == v) ? v != c : fallback.test(r);};
+            }
+        }
+    }
+
+    /**
+     * Returns a predicate comparing the given expression with a character string constant.
+     *
+     * @param  <R>         the type of resources to filter.
+     * @param  expression  the expression to compare with the literal.
+     * @param  mask        the comparison bits accepted by the operator.
+     * @param  literal     the character string to compare with.
+     * @param  matchCase   whether the comparison is case sensitive.
+     * @param  fallback    the original filter, for values that are not strings.
+     * @return the compiled predicate.
+     */
+    private static <R> Predicate<R> compare(final Function<? super R, ?> expression, final int mask,
+            final String literal, final boolean matchCase, final Predicate<R> fallback)
+    {
+        if (matchCase && (mask == Values.EQUAL)) {
+            return (r) -> {
+                final Object value = expression.apply(r);
+                return (value instanceof String) ? literal.equals(value) : fallback.test(r);
+            };
+        }
+        return (r) -> {
+            final Object value = expression.apply(r);
+            return (value instanceof String) ? (mask & Values.compare((String) value, literal, matchCase)) != 0 : fallback.test(r);
+        };
+    }
+
+    /**
+     * Compiles a "between" operator if the boundaries are numeric literals.
+     *
+     * @param  <R>     the type of resources to filter.
+     * @param  filter  the "between" operator to compile.
+     * @return the compiled predicate, or the given filter if it cannot be compiled.
+     */
+    private static <R> Predicate<R> between(final BetweenComparisonOperator<R> filter) {
+        final ToDoubleFunction<R> f = numeric(filter.getExpression());
+        final Expression<R,?> lower = filter.getLowerBoundary();
+        final Expression<R,?> upper = filter.getUpperBoundary();
+        if (f != null && lower instanceof Literal<?,?> && upper instanceof Literal<?,?>) {
+            final Object lv = ((Literal<R,?>) lower).getValue();
+            final Object uv = ((Literal<R,?>) upper).getValue();
+            if (Values.isExact(lv) && Values.isExact(uv)) {
+                final double lo = ((Number) lv).doubleValue();
+                final double hi = ((Number) uv).doubleValue();
+                return (r) -> {
+                    final double v = f.applyAsDouble(r);
+                    return (v == v) ? (v >= lo && v <= hi) : filter.test(r);
+                };
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Compiles the given expression into a function computing a {@code double} value, or returns {@code null}
+     * if the expression is not numeric. The function returns {@code NaN} if the value cannot be computed exactly,
+     * in which case the caller shall delegate to the original filter. Only the arithmetic functions of this module
+     * are compiled, since functions of other implementations may have the same names but other rules.
+     *
+     * @param  <R>         the type of resources to filter.
+     * @param  expression  the expression to compile.
+     * @return the compiled function, or {@code null} if the expression is not numeric.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> ToDoubleFunction<R> numeric(final Expression<R,?> expression) {
+        if (expression instanceof Literal<?,?>) {
+            final Object value = ((Literal<R,?>) expression).getValue();
+            if (Values.isExact(value)) {
+                final double c = ((Number) value).doubleValue();
+                return (r) -> c;
+            }
+            return null;
+        }
+        if (expression instanceof ValueReference<?,?>) {
+            return (r) -> {
+                final Object value = expression.apply(r);
+                return Values.isExact(value) ? ((Number) value).doubleValue() : Double.NaN;
+            };
+        }
+        if (!(expression instanceof Arithmetic)) {
+            return null;
+        }
+        final List<Expression<R,?>> parameters = expression.getParameters();
+        if (parameters.size() == 2) {
+            final ToDoubleFunction<R> a = numeric(parameters.get(0));
+            final ToDoubleFunction<R> b = numeric(parameters.get(1));
+            if (a != null && b != null) {
+                switch (expression.getFunctionName().tip().toString()) {
+                    case "Add": return (r) -> exact(a.applyAsDouble(r) + b.applyAsDouble(r));
+                    case "Sub": return (r) -> exact(a.applyAsDouble(r) - b.applyAsDouble(r));
+                    case "Mul": return (r) -> exact(a.applyAsDouble(r) * b.applyAsDouble(r));
+                    case "Div": return (r) -> a.applyAsDouble(r) / b.applyAsDouble(r);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the given result of an addition, subtraction or multiplication, or {@code NaN} if the result
+     * may differ from the exact integer arithmetic applied by the interpreted expression.
+     *
+     * @param  value  the result of a floating point operation.
+     * @return the given value, or {@code NaN} if it may not be exact.
+     */
+    private static double exact(final double value) {
+        return (Math.abs(value) < EXACT) ? value : Double.NaN;
+    }
+}
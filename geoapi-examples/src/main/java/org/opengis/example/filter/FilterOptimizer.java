@@ -0,0 +1,410 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.ResourceId;
+import org.opengis.filter.LikeOperator;
+import org.opengis.filter.NullOperator;
+import org.opengis.filter.NilOperator;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.ValueReference;
+import org.opengis.filter.LogicalOperator;
+import org.opengis.filter.LogicalOperatorName;
+import org.opengis.filter.SpatialOperator;
+import org.opengis.filter.DistanceOperator;
+import org.opengis.filter.TemporalOperator;
+import org.opengis.filter.ComparisonOperatorName;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BetweenComparisonOperator;
+
+
+/**
+ * Rewrites filters into equivalent filters which are cheaper to evaluate. The optimizations are:
+ *
+ * <ul>
+ *   <li>Arithmetic expressions and comparisons having only literal operands are replaced by their results.</li>
+ *   <li>Nested {@code And} and {@code Or} operators of the same type are flattened.</li>
+ *   <li>Duplicated operands of {@code And} and {@code Or} operators are removed, {@code Filter.include()} and
+ *       {@code Filter.exclude()} operands are simplified, and double negations are removed.</li>
+ *   <li>An {@code Or} of two or more equality tests between the same property and literal numbers or strings
+ *       is replaced by a filter doing a hash set lookup. That filter still presents itself as an {@code Or}
+ *       operator with the original equality tests as operands. This optimization is applied only when the
+ *       factory is a {@link SimpleFilterFactory} and the equality tests are case-sensitive, use the
+ *       {@link MatchAction#ANY} match action and were created by that factory.</li>
+ *   <li>The operands of {@code And} and {@code Or} operators are sorted by {@linkplain #cost(Filter) cost}
+ *       and {@linkplain #selectivity(Filter) selectivity}, so that cheap and decisive tests such as comparisons
+ *       of attributes are evaluated before expensive tests such as spatial operators.</li>
+ * </ul>
+ *
+ * The filters which need to be rebuilt are created by the factory given at construction time.
+ * The reordering assumes that filters have no side effects, which is the case of standard operators.
+ * Subclasses can override the {@code cost} and {@code selectivity} methods for adjusting the estimations
+ * to the actual data.
+ *
+ * <p>Instances of this class are immutable and thread-safe if the factory is thread-safe.</p>
+ *
+ * @param <R>  the type of resources to filter.
+ */
+public class FilterOptimizer<R> {
+    /**
+     * The factory to use for creating the optimized filters and expressions.
+     */
+    private final FilterFactory<R,?,?> factory;
+
+    /**
+     * Creates a new optimizer which will create the optimized filters with the given factory.
+     *
+     * @param  factory  the factory to use for creating the optimized filters and expressions.
+     */
+    public FilterOptimizer(final FilterFactory<R,?,?> factory) {
+        this.factory = Objects.requireNonNull(factory);
+    }
+
+    /**
+     * Returns an equivalent filter which is cheaper to evaluate.
+     * If no optimization was possible, then the given filter is returned.
+     *
+     * @param  filter  the filter to optimize.
+     * @return the optimized filter.
+     */
+    @SuppressWarnings("unchecked")
+    public Filter<R> optimize(final Filter<R> filter) {
+        if (filter instanceof LogicalOperator<?>) {
+            return logical((LogicalOperator<R>) filter);
+        }
+        final List<Expression<R,?>> expressions = filter.getExpressions();
+        final var optimized = new ArrayList<Expression<R,?>>(expressions.size());
+        boolean changed = false;
+        boolean literals = !expressions.isEmpty();
+        for (final Expression<R,?> expression : expressions) {
+            final Expression<R,?> e = optimize(expression);
+            optimized.add(e);
+            changed  |= (e != expression);
+            literals &= (e instanceof Literal<?,?>);
+        }
+        Filter<R> result = filter;
+        if (changed) {
+            result = rebuild(filter, optimized);
+        }
+        if (literals && result != null) {
+            try {
+                return result.test(null) ? Filter.include() : Filter.exclude();
+            } catch (RuntimeException e) {
+                // The filter needs a resource anyway. Keep it unchanged.
+            }
+        }
+        return (result != null) ? result : filter;
+    }
+
+    /**
+     * Recreates the given filter with new expressions, or returns {@code null} if the filter type is unknown.
+     *
+     * @param  filter       the filter to recreate.
+     * @param  expressions  the new expressions.
+     * @return the new filter, or {@code null} if the filter type is unknown.
+     */
+    private Filter<R> rebuild(final Filter<R> filter, final List<Expression<R,?>> expressions) {
+        if (filter instanceof BinaryComparisonOperator<?>) {
+            final var c = (BinaryComparisonOperator<R>) filter;
+            final Expression<R,?> e1 = expressions.get(0);
+            final Expression<R,?> e2 = expressions.get(1);
+            final boolean matchCase = c.isMatchingCase();
+            final MatchAction action = c.getMatchAction();
+            final ComparisonOperatorName type = c.getOperatorType();
+            if (type == ComparisonOperatorName.PROPERTY_IS_EQUAL_TO)                 return factory.equal         (e1, e2, matchCase, action);
+            if (type == ComparisonOperatorName.PROPERTY_IS_NOT_EQUAL_TO)             return factory.notEqual      (e1, e2, matchCase, action);
+            if (type == ComparisonOperatorName.PROPERTY_IS_LESS_THAN)                return factory.less          (e1, e2, matchCase, action);
+            if (type == ComparisonOperatorName.PROPERTY_IS_GREATER_THAN)             return factory.greater       (e1, e2, matchCase, action);
+            if (type == ComparisonOperatorName.PROPERTY_IS_LESS_THAN_OR_EQUAL_TO)    return factory.lessOrEqual   (e1, e2, matchCase, action);
+            if (type == ComparisonOperatorName.PROPERTY_IS_GREATER_THAN_OR_EQUAL_TO) return factory.greaterOrEqual(e1, e2, matchCase, action);
+        } else if (filter instanceof BetweenComparisonOperator<?>) {
+            return factory.between(expressions.get(0), expressions.get(1), expressions.get(2));
+        } else if (filter instanceof NullOperator<?>) {
+            return factory.isNull(expressions.get(0));
+        }
+        return null;
+    }
+
+    /**
+     * Returns an equivalent expression which is cheaper to evaluate. Arithmetic operations on literals
+     * are replaced by their result. If no optimization was possible, the given expression is returned.
+     *
+     * @param  expression  the expression to optimize.
+     * @return the optimized expression.
+     */
+    @SuppressWarnings("unchecked")
+    public Expression<R,?> optimize(final Expression<R,?> expression) {
+        if (expression instanceof Literal<?,?> || expression instanceof ValueReference<?,?>) {
+            return expression;
+        }
+        final List<Expression<R,?>> parameters = expression.getParameters();
+        final String name = expression.getFunctionName().tip().toString();
+        if (parameters.size() != 2 || !(name.equals("Add") || name.equals("Sub") || name.equals("Mul") || name.equals("Div"))) {
+            return expression;
+        }
+        final var p1 = (Expression<R, ? extends Number>) optimize(parameters.get(0));
+        final var p2 = (Expression<R, ? extends Number>) optimize(parameters.get(1));
+        Expression<R,?> result = expression;
+        if (p1 != parameters.get(0) || p2 != parameters.get(1)) {
+            switch (name) {
+                case "Add": result = factory.add     (p1, p2); break;
+                case "Sub": result = factory.subtract(p1, p2); break;
+                case "Mul": result = factory.multiply(p1, p2); break;
+                default:    result = factory.divide  (p1, p2); break;
+            }
+        }
+        if (p1 instanceof Literal<?,?> && p2 instanceof Literal<?,?>) {
+            final Object value;
+            try {
+                value = result.apply(null);
+            } catch (RuntimeException e) {
+                return result;          // The expression needs a resource anyway.
+            }
+            if (value != null) {
+                return factory.literal(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Optimizes a logical operator.
+     *
+     * @param  filter  the logical operator to optimize.
+     * @return the optimized filter.
+     */
+    private Filter<R> logical(final LogicalOperator<R> filter) {
+        final LogicalOperatorName type = filter.getOperatorType();
+        final List<Filter<R>> operands = filter.getOperands();
+        if (type == LogicalOperatorName.NOT) {
+            if (operands.size() != 1) {
+                return filter;
+            }
+            final Filter<R> operand = optimize(operands.get(0));
+            if (operand == Filter.include()) return Filter.exclude();
+            if (operand == Filter.exclude()) return Filter.include();
+            if (operand instanceof LogicalOperator<?> && ((LogicalOperator<R>) operand).getOperatorType() == LogicalOperatorName.NOT) {
+                final List<Filter<R>> inner = ((LogicalOperator<R>) operand).getOperands();
+                if (inner.size() == 1) {
+                    return inner.get(0);
+                }
+            }
+            return (operand != operands.get(0)) ? factory.not(operand) : filter;
+        }
+        final boolean isAnd = (type == LogicalOperatorName.AND);
+        if (!isAnd && type != LogicalOperatorName.OR) {
+            return filter;
+        }
+        /*
+         * Optimize the operands, flatten the nested operators of the same type and remove duplicated values.
+         * "Include" is the neutral element of "And" and the absorbing element of "Or", and conversely for "Exclude".
+         */
+        final Filter<R> neutral   = isAnd ? Filter.include() : Filter.exclude();
+        final Filter<R> absorbing = isAnd ? Filter.exclude() : Filter.include();
+        final var flattened = new LinkedHashSet<Filter<R>>();
+        final var pending = new ArrayList<Filter<R>>(operands);
+        for (int i=0; i < pending.size(); i++) {
+            final Filter<R> operand = optimize(pending.get(i));
+            if (operand == absorbing) {
+                return absorbing;
+            }
+            if (operand != neutral) {
+                if (operand instanceof LogicalOperator<?> && ((LogicalOperator<R>) operand).getOperatorType() == type) {
+                    pending.addAll(((LogicalOperator<R>) operand).getOperands());
+                } else {
+                    flattened.add(operand);
+                }
+            }
+        }
+        final List<Filter<R>> result = isAnd ? new ArrayList<>(flattened) : mergeEqualities(flattened);
+        switch (result.size()) {
+            case 0: return neutral;
+            case 1: return result.get(0);
+        }
+        /*
+         * Sort the operands in the order which minimizes the expected cost: for an "And" operator, the operands which
+         * are cheap and likely to reject the resource first. For an "Or" operator, the ones likely to accept it first.
+         */
+        final var ranks = new LinkedHashMap<Filter<R>,Double>();
+        for (final Filter<R> operand : result) {
+            final double p = selectivity(operand);
+            ranks.put(operand, cost(operand) / (isAnd ? 1 - p : p));
+        }
+        result.sort(Comparator.comparingDouble(ranks::get));
+        if (result.equals(operands)) {
+            return filter;
+        }
+        return isAnd ? factory.and(result) : factory.or(result);
+    }
+
+    /**
+     * Replaces the equality tests between the same property and literal values by a single membership test.
+     * This method is invoked for the operands of an {@code Or} operator. Only the equality tests created by
+     * {@link SimpleFilterFactory} are merged, because the hash set lookup reproduces the rules of those tests.
+     * Other operands are kept unchanged.
+     *
+     * @param  operands  the operands of an {@code Or} operator.
+     * @return the operands with equality tests merged in membership tests.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Filter<R>> mergeEqualities(final Iterable<Filter<R>> operands) {
+        final var result = new ArrayList<Filter<R>>();
+        if (!(factory instanceof SimpleFilterFactory)) {
+            operands.forEach(result::add);
+            return result;
+        }
+        final var groups = new LinkedHashMap<ValueReference<R,?>, List<Filter<R>>>();
+        for (final Filter<R> operand : operands) {
+            if (operand instanceof ComparisonFilter) {
+                final var c = (BinaryComparisonOperator<R>) operand;
+                if (c.getOperatorType() == ComparisonOperatorName.PROPERTY_IS_EQUAL_TO
+                        && c.isMatchingCase() && c.getMatchAction() == MatchAction.ANY)
+                {
+                    final Expression<R,?> e1 = c.getOperand1();
+                    final Expression<R,?> e2 = c.getOperand2();
+                    ValueReference<R,?> property = null;
+                    if (e1 instanceof ValueReference<?,?> && e2 instanceof Literal<?,?>) {
+                        if (MembershipFilter.key(((Literal<R,?>) e2).getValue()) != null) {
+                            property = (ValueReference<R,?>) e1;
+                        }
+                    } else if (e2 instanceof ValueReference<?,?> && e1 instanceof Literal<?,?>) {
+                        if (MembershipFilter.key(((Literal<R,?>) e1).getValue()) != null) {
+                            property = (ValueReference<R,?>) e2;
+                        }
+                    }
+                    if (property != null) {
+                        final List<Filter<R>> group = groups.computeIfAbsent(property, (k) -> new ArrayList<>());
+                        if (group.isEmpty()) {
+                            result.add(operand);            // Placeholder, replaced below if there is more equalities.
+                        }
+                        group.add(operand);
+                        continue;
+                    }
+                }
+            }
+            result.add(operand);
+        }
+        for (final Map.Entry<ValueReference<R,?>, List<Filter<R>>> entry : groups.entrySet()) {
+            final List<Filter<R>> group = entry.getValue();
+            if (group.size() >= 2) {
+                final var literals = new ArrayList<Object>(group.size());
+                for (final Filter<R> operand : group) {
+                    for (final Expression<R,?> e : operand.getExpressions()) {
+                        if (e instanceof Literal<?,?>) {
+                            literals.add(((Literal<R,?>) e).getValue());
+                        }
+                    }
+                }
+                final LogicalOperator<Feature> merged = ((SimpleFilterFactory) factory).membership(
+                        (ValueReference<Feature,?>) entry.getKey(), literals, (List<Filter<Feature>>) (List<?>) group);
+                result.set(result.indexOf(group.get(0)), (Filter<R>) merged);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns an estimation of the relative cost of evaluating the given filter on one resource.
+     * The unit is arbitrary, approximately the cost of fetching a property value and comparing it with a literal.
+     * The default implementation uses fixed costs for each category of operators.
+     *
+     * @param  filter  the filter for which to estimate the cost.
+     * @return an estimation of the relative cost of evaluating the filter, greater than zero.
+     */
+    protected double cost(final Filter<R> filter) {
+        if (filter instanceof MembershipFilter<?>) {
+            return 1;
+        }
+        if (filter instanceof LogicalOperator<?>) {
+            double cost = 0.1;
+            for (final Filter<R> operand : ((LogicalOperator<R>) filter).getOperands()) {
+                cost += cost(operand);
+            }
+            return cost;
+        }
+        double cost;
+        if      (filter instanceof ResourceId<?>)      cost = 0.5;
+        else if (filter instanceof NullOperator<?>)    cost = 0.5;
+        else if (filter instanceof NilOperator<?>)     cost = 0.5;
+        else if (filter instanceof LikeOperator<?>)    cost = 4;
+        else if (filter instanceof TemporalOperator<?>) cost = 2;
+        else if (filter instanceof DistanceOperator<?>) cost = 40;
+        else if (filter instanceof SpatialOperator<?>)  cost = 30;
+        else cost = 1;
+        for (final Expression<R,?> expression : filter.getExpressions()) {
+            cost += cost(expression);
+        }
+        return cost;
+    }
+
+    /**
+     * Returns the cost of evaluating the given expression, in the units of {@link #cost(Filter)}.
+     *
+     * @param  expression  the expression for which to estimate the cost.
+     * @return the estimated evaluation cost.
+     */
+    private double cost(final Expression<R,?> expression) {
+        if (expression instanceof Literal<?,?>) {
+            return 0;
+        }
+        double cost = (expression instanceof ValueReference<?,?>) ? 0 : 0.5;
+        for (final Expression<R,?> parameter : expression.getParameters()) {
+            cost += cost(parameter);
+        }
+        return cost;
+    }
+
+    /**
+     * Returns an estimation of the fraction of resources accepted by the given filter.
+     * The default implementation uses fixed values for each category of operators.
+     *
+     * @param  filter  the filter for which to estimate the selectivity.
+     * @return an estimation of the fraction of accepted resources, between 0 and 1 exclusive.
+     */
+    protected double selectivity(final Filter<R> filter) {
+        if (filter instanceof LogicalOperator<?>) {
+            final LogicalOperatorName type = ((LogicalOperator<R>) filter).getOperatorType();
+            double p = (type == LogicalOperatorName.OR) ? 0 : 1;
+            for (final Filter<R> operand : ((LogicalOperator<R>) filter).getOperands()) {
+                final double s = selectivity(operand);
+                if (type == LogicalOperatorName.OR) {
+                    p = p + s - p*s;
+                } else {
+                    p *= s;
+                }
+            }
+            if (type == LogicalOperatorName.NOT) {
+                p = 1 - p;
+            }
+            return Math.max(0.001, Math.min(0.999, p));
+        }
+        if (filter instanceof BinaryComparisonOperator<?>) {
+            final ComparisonOperatorName type = ((BinaryComparisonOperator<R>) filter).getOperatorType();
+            if (type == ComparisonOperatorName.PROPERTY_IS_EQUAL_TO)     return 0.1;
+            if (type == ComparisonOperatorName.PROPERTY_IS_NOT_EQUAL_TO) return 0.9;
+            return 0.33;
+        }
+        if (filter instanceof ResourceId<?>)                return 0.01;
+        if (filter instanceof BetweenComparisonOperator<?>) return 0.25;
+        if (filter instanceof LikeOperator<?>)              return 0.2;
+        if (filter instanceof NullOperator<?>)              return 0.1;
+        if (filter instanceof NilOperator<?>)               return 0.1;
+        if (filter instanceof SpatialOperator<?>)           return 0.1;
+        return 0.5;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Objects;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Expression;
+import org.opengis.filter.ResourceId;
+
+
+/**
+ * Tests whether the identifier of a feature is equal to a given value.
+ * The identifier is the value of the {@value SimpleFilterFactory#IDENTIFIER} property.
+ */
+final class IdentifierFilter implements ResourceId<Feature> {
+    /**
+     * The identifier to search.
+     */
+    private final String identifier;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param  identifier  the identifier of the feature to match.
+     */
+    IdentifierFilter(final String identifier) {
+        this.identifier = Objects.requireNonNull(identifier);
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns an empty list, since this filter has no expression.
+     */
+    @Override
+    public List<Expression<Feature,?>> getExpressions() {
+        return List.of();
+    }
+
+    /**
+     * Returns the identifier to search.
+     */
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Tests whether the identifier of the given feature is the one searched by this filter.
+     */
+    @Override
+    public boolean test(final Feature feature) {
+        if (feature != null && feature.getType().hasProperty(SimpleFilterFactory.IDENTIFIER)) {
+            final Object value = feature.getPropertyValue(SimpleFilterFactory.IDENTIFIER);
+            return (value != null) && identifier.equals(value.toString());
+        }
+        return false;
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return (other instanceof IdentifierFilter) && identifier.equals(((IdentifierFilter) other).identifier);
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public int hashCode() {
+        return identifier.hashCode() ^ 0x1F4A2B77;
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return "ResourceId[" + identifier + ']';
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Collection;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.LikeOperator;
+
+
+/**
+ * Tests whether the string representation of a value matches a pattern.
+ * The pattern is compiled once, at construction time, by {@link LikePattern}.
+ * A multi-valued property matches if any of its values matches the pattern.
+ */
+final class LikeFilter implements LikeOperator<Feature> {
+    /**
+     * The expression to test.
+     */
+    private final Expression<Feature,?> expression;
+
+    /**
+     * The pattern, with the wildcard, single character and escape characters below.
+     */
+    private final String pattern;
+
+    /**
+     * The characters having a special meaning in the pattern.
+     */
+    private final char wildcard, singleChar, escape;
+
+    /**
+     * Whether the comparison is case-sensitive.
+     */
+    private final boolean matchCase;
+
+    /**
+     * The compiled pattern.
+     */
+    private final LikePattern matcher;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param  expression  the expression providing the values to test.
+     * @param  pattern     the pattern to match.
+     * @param  wildcard    the character matching any sequence of characters.
+     * @param  singleChar  the character matching exactly one character.
+     * @param  escape      the character for matching the other special characters literally.
+     * @param  matchCase   whether the comparison is case sensitive.
+     */
+    LikeFilter(final Expression<Feature,?> expression, final String pattern,
+               final char wildcard, final char singleChar, final char escape, final boolean matchCase)
+    {
+        this.expression = expression;
+        this.pattern    = Objects.requireNonNull(pattern);
+        this.wildcard   = wildcard;
+        this.singleChar = singleChar;
+        this.escape     = escape;
+        this.matchCase  = matchCase;
+        matcher = LikePattern.compile(pattern, wildcard, singleChar, escape, matchCase);
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the expression to test, followed by the pattern as a literal.
+     */
+    @Override
+    public List<Expression<Feature,?>> getExpressions() {
+        return List.of(expression, new LiteralValue<>(pattern));
+    }
+
+    @Override public char    getWildCard()    {return wildcard;}
+    @Override public char    getSingleChar()  {return singleChar;}
+    @Override public char    getEscapeChar()  {return escape;}
+    @Override public boolean isMatchingCase() {return matchCase;}
+
+    /**
+     * Tests whether the value of the expression matches the pattern.
+     */
+    @Override
+    public boolean test(final Feature feature) {
+        final Object value = expression.apply(feature);
+        if (value instanceof Collection<?>) {
+            return Values.match(MatchAction.ANY, (Collection<?>) value, this::matches);
+        }
+        return matches(value);
+    }
+
+    /**
+     * Tests whether the given value matches the pattern.
+     *
+     * @param  value  the value to test, or {@code null}.
+     * @return whether the string representation of the value matches.
+     */
+    private boolean matches(final Object value) {
+        return (value != null) && matcher.matches(value.toString());
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof LikeFilter) {
+            final var that = (LikeFilter) other;
+            return expression.equals(that.expression) && pattern.equals(that.pattern)
+                    && wildcard == that.wildcard && singleChar == that.singleChar
+                    && escape == that.escape && matchCase == that.matchCase;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public int hashCode() {
+        return expression.hashCode() + 31 * pattern.hashCode() + (matchCase ? 0 : 7);
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return "PropertyIsLike[" + expression + ", \"" + pattern + "\"]";
+    }
+}
@@ -0,0 +1,646 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+
+/**
+ * A pattern of the {@code PropertyIsLike} operator, compiled once for matching many character strings
+ * without regular expressions. The pattern contains a wildcard character matching any sequence of characters,
+ * a single character wildcard matching exactly one character, and an escape character for using the two
+ * wildcards (or the escape character itself) as ordinary characters. Patterns are compiled into one of
+ * the following matchers:
+ *
+ * <ul>
+ *   <li>equality test, for patterns without wildcard;</li>
+ *   <li>prefix test ({@code abc%}) or suffix test ({@code %abc}) with {@link String#regionMatches regionMatches};</li>
+ *   <li>substring search ({@code %abc%}) with the Boyer–Moore–Horspool algorithm;</li>
+ *   <li>in other cases, a matcher splitting the pattern into segments separated by wildcards. The first and last
+ *       segments are anchored at the beginning and end of the text, and other segments are searched at their
+ *       leftmost position with the Knuth–Morris–Pratt algorithm, without backtracking.</li>
+ * </ul>
+ *
+ * Case-insensitive comparisons follow the rules of {@link String#equalsIgnoreCase(String)}.
+ * The single character wildcard matches a full Unicode code point, including surrogate pairs.
+ *
+ * <p>Compiled patterns are cached, with a bound on the number of cached patterns.
+ * Instances of this class are immutable and thread-safe.</p>
+ */
+public abstract class LikePattern {
+    /**
+     * Maximal number of compiled patterns in the cache.
+     */
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * The cache of compiled patterns, with least recently used patterns removed first.
+     * All accesses shall be synchronized on this map.
+     */
+    private static final Cache CACHE = new Cache();
+
+    /**
+     * The map used as a cache of compiled patterns.
+     */
+    @SuppressWarnings("serial")
+    private static final class Cache extends LinkedHashMap<Key,LikePattern> {
+        /** Creates an empty cache. */
+        Cache() {
+            super(32, 0.75f, true);
+        }
+
+        /** Removes the least recently used pattern when the cache is full. */
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key,LikePattern> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    }
+
+    /**
+     * The key of a compiled pattern in the cache.
+     */
+    private static final class Key {
+        /** The pattern. */
+        private final String pattern;
+
+        /** The characters having a special meaning in the pattern. */
+        private final char wildcard, singleChar, escape;
+
+        /** Whether the comparisons are case-sensitive. */
+        private final boolean matchCase;
+
+        /**
+         * Creates a new key.
+         *
+         * @param  pattern     the pattern.
+         * @param  wildcard    the character matching any sequence of characters.
+         * @param  singleChar  the character matching exactly one character.
+         * @param  escape      the character for using the above special characters as ordinary characters.
+         * @param  matchCase   whether the comparisons are case-sensitive.
+         */
+        Key(final String pattern, final char wildcard, final char singleChar, final char escape, final boolean matchCase) {
+            this.pattern    = pattern;
+            this.wildcard   = wildcard;
+            this.singleChar = singleChar;
+            this.escape     = escape;
+            this.matchCase  = matchCase;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Key) {
+                final var that = (Key) other;
+                return pattern.equals(that.pattern) && wildcard == that.wildcard && singleChar == that.singleChar
+                        && escape == that.escape && matchCase == that.matchCase;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return pattern.hashCode() + 31 * (wildcard + 31 * (singleChar + 31 * escape)) + (matchCase ? 0 : 7);
+        }
+    }
+
+    /**
+     * Whether the comparisons are case-sensitive.
+     */
+    final boolean matchCase;
+
+    /**
+     * Creates a new pattern.
+     *
+     * @param  matchCase  whether the comparisons are case-sensitive.
+     */
+    LikePattern(final boolean matchCase) {
+        this.matchCase = matchCase;
+    }
+
+    /**
+     * Returns the compiled form of the given pattern. This method returns a cached instance if the same
+     * pattern has been compiled recently.
+     *
+     * @param  pattern     the pattern to compile.
+     * @param  wildcard    the character matching any sequence of characters.
+     * @param  singleChar  the character matching exactly one character.
+     * @param  escape      the character for using the above special characters as ordinary characters.
+     * @param  matchCase   whether the comparisons are case-sensitive.
+     * @return the compiled pattern.
+     */
+    public static LikePattern compile(final String pattern, final char wildcard, final char singleChar,
+                                      final char escape, final boolean matchCase)
+    {
+        final var key = new Key(Objects.requireNonNull(pattern), wildcard, singleChar, escape, matchCase);
+        LikePattern compiled;
+        synchronized (CACHE) {
+            compiled = CACHE.get(key);
+        }
+        if (compiled == null) {
+            compiled = parse(pattern, wildcard, singleChar, escape, matchCase);
+            synchronized (CACHE) {
+                final LikePattern existing = CACHE.putIfAbsent(key, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Parses the given pattern into segments separated by wildcards, then selects the matcher.
+     *
+     * @param  pattern     the pattern to parse.
+     * @param  wildcard    the character matching any sequence of characters.
+     * @param  singleChar  the character matching exactly one character.
+     * @param  escape      the character for using the above special characters as ordinary characters.
+     * @param  matchCase   whether the comparisons are case-sensitive.
+     * @return the matcher for the given pattern.
+     */
+    private static LikePattern parse(final String pattern, final char wildcard, final char singleChar,
+                                     final char escape, final boolean matchCase)
+    {
+        final var segments = new ArrayList<StringBuilder>();
+        final var anyChars = new ArrayList<List<Integer>>();
+        StringBuilder segment = new StringBuilder();
+        List<Integer> any = new ArrayList<>();
+        boolean hasSingleChar = false;
+        for (int i=0; i<pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == escape && i + 1 < pattern.length()) {
+                segment.append(pattern.charAt(++i));
+            } else if (c == wildcard) {
+                if (segments.isEmpty() || segment.length() != 0) {          // Merge consecutive wildcards.
+                    segments.add(segment);
+                    anyChars.add(any);
+                    segment = new StringBuilder();
+                    any = new ArrayList<>();
+                }
+            } else if (c == singleChar) {
+                any.add(segment.length());
+                segment.append(c);
+                hasSingleChar = true;
+            } else {
+                segment.append(c);
+            }
+        }
+        segments.add(segment);
+        anyChars.add(any);
+        final int n = segments.size();
+        if (!hasSingleChar) {
+            final String first = segments.get(0).toString();
+            final String last  = segments.get(n - 1).toString();
+            switch (n) {
+                case 1: return new Exact(first, matchCase);
+                case 2: {
+                    if (last .isEmpty()) return new Prefix(first, matchCase);
+                    if (first.isEmpty()) return new Suffix(last,  matchCase);
+                    break;
+                }
+                case 3: {
+                    if (first.isEmpty() && last.isEmpty()) {
+                        return new Contains(segments.get(1).toString(), matchCase);
+                    }
+                    break;
+                }
+            }
+        }
+        final var chars = new char[n][];
+        final var wild  = new boolean[n][];
+        for (int k=0; k<n; k++) {
+            final StringBuilder s = segments.get(k);
+            chars[k] = new char[s.length()];
+            wild [k] = new boolean[s.length()];
+            for (int i=0; i<chars[k].length; i++) {
+                chars[k][i] = matchCase ? s.charAt(i) : fold(s.charAt(i));
+            }
+            for (final int i : anyChars.get(k)) {
+                wild[k][i] = true;
+            }
+        }
+        return new Glob(chars, wild, matchCase);
+    }
+
+    /**
+     * Returns the given character in a form where two characters are equal ignoring case
+     * if and only if their folded forms are equal, as in {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param  c  the character to fold.
+     * @return the folded character.
+     */
+    static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Tests whether the given text matches this pattern.
+     *
+     * @param  text  the text to test.
+     * @return whether the text matches this pattern.
+     */
+    public abstract boolean matches(String text);
+
+    /**
+     * Pattern without wildcard.
+     */
+    private static final class Exact extends LikePattern {
+        /** The text to compare with. */
+        private final String literal;
+
+        /**
+         * Creates a new matcher.
+         *
+         * @param  literal    the text to compare with.
+         * @param  matchCase  whether the comparisons are case-sensitive.
+         */
+        Exact(final String literal, final boolean matchCase) {
+            super(matchCase);
+            this.literal = literal;
+        }
+
+        @Override
+        public boolean matches(final String text) {
+            return matchCase ? literal.equals(text) : literal.equalsIgnoreCase(text);
+        }
+    }
+
+    /**
+     * Pattern of the form {@code abc%}.
+     */
+    private static final class Prefix extends LikePattern {
+        /** The prefix to search. */
+        private final String prefix;
+
+        /**
+         * Creates a new matcher.
+         *
+         * @param  prefix     the prefix to search.
+         * @param  matchCase  whether the comparisons are case-sensitive.
+         */
+        Prefix(final String prefix, final boolean matchCase) {
+            super(matchCase);
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean matches(final String text) {
+            return text.regionMatches(!matchCase, 0, prefix, 0, prefix.length());
+        }
+    }
+
+    /**
+     * Pattern of the form {@code %abc}.
+     */
+    private static final class Suffix extends LikePattern {
+        /** The suffix to search. */
+        private final String suffix;
+
+        /**
+         * Creates a new matcher.
+         *
+         * @param  suffix     the suffix to search.
+         * @param  matchCase  whether the comparisons are case-sensitive.
+         */
+        Suffix(final String suffix, final boolean matchCase) {
+            super(matchCase);
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean matches(final String text) {
+            final int start = text.length() - suffix.length();
+            return start >= 0 && text.regionMatches(!matchCase, start, suffix, 0, suffix.length());
+        }
+    }
+
+    /**
+     * Pattern of the form {@code %abc%}, searched with the Boyer–Moore–Horspool algorithm.
+     */
+    private static final class Contains extends LikePattern {
+        /** The text to search, folded if the search is case-insensitive. */
+        private final char[] needle;
+
+        /**
+         * The number of positions to skip, indexed by the 8 lower bits of the text character aligned with
+         * the last needle character. Characters having the same lower bits share the smallest skip.
+         */
+        private final int[] skip;
+
+        /**
+         * Creates a new matcher.
+         *
+         * @param  needle     the text to search.
+         * @param  matchCase  whether the comparisons are case-sensitive.
+         */
+        Contains(final String needle, final boolean matchCase) {
+            super(matchCase);
+            this.needle = needle.toCharArray();
+            final int m = this.needle.length;
+            skip = new int[256];
+            Arrays.fill(skip, Math.max(m, 1));
+            for (int i=0; i < m - 1; i++) {
+                if (!matchCase) {
+                    this.needle[i] = fold(this.needle[i]);
+                }
+                skip[this.needle[i] & 0xFF] = m - 1 - i;
+            }
+            if (m != 0 && !matchCase) {
+                this.needle[m - 1] = fold(this.needle[m - 1]);
+            }
+        }
+
+        @Override
+        public boolean matches(final String text) {
+            final int m = needle.length;
+            final int last = text.length() - m;
+            for (int p = 0; p <= last;) {
+                int i = m - 1;
+                char c = 0;
+                while (i >= 0) {
+                    c = text.charAt(p + i);
+                    if (!matchCase) c = fold(c);
+                    if (c != needle[i]) break;
+                    i--;
+                }
+                if (i < 0) {
+                    return true;
+                }
+                c = text.charAt(p + m - 1);
+                p += skip[(matchCase ? c : fold(c)) & 0xFF];
+            }
+            return false;
+        }
+    }
+
+    /**
+     * General case: segments of ordinary characters and single character wildcards, separated by wildcards.
+     * The first segment is anchored at the beginning of the text, the last segment at the end of the text,
+     * and each intermediate segment is matched at its leftmost position after the previous segment.
+     * Taking the leftmost position never prevents a match of the next segments, so no backtracking is needed.
+     *
+     * <p>Intermediate segments are split into pieces of ordinary characters separated by single character
+     * wildcards, and each piece is searched with the Knuth–Morris–Pratt algorithm. The scanners never move
+     * backward, so the search time is linear in the text length for a given pattern. If the text contains
+     * surrogate pairs, a single character wildcard may match one or two {@code char} values, so segments
+     * containing such wildcards are matched at each position instead.</p>
+     */
+    private static final class Glob extends LikePattern {
+        /** The characters of each segment, folded if the comparison is case-insensitive. */
+        private final char[][] segments;
+
+        /** Whether the character at each index of each segment is a single character wildcard. */
+        private final boolean[][] wildcards;
+
+        /** The pieces of ordinary characters of each intermediate segment, or {@code null} for other segments. */
+        private final Piece[][] pieces;
+
+        /**
+         * Creates a new matcher.
+         *
+         * @param  segments   the characters of each segment, folded if the comparison is case-insensitive.
+         * @param  wildcards  whether the character at each index of each segment is a single character wildcard.
+         * @param  matchCase  whether the comparisons are case-sensitive.
+         */
+        Glob(final char[][] segments, final boolean[][] wildcards, final boolean matchCase) {
+            super(matchCase);
+            this.segments  = segments;
+            this.wildcards = wildcards;
+            pieces = new Piece[segments.length][];
+            final var list = new ArrayList<Piece>();
+            for (int k=1; k < segments.length - 1; k++) {
+                final boolean[] wildcard = wildcards[k];
+                for (int i=0; i < wildcard.length; i++) {
+                    final int lower = i;
+                    while (i < wildcard.length && !wildcard[i]) i++;
+                    if (i != lower) {
+                        list.add(new Piece(Arrays.copyOfRange(segments[k], lower, i), lower));
+                    }
+                }
+                pieces[k] = list.toArray(new Piece[list.size()]);
+                list.clear();
+            }
+        }
+
+        @Override
+        public boolean matches(final String text) {
+            final int n = segments.length;
+            int start = forward(text, 0, 0);
+            if (n == 1 || start < 0) {
+                return start == text.length();
+            }
+            final int limit = backward(text, n - 1, text.length());
+            if (limit < start) {
+                return false;
+            }
+            boolean surrogates = false;
+            for (int i=start; i<limit; i++) {
+                if (Character.isSurrogate(text.charAt(i))) {
+                    surrogates = true;
+                    break;
+                }
+            }
+            for (int k=1; k < n-1; k++) {
+                final int end;
+                if (surrogates && hasWildcard(k)) {
+                    end = scan(text, k, start, limit);
+                } else {
+                    final int p = search(text, k, start, limit);
+                    end = (p >= 0) ? p + segments[k].length : -1;
+                }
+                if (end < 0) {
+                    return false;
+                }
+                start = end;
+            }
+            return true;
+        }
+
+        /**
+         * Returns whether the segment <var>k</var> contains at least one single character wildcard.
+         *
+         * @param  k  index of the segment.
+         * @return whether the segment contains a single character wildcard.
+         */
+        private boolean hasWildcard(final int k) {
+            for (final boolean wildcard : wildcards[k]) {
+                if (wildcard) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Searches the leftmost match of the intermediate segment <var>k</var> by trying each position.
+         * This is used only when single character wildcards may match surrogate pairs.
+         *
+         * @param  text   the text where to search.
+         * @param  k      index of the segment to search.
+         * @param  start  the first position where the segment may begin.
+         * @param  limit  the position where the segment shall end at the latest.
+         * @return the position after the match, or -1 if no match.
+         */
+        private int scan(final String text, final int k, final int start, final int limit) {
+            for (int p = start; p <= limit; p++) {
+                final int end = forward(text, k, p);
+                if (end >= 0 && end <= limit) {
+                    return end;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Searches the leftmost match of the intermediate segment <var>k</var>, assuming that each single
+         * character wildcard matches exactly one {@code char}. A position is a match if each piece of the
+         * segment occurs at that position plus the piece offset. The candidate position is moved forward to
+         * the next occurrence of each piece in turn, until all pieces agree on the same position.
+         *
+         * @param  text   the text where to search.
+         * @param  k      index of the segment to search.
+         * @param  start  the first position where the segment may begin.
+         * @param  limit  the position where the segment shall end at the latest.
+         * @return the position of the beginning of the match, or -1 if no match.
+         */
+        private int search(final String text, final int k, int start, final int limit) {
+            final Piece[] parts = pieces[k];
+            final int length = segments[k].length;
+            final int count  = parts.length;
+            final var next   = new int[count];              // Index of the next text character to read.
+            final var state  = new int[count];              // Number of characters matched so far.
+            final var found  = new int[count];              // Position of the last occurrence, or -1.
+            for (int i=0; i<count; i++) {
+                next [i] = start + parts[i].offset;
+                found[i] = -1;
+            }
+            for (int i=0, agree=0; agree < count; i = (i+1) % count) {
+                if (start + length > limit) {
+                    return -1;
+                }
+                final Piece piece = parts[i];
+                final int target = start + piece.offset;
+                if (found[i] < target) {
+                    final char[] chars = piece.chars;
+                    int q = state[i], j = next[i];
+                    while (j < limit) {
+                        char c = text.charAt(j++);
+                        if (!matchCase) c = fold(c);
+                        while (q > 0 && c != chars[q]) q = piece.failure[q - 1];
+                        if (c == chars[q] && ++q == chars.length) {
+                            q = piece.failure[q - 1];
+                            if (j - chars.length >= target) {
+                                found[i] = j - chars.length;
+                                break;
+                            }
+                        }
+                    }
+                    state[i] = q;
+                    next [i] = j;
+                    if (found[i] < target) {
+                        return -1;
+                    }
+                }
+                final int p = found[i] - piece.offset;
+                if (p == start) {
+                    agree++;
+                } else {
+                    start = p;
+                    agree = 1;
+                }
+            }
+            return (start + length <= limit) ? start : -1;
+        }
+
+        /**
+         * A sequence of ordinary characters in an intermediate segment, with its Knuth–Morris–Pratt table.
+         */
+        private static final class Piece {
+            /** The characters to search, folded if the comparison is case-insensitive. */
+            final char[] chars;
+
+            /** Index of the first character of this piece in the segment. */
+            final int offset;
+
+            /** Length of the longest proper prefix of {@code chars[0…i]} which is also a suffix of it. */
+            final int[] failure;
+
+            /**
+             * Creates a new piece and computes its Knuth–Morris–Pratt table.
+             *
+             * @param  chars   the characters to search, folded if the comparison is case-insensitive.
+             * @param  offset  index of the first character of this piece in the segment.
+             */
+            Piece(final char[] chars, final int offset) {
+                this.chars  = chars;
+                this.offset = offset;
+                failure = new int[chars.length];
+                for (int i=1, q=0; i < chars.length; i++) {
+                    while (q > 0 && chars[i] != chars[q]) q = failure[q - 1];
+                    if (chars[i] == chars[q]) q++;
+                    failure[i] = q;
+                }
+            }
+        }
+
+        /**
+         * Matches the segment <var>k</var> at the given position.
+         *
+         * @param  text  the text to match.
+         * @param  k     index of the segment to match.
+         * @param  p     position in the text where the segment begins.
+         * @return the position after the match, or -1 if no match.
+         */
+        private int forward(final String text, final int k, int p) {
+            final char[]    segment  = segments [k];
+            final boolean[] wildcard = wildcards[k];
+            final int length = text.length();
+            for (int i=0; i < segment.length; i++) {
+                if (p >= length) {
+                    return -1;
+                }
+                final char c = text.charAt(p++);
+                if (wildcard[i]) {
+                    if (Character.isHighSurrogate(c) && p < length && Character.isLowSurrogate(text.charAt(p))) {
+                        p++;
+                    }
+                } else if ((matchCase ? c : fold(c)) != segment[i]) {
+                    return -1;
+                }
+            }
+            return p;
+        }
+
+        /**
+         * Matches the segment <var>k</var> ending at the given position.
+         *
+         * @param  text  the text to match.
+         * @param  k     index of the segment to match.
+         * @param  p     position in the text where the segment ends.
+         * @return the position of the beginning of the match, or -1 if no match.
+         */
+        private int backward(final String text, final int k, int p) {
+            final char[]    segment  = segments [k];
+            final boolean[] wildcard = wildcards[k];
+            for (int i = segment.length; --i >= 0;) {
+                if (p <= 0) {
+                    return -1;
+                }
+                final char c = text.charAt(--p);
+                if (wildcard[i]) {
+                    if (Character.isLowSurrogate(c) && p > 0 && Character.isHighSurrogate(text.charAt(p - 1))) {
+                        p--;
+                    }
+                } else if ((matchCase ? c : fold(c)) != segment[i]) {
+                    return -1;
+                }
+            }
+            return p;
+        }
+    }
+}
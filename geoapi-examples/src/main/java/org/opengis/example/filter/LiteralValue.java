@@ -0,0 +1,72 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Objects;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Literal;
+
+
+/**
+ * A constant value.
+ *
+ * @param <V>  the type of the value.
+ */
+final class LiteralValue<V> implements Literal<Feature,V> {
+    /**
+     * The constant value, or {@code null}.
+     */
+    private final V value;
+
+    /**
+     * Creates a new literal for the given value.
+     *
+     * @param  value  the literal value, or {@code null}.
+     */
+    LiteralValue(final V value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the constant value.
+     */
+    @Override
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Returns a literal with the value converted to the given type.
+     */
+    @Override
+    public <N> Literal<Feature,N> toValueType(final Class<N> target) {
+        return new LiteralValue<>(Values.convert(value, target));
+    }
+
+    /**
+     * Compares this literal with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return (other instanceof LiteralValue<?>) && Objects.equals(value, ((LiteralValue<?>) other).value);
+    }
+
+    /**
+     * Returns a hash code value for this literal.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value) ^ 0x5A3C96E1;
+    }
+
+    /**
+     * Returns a string representation of this literal.
+     */
+    @Override
+    public String toString() {
+        return "Literal[" + value + ']';
+    }
+}
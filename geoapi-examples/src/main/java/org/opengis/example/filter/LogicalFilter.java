@@ -0,0 +1,170 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Filter;
+import org.opengis.filter.LogicalOperator;
+import org.opengis.filter.LogicalOperatorName;
+
+
+/**
+ * Base class of the "and", "or" and "not" operators.
+ * Operands are stored in an array and evaluated in order, with short-circuit.
+ */
+abstract class LogicalFilter implements LogicalOperator<Feature> {
+    /**
+     * The operands.
+     */
+    final Filter<Feature>[] operands;
+
+    /**
+     * Creates a new operator with the given operands.
+     *
+     * @param  operands  the operands, which are copied.
+     */
+    @SuppressWarnings("unchecked")
+    LogicalFilter(final Collection<? extends Filter<Feature>> operands) {
+        this.operands = operands.toArray(Filter[]::new);
+        for (final Filter<Feature> operand : this.operands) {
+            if (operand == null) {
+                throw new NullPointerException("Null operand.");
+            }
+        }
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public final Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the operands.
+     */
+    @Override
+    public final List<Filter<Feature>> getOperands() {
+        return List.of(operands);
+    }
+
+    /**
+     * The "and" operator.
+     */
+    static final class And extends LogicalFilter {
+        /**
+         * Creates a new operator.
+         *
+         * @param  operands  the operands, which are copied.
+         */
+        And(final Collection<? extends Filter<Feature>> operands) {
+            super(operands);
+            if (this.operands.length < 2) {
+                throw new IllegalArgumentException("The \"and\" operator requires at least 2 operands.");
+            }
+        }
+
+        @Override
+        public LogicalOperatorName getOperatorType() {
+            return LogicalOperatorName.AND;
+        }
+
+        @Override
+        public boolean test(final Feature feature) {
+            for (final Filter<Feature> operand : operands) {
+                if (!operand.test(feature)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The "or" operator.
+     */
+    static final class Or extends LogicalFilter {
+        /**
+         * Creates a new operator.
+         *
+         * @param  operands  the operands, which are copied.
+         */
+        Or(final Collection<? extends Filter<Feature>> operands) {
+            super(operands);
+            if (this.operands.length < 2) {
+                throw new IllegalArgumentException("The \"or\" operator requires at least 2 operands.");
+            }
+        }
+
+        @Override
+        public LogicalOperatorName getOperatorType() {
+            return LogicalOperatorName.OR;
+        }
+
+        @Override
+        public boolean test(final Feature feature) {
+            for (final Filter<Feature> operand : operands) {
+                if (operand.test(feature)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The "not" operator.
+     */
+    static final class Not extends LogicalFilter {
+        /**
+         * Creates a new operator.
+         *
+         * @param  operand  the operand to negate.
+         */
+        Not(final Filter<Feature> operand) {
+            super(List.of(operand));
+        }
+
+        @Override
+        public LogicalOperatorName getOperatorType() {
+            return LogicalOperatorName.NOT;
+        }
+
+        @Override
+        public boolean test(final Feature feature) {
+            return !operands[0].test(feature);
+        }
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public final boolean equals(final Object other) {
+        return (other != null) && other.getClass() == getClass()
+                && Arrays.equals(operands, ((LogicalFilter) other).operands);
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public final int hashCode() {
+        return getClass().hashCode() + Arrays.hashCode(operands);
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public final String toString() {
+        return getOperatorType().identifier().orElse("?") + Arrays.toString(operands);
+    }
+}
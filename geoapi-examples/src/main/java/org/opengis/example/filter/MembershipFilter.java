@@ -0,0 +1,166 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Set;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Collection;
+import org.opengis.filter.Filter;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.ValueReference;
+import org.opengis.filter.LogicalOperator;
+import org.opengis.filter.LogicalOperatorName;
+
+
+/**
+ * An {@code Or} of equality tests between the same property and different literals, evaluated by a hash set lookup.
+ * This filter is created by {@link FilterOptimizer}. It is presented to users as an ordinary {@code Or} operator
+ * with the original equality tests as operands, so that code walking the filter tree sees the standard operators.
+ *
+ * <p>The literals are numbers which can be represented exactly as {@code double} values, or character strings
+ * compared with case sensitivity. Numbers are stored as {@link Double} instances, so that integers and floating
+ * point values compare equal as with the {@code PropertyIsEqualTo} operator. Values which cannot be converted
+ * to a key of the hash set are compared with each literal in turn.</p>
+ *
+ * @param <R>  the type of resources to filter.
+ */
+final class MembershipFilter<R> implements LogicalOperator<R> {
+    /**
+     * The property to compare with the literals.
+     */
+    private final ValueReference<R,?> property;
+
+    /**
+     * The literal values, as given by the user.
+     */
+    private final Object[] literals;
+
+    /**
+     * The keys of the literal values, as computed by {@link #key(Object)}.
+     */
+    private final Set<Object> keys;
+
+    /**
+     * The equality tests replaced by this filter.
+     */
+    private final List<Filter<R>> operands;
+
+    /**
+     * Creates a new membership test.
+     *
+     * @param property  the property to compare with the literals.
+     * @param literals  the literal values. Each value shall have a non-null {@linkplain #key(Object) key}.
+     * @param operands  the equality tests replaced by this filter.
+     */
+    MembershipFilter(final ValueReference<R,?> property, final Collection<?> literals, final List<Filter<R>> operands) {
+        this.property = property;
+        this.literals = literals.toArray();
+        this.operands = List.copyOf(operands);
+        keys = new HashSet<>();
+        for (final Object literal : this.literals) {
+            keys.add(key(literal));
+        }
+    }
+
+    /**
+     * Returns the key to use in the hash set for the given value, or {@code null} if none.
+     *
+     * @param  value  the value for which to get a key, or {@code null}.
+     * @return the key, or {@code null} if the value cannot be used in the hash set.
+     */
+    static Object key(final Object value) {
+        if (Values.isExact(value)) {
+            return ((Number) value).doubleValue() + 0.0;        // Replace -0 by +0.
+        }
+        if (value instanceof CharSequence) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@code Or} operator type, since this filter is an optimization of the {@code Or} operator.
+     */
+    @Override
+    public LogicalOperatorName getOperatorType() {
+        return LogicalOperatorName.OR;
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public Class<? super R> getResourceClass() {
+        return property.getResourceClass();
+    }
+
+    /**
+     * Returns the equality tests replaced by this filter.
+     */
+    @Override
+    public List<Filter<R>> getOperands() {
+        return operands;
+    }
+
+    /**
+     * Tests whether the property value is equal to one of the literals.
+     * For multi-valued properties, at least one element shall be equal to a literal.
+     */
+    @Override
+    public boolean test(final R resource) {
+        final Object value = property.apply(resource);
+        if (value instanceof Collection<?>) {
+            return Values.match(MatchAction.ANY, (Collection<?>) value, this::contains);
+        }
+        return contains(value);
+    }
+
+    /**
+     * Tests whether the given value is equal to one of the literals.
+     *
+     * @param  value  the value to test, or {@code null}.
+     * @return whether the value is equal to a literal.
+     */
+    private boolean contains(final Object value) {
+        final Object key = key(value);
+        if (key != null) {
+            return keys.contains(key);
+        }
+        if (value != null) {
+            for (final Object literal : literals) {
+                if (Values.compare(value, literal, true) == Values.EQUAL) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return (other instanceof MembershipFilter<?>) && operands.equals(((MembershipFilter<?>) other).operands);
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public int hashCode() {
+        return operands.hashCode() ^ 0x4D2E8B17;
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return property + " IN " + keys;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Expression;
+import org.opengis.filter.NilOperator;
+
+
+/**
+ * Tests whether the value of an expression is nil. Since {@link org.opengis.example.feature.SimpleFeature}
+ * does not record nil reasons, a null value is considered nil for an unknown reason. Consequently this
+ * filter matches null values only if no nil reason is specified.
+ */
+final class NilFilter implements NilOperator<Feature> {
+    /**
+     * The expression to test.
+     */
+    private final Expression<Feature,?> expression;
+
+    /**
+     * The nil reason to match, or {@code null} for any reason.
+     */
+    private final String nilReason;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param  expression  the expression providing the values to test.
+     * @param  nilReason   the nil reason to match, or {@code null} for any reason.
+     */
+    NilFilter(final Expression<Feature,?> expression, final String nilReason) {
+        this.expression = expression;
+        this.nilReason  = nilReason;
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the expression to test.
+     */
+    @Override
+    public List<Expression<Feature,?>> getExpressions() {
+        return List.of(expression);
+    }
+
+    /**
+     * Returns the nil reason to match.
+     */
+    @Override
+    public Optional<String> getNilReason() {
+        return Optional.ofNullable(nilReason);
+    }
+
+    /**
+     * Tests whether the value of the expression is nil.
+     */
+    @Override
+    public boolean test(final Feature feature) {
+        return nilReason == null && expression.apply(feature) == null;
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof NilFilter) {
+            final var that = (NilFilter) other;
+            return expression.equals(that.expression) && Objects.equals(nilReason, that.nilReason);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public int hashCode() {
+        return expression.hashCode() + Objects.hashCode(nilReason);
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return "PropertyIsNil[" + expression + ']';
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Collection;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Expression;
+import org.opengis.filter.NullOperator;
+
+
+/**
+ * Tests whether the value of an expression is null.
+ * A multi-valued property is null if it has no value.
+ */
+final class NullFilter implements NullOperator<Feature> {
+    /**
+     * The expression to test.
+     */
+    private final Expression<Feature,?> expression;
+
+    /**
+     * Creates a new filter.
+     *
+     * @param  expression  the expression providing the values to test.
+     */
+    NullFilter(final Expression<Feature,?> expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the expression to test.
+     */
+    @Override
+    public List<Expression<Feature,?>> getExpressions() {
+        return List.of(expression);
+    }
+
+    /**
+     * Tests whether the value of the expression is null.
+     */
+    @Override
+    public boolean test(final Feature feature) {
+        final Object value = expression.apply(feature);
+        return (value == null) || (value instanceof Collection<?> && ((Collection<?>) value).isEmpty());
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return (other instanceof NullFilter) && expression.equals(((NullFilter) other).expression);
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public int hashCode() {
+        return expression.hashCode() ^ 0x6C2B1D47;
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return "PropertyIsNull[" + expression + ']';
+    }
+}
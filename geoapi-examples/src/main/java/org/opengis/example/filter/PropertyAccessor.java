@@ -0,0 +1,302 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.feature.PropertyType;
+import org.opengis.feature.FeatureAssociationRole;
+import org.opengis.example.feature.SimpleFeature;
+import org.opengis.example.feature.SimpleFeatureType;
+
+
+/**
+ * The value of a property identified by an XPath, resolved once against a given feature type.
+ * The XPath is either the name of a property, or a sequence of names separated by {@code '/'}
+ * where all names except the last one are {@linkplain FeatureAssociationRole feature associations}.
+ * For example {@code "city/population"} is the population of the feature referenced by the
+ * {@code "city"} association.
+ *
+ * <p>When the feature type is a {@link SimpleFeatureType}, each step of the path is resolved to the index
+ * of the property, so reading the value of a {@link SimpleFeature} is an array access. Features of other types
+ * (for example values of an association having a sub-type of the expected type) are read by property name.
+ * If an association has many values, the result is the list of values read from all associated features.
+ * If the path cannot be resolved, the value is {@code null}.</p>
+ *
+ * <p>Accessors are cached while their feature type is in use. The cache references feature types weakly
+ * and accessors strongly, so features of different types can be read alternately without resolving the
+ * paths again. Accessors reference their feature types weakly too, so the cache does not retain feature
+ * types which are no longer used elsewhere. Lookups do not block, so a filter can bind its properties to
+ * many feature types concurrently. Instances of this class are immutable and thread-safe.</p>
+ */
+public final class PropertyAccessor implements Function<Feature,Object> {
+    /**
+     * The cache of accessors for each feature type, with feature types wrapped in weak references.
+     * The accessors for a given type are indexed by their XPath.
+     */
+    private static final ConcurrentHashMap<Key, ConcurrentHashMap<String,PropertyAccessor>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * The queue of references to feature types that have been garbage-collected.
+     */
+    private static final ReferenceQueue<FeatureType> COLLECTED = new ReferenceQueue<>();
+
+    /**
+     * The key of the accessors of a feature type in the cache. Feature types are compared by identity,
+     * since slot indices are verified against the feature type instance.
+     * After the feature type has been garbage-collected, a key is equal only to itself.
+     */
+    private static final class Key extends WeakReference<FeatureType> {
+        /** The hash code, computed when the feature type was still reachable. */
+        private final int hash;
+
+        /**
+         * Creates a new key.
+         *
+         * @param  type   the feature type on which the XPaths are resolved.
+         */
+        Key(final FeatureType type) {
+            super(type, COLLECTED);
+            hash = System.identityHashCode(type);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (other instanceof Key) {
+                final FeatureType type = get();
+                return type != null && type == ((Key) other).get();
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The feature type on which the XPath has been resolved.
+     * Referenced weakly for allowing the cache to release the type.
+     */
+    private final WeakReference<FeatureType> type;
+
+    /**
+     * The XPath of the property.
+     */
+    private final String xpath;
+
+    /**
+     * The property name of each step, or {@code null} if the XPath cannot be resolved.
+     */
+    private final String[] names;
+
+    /**
+     * The feature type expected at each step. Slot indices are valid only for instances of those types.
+     * Referenced weakly since associated types may reference the type given at binding time.
+     */
+    private final WeakReference<?>[] types;
+
+    /**
+     * The index of the property in the {@link SimpleFeature} values at each step, or -1 if none.
+     */
+    private final int[] slots;
+
+    /**
+     * Resolves the given XPath against the given feature type.
+     *
+     * @param  type   the feature type on which to resolve the XPath.
+     * @param  xpath  the XPath to resolve.
+     */
+    private PropertyAccessor(final FeatureType type, final String xpath) {
+        this.type  = new WeakReference<>(type);
+        this.xpath = xpath;
+        final String[] path = type.hasProperty(xpath) ? new String[] {xpath} : xpath.split("/", -1);
+        final var steps = new WeakReference<?>[path.length];
+        final var index = new int[path.length];
+        FeatureType current = type;
+        for (int i=0; i<path.length; i++) {
+            final String name = path[i];
+            final PropertyType property;
+            if (current instanceof SimpleFeatureType) {
+                final var t = (SimpleFeatureType) current;
+                index[i] = t.indexOf(name);
+                property = (index[i] >= 0) ? t.getProperty(index[i]) : null;
+            } else {
+                index[i] = -1;
+                property = current.hasProperty(name) ? current.getProperty(name) : null;
+            }
+            steps[i] = (i == 0) ? this.type : new WeakReference<>(current);
+            if (property == null) {
+                current = null;
+            } else if (i + 1 < path.length) {
+                current = (property instanceof FeatureAssociationRole)
+                        ? ((FeatureAssociationRole) property).getValueType() : null;
+            }
+            if (current == null) {
+                names = null;
+                types = null;
+                slots = null;
+                return;
+            }
+        }
+        names = path;
+        types = steps;
+        slots = index;
+    }
+
+    /**
+     * Returns the accessor to the property identified by the given XPath in features of the given type.
+     * This method returns a cached instance if the same path has been resolved on the same type
+     * and that type has not been garbage-collected.
+     *
+     * @param  type   the type of features on which the accessor will be applied.
+     * @param  xpath  the XPath of the property, as given by {@link org.opengis.filter.ValueReference#getXPath()}.
+     * @return the accessor to the property value.
+     */
+    public static PropertyAccessor bind(final FeatureType type, final String xpath) {
+        Objects.requireNonNull(xpath);
+        final var key = new Key(Objects.requireNonNull(type));
+        expungeStaleEntries();
+        ConcurrentHashMap<String,PropertyAccessor> accessors = CACHE.get(key);
+        if (accessors == null) {
+            final var created = new ConcurrentHashMap<String,PropertyAccessor>();
+            accessors = CACHE.putIfAbsent(key, created);
+            if (accessors == null) {
+                accessors = created;
+            }
+        }
+        PropertyAccessor accessor = accessors.get(xpath);
+        if (accessor == null) {
+            final var created = new PropertyAccessor(type, xpath);
+            accessor = accessors.putIfAbsent(xpath, created);
+            if (accessor == null) {
+                accessor = created;
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * Removes the accessors of all feature types that have been garbage-collected.
+     */
+    private static void expungeStaleEntries() {
+        Reference<? extends FeatureType> ref;
+        while ((ref = COLLECTED.poll()) != null) {
+            CACHE.remove(ref);
+        }
+    }
+
+    /**
+     * Returns the feature type on which the XPath has been resolved.
+     * This is {@code null} only if the feature type has been garbage-collected.
+     *
+     * @return the feature type given at binding time, or {@code null} if no longer in use.
+     */
+    public FeatureType getFeatureType() {
+        return type.get();
+    }
+
+    /**
+     * Returns the XPath of the property.
+     *
+     * @return the XPath given at binding time.
+     */
+    public String getXPath() {
+        return xpath;
+    }
+
+    /**
+     * Returns whether the XPath has been resolved to a property of the feature type.
+     * If {@code false}, the accessor returns {@code null} for all features.
+     *
+     * @return whether the XPath identifies a property.
+     */
+    public boolean isResolved() {
+        return names != null;
+    }
+
+    /**
+     * Returns the value of the property in the given feature.
+     * The feature should be an instance of the type given at binding time.
+     *
+     * @param  feature  the feature from which to read the value, or {@code null}.
+     * @return the property value, or {@code null} if none.
+     */
+    @Override
+    public Object apply(final Feature feature) {
+        return (feature != null && names != null) ? read(feature, 0) : null;
+    }
+
+    /**
+     * Reads the value at the given step of the path, then follows the remaining steps.
+     *
+     * @param  feature  the feature from which to read the value.
+     * @param  step     index of the step in the path.
+     * @return the value at the end of the path, or {@code null} if none.
+     */
+    private Object read(final Feature feature, final int step) {
+        final Object value;
+        final int slot = slots[step];
+        final FeatureType actual = feature.getType();
+        if (slot >= 0 && actual == types[step].get() && feature instanceof SimpleFeature) {
+            value = ((SimpleFeature) feature).getPropertyValue(slot);
+        } else {
+            final String name = names[step];
+            value = actual.hasProperty(name) ? feature.getPropertyValue(name) : null;
+        }
+        return (step + 1 < names.length) ? follow(value, step + 1) : value;
+    }
+
+    /**
+     * Follows the remaining steps of the path from the value of an association.
+     * Values of multi-valued associations are collected in a list.
+     *
+     * @param  value  the value of the association at the previous step.
+     * @param  step   index of the next step in the path.
+     * @return the value at the end of the path, or {@code null} if none.
+     */
+    private Object follow(final Object value, final int step) {
+        if (value instanceof Feature) {
+            return read((Feature) value, step);
+        }
+        if (value instanceof Collection<?>) {
+            final var values = new ArrayList<Object>();
+            for (final Object element : (Collection<?>) value) {
+                final Object v = follow(element, step);
+                if (v instanceof Collection<?>) {
+                    values.addAll((Collection<?>) v);
+                } else if (v != null) {
+                    values.add(v);
+                }
+            }
+            return values;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a string representation of this accessor.
+     *
+     * @return the XPath and the feature type name.
+     */
+    @Override
+    public String toString() {
+        final FeatureType t = type.get();
+        return "PropertyAccessor[" + (t != null ? t.getName() : null) + ": " + xpath + ']';
+    }
+}
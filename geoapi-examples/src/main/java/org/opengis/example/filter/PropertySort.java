@@ -0,0 +1,90 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Objects;
+import org.opengis.feature.Feature;
+import org.opengis.filter.SortOrder;
+import org.opengis.filter.SortProperty;
+import org.opengis.filter.ValueReference;
+
+
+/**
+ * Compares features by the value of a property. Null values are sorted last.
+ * Values which are not mutually comparable are considered equal.
+ */
+final class PropertySort implements SortProperty<Feature> {
+    /**
+     * The property on which to sort.
+     */
+    private final ValueReference<Feature,?> property;
+
+    /**
+     * Whether to sort in ascending or descending order.
+     */
+    private final SortOrder order;
+
+    /**
+     * Creates a new comparator.
+     *
+     * @param  property  the property on which to sort.
+     * @param  order     whether to sort in ascending or descending order.
+     */
+    PropertySort(final ValueReference<Feature,?> property, final SortOrder order) {
+        this.property = Objects.requireNonNull(property);
+        this.order    = Objects.requireNonNull(order);
+    }
+
+    @Override public ValueReference<Feature,?> getValueReference() {return property;}
+    @Override public SortOrder getSortOrder() {return order;}
+
+    /**
+     * Compares the property values of the given features.
+     */
+    @Override
+    public int compare(final Feature f1, final Feature f2) {
+        final Object v1 = property.apply(f1);
+        final Object v2 = property.apply(f2);
+        if (v1 == null || v2 == null) {
+            return (v1 != null) ? -1 : (v2 != null) ? 1 : 0;
+        }
+        int c;
+        switch (Values.compare(v1, v2, true)) {
+            case Values.LESS:    c = -1; break;
+            case Values.GREATER: c = +1; break;
+            default:             c =  0; break;
+        }
+        return (order == SortOrder.DESCENDING) ? -c : c;
+    }
+
+    /**
+     * Compares this comparator with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof PropertySort) {
+            final var that = (PropertySort) other;
+            return property.equals(that.property) && order == that.order;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this comparator.
+     */
+    @Override
+    public int hashCode() {
+        return property.hashCode() + order.hashCode();
+    }
+
+    /**
+     * Returns a string representation of this comparator.
+     */
+    @Override
+    public String toString() {
+        return "SortProperty[" + property + ", " + order + ']';
+    }
+}
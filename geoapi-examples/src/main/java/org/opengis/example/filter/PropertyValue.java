@@ -0,0 +1,125 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Objects;
+import java.util.Collection;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.filter.ValueReference;
+
+
+/**
+ * A reference to the value of a feature property identified by its name.
+ * The name may be a path through feature associations, as described in {@link PropertyAccessor}.
+ * If the feature has no property of that name, the value is {@code null}.
+ * If the expected type is not {@code Object}, values are converted to that type.
+ *
+ * @param <V>  the type of values returned by this expression.
+ */
+final class PropertyValue<V> implements ValueReference<Feature,V> {
+    /**
+     * The name of the property.
+     */
+    private final String xpath;
+
+    /**
+     * The type of values returned by this expression.
+     */
+    private final Class<V> type;
+
+    /**
+     * The accessor for the type of the last feature given to {@link #apply(Feature)}, or {@code null} if none.
+     * Features of the same type are read with that accessor without new lookup in the cache.
+     */
+    private volatile PropertyAccessor accessor;
+
+    /**
+     * Creates a new reference to the property of the given name.
+     *
+     * @param  xpath  the property name or path.
+     * @param  type   the type of values returned by the expression.
+     */
+    PropertyValue(final String xpath, final Class<V> type) {
+        this.xpath = Objects.requireNonNull(xpath);
+        this.type  = Objects.requireNonNull(type);
+    }
+
+    /**
+     * Returns the type of resources accepted by this expression.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the name of the property.
+     */
+    @Override
+    public String getXPath() {
+        return xpath;
+    }
+
+    /**
+     * Returns the value of the property in the given feature, or {@code null} if none.
+     * Multi-valued properties are returned as collections without conversion.
+     */
+    @Override
+    public V apply(final Feature feature) {
+        if (feature == null) {
+            return null;
+        }
+        final FeatureType t = feature.getType();
+        PropertyAccessor a = accessor;
+        if (a == null || a.getFeatureType() != t) {
+            accessor = a = PropertyAccessor.bind(t, xpath);
+        }
+        final Object value = a.apply(feature);
+        if (type == Object.class || type.isInstance(value) || value instanceof Collection<?>) {
+            @SuppressWarnings("unchecked")
+            final V result = (V) value;
+            return result;
+        }
+        return Values.convert(value, type);
+    }
+
+    /**
+     * Returns a reference to the same property with values converted to the given type.
+     */
+    @Override
+    public <N> ValueReference<Feature,N> toValueType(final Class<N> target) {
+        return new PropertyValue<>(xpath, target);
+    }
+
+    /**
+     * Compares this expression with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof PropertyValue<?>) {
+            final var that = (PropertyValue<?>) other;
+            return xpath.equals(that.xpath) && type == that.type;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this expression.
+     */
+    @Override
+    public int hashCode() {
+        return xpath.hashCode() + 31 * type.hashCode();
+    }
+
+    /**
+     * Returns a string representation of this expression.
+     */
+    @Override
+    public String toString() {
+        return "ValueReference[" + xpath + ']';
+    }
+}
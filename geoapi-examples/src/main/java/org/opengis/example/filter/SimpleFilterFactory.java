@@ -0,0 +1,487 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.Objects;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.Collection;
+import java.time.Instant;
+import javax.measure.Quantity;
+import javax.measure.quantity.Length;
+import org.opengis.util.ScopedName;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.feature.Feature;
+import org.opengis.geometry.Envelope;
+import org.opengis.filter.*;
+import org.opengis.filter.capability.Conformance;
+import org.opengis.filter.capability.AvailableFunction;
+import org.opengis.filter.capability.FilterCapabilities;
+import org.opengis.filter.capability.ScalarCapabilities;
+import org.opengis.filter.capability.SpatialCapabilities;
+import org.opengis.filter.capability.TemporalCapabilities;
+import org.opengis.example.metadata.SimpleCitation;
+
+
+/**
+ * A factory of filters and expressions operating on {@link Feature} instances.
+ * All filters and expressions created by this factory are immutable and thread-safe.
+ *
+ * <p>Comparison operators are specialized by the type of their literal operand:
+ * comparing a numeric property with a {@code double} or integer literal uses primitive arithmetic
+ * without boxing, and comparing with a character string uses string comparisons.
+ * Comparisons on multi-valued properties apply the {@link MatchAction} to the values of the property.</p>
+ *
+ * <h2>Limitations</h2>
+ * <ul>
+ *   <li>Spatial operands can be {@link org.opengis.geometry.Geometry},
+ *       {@link org.opengis.example.geometry.PreparedGeometry}, {@link org.opengis.geometry.DirectPosition}
+ *       or {@link Envelope} instances. Only the first two dimensions are used and no coordinate operation
+ *       is applied. The "contains" and "within" operators accept geometries lying on the boundary
+ *       of the containing geometry.</li>
+ *   <li>Temporal operands are instants or {@linkplain org.opengis.temporal.Period periods}.
+ *       Indeterminate positions are not supported.</li>
+ *   <li>Resource identifiers are the values of the {@value #IDENTIFIER} property. Versions are not supported.</li>
+ *   <li>The only functions are the arithmetic functions {@code Add}, {@code Sub}, {@code Mul} and {@code Div}.</li>
+ * </ul>
+ */
+public class SimpleFilterFactory implements FilterFactory<Feature,Object,Object> {
+    /**
+     * Name of the property containing the feature identifiers tested by {@link #resourceId(String)}.
+     */
+    public static final String IDENTIFIER = "identifier";
+
+    /**
+     * The capabilities of this factory.
+     */
+    private static final Capabilities CAPABILITIES = new Capabilities();
+
+    /**
+     * Creates a new factory.
+     */
+    public SimpleFilterFactory() {
+    }
+
+    /**
+     * Returns the implementer of this factory.
+     *
+     * @return {@link SimpleCitation#GEOAPI}.
+     */
+    @Override
+    public Citation getVendor() {
+        return SimpleCitation.GEOAPI;
+    }
+
+    /**
+     * Description of the operators supported by this factory.
+     */
+    private static final class Capabilities implements FilterCapabilities, Conformance,
+            ScalarCapabilities, SpatialCapabilities, TemporalCapabilities
+    {
+        /** Creates the capabilities of this factory. */
+        Capabilities() {
+        }
+
+        @Override public Conformance getConformance() {return this;}
+        @Override public Optional<ScalarCapabilities>   getScalarCapabilities()   {return Optional.of(this);}
+        @Override public Optional<SpatialCapabilities>  getSpatialCapabilities()  {return Optional.of(this);}
+        @Override public Optional<TemporalCapabilities> getTemporalCapabilities() {return Optional.of(this);}
+        @Override public boolean implementsResourceld() {return true;}
+        @Override public boolean implementsStandardFilter() {return true;}
+        @Override public boolean implementsSpatialFilter() {return true;}
+        @Override public boolean implementsTemporalFilter() {return true;}
+        @Override public boolean implementsFunctions() {return true;}
+        @Override public boolean implementsSorting() {return true;}
+        @Override public boolean hasLogicalOperators() {return true;}
+        @Override public Set<ComparisonOperatorName> getComparisonOperators() {
+            return Set.of(ComparisonOperatorName.values());
+        }
+
+        /** Operand types are not restricted; see the class javadoc for the supported values. */
+        @Override public Collection<ScopedName> getGeometryOperands() {return List.of();}
+        @Override public Collection<ScopedName> getTemporalOperands() {return List.of();}
+
+        /** Returns all spatial operators, without restriction on the operand types. */
+        @Override public Map<SpatialOperatorName, List<? extends ScopedName>> getSpatialOperators() {
+            final var operators = new LinkedHashMap<SpatialOperatorName, List<? extends ScopedName>>();
+            for (final SpatialOperatorName op : SpatialOperatorName.values()) {
+                operators.put(op, List.of());
+            }
+            return operators;
+        }
+
+        /** Returns all temporal operators, without restriction on the operand types. */
+        @Override public Map<TemporalOperatorName, List<? extends ScopedName>> getTemporalOperators() {
+            final var operators = new LinkedHashMap<TemporalOperatorName, List<? extends ScopedName>>();
+            for (final TemporalOperatorName op : TemporalOperatorName.values()) {
+                operators.put(op, List.of());
+            }
+            return operators;
+        }
+
+        /** Returns the arithmetic functions. */
+        @Override public Map<String, AvailableFunction> getFunctions() {
+            final var functions = new LinkedHashMap<String, AvailableFunction>();
+            for (final Arithmetic.Operator op : Arithmetic.Operator.values()) {
+                functions.put(op.getName().toString(), op);
+            }
+            return functions;
+        }
+    }
+
+    /**
+     * Returns the capabilities of this factory.
+     *
+     * @return the capabilities of this factory.
+     */
+    @Override
+    public FilterCapabilities getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    /**
+     * Creates a filter matching the feature having the given identifier.
+     *
+     * @param  rid        the identifier of the feature to match.
+     * @param  version    shall be {@code null}.
+     * @param  startTime  shall be {@code null}.
+     * @param  endTime    shall be {@code null}.
+     * @return the filter.
+     * @throws UnsupportedOperationException if a version or a time is specified.
+     */
+    @Override
+    public ResourceId<Feature> resourceId(final String rid, final Version version, final Instant startTime, final Instant endTime) {
+        if (version != null || startTime != null || endTime != null) {
+            throw new UnsupportedOperationException("Versions are not supported.");
+        }
+        return new IdentifierFilter(rid);
+    }
+
+    /**
+     * Creates a reference to the value of the feature property of the given name.
+     *
+     * @param  <V>    the type of values.
+     * @param  xpath  the property name.
+     * @param  type   the type of values.
+     * @return the expression.
+     */
+    @Override
+    public <V> ValueReference<Feature,V> property(final String xpath, final Class<V> type) {
+        return new PropertyValue<>(xpath, type);
+    }
+
+    /**
+     * Creates a constant value.
+     *
+     * @param  <V>    the type of the value.
+     * @param  value  the value.
+     * @return the expression.
+     */
+    @Override
+    public <V> Literal<Feature,V> literal(final V value) {
+        return new LiteralValue<>(value);
+    }
+
+    @Override
+    public BinaryComparisonOperator<Feature> equal(final Expression<Feature,?> expression1, final Expression<Feature,?> expression2,
+                                                   final boolean isMatchingCase, final MatchAction matchAction)
+    {
+        return ComparisonFilter.create(ComparisonOperatorName.PROPERTY_IS_EQUAL_TO, Values.EQUAL,
+                                       expression1, expression2, isMatchingCase, matchAction);
+    }
+
+    @Override
+    public BinaryComparisonOperator<Feature> notEqual(final Expression<Feature,?> expression1, final Expression<Feature,?> expression2,
+                                                      final boolean isMatchingCase, final MatchAction matchAction)
+    {
+        return ComparisonFilter.create(ComparisonOperatorName.PROPERTY_IS_NOT_EQUAL_TO, Values.LESS | Values.GREATER | Values.UNORDERED,
+                                       expression1, expression2, isMatchingCase, matchAction);
+    }
+
+    @Override
+    public BinaryComparisonOperator<Feature> less(final Expression<Feature,?> expression1, final Expression<Feature,?> expression2,
+                                                  final boolean isMatchingCase, final MatchAction matchAction)
+    {
+        return ComparisonFilter.create(ComparisonOperatorName.PROPERTY_IS_LESS_THAN, Values.LESS,
+                                       expression1, expression2, isMatchingCase, matchAction);
+    }
+
+    @Override
+    public BinaryComparisonOperator<Feature> greater(final Expression<Feature,?> expression1, final Expression<Feature,?> expression2,
+                                                     final boolean isMatchingCase, final MatchAction matchAction)
+    {
+        return ComparisonFilter.create(ComparisonOperatorName.PROPERTY_IS_GREATER_THAN, Values.GREATER,
+                                       expression1, expression2, isMatchingCase, matchAction);
+    }
+
+    @Override
+    public BinaryComparisonOperator<Feature> lessOrEqual(final Expression<Feature,?> expression1, final Expression<Feature,?> expression2,
+                                                         final boolean isMatchingCase, final MatchAction matchAction)
+    {
+        return ComparisonFilter.create(ComparisonOperatorName.PROPERTY_IS_LESS_THAN_OR_EQUAL_TO, Values.LESS | Values.EQUAL,
+                                       expression1, expression2, isMatchingCase, matchAction);
+    }
+
+    @Override
+    public BinaryComparisonOperator<Feature> greaterOrEqual(final Expression<Feature,?> expression1, final Expression<Feature,?> expression2,
+                                                            final boolean isMatchingCase, final MatchAction matchAction)
+    {
+        return ComparisonFilter.create(ComparisonOperatorName.PROPERTY_IS_GREATER_THAN_OR_EQUAL_TO, Values.GREATER | Values.EQUAL,
+                                       expression1, expression2, isMatchingCase, matchAction);
+    }
+
+    @Override
+    public BetweenComparisonOperator<Feature> between(final Expression<Feature,?> expression,
+                                                      final Expression<Feature,?> lowerBoundary,
+                                                      final Expression<Feature,?> upperBoundary)
+    {
+        return new BetweenFilter(expression, lowerBoundary, upperBoundary);
+    }
+
+    @Override
+    public LikeOperator<Feature> like(final Expression<Feature,?> expression, final String pattern,
+                                      final char wildcard, final char singleChar, final char escape, final boolean isMatchingCase)
+    {
+        return new LikeFilter(expression, pattern, wildcard, singleChar, escape, isMatchingCase);
+    }
+
+    @Override
+    public NullOperator<Feature> isNull(final Expression<Feature,?> expression) {
+        return new NullFilter(expression);
+    }
+
+    @Override
+    public NilOperator<Feature> isNil(final Expression<Feature,?> expression, final String nilReason) {
+        return new NilFilter(expression, nilReason);
+    }
+
+    @Override
+    public LogicalOperator<Feature> and(final Collection<? extends Filter<Feature>> operands) {
+        return new LogicalFilter.And(operands);
+    }
+
+    @Override
+    public LogicalOperator<Feature> or(final Collection<? extends Filter<Feature>> operands) {
+        return new LogicalFilter.Or(operands);
+    }
+
+    /**
+     * Creates an {@code Or} of equality tests between the same property and different literals,
+     * evaluated by a hash set lookup. This method is invoked by {@link FilterOptimizer}.
+     *
+     * @param  property  the property compared with the literals.
+     * @param  literals  the literal values of the equality tests.
+     * @param  operands  the equality tests, which shall be instances created by this factory.
+     * @return an {@code Or} operator evaluated by a hash set lookup.
+     */
+    final LogicalOperator<Feature> membership(final ValueReference<Feature,?> property,
+            final Collection<?> literals, final List<Filter<Feature>> operands)
+    {
+        return new MembershipFilter<>(property, literals, operands);
+    }
+
+    @Override
+    public LogicalOperator<Feature> not(final Filter<Feature> operand) {
+        return new LogicalFilter.Not(operand);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> bbox(final Expression<Feature,?> geometry, final Envelope bounds) {
+        return new SpatialFilter.BBox(geometry, bounds);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> intersects(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.INTERSECTS, geometry1, geometry2);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> disjoint(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.DISJOINT, geometry1, geometry2);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> within(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.WITHIN, geometry1, geometry2);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> contains(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.CONTAINS, geometry1, geometry2);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> equals(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.EQUALS, geometry1, geometry2);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> touches(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.TOUCHES, geometry1, geometry2);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> crosses(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.CROSSES, geometry1, geometry2);
+    }
+
+    @Override
+    public BinarySpatialOperator<Feature> overlaps(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+        return new SpatialFilter.Relation(SpatialOperatorName.OVERLAPS, geometry1, geometry2);
+    }
+
+    @Override
+    public DistanceOperator<Feature> beyond(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2,
+                                            final Quantity<Length> distance)
+    {
+        return new SpatialFilter.Distance(DistanceOperatorName.BEYOND, geometry1, geometry2, distance);
+    }
+
+    @Override
+    public DistanceOperator<Feature> within(final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2,
+                                            final Quantity<Length> distance)
+    {
+        return new SpatialFilter.Distance(DistanceOperatorName.WITHIN, geometry1, geometry2, distance);
+    }
+
+    @Override
+    public TemporalOperator<Feature> after(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.AFTER, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> before(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.BEFORE, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> tequals(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.EQUALS, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> anyInteracts(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.ANY_INTERACTS, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> begins(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.BEGINS, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> begunBy(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.BEGUN_BY, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> tcontains(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.CONTAINS, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> during(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.DURING, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> toverlaps(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.OVERLAPS, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> meets(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.MEETS, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> ends(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.ENDS, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> overlappedBy(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.OVERLAPPED_BY, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> metBy(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.MET_BY, time1, time2);
+    }
+
+    @Override
+    public TemporalOperator<Feature> endedBy(final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        return new TemporalFilter(TemporalOperatorName.ENDED_BY, time1, time2);
+    }
+
+    @Override
+    public Expression<Feature,Number> add(final Expression<Feature, ? extends Number> operand1,
+                                          final Expression<Feature, ? extends Number> operand2)
+    {
+        return new Arithmetic(Arithmetic.Operator.ADD, operand1, operand2);
+    }
+
+    @Override
+    public Expression<Feature,Number> subtract(final Expression<Feature, ? extends Number> operand1,
+                                               final Expression<Feature, ? extends Number> operand2)
+    {
+        return new Arithmetic(Arithmetic.Operator.SUBTRACT, operand1, operand2);
+    }
+
+    @Override
+    public Expression<Feature,Number> multiply(final Expression<Feature, ? extends Number> operand1,
+                                               final Expression<Feature, ? extends Number> operand2)
+    {
+        return new Arithmetic(Arithmetic.Operator.MULTIPLY, operand1, operand2);
+    }
+
+    @Override
+    public Expression<Feature,Number> divide(final Expression<Feature, ? extends Number> operand1,
+                                             final Expression<Feature, ? extends Number> operand2)
+    {
+        return new Arithmetic(Arithmetic.Operator.DIVIDE, operand1, operand2);
+    }
+
+    /**
+     * Creates an arithmetic function. The function names are {@code "Add"}, {@code "Sub"},
+     * {@code "Mul"} and {@code "Div"}, and all of them expect two numerical parameters.
+     * Parameters evaluated to values which are not numbers give a null result.
+     *
+     * @param  name        name of the function to call.
+     * @param  parameters  the two operands of the arithmetic function.
+     * @return an expression which will call the specified function.
+     * @throws IllegalArgumentException if the given name is not recognized,
+     *         or if the number of parameters is not 2.
+     */
+    @Override
+    @SuppressWarnings("unchecked")      // Values are verified at evaluation time.
+    public Expression<Feature,?> function(final String name, final Expression<Feature,?>[] parameters) {
+        final Arithmetic.Operator operator = Arithmetic.Operator.forName(name);
+        if (operator == null) {
+            throw new IllegalArgumentException("Unknown function: " + name);
+        }
+        if (parameters.length != 2) {
+            throw new IllegalArgumentException("Function " + name + " expects 2 parameters but got " + parameters.length + '.');
+        }
+        return new Arithmetic(operator, (Expression<Feature, ? extends Number>) Objects.requireNonNull(parameters[0]),
+                                        (Expression<Feature, ? extends Number>) Objects.requireNonNull(parameters[1]));
+    }
+
+    /**
+     * Creates a comparator sorting features by the values of the given property.
+     *
+     * @param  property  the property on which to sort.
+     * @param  order     whether to sort in ascending or descending order.
+     * @return the comparator.
+     */
+    @Override
+    public SortProperty<Feature> sort(final ValueReference<Feature,?> property, final SortOrder order) {
+        return new PropertySort(property, order);
+    }
+}
@@ -0,0 +1,656 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Collection;
+import javax.measure.Unit;
+import javax.measure.Quantity;
+import javax.measure.quantity.Angle;
+import javax.measure.quantity.Length;
+import tech.uom.seshat.Units;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.SpatialOperator;
+import org.opengis.filter.DistanceOperator;
+import org.opengis.filter.DistanceOperatorName;
+import org.opengis.filter.BinarySpatialOperator;
+import org.opengis.filter.SpatialOperatorName;
+import org.opengis.filter.InvalidFilterValueException;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.Geometry;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.primitive.Point;
+import org.opengis.referencing.cs.AxisDirection;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.example.geometry.PackedGeometry;
+import org.opengis.example.geometry.PreparedGeometry;
+import org.opengis.example.referencing.GeodesicCalculator;
+
+
+/**
+ * Base class of spatial operators. Operand values can be {@link Geometry}, {@link PreparedGeometry},
+ * {@link DirectPosition} or {@link Envelope} instances. A literal operand is prepared once at construction
+ * time, so that evaluation against many features does not rebuild the index of the literal geometry.
+ * A multi-valued property matches if any of its values matches.
+ *
+ * <p>Only the first two dimensions are used. The operands are assumed to use the same
+ * coordinate reference system; no coordinate operation is applied. If that <abbr>CRS</abbr>
+ * is geographic, the distance operators compute geodesic distances with the axis order of the
+ * <abbr>CRS</abbr> of the literal.</p>
+ */
+abstract class SpatialFilter implements SpatialOperator<Feature> {
+    /**
+     * The operands.
+     */
+    final Expression<Feature,?> expression1, expression2;
+
+    /**
+     * The literal operands prepared for repeated evaluation, or {@code null} if the operand is not a literal.
+     */
+    private final PreparedGeometry prepared1, prepared2;
+
+    /**
+     * Creates a new spatial operator.
+     *
+     * @param  expression1  the first operand.
+     * @param  expression2  the second operand.
+     */
+    SpatialFilter(final Expression<Feature,?> expression1, final Expression<Feature,?> expression2) {
+        this.expression1 = Objects.requireNonNull(expression1);
+        this.expression2 = Objects.requireNonNull(expression2);
+        prepared1 = prepareLiteral(expression1);
+        prepared2 = prepareLiteral(expression2);
+    }
+
+    /**
+     * Prepares the value of the given expression if it is a literal other than a point.
+     *
+     * @param  expression  the expression to prepare.
+     * @return the prepared literal, or {@code null} if none.
+     */
+    private static PreparedGeometry prepareLiteral(final Expression<Feature,?> expression) {
+        if (expression instanceof Literal<?,?>) {
+            final Object value = ((Literal<?,?>) expression).getValue();
+            if (point(value) == null) {
+                return prepare(value);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     */
+    @Override
+    public final Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the two operands.
+     */
+    @Override
+    public final List<Expression<Feature,?>> getExpressions() {
+        return List.of(expression1, expression2);
+    }
+
+    /**
+     * Evaluates the operands and applies the spatial test.
+     * If a value is a collection, the test is applied on each element.
+     */
+    @Override
+    public final boolean test(final Feature feature) {
+        final Object a = expression1.apply(feature);
+        final Object b = expression2.apply(feature);
+        if (a instanceof Collection<?>) {
+            return Values.match(MatchAction.ANY, (Collection<?>) a, (e) -> testPair(e, b));
+        }
+        return testPair(a, b);
+    }
+
+    /**
+     * Applies the spatial test on a value of the first operand and the value of the second operand.
+     *
+     * @param  a  value of the first operand, or an element of that value.
+     * @param  b  value of the second operand.
+     * @return whether the values satisfy the spatial test.
+     */
+    private boolean testPair(final Object a, final Object b) {
+        if (b instanceof Collection<?>) {
+            return Values.match(MatchAction.ANY, (Collection<?>) b, (e) -> a != null && e != null && test(a, prepared1, e, prepared2));
+        }
+        return a != null && b != null && test(a, prepared1, b, prepared2);
+    }
+
+    /**
+     * Applies the spatial test on non-null values.
+     *
+     * @param  a   value of the first operand.
+     * @param  pa  the first operand prepared at construction time, or {@code null} if none.
+     * @param  b   value of the second operand.
+     * @param  pb  the second operand prepared at construction time, or {@code null} if none.
+     * @return whether the values satisfy the spatial test.
+     */
+    abstract boolean test(Object a, PreparedGeometry pa, Object b, PreparedGeometry pb);
+
+    /**
+     * Returns the given value as a point, or {@code null} if it is not a point.
+     *
+     * @param  value  the value to convert.
+     * @return the value as a point, or {@code null}.
+     */
+    static DirectPosition point(final Object value) {
+        if (value instanceof DirectPosition) return (DirectPosition) value;
+        if (value instanceof Point) return ((Point) value).getDirectPosition();
+        return null;
+    }
+
+    /**
+     * Returns the envelope of the given value, or {@code null} if unknown.
+     *
+     * @param  value  the value for which to get the envelope.
+     * @return the envelope of the value, or {@code null}.
+     */
+    static Envelope envelope(final Object value) {
+        if (value instanceof Envelope)         return (Envelope) value;
+        if (value instanceof PreparedGeometry) return ((PreparedGeometry) value).getEnvelope();
+        if (value instanceof PackedGeometry)   return ((PackedGeometry) value).getEnvelope();
+        if (value instanceof Geometry)         return ((Geometry) value).getEnvelope();
+        return null;
+    }
+
+    /**
+     * Prepares the given geometry, point or envelope for spatial tests.
+     *
+     * @param  value  the geometry, point or envelope to prepare.
+     * @return the prepared geometry.
+     * @throws InvalidFilterValueException if the value is not a geometry.
+     */
+    static PreparedGeometry prepare(final Object value) {
+        if (value instanceof PreparedGeometry) {
+            return (PreparedGeometry) value;
+        }
+        final DirectPosition point = point(value);
+        if (point != null) {
+            return PreparedGeometry.point(point);
+        }
+        if (value instanceof Geometry) {
+            return PreparedGeometry.prepare((Geometry) value);
+        }
+        if (value instanceof Envelope) {
+            final var e = (Envelope) value;
+            final double x0 = e.getMinimum(0), y0 = e.getMinimum(1);
+            final double x1 = e.getMaximum(0), y1 = e.getMaximum(1);
+            return PreparedGeometry.polygon(e.getCoordinateReferenceSystem(), new double[] {x0, y0, x1, y0, x1, y1, x0, y1});
+        }
+        throw new InvalidFilterValueException("Not a geometry: " + value);
+    }
+
+    /**
+     * Returns the prepared geometry if non-null, or prepares the given value otherwise.
+     *
+     * @param  value     the geometry, point or envelope to prepare if {@code prepared} is null.
+     * @param  prepared  the value prepared at construction time, or {@code null} if none.
+     * @return the prepared geometry.
+     */
+    static PreparedGeometry prepare(final Object value, final PreparedGeometry prepared) {
+        return (prepared != null) ? prepared : prepare(value);
+    }
+
+    /**
+     * Returns whether the two given values intersect.
+     *
+     * @param  a   value of the first operand.
+     * @param  pa  the first operand prepared at construction time, or {@code null} if none.
+     * @param  b   value of the second operand.
+     * @param  pb  the second operand prepared at construction time, or {@code null} if none.
+     * @return whether the two values intersect.
+     */
+    static boolean intersects(final Object a, final PreparedGeometry pa, final Object b, final PreparedGeometry pb) {
+        final DirectPosition p = point(a);
+        final DirectPosition q = point(b);
+        if (p != null) {
+            if (q != null) {
+                return p.getCoordinate(0) == q.getCoordinate(0) && p.getCoordinate(1) == q.getCoordinate(1);
+            }
+            return contains(prepare(b, pb), p);
+        }
+        if (q != null) {
+            return contains(prepare(a, pa), q);
+        }
+        return prepare(a, pa).intersects(prepare(b, pb));
+    }
+
+    /**
+     * Returns whether the given point is inside or on the boundary of the given geometry.
+     *
+     * @param  geometry  the geometry to test.
+     * @param  point     the point to test.
+     * @return whether the point is in the closure of the geometry.
+     */
+    private static boolean contains(final PreparedGeometry geometry, final DirectPosition point) {
+        return geometry.contains(point) || geometry.distance(point) == 0;
+    }
+
+    /**
+     * Returns whether the first value contains the second value. Points are tested directly,
+     * other geometries are tested with {@link PreparedGeometry#covers(PreparedGeometry)}.
+     * Consequently, a geometry lying entirely on the boundary of the first value is considered
+     * as contained.
+     *
+     * @param  a   value of the containing operand.
+     * @param  pa  the containing operand prepared at construction time, or {@code null} if none.
+     * @param  b   value of the contained operand.
+     * @param  pb  the contained operand prepared at construction time, or {@code null} if none.
+     * @return whether the first value contains the second value.
+     */
+    static boolean contains(final Object a, final PreparedGeometry pa, final Object b, final PreparedGeometry pb) {
+        final DirectPosition q = point(b);
+        if (q != null) {
+            final DirectPosition p = point(a);
+            if (p != null) {
+                return p.getCoordinate(0) == q.getCoordinate(0) && p.getCoordinate(1) == q.getCoordinate(1);
+            }
+            return prepare(a, pa).contains(q);
+        }
+        return prepare(a, pa).covers(prepare(b, pb));
+    }
+
+    /**
+     * Returns whether two values satisfy the "crosses" or "overlaps" relationship.
+     * Both relationships require the interiors to intersect without one geometry covering the other.
+     * "Overlaps" requires geometries of the same dimension, and an intersection of that dimension.
+     * "Crosses" requires an intersection of lower dimension than the highest operand dimension.
+     *
+     * @param  a         the first prepared geometry.
+     * @param  b         the second prepared geometry.
+     * @param  overlaps  {@code true} for the "overlaps" relationship, or {@code false} for "crosses".
+     * @return whether the two geometries satisfy the relationship.
+     */
+    private static boolean crossesOrOverlaps(final PreparedGeometry a, final PreparedGeometry b, final boolean overlaps) {
+        final int da = a.getDimension();
+        final int db = b.getDimension();
+        final int di = a.interiorIntersectionDimension(b);
+        if (overlaps) {
+            return da == db && di == da && !a.covers(b) && !b.covers(a);
+        }
+        if (da == db) {
+            return da == 1 && di == 0;
+        }
+        return di >= 0 && di < Math.max(da, db) && !(da < db ? b.covers(a) : a.covers(b));
+    }
+
+    /**
+     * Returns the distance between the two given values.
+     *
+     * @param  a   value of the first operand.
+     * @param  pa  the first operand prepared at construction time, or {@code null} if none.
+     * @param  b   value of the second operand.
+     * @param  pb  the second operand prepared at construction time, or {@code null} if none.
+     * @return the distance in units of the coordinate system.
+     */
+    static double distance(final Object a, final PreparedGeometry pa, final Object b, final PreparedGeometry pb) {
+        final DirectPosition p = point(a);
+        final DirectPosition q = point(b);
+        if (p != null) {
+            if (q != null) {
+                return Math.hypot(p.getCoordinate(0) - q.getCoordinate(0), p.getCoordinate(1) - q.getCoordinate(1));
+            }
+            return prepare(b, pb).distance(p);
+        }
+        if (q != null) {
+            return prepare(a, pa).distance(q);
+        }
+        return prepare(a, pa).distance(prepare(b, pb));
+    }
+
+    /**
+     * The "bbox" operator, which tests whether the envelope of a value intersects a given envelope.
+     */
+    static final class BBox extends SpatialFilter implements BinarySpatialOperator<Feature> {
+        /** The envelope to test against. */
+        private final Envelope bounds;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  geometry  the geometry to test.
+         * @param  bounds    the envelope to test against.
+         */
+        BBox(final Expression<Feature,?> geometry, final Envelope bounds) {
+            super(geometry, new LiteralValue<>(bounds));
+            this.bounds = bounds;
+        }
+
+        @Override
+        public SpatialOperatorName getOperatorType() {
+            return SpatialOperatorName.BBOX;
+        }
+
+        /**
+         * Returns the envelope to test against.
+         *
+         * @return the envelope to test against.
+         */
+        Envelope getBounds() {
+            return bounds;
+        }
+
+        @Override
+        boolean test(final Object a, final PreparedGeometry pa, final Object b, final PreparedGeometry pb) {
+            final DirectPosition p = point(a);
+            if (p != null) {
+                final double x = p.getCoordinate(0);
+                final double y = p.getCoordinate(1);
+                return x >= bounds.getMinimum(0) && x <= bounds.getMaximum(0)
+                    && y >= bounds.getMinimum(1) && y <= bounds.getMaximum(1);
+            }
+            final Envelope e = envelope(a);
+            return e != null && e.getMinimum(0) <= bounds.getMaximum(0) && e.getMaximum(0) >= bounds.getMinimum(0)
+                             && e.getMinimum(1) <= bounds.getMaximum(1) && e.getMaximum(1) >= bounds.getMinimum(1);
+        }
+    }
+
+    /**
+     * The "intersects", "disjoint", "within", "contains", "equals", "touches", "crosses" and "overlaps" operators.
+     * The last four operators compare the topological dimensions of the operands and of their intersection,
+     * as computed by {@link PreparedGeometry}.
+     */
+    static final class Relation extends SpatialFilter implements BinarySpatialOperator<Feature> {
+        /** The type of spatial relationship. */
+        private final SpatialOperatorName type;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  type       the type of spatial relationship.
+         * @param  geometry1  the first operand.
+         * @param  geometry2  the second operand.
+         */
+        Relation(final SpatialOperatorName type, final Expression<Feature,?> geometry1, final Expression<Feature,?> geometry2) {
+            super(geometry1, geometry2);
+            this.type = type;
+        }
+
+        @Override
+        public SpatialOperatorName getOperatorType() {
+            return type;
+        }
+
+        @Override
+        boolean test(final Object a, final PreparedGeometry pa, final Object b, final PreparedGeometry pb) {
+            if (type == SpatialOperatorName.INTERSECTS) return  intersects(a, pa, b, pb);
+            if (type == SpatialOperatorName.DISJOINT)   return !intersects(a, pa, b, pb);
+            if (type == SpatialOperatorName.WITHIN)     return contains(b, pb, a, pa);
+            if (type == SpatialOperatorName.CONTAINS)   return contains(a, pa, b, pb);
+            final PreparedGeometry ga = prepare(a, pa);
+            final PreparedGeometry gb = prepare(b, pb);
+            if (type == SpatialOperatorName.EQUALS)  return ga.covers(gb) && gb.covers(ga);
+            if (type == SpatialOperatorName.TOUCHES) return ga.intersects(gb) && ga.interiorIntersectionDimension(gb) < 0;
+            return crossesOrOverlaps(ga, gb, type == SpatialOperatorName.OVERLAPS);
+        }
+    }
+
+    /**
+     * The "within distance" and "beyond" operators.
+     * If the literal operand uses a geographic <abbr>CRS</abbr> with angular units,
+     * distances are geodesic distances computed on the ellipsoid of that <abbr>CRS</abbr>.
+     */
+    static final class Distance extends SpatialFilter implements DistanceOperator<Feature> {
+        /** The type of distance operator. */
+        private final DistanceOperatorName type;
+
+        /** The distance, as specified by the user. */
+        private final Quantity<Length> distance;
+
+        /** The distance in units of the coordinate system. */
+        private final double limit;
+
+        /** Calculator of geodesic distances if the operands are geographic, or {@code null} otherwise. */
+        private final GeodesicCalculator calculator;
+
+        /** Dimension of latitude values, 0 or 1. Used only if {@link #calculator} is non-null. */
+        private final int latitude;
+
+        /** Factor converting coordinate values to decimal degrees. Used only if {@link #calculator} is non-null. */
+        private final double toDegrees;
+
+        /** The distance in units of the ellipsoid axes. Used only if {@link #calculator} is non-null. */
+        private final double geodesicLimit;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  type       the type of distance operator.
+         * @param  geometry1  the first operand.
+         * @param  geometry2  the second operand.
+         * @param  distance   the distance, in units compatible with metres.
+         */
+        Distance(final DistanceOperatorName type, final Expression<Feature,?> geometry1,
+                 final Expression<Feature,?> geometry2, final Quantity<Length> distance)
+        {
+            super(geometry1, geometry2);
+            this.type     = type;
+            this.distance = Objects.requireNonNull(distance);
+            CoordinateReferenceSystem crs = null;
+            for (final Expression<Feature,?> e : getExpressions()) {
+                if (e instanceof Literal<?,?>) {
+                    crs = crs(((Literal<?,?>) e).getValue());
+                }
+            }
+            limit = toAxisUnits(distance, crs);
+            final int lat = latitudeDimension(crs);
+            if (lat >= 0) {
+                final Ellipsoid ellipsoid = ((GeographicCRS) crs).getDatum().getEllipsoid();
+                final Unit<Angle> unit = crs.getCoordinateSystem().getAxis(lat).getUnit().asType(Angle.class);
+                calculator    = new GeodesicCalculator(ellipsoid);
+                latitude      = lat;
+                toDegrees     = unit.getConverterTo(Units.DEGREE).convert(1.0);
+                geodesicLimit = distance.to(ellipsoid.getAxisUnit()).getValue().doubleValue();
+            } else {
+                calculator    = null;
+                latitude      = 0;
+                toDegrees     = 1;
+                geodesicLimit = Double.NaN;
+            }
+        }
+
+        @Override
+        public DistanceOperatorName getOperatorType() {
+            return type;
+        }
+
+        @Override
+        public Quantity<Length> getDistance() {
+            return distance;
+        }
+
+        /**
+         * Returns the distance in units of the coordinate system.
+         * For a geographic <abbr>CRS</abbr>, this is the largest latitude difference
+         * as documented in {@link #toAxisUnits(Quantity, CoordinateReferenceSystem)}.
+         *
+         * @return the distance in units of the coordinate system.
+         */
+        double getLimit() {
+            return limit;
+        }
+
+        /** Returns the literal geometry, or {@code null} if none. */
+        @Override
+        public Geometry getGeometry() {
+            for (final Expression<Feature,?> e : getExpressions()) {
+                if (e instanceof Literal<?,?>) {
+                    final Object value = ((Literal<?,?>) e).getValue();
+                    if (value instanceof Geometry) {
+                        return (Geometry) value;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        boolean test(final Object a, final PreparedGeometry pa, final Object b, final PreparedGeometry pb) {
+            final double d, max;
+            if (calculator != null) {
+                d   = geodesicDistance(a, pa, b, pb);
+                max = geodesicLimit;
+            } else {
+                d   = distance(a, pa, b, pb);
+                max = limit;
+            }
+            return (type == DistanceOperatorName.BEYOND) ? d > max : d <= max;
+        }
+
+        /**
+         * Returns the geodesic distance between the two given values, which use the geographic <abbr>CRS</abbr>.
+         *
+         * @param  a   value of the first operand.
+         * @param  pa  the first operand prepared at construction time, or {@code null} if none.
+         * @param  b   value of the second operand.
+         * @param  pb  the second operand prepared at construction time, or {@code null} if none.
+         * @return the distance in units of the ellipsoid axes.
+         */
+        private double geodesicDistance(final Object a, final PreparedGeometry pa, final Object b, final PreparedGeometry pb) {
+            final DirectPosition p = point(a);
+            final DirectPosition q = point(b);
+            if (p != null) {
+                if (q != null) {
+                    return calculator.distance(p.getCoordinate(latitude) * toDegrees, p.getCoordinate(1 - latitude) * toDegrees,
+                                               q.getCoordinate(latitude) * toDegrees, q.getCoordinate(1 - latitude) * toDegrees);
+                }
+                return prepare(b, pb).geodesicDistance(p, calculator, latitude, toDegrees);
+            }
+            if (q != null) {
+                return prepare(a, pa).geodesicDistance(q, calculator, latitude, toDegrees);
+            }
+            return prepare(a, pa).geodesicDistance(prepare(b, pb), calculator, latitude, toDegrees);
+        }
+    }
+
+    /**
+     * Returns the coordinate reference system of the given value, or {@code null} if unknown.
+     *
+     * @param  value  the value for which to get the <abbr>CRS</abbr>.
+     * @return the <abbr>CRS</abbr> of the value, or {@code null}.
+     */
+    static CoordinateReferenceSystem crs(final Object value) {
+        if (value instanceof PreparedGeometry) return ((PreparedGeometry) value).getCoordinateReferenceSystem();
+        if (value instanceof Geometry)         return ((Geometry) value).getCoordinateReferenceSystem();
+        if (value instanceof DirectPosition)   return ((DirectPosition) value).getCoordinateReferenceSystem();
+        if (value instanceof Envelope)         return ((Envelope) value).getCoordinateReferenceSystem();
+        return null;
+    }
+
+    /**
+     * Returns the dimension of latitude values if the given <abbr>CRS</abbr> is a geographic <abbr>CRS</abbr>
+     * with angular units and latitude and longitude in the two first dimensions.
+     *
+     * @param  crs  the coordinate reference system of the operands, or {@code null} if unknown.
+     * @return dimension of latitude values (0 or 1), or -1 if geodesic distances cannot be computed.
+     */
+    static int latitudeDimension(final CoordinateReferenceSystem crs) {
+        if (crs instanceof GeographicCRS) {
+            final CoordinateSystem cs = crs.getCoordinateSystem();
+            if (cs.getDimension() >= 2) {
+                for (int d=0; d<2; d++) {
+                    final Unit<?> unit = cs.getAxis(d).getUnit();
+                    if (cs.getAxis(d).getDirection() == AxisDirection.NORTH
+                            && cs.getAxis(1 - d).getDirection() == AxisDirection.EAST
+                            && unit != null && unit.isCompatible(Units.RADIAN)
+                            && unit.equals(cs.getAxis(1 - d).getUnit()))
+                    {
+                        return d;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Converts the given distance to the units of the first axis of the given <abbr>CRS</abbr>.
+     * If the axis units are angular and the <abbr>CRS</abbr> is geographic, the distance is converted
+     * to the largest latitude difference that a geodesic of that length can span. This is computed with
+     * the smallest radius of curvature of the meridians, which is at the equator. The longitude difference
+     * spanned by the same distance is larger, by a factor of about 1/cos(φ) at latitude φ, so this value
+     * is not a bound in longitude. The distance operators compare geodesic distances in such case.
+     * If the axis units are neither linear nor angular, the numerical value is used as-is.
+     *
+     * @param  distance  the distance to convert.
+     * @param  crs       the coordinate reference system of the operands, or {@code null} if unknown.
+     * @return the distance in units of the first axis.
+     */
+    static double toAxisUnits(final Quantity<Length> distance, final CoordinateReferenceSystem crs) {
+        if (crs != null) {
+            final Unit<?> unit = crs.getCoordinateSystem().getAxis(0).getUnit();
+            if (unit != null) {
+                if (distance.getUnit().isCompatible(unit)) {
+                    return distance.to(unit.asType(Length.class)).getValue().doubleValue();
+                }
+                if (unit.isCompatible(Units.RADIAN) && crs instanceof GeographicCRS) {
+                    final Ellipsoid ellipsoid = ((GeographicCRS) crs).getDatum().getEllipsoid();
+                    final double a = ellipsoid.getSemiMajorAxis();
+                    final double b = ellipsoid.getSemiMinorAxis();
+                    final double r = ellipsoid.getAxisUnit().getConverterTo(Units.METRE).convert(b * b / a);
+                    final double degrees = Math.toDegrees(distance.to(Units.METRE).getValue().doubleValue() / r);
+                    return Units.DEGREE.getConverterTo(unit.asType(Angle.class)).convert(degrees);
+                }
+            }
+        }
+        return distance.getValue().doubleValue();
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     */
+    @Override
+    public final boolean equals(final Object other) {
+        if (other instanceof SpatialFilter) {
+            final var that = (SpatialFilter) other;
+            return getOperatorType() == that.getOperatorType() && expression1.equals(that.expression1)
+                    && expression2.equals(that.expression2) && equalsDistance(that);
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the distances of the two operators are equal.
+     *
+     * @param  that  the other operator, of the same type as this operator.
+     * @return whether the distances are equal.
+     */
+    private boolean equalsDistance(final SpatialFilter that) {
+        if (this instanceof Distance) {
+            return ((Distance) this).distance.equals(((Distance) that).distance);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     */
+    @Override
+    public final int hashCode() {
+        return getOperatorType().hashCode() + 31 * (expression1.hashCode() + 31 * expression2.hashCode());
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     */
+    @Override
+    public final String toString() {
+        return getOperatorType().identifier().orElse("?") + '(' + expression1 + ", " + expression2 + ')';
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.IntStream;
+import javax.measure.Unit;
+import javax.measure.quantity.Angle;
+import tech.uom.seshat.Units;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.ValueReference;
+import org.opengis.filter.LogicalOperator;
+import org.opengis.filter.LogicalOperatorName;
+import org.opengis.filter.DistanceOperator;
+import org.opengis.filter.DistanceOperatorName;
+import org.opengis.filter.BinarySpatialOperator;
+import org.opengis.filter.SpatialOperatorName;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.example.geometry.EnvelopeTree;
+
+
+/**
+ * A collection of resources indexed by the envelopes of a geometry property, for evaluating spatial filters
+ * without testing every resource. The {@link #filter(Filter)} method searches the filter, or the operands of
+ * a top-level {@code And} filter, for a spatial operator between the indexed property and a literal:
+ *
+ * <ul>
+ *   <li>For the {@code BBOX}, {@code Intersects}, {@code Within}, {@code Contains}, {@code Equals},
+ *       {@code Touches}, {@code Crosses} and {@code Overlaps} operators, the candidates are the resources
+ *       whose envelope intersects the envelope of the literal. The filter is evaluated only on those candidates.</li>
+ *   <li>For the {@code DWithin} operator, the candidates are the resources whose envelope intersects
+ *       the envelope of the literal expanded by the distance.</li>
+ *   <li>For the {@code Beyond} operator, the resources whose envelope does not intersect that expanded envelope
+ *       are known to satisfy the operator. Only the other operands of the {@code And} filter are evaluated on them.</li>
+ * </ul>
+ *
+ * If no operator can be answered by the index, all resources are tested. In all cases, the stream contains
+ * the same resources in the same order as a stream over all resources filtered by {@link Filter#test(Object)},
+ * except that resources which are not candidates cannot cause an exception to be thrown.
+ * Like the filters of this package, the index considers only the two first coordinates and ignores the
+ * coordinate reference systems, except for the geodesic distances of distance operators on geographic literals.
+ *
+ * <p>Instances of this class are immutable and thread-safe if the resources are not modified.</p>
+ *
+ * @param <R>  the type of resources in the collection.
+ */
+public final class SpatialIndex<R> {
+    /**
+     * The indexed resources.
+     */
+    private final List<R> resources;
+
+    /**
+     * The geometry property on which the index is built.
+     */
+    private final ValueReference<? super R, ?> property;
+
+    /**
+     * The index of each resource having a geometry value.
+     */
+    private final BitSet indexed;
+
+    /**
+     * The envelopes of the property values, with the index of the resource as identifier.
+     */
+    private final EnvelopeTree tree;
+
+    /**
+     * Creates an index over the values of the given property in the given resources.
+     * Property values can be points, envelopes, geometries or collections of those objects.
+     * Resources with other values are not indexed.
+     *
+     * @param  resources  the resources to index.
+     * @param  property   the geometry property on which to build the index.
+     */
+    public SpatialIndex(final Collection<? extends R> resources, final ValueReference<? super R, ?> property) {
+        this.resources = List.copyOf(resources);
+        this.property  = property;
+        indexed = new BitSet();
+        final var boxes = new double[4 * this.resources.size()];
+        final var ids   = new int[this.resources.size()];
+        int count = 0;
+        for (int i=0; i<ids.length; i++) {
+            final double[] box = bounds(property.apply(this.resources.get(i)));
+            if (box != null) {
+                System.arraycopy(box, 0, boxes, 4 * count, 4);
+                ids[count++] = i;
+                indexed.set(i);
+            }
+        }
+        tree = new EnvelopeTree(null, 2, Arrays.copyOf(boxes, 4 * count), Arrays.copyOf(ids, count));
+    }
+
+    /**
+     * Returns the two-dimensional bounds of the given value as (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>,
+     * <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>), or {@code null} if the value is not a geometry.
+     * The bounds of a collection is the union of the bounds of its elements.
+     *
+     * @param  value  the value for which to get the bounds, or {@code null}.
+     * @return the bounds of the given value, or {@code null} if none.
+     */
+    private static double[] bounds(final Object value) {
+        if (value instanceof Collection<?>) {
+            double[] union = null;
+            for (final Object element : (Collection<?>) value) {
+                final double[] box = bounds(element);
+                if (box != null) {
+                    if (union == null) {
+                        union = box;
+                    } else {
+                        union[0] = Math.min(union[0], box[0]);
+                        union[1] = Math.min(union[1], box[1]);
+                        union[2] = Math.max(union[2], box[2]);
+                        union[3] = Math.max(union[3], box[3]);
+                    }
+                }
+            }
+            return union;
+        }
+        final DirectPosition p = SpatialFilter.point(value);
+        if (p != null) {
+            final double x = p.getCoordinate(0);
+            final double y = p.getCoordinate(1);
+            return new double[] {x, y, x, y};
+        }
+        final Envelope e = SpatialFilter.envelope(value);
+        if (e != null) {
+            return new double[] {e.getMinimum(0), e.getMinimum(1), e.getMaximum(0), e.getMaximum(1)};
+        }
+        return null;
+    }
+
+    /**
+     * Returns the geometry property on which the index is built.
+     *
+     * @return the indexed property.
+     */
+    public ValueReference<? super R, ?> getProperty() {
+        return property;
+    }
+
+    /**
+     * Returns the number of resources in this collection.
+     *
+     * @return the number of resources.
+     */
+    public int size() {
+        return resources.size();
+    }
+
+    /**
+     * Returns a stream over all resources.
+     *
+     * @return a stream over all resources, in the order given at construction time.
+     */
+    public Stream<R> stream() {
+        return resources.stream();
+    }
+
+    /**
+     * Returns a stream over the resources accepted by the given filter.
+     * Spatial operators on the indexed property are answered by the index when possible.
+     *
+     * @param  filter  the filter to apply.
+     * @return the resources accepted by the filter, in the order given at construction time.
+     */
+    public Stream<R> filter(final Filter<? super R> filter) {
+        final List<Filter<? super R>> operands = conjuncts(filter);
+        int beyond = -1;
+        double[] far = null;
+        for (int k=0; k < operands.size(); k++) {
+            final Filter<? super R> operand = operands.get(k);
+            final double[] region = region(operand);
+            if (region != null) {
+                if (!isBeyond(operand)) {
+                    return search(region).stream().mapToObj(resources::get).filter(filter);
+                }
+                if (far == null) {
+                    far = region;
+                    beyond = k;
+                }
+            }
+        }
+        if (far == null) {
+            return resources.stream().filter(filter);
+        }
+        /*
+         * The resources whose envelope does not intersect the region are beyond the distance.
+         * Evaluate only the other operands on them.
+         */
+        final var residual = new ArrayList<Filter<? super R>>(operands);
+        residual.remove(beyond);
+        final BitSet near = search(far);
+        final Predicate<R> others = (r) -> {
+            for (final Filter<? super R> operand : residual) {
+                if (!operand.test(r)) return false;
+            }
+            return true;
+        };
+        return IntStream.range(0, resources.size()).filter((i) -> {
+            final R r = resources.get(i);
+            return (indexed.get(i) && !near.get(i)) ? others.test(r) : filter.test(r);
+        }).mapToObj(resources::get);
+    }
+
+    /**
+     * Returns the indices of the resources whose envelope intersects the given region.
+     *
+     * @param  region  the (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>, <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) region where to search.
+     * @return indices of the resources whose envelope intersects the region.
+     */
+    private BitSet search(final double[] region) {
+        final var found = new BitSet(resources.size());
+        tree.search(new double[] {region[0], region[1]}, new double[] {region[2], region[3]}, found::set);
+        return found;
+    }
+
+    /**
+     * Returns the operands of the given filter if it is an {@code And} operator, or the filter itself otherwise.
+     *
+     * @param  <R>     the type of resources to filter.
+     * @param  filter  the filter to decompose.
+     * @return the operands of the {@code And} operator, or a singleton containing the filter.
+     */
+    private static <R> List<Filter<? super R>> conjuncts(final Filter<? super R> filter) {
+        final var operands = new ArrayList<Filter<? super R>>();
+        if (filter instanceof LogicalOperator<?> && ((LogicalOperator<?>) filter).getOperatorType() == LogicalOperatorName.AND) {
+            operands.addAll(((LogicalOperator<? super R>) filter).getOperands());
+        } else {
+            operands.add(filter);
+        }
+        return operands;
+    }
+
+    /**
+     * Returns whether the given filter is a {@code Beyond} operator.
+     *
+     * @param  filter  the filter to test.
+     * @return whether the filter is a {@code Beyond} operator.
+     */
+    private static boolean isBeyond(final Filter<?> filter) {
+        return (filter instanceof DistanceOperator<?>)
+                && ((DistanceOperator<?>) filter).getOperatorType() == DistanceOperatorName.BEYOND;
+    }
+
+    /**
+     * Returns the region in which to search the candidates for the given filter, or {@code null} if the
+     * filter is not a spatial operator between the indexed property and a literal. For distance operators,
+     * the region is the envelope of the literal expanded by the distance converted to axis units,
+     * for making sure that the region contains all geometries accepted by the filter.
+     * For a geographic <abbr>CRS</abbr>, the distance is converted to the largest latitude difference,
+     * and the longitude range is expanded by that difference divided by the cosine of the largest latitude
+     * of the expanded region. If that region reaches a pole or crosses the anti-meridian, the longitude
+     * range is not restricted.
+     *
+     * @param  filter  the filter for which to get the search region.
+     * @return the region in which to search candidates, or {@code null} if the filter does not restrict the search.
+     */
+    private double[] region(final Filter<?> filter) {
+        final double limit;
+        if (filter instanceof BinarySpatialOperator<?>) {
+            if (((BinarySpatialOperator<?>) filter).getOperatorType() == SpatialOperatorName.DISJOINT) {
+                return null;
+            }
+            limit = 0;
+        } else if (filter instanceof DistanceOperator<?>) {
+            limit = Double.NaN;
+        } else {
+            return null;
+        }
+        final List<? extends Expression<?,?>> expressions = filter.getExpressions();
+        if (expressions.size() != 2) {
+            return null;
+        }
+        final Object literal;
+        if (isIndexed(expressions.get(0)) && expressions.get(1) instanceof Literal<?,?>) {
+            literal = ((Literal<?,?>) expressions.get(1)).getValue();
+        } else if (isIndexed(expressions.get(1)) && expressions.get(0) instanceof Literal<?,?>) {
+            literal = ((Literal<?,?>) expressions.get(0)).getValue();
+        } else {
+            return null;
+        }
+        final double[] region = bounds(literal);
+        if (region != null && Double.isNaN(limit)) {
+            final double d;
+            if (filter instanceof SpatialFilter.Distance) {
+                d = ((SpatialFilter.Distance) filter).getLimit();
+            } else {
+                d = SpatialFilter.toAxisUnits(((DistanceOperator<?>) filter).getDistance(), SpatialFilter.crs(literal));
+            }
+            if (!(d >= 0)) {
+                return null;
+            }
+            // Round outward for making sure that no position at the exact distance is missed.
+            region[0] = Math.nextDown(region[0] - d);
+            region[1] = Math.nextDown(region[1] - d);
+            region[2] = Math.nextUp  (region[2] + d);
+            region[3] = Math.nextUp  (region[3] + d);
+            final CoordinateReferenceSystem crs = SpatialFilter.crs(literal);
+            final int lat = SpatialFilter.latitudeDimension(crs);
+            if (lat >= 0) {
+                expandLongitudes(region, lat, d, crs.getCoordinateSystem().getAxis(lat).getUnit().asType(Angle.class));
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Expands the longitude range of the given region for a geodesic distance.
+     * The latitude and longitude ranges shall have already been expanded by the given distance.
+     * A distance spanning a latitude difference Δφ spans a longitude difference
+     * of at most Δφ / cos(φ) at latitude φ.
+     *
+     * @param  region  the region to expand, with the latitude and longitude ranges already expanded by {@code d}.
+     * @param  lat     dimension of latitude values, 0 or 1.
+     * @param  d       the largest latitude difference spanned by the distance, in axis units.
+     * @param  unit    the angular unit of the axes.
+     */
+    private static void expandLongitudes(final double[] region, final int lat, final double d, final Unit<Angle> unit) {
+        final int lon = 1 - lat;
+        final double toRadians = unit.getConverterTo(Units.RADIAN).convert(1.0);
+        final double halfTurn  = Math.PI / toRadians;
+        final double φmax = Math.max(Math.abs(region[lat]), Math.abs(region[lat + 2])) * toRadians;
+        final double cos  = Math.cos(φmax);
+        if (φmax < Math.PI / 2 && cos > 0) {
+            final double Δλ = d / cos - d;
+            final double lower = Math.nextDown(region[lon] - Δλ);
+            final double upper = Math.nextUp(region[lon + 2] + Δλ);
+            if (lower >= -halfTurn && upper <= halfTurn) {
+                region[lon]     = lower;
+                region[lon + 2] = upper;
+                return;
+            }
+        }
+        // The region reaches a pole or crosses the anti-meridian.
+        region[lon]     = Double.NEGATIVE_INFINITY;
+        region[lon + 2] = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns whether the given expression is a reference to the indexed property.
+     *
+     * @param  expression  the expression to test.
+     * @return whether the expression is a reference to the indexed property.
+     */
+    private boolean isIndexed(final Expression<?,?> expression) {
+        return (expression instanceof ValueReference<?,?>)
+                && ((ValueReference<?,?>) expression).getXPath().equals(property.getXPath());
+    }
+}
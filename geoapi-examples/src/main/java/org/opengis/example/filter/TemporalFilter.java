@@ -0,0 +1,194 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Collection;
+import java.time.Instant;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.TemporalOperator;
+import org.opengis.filter.TemporalOperatorName;
+import org.opengis.temporal.Period;
+
+
+/**
+ * A temporal operator between two instants or periods. Values are converted to periods from
+ * {@link Period} objects, or to instants from {@link org.opengis.temporal.Instant},
+ * {@link java.time.temporal.TemporalAccessor} or {@link java.util.Date} objects.
+ * An instant is handled as a period of zero duration, so operators such as "begins"
+ * never match when the second operand is an instant.
+ *
+ * <p>Operators are evaluated by comparing the bounds of the two periods,
+ * as defined by the Allen's interval algebra in ISO 19108.</p>
+ */
+final class TemporalFilter implements TemporalOperator<Feature> {
+    /**
+     * The type of temporal operator.
+     */
+    private final TemporalOperatorName type;
+
+    /**
+     * The operands.
+     */
+    private final Expression<Feature,?> time1, time2;
+
+    /**
+     * Creates a new operator.
+     *
+     * @param  type   the type of temporal operator.
+     * @param  time1  the first operand.
+     * @param  time2  the second operand.
+     */
+    TemporalFilter(final TemporalOperatorName type, final Expression<Feature,?> time1, final Expression<Feature,?> time2) {
+        this.type  = Objects.requireNonNull(type);
+        this.time1 = Objects.requireNonNull(time1);
+        this.time2 = Objects.requireNonNull(time2);
+    }
+
+    /**
+     * Returns the type of temporal operator.
+     *
+     * @return the operator type.
+     */
+    @Override
+    public TemporalOperatorName getOperatorType() {
+        return type;
+    }
+
+    /**
+     * Returns the type of resources accepted by this filter.
+     *
+     * @return {@code Feature.class}.
+     */
+    @Override
+    public Class<Feature> getResourceClass() {
+        return Feature.class;
+    }
+
+    /**
+     * Returns the two operands.
+     *
+     * @return the first and second operands.
+     */
+    @Override
+    public List<Expression<Feature,?>> getExpressions() {
+        return List.of(time1, time2);
+    }
+
+    /**
+     * Compares the periods of the two operands.
+     * If the first operand is a collection, the test is applied on each element.
+     *
+     * @param  feature  the feature from which to read the periods.
+     * @return whether the periods satisfy the temporal relationship.
+     */
+    @Override
+    public boolean test(final Feature feature) {
+        final Object a = time1.apply(feature);
+        final Instant[] b = toPeriod(time2.apply(feature));
+        if (b == null) {
+            return false;
+        }
+        if (a instanceof Collection<?>) {
+            return Values.match(MatchAction.ANY, (Collection<?>) a, (e) -> compare(e, b));
+        }
+        return compare(a, b);
+    }
+
+    /**
+     * Converts the given value to a period.
+     *
+     * @param  value  the value to convert, or {@code null}.
+     * @return the beginning and ending instants, or {@code null} if the value is not a period or an instant.
+     */
+    private static Instant[] toPeriod(final Object value) {
+        final Instant begin, end;
+        if (value instanceof Period) {
+            final var period = (Period) value;
+            begin = Values.toInstant(period.getBeginning());
+            end   = Values.toInstant(period.getEnding());
+        } else {
+            begin = end = Values.toInstant(value);
+        }
+        if (begin == null || end == null || begin.isAfter(end)) {
+            return null;
+        }
+        return new Instant[] {begin, end};
+    }
+
+    /**
+     * Compares the given value with the given period.
+     *
+     * @param  value  the value of the first operand.
+     * @param  other  beginning and ending instants of the second operand.
+     * @return whether the value and the period satisfy the temporal relationship.
+     */
+    private boolean compare(final Object value, final Instant[] other) {
+        final Instant[] period = toPeriod(value);
+        if (period == null) {
+            return false;
+        }
+        final int bb = period[0].compareTo(other[0]);
+        final int be = period[0].compareTo(other[1]);
+        final int eb = period[1].compareTo(other[0]);
+        final int ee = period[1].compareTo(other[1]);
+        switch (type.name()) {
+            case "AFTER":         return be > 0;
+            case "BEFORE":        return eb < 0;
+            case "BEGINS":        return bb == 0 && ee < 0;
+            case "BEGUN_BY":      return bb == 0 && ee > 0;
+            case "CONTAINS":      return bb < 0 && ee > 0;
+            case "DURING":        return bb > 0 && ee < 0;
+            case "EQUALS":        return bb == 0 && ee == 0;
+            case "OVERLAPS":      return bb < 0 && eb > 0 && ee < 0;
+            case "MEETS":         return eb == 0 && bb < 0;
+            case "OVERLAPPED_BY": return bb > 0 && be < 0 && ee > 0;
+            case "MET_BY":        return be == 0 && ee > 0;
+            case "ENDS":          return ee == 0 && bb > 0;
+            case "ENDED_BY":      return ee == 0 && bb < 0;
+            case "ANY_INTERACTS": return be <= 0 && eb >= 0;
+            default: return false;
+        }
+    }
+
+    /**
+     * Compares this filter with the given object for equality.
+     *
+     * @param  other  the object to compare with this filter.
+     * @return whether the two objects are equal.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof TemporalFilter) {
+            final var that = (TemporalFilter) other;
+            return type == that.type && time1.equals(that.time1) && time2.equals(that.time2);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     *
+     * @return a hash code value.
+     */
+    @Override
+    public int hashCode() {
+        return type.hashCode() + 31 * (time1.hashCode() + 31 * time2.hashCode());
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     *
+     * @return the operator name and its operands.
+     */
+    @Override
+    public String toString() {
+        return type.identifier().orElse("?") + '(' + time1 + ", " + time2 + ')';
+    }
+}
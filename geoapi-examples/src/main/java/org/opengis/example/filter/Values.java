@@ -0,0 +1,281 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Date;
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.time.Instant;
+import java.time.DateTimeException;
+import java.time.temporal.TemporalAccessor;
+import java.math.BigInteger;
+import java.math.BigDecimal;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.ComparisonOperatorName;
+import org.opengis.filter.InvalidFilterValueException;
+
+
+/**
+ * Utility methods for comparing and converting the values evaluated by filters and expressions.
+ * Comparisons return one of the {@link #LESS}, {@link #EQUAL}, {@link #GREATER} or {@link #UNORDERED}
+ * bits, which are tested against the mask of the comparison operator. For example the mask of the
+ * "less than or equal to" operator is {@code LESS | EQUAL}.
+ */
+final class Values {
+    /**
+     * Bit set when the first value is less than the second value.
+     */
+    static final int LESS = 1;
+
+    /**
+     * Bit set when the first value is equal to the second value.
+     */
+    static final int EQUAL = 2;
+
+    /**
+     * Bit set when the first value is greater than the second value.
+     */
+    static final int GREATER = 4;
+
+    /**
+     * Bit set when the values are non-null but cannot be ordered, for example NaN or values of unrelated types.
+     */
+    static final int UNORDERED = 8;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private Values() {
+    }
+
+    /**
+     * Returns the mask of a comparison operator after its operands have been swapped.
+     *
+     * @param  mask  the comparison bits of the operator.
+     * @return the comparison bits of the operator with swapped operands.
+     */
+    static int mirror(final int mask) {
+        return (mask & (EQUAL | UNORDERED)) | ((mask & LESS) << 2) | ((mask & GREATER) >>> 2);
+    }
+
+    /**
+     * Returns the mask of the given binary comparison operator, or 0 if the operator is not a binary comparison.
+     *
+     * @param  type  the type of comparison operator.
+     * @return the comparison bits accepted by the operator.
+     */
+    static int mask(final ComparisonOperatorName type) {
+        if (type == ComparisonOperatorName.PROPERTY_IS_EQUAL_TO)                 return EQUAL;
+        if (type == ComparisonOperatorName.PROPERTY_IS_NOT_EQUAL_TO)             return LESS | GREATER | UNORDERED;
+        if (type == ComparisonOperatorName.PROPERTY_IS_LESS_THAN)                return LESS;
+        if (type == ComparisonOperatorName.PROPERTY_IS_GREATER_THAN)             return GREATER;
+        if (type == ComparisonOperatorName.PROPERTY_IS_LESS_THAN_OR_EQUAL_TO)    return LESS | EQUAL;
+        if (type == ComparisonOperatorName.PROPERTY_IS_GREATER_THAN_OR_EQUAL_TO) return GREATER | EQUAL;
+        return 0;
+    }
+
+    /**
+     * Compares two {@code double} values.
+     *
+     * @param  a  the first value.
+     * @param  b  the second value.
+     * @return one of the comparison bits.
+     */
+    static int compare(final double a, final double b) {
+        return (a < b) ? LESS : (a > b) ? GREATER : (a == b) ? EQUAL : UNORDERED;
+    }
+
+    /**
+     * Compares two {@code long} values.
+     *
+     * @param  a  the first value.
+     * @param  b  the second value.
+     * @return one of the comparison bits.
+     */
+    static int compare(final long a, final long b) {
+        return (a < b) ? LESS : (a > b) ? GREATER : EQUAL;
+    }
+
+    /**
+     * Compares two character strings, optionally ignoring case.
+     *
+     * @param  a          the first value.
+     * @param  b          the second value.
+     * @param  matchCase  whether the comparison is case sensitive.
+     * @return one of the comparison bits.
+     */
+    static int compare(final String a, final String b, final boolean matchCase) {
+        final int c = matchCase ? a.compareTo(b) : a.compareToIgnoreCase(b);
+        return (c < 0) ? LESS : (c > 0) ? GREATER : EQUAL;
+    }
+
+    /**
+     * Returns whether the given number is an integer type which can be represented exactly as a {@code long}.
+     *
+     * @param  value  the value to test.
+     * @return whether the value is an integer of a type exactly convertible to {@code long}.
+     */
+    static boolean isIntegral(final Object value) {
+        return (value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte);
+    }
+
+    /**
+     * Returns whether the given value is a number which can be represented exactly as a {@code double}.
+     * {@code NaN} values are excluded because they are not equal to any value, including themselves.
+     *
+     * @param  value  the value to test.
+     * @return whether the value is a number exactly convertible to {@code double}.
+     */
+    static boolean isExact(final Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return !Double.isNaN(((Number) value).doubleValue());
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return true;
+        }
+        return (value instanceof Long) && Math.abs((Long) value) <= (1L << 53);
+    }
+
+    /**
+     * Compares two arbitrary values. Numbers are compared by their numerical values,
+     * character sequences by their string values and temporal objects by their instants.
+     * Other values are compared by their natural ordering if they are mutually comparable,
+     * or by their {@code equals} method otherwise.
+     *
+     * @param  a          the first value, or {@code null}.
+     * @param  b          the second value, or {@code null}.
+     * @param  matchCase  whether character strings comparisons are case sensitive.
+     * @return one of the comparison bits, or 0 if a value is null.
+     */
+    @SuppressWarnings("unchecked")      // The type of `b` is verified before the comparison.
+    static int compare(final Object a, final Object b, final boolean matchCase) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                return compare(((Number) a).longValue(), ((Number) b).longValue());
+            }
+            return compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof CharSequence && b instanceof CharSequence) {
+            return compare(a.toString(), b.toString(), matchCase);
+        }
+        final Instant ta = toInstant(a);
+        if (ta != null) {
+            final Instant tb = toInstant(b);
+            if (tb != null) {
+                final int c = ta.compareTo(tb);
+                return (c < 0) ? LESS : (c > 0) ? GREATER : EQUAL;
+            }
+        }
+        if (a instanceof Comparable && a.getClass().isInstance(b)) {
+            final int c = ((Comparable<Object>) a).compareTo(b);
+            return (c < 0) ? LESS : (c > 0) ? GREATER : EQUAL;
+        }
+        return a.equals(b) ? EQUAL : UNORDERED;
+    }
+
+    /**
+     * Converts the given value to an instant, or returns {@code null} if the value is not a point in time.
+     *
+     * @param  value  the value to convert, or {@code null}.
+     * @return the instant, or {@code null}.
+     */
+    static Instant toInstant(final Object value) {
+        if (value instanceof Instant) {
+            return (Instant) value;
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        }
+        if (value instanceof org.opengis.temporal.Instant) {
+            return toInstant(((org.opengis.temporal.Instant) value).getPosition());
+        }
+        if (value instanceof TemporalAccessor) {
+            try {
+                return Instant.from((TemporalAccessor) value);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies the given match action on the results of a test over all elements of a multi-valued property.
+     * An empty collection never matches.
+     *
+     * @param  action  how to combine the test results.
+     * @param  values  the values to test.
+     * @param  test    the test to apply on each value.
+     * @return the combined result.
+     */
+    static boolean match(final MatchAction action, final Collection<?> values, final Predicate<Object> test) {
+        int count = 0;
+        for (final Object value : values) {
+            if (test.test(value)) {
+                switch (action) {
+                    case ANY: return true;
+                    case ONE: if (++count > 1) return false; break;
+                    default: count++; break;
+                }
+            } else if (action == MatchAction.ALL) {
+                return false;
+            }
+        }
+        return (action == MatchAction.ALL) ? count != 0 : (count == 1 && action == MatchAction.ONE);
+    }
+
+    /**
+     * Converts the given value to the given type.
+     *
+     * @param  <N>     the target type.
+     * @param  value   the value to convert.
+     * @param  target  the target type.
+     * @throws InvalidFilterValueException if the value cannot be converted.
+     * @return the converted value.
+     */
+    static <N> N convert(final Object value, final Class<N> target) {
+        if (value == null || target.isInstance(value)) {
+            return target.cast(value);
+        }
+        Object result = null;
+        if (target == String.class) {
+            result = value.toString();
+        } else if (Number.class.isAssignableFrom(target)) {
+            final Number n;
+            if (value instanceof Number) {
+                n = (Number) value;
+            } else if (value instanceof CharSequence) {
+                try {
+                    n = new BigDecimal(value.toString().trim());
+                } catch (NumberFormatException e) {
+                    throw new InvalidFilterValueException("Not a number: " + value, e);
+                }
+            } else {
+                n = null;
+            }
+            if (n != null) {
+                if      (target == Double    .class) result = n.doubleValue();
+                else if (target == Float     .class) result = n.floatValue();
+                else if (target == Long      .class) result = n.longValue();
+                else if (target == Integer   .class) result = n.intValue();
+                else if (target == Short     .class) result = n.shortValue();
+                else if (target == Byte      .class) result = n.byteValue();
+                else if (target == BigDecimal.class) result = new BigDecimal(n.toString());
+                else if (target == BigInteger.class) result = new BigDecimal(n.toString()).toBigInteger();
+                else if (target == Number    .class) result = n;
+            }
+        } else if (target == Instant.class) {
+            result = toInstant(value);
+        }
+        if (result == null) {
+            throw new InvalidFilterValueException("Cannot convert " + value + " to " + target.getSimpleName() + '.');
+        }
+        return target.cast(result);
+    }
+}
@@ -0,0 +1,734 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.Collection;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.NullOperator;
+import org.opengis.filter.ValueReference;
+import org.opengis.filter.LogicalOperator;
+import org.opengis.filter.LogicalOperatorName;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BetweenComparisonOperator;
+
+
+/**
+ * A filter evaluated on all records of a {@link ColumnBatch} at once, producing a selection bitmap.
+ * The filter tree is converted once into a tree of vectorized nodes:
+ *
+ * <ul>
+ *   <li>{@code And}, {@code Or} and {@code Not} operators become bitwise operations on the bitmaps of their operands.</li>
+ *   <li>Comparisons between a column and a literal, or between two numeric columns, become loops over the
+ *       primitive arrays with one loop per comparison operator.</li>
+ *   <li>Arithmetic expressions computed in floating point arithmetic become loops producing {@code double[]} arrays.</li>
+ *   <li>{@code Between} operators with numeric literal boundaries and {@code IsNull} operators become loops
+ *       over the column values.</li>
+ * </ul>
+ *
+ * The results are the same as {@link Filter#test(Object)} invoked on each record.
+ * The nodes which cannot be vectorized, or which refer to properties without column in the batch,
+ * are evaluated by invoking {@code test} on the records provided by the batch. Those invocations
+ * are done only for the records still selected by the enclosing {@code And} operators, or not yet
+ * selected by the enclosing {@code Or} operators.
+ *
+ * <p>Instances of this class are immutable and thread-safe if the original filter is thread-safe.</p>
+ *
+ * @param <R>  the type of resources to filter.
+ */
+public final class VectorizedFilter<R> {
+    /**
+     * The filter specified at construction time.
+     */
+    private final Filter<R> filter;
+
+    /**
+     * The root of the tree of vectorized nodes.
+     */
+    private final Node<R> root;
+
+    /**
+     * Creates a vectorized version of the given filter.
+     *
+     * @param  filter  the filter to vectorize.
+     */
+    public VectorizedFilter(final Filter<R> filter) {
+        this.filter = Objects.requireNonNull(filter);
+        root = compile(filter);
+    }
+
+    /**
+     * Returns the filter specified at construction time.
+     *
+     * @return the filter to evaluate.
+     */
+    public Filter<R> getFilter() {
+        return filter;
+    }
+
+    /**
+     * Evaluates the filter on all records of the given batch.
+     *
+     * @param  batch  the records on which to evaluate the filter.
+     * @return the indices of the records accepted by the filter.
+     * @throws UnsupportedOperationException if a part of the filter cannot be evaluated on the columns
+     *         and the batch does not provide the records.
+     */
+    public BitSet evaluate(final ColumnBatch<? extends R> batch) {
+        final long[] words = new long[(batch.size() + (Long.SIZE - 1)) >>> 6];
+        root.evaluate(batch, null, words);
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Converts the given filter into a vectorized node.
+     *
+     * @param  <R>     the type of resources to filter.
+     * @param  filter  the filter to convert.
+     * @return the vectorized node.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> Node<R> compile(final Filter<R> filter) {
+        if (filter == Filter.include()) return new Constant<>(true);
+        if (filter == Filter.exclude()) return new Constant<>(false);
+        if (filter instanceof LogicalOperator<?>) {
+            final var logical = (LogicalOperator<R>) filter;
+            final List<Filter<R>> operands = logical.getOperands();
+            final Node<R>[] nodes = (Node<R>[]) new Node<?>[operands.size()];
+            for (int i=0; i<nodes.length; i++) {
+                nodes[i] = compile(operands.get(i));
+            }
+            final LogicalOperatorName type = logical.getOperatorType();
+            if (type == LogicalOperatorName.NOT && nodes.length == 1) {
+                return new Not<>(filter, nodes[0]);
+            }
+            if (nodes.length != 0) {
+                if (type == LogicalOperatorName.AND) return new And<>(filter, nodes);
+                if (type == LogicalOperatorName.OR)  return new Or<>(filter, nodes);
+            }
+        } else if (filter instanceof BinaryComparisonOperator<?>) {
+            final int mask = Values.mask(((BinaryComparisonOperator<R>) filter).getOperatorType());
+            if (mask != 0) {
+                return new Comparison<>((BinaryComparisonOperator<R>) filter, mask);
+            }
+        } else if (filter instanceof BetweenComparisonOperator<?>) {
+            final var between = (BetweenComparisonOperator<R>) filter;
+            final Expression<R,?> lower = between.getLowerBoundary();
+            final Expression<R,?> upper = between.getUpperBoundary();
+            if (lower instanceof Literal<?,?> && upper instanceof Literal<?,?>) {
+                final Object lv = ((Literal<R,?>) lower).getValue();
+                final Object uv = ((Literal<R,?>) upper).getValue();
+                if (lv instanceof Number && uv instanceof Number) {
+                    return new Between<>(between, (Number) lv, (Number) uv);
+                }
+            }
+        } else if (filter instanceof NullFilter) {
+            // Other implementations of `NullOperator` may not consider empty collections as null.
+            final List<Expression<R,?>> expressions = ((NullOperator<R>) filter).getExpressions();
+            if (expressions.size() == 1) {
+                return new IsNull<>((NullOperator<R>) filter, expressions.get(0));
+            }
+        }
+        return new Node<>(filter);
+    }
+
+    /**
+     * A node of the vectorized filter tree. The base class evaluates the filter on each record,
+     * and subclasses override {@link #evaluate(ColumnBatch, long[])} with vectorized implementations.
+     *
+     * @param <R>  the type of resources to filter.
+     */
+    private static class Node<R> {
+        /**
+         * The filter to evaluate on each record when the node cannot be evaluated on the columns.
+         */
+        final Filter<R> filter;
+
+        /**
+         * Creates a new node for the given filter.
+         *
+         * @param  filter  the filter to evaluate on each record when the node cannot be evaluated on the columns.
+         */
+        Node(final Filter<R> filter) {
+            this.filter = filter;
+        }
+
+        /**
+         * Sets the bits of the records accepted by this node. The given bitmap is initially filled with zeros.
+         * Only the bits of the selected records are meaningful: the bits of other records may be set or not,
+         * and the caller is responsible for ignoring them. This base implementation invokes the filter only
+         * on the selected records.
+         *
+         * @param  batch      the records on which to evaluate the filter.
+         * @param  selection  the records for which a result is needed, or {@code null} for all records.
+         * @param  words      the bitmap where to set the bits of the accepted records.
+         */
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            if (selection == null) {
+                final int n = batch.size();
+                for (int i=0; i<n; i++) {
+                    if (filter.test(batch.record(i))) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            } else {
+                for (int w=0; w<selection.length; w++) {
+                    for (long bits = selection[w]; bits != 0; bits &= bits - 1) {
+                        final int i = (w << 6) | Long.numberOfTrailingZeros(bits);
+                        if (filter.test(batch.record(i))) {
+                            words[w] |= 1L << i;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the bits after the last record. This is needed after bitwise negations.
+     *
+     * @param  size   number of records.
+     * @param  words  the bitmap to clear after the last record.
+     */
+    private static void clearTail(final int size, final long[] words) {
+        if ((size & (Long.SIZE - 1)) != 0) {
+            words[words.length - 1] &= -1L >>> -size;
+        }
+    }
+
+    /**
+     * Clears the bits of the records which are not selected.
+     *
+     * @param  selection  the selected records, or {@code null} for all records.
+     * @param  words      the bitmap to restrict to the selected records.
+     */
+    private static void retain(final long[] selection, final long[] words) {
+        if (selection != null) {
+            for (int i=0; i<words.length; i++) {
+                words[i] &= selection[i];
+            }
+        }
+    }
+
+    /**
+     * The {@code Filter.include()} or {@code Filter.exclude()} constants.
+     *
+     * @param  <R>  the type of resources to filter.
+     */
+    private static final class Constant<R> extends Node<R> {
+        /** The value of the filter. */
+        private final boolean value;
+
+        /**
+         * Creates a new constant.
+         *
+         * @param  value  the value of the filter.
+         */
+        Constant(final boolean value) {
+            super(value ? Filter.include() : Filter.exclude());
+            this.value = value;
+        }
+
+        @Override
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            if (value) {
+                Arrays.fill(words, -1L);
+                clearTail(batch.size(), words);
+            }
+        }
+    }
+
+    /**
+     * The "and" operator, computed as the intersection of the bitmaps of the operands.
+     * Each operand is evaluated only on the records accepted by the previous operands,
+     * and the evaluation stops as soon as no record is selected.
+     *
+     * @param  <R>  the type of resources to filter.
+     */
+    private static final class And<R> extends Node<R> {
+        /** The operands. */
+        private final Node<R>[] operands;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  filter    the original operator.
+         * @param  operands  the vectorized operands.
+         */
+        And(final Filter<R> filter, final Node<R>[] operands) {
+            super(filter);
+            this.operands = operands;
+        }
+
+        @Override
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            operands[0].evaluate(batch, selection, words);
+            retain(selection, words);
+            final long[] buffer = new long[words.length];
+            for (int k=1; k<operands.length; k++) {
+                long any = 0;
+                for (final long word : words) any |= word;
+                if (any == 0) break;
+                Arrays.fill(buffer, 0);
+                operands[k].evaluate(batch, words, buffer);
+                for (int i=0; i<words.length; i++) {
+                    words[i] &= buffer[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * The "or" operator, computed as the union of the bitmaps of the operands.
+     * Each operand is evaluated only on the records not accepted by the previous operands,
+     * and the evaluation stops as soon as all records are accepted.
+     *
+     * @param  <R>  the type of resources to filter.
+     */
+    private static final class Or<R> extends Node<R> {
+        /** The operands. */
+        private final Node<R>[] operands;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  filter    the original operator.
+         * @param  operands  the vectorized operands.
+         */
+        Or(final Filter<R> filter, final Node<R>[] operands) {
+            super(filter);
+            this.operands = operands;
+        }
+
+        @Override
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            operands[0].evaluate(batch, selection, words);
+            retain(selection, words);
+            final long[] remaining = new long[words.length];
+            final long[] buffer    = new long[words.length];
+            for (int k=1; k<operands.length; k++) {
+                for (int i=0; i<words.length; i++) {
+                    remaining[i] = ((selection != null) ? selection[i] : -1L) & ~words[i];
+                }
+                clearTail(batch.size(), remaining);
+                long any = 0;
+                for (final long word : remaining) any |= word;
+                if (any == 0) break;
+                Arrays.fill(buffer, 0);
+                operands[k].evaluate(batch, remaining, buffer);
+                for (int i=0; i<words.length; i++) {
+                    words[i] |= buffer[i] & remaining[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * The "not" operator, computed as the complement of the bitmap of the operand.
+     *
+     * @param  <R>  the type of resources to filter.
+     */
+    private static final class Not<R> extends Node<R> {
+        /** The operand. */
+        private final Node<R> operand;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  filter   the original operator.
+         * @param  operand  the vectorized operand.
+         */
+        Not(final Filter<R> filter, final Node<R> operand) {
+            super(filter);
+            this.operand = operand;
+        }
+
+        @Override
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            operand.evaluate(batch, selection, words);
+            for (int i=0; i<words.length; i++) {
+                words[i] = ~words[i];
+            }
+            clearTail(batch.size(), words);
+            retain(selection, words);
+        }
+    }
+
+    /**
+     * Returns the column of the given expression if it is a value reference, or {@code null} otherwise.
+     *
+     * @param  expression  the expression for which to get the column.
+     * @param  batch       the batch providing the columns.
+     * @return the column values, or {@code null}.
+     */
+    private static Object column(final Expression<?,?> expression, final ColumnBatch<?> batch) {
+        if (expression instanceof ValueReference<?,?>) {
+            return batch.column(((ValueReference<?,?>) expression).getXPath());
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the given expression as a vector of numbers, or returns {@code null} if the expression
+     * cannot be vectorized with the same result than the scalar evaluation. The returned value is a
+     * {@code double[]} or {@code long[]} array for an expression depending on the record, or a
+     * {@link Number} for a literal.
+     *
+     * @param  expression  the expression to evaluate.
+     * @param  batch       the batch providing the columns.
+     * @return the numbers, or {@code null} if the expression cannot be vectorized.
+     */
+    private static Object numbers(final Expression<?,?> expression, final ColumnBatch<?> batch) {
+        if (expression instanceof Literal<?,?>) {
+            final Object value = ((Literal<?,?>) expression).getValue();
+            return (value instanceof Number) ? value : null;
+        }
+        final Object column = column(expression, batch);
+        if (column != null) {
+            return (column instanceof Object[]) ? null : column;
+        }
+        final List<? extends Expression<?,?>> parameters = expression.getParameters();
+        if (parameters.size() != 2) {
+            return null;
+        }
+        final Arithmetic.Operator operator = Arithmetic.Operator.forName(expression.getFunctionName().tip().toString());
+        if (operator == null) {
+            return null;
+        }
+        final Object a = numbers(parameters.get(0), batch);
+        final Object b = numbers(parameters.get(1), batch);
+        if (a == null || b == null || (a instanceof Number && b instanceof Number)) {
+            return null;
+        }
+        /*
+         * The scalar evaluation uses exact integer arithmetic when both operands are integers,
+         * except for divisions. That case is not vectorized since it may produce integer values
+         * which cannot be represented exactly as floating point numbers.
+         */
+        if (operator != Arithmetic.Operator.DIVIDE && isIntegral(a) && isIntegral(b)) {
+            return null;
+        }
+        final int n = batch.size();
+        final double[] x = toDoubles(a, n);
+        final double[] y = toDoubles(b, n);
+        final double[] r = new double[n];
+        switch (operator) {
+            case ADD:      for (int i=0; i<n; i++) r[i] = x[i] + y[i]; break;
+            case SUBTRACT: for (int i=0; i<n; i++) r[i] = x[i] - y[i]; break;
+            case MULTIPLY: for (int i=0; i<n; i++) r[i] = x[i] * y[i]; break;
+            default:       for (int i=0; i<n; i++) r[i] = x[i] / y[i]; break;
+        }
+        return r;
+    }
+
+    /**
+     * Returns whether the given vector or literal contains integer values.
+     *
+     * @param  numbers  a {@code double[]} or {@code long[]} array, or a {@link Number}.
+     * @return whether the values are integers.
+     */
+    private static boolean isIntegral(final Object numbers) {
+        return (numbers instanceof long[]) || Values.isIntegral(numbers);
+    }
+
+    /**
+     * Returns the given vector or literal as an array of {@code double} values.
+     *
+     * @param  numbers  a {@code double[]} or {@code long[]} array, or a {@link Number}.
+     * @param  n        the number of records.
+     * @return the values as {@code double} numbers.
+     */
+    private static double[] toDoubles(final Object numbers, final int n) {
+        if (numbers instanceof double[]) {
+            return (double[]) numbers;
+        }
+        final double[] r = new double[n];
+        if (numbers instanceof long[]) {
+            final long[] v = (long[]) numbers;
+            for (int i=0; i<n; i++) r[i] = v[i];
+        } else {
+            Arrays.fill(r, ((Number) numbers).doubleValue());
+        }
+        return r;
+    }
+
+    /**
+     * A binary comparison operator.
+     *
+     * @param  <R>  the type of resources to filter.
+     */
+    private static final class Comparison<R> extends Node<R> {
+        /** The comparison bits accepted by the operator, for the operands in the user-specified order. */
+        private final int mask;
+
+        /** Whether string comparisons are case-sensitive. */
+        private final boolean matchCase;
+
+        /** How to combine the results of comparisons on multi-valued properties. */
+        private final MatchAction matchAction;
+
+        /** The operands, in the user-specified order. */
+        private final Expression<R,?> expression1, expression2;
+
+        /**
+         * Creates a new comparison.
+         *
+         * @param  filter  the operator to vectorize.
+         * @param  mask    the comparison bits accepted by the operator.
+         */
+        Comparison(final BinaryComparisonOperator<R> filter, final int mask) {
+            super(filter);
+            this.mask   = mask;
+            matchCase   = filter.isMatchingCase();
+            matchAction = filter.getMatchAction();
+            expression1 = filter.getOperand1();
+            expression2 = filter.getOperand2();
+        }
+
+        @Override
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            final int n = batch.size();
+            if (expression2 instanceof Literal<?,?>) {
+                final Object column = column(expression1, batch);
+                if (column != null) {
+                    select(column, ((Literal<?,?>) expression2).getValue(), false, n, words);
+                    return;
+                }
+            } else if (expression1 instanceof Literal<?,?>) {
+                final Object column = column(expression2, batch);
+                if (column != null) {
+                    select(column, ((Literal<?,?>) expression1).getValue(), true, n, words);
+                    return;
+                }
+            }
+            final Object a = numbers(expression1, batch);
+            final Object b = numbers(expression2, batch);
+            if (a instanceof long[] && b instanceof long[]) {
+                final long[] x = (long[]) a;
+                final long[] y = (long[]) b;
+                for (int i=0; i<n; i++) {
+                    if ((mask & Values.compare(x[i], y[i])) != 0) words[i >>> 6] |= 1L << i;
+                }
+            } else if (a != null && b != null && !(a instanceof Number && b instanceof Number)) {
+                final double[] x = toDoubles(a, n);
+                final double[] y = toDoubles(b, n);
+                for (int i=0; i<n; i++) {
+                    if ((mask & Values.compare(x[i], y[i])) != 0) words[i >>> 6] |= 1L << i;
+                }
+            } else {
+                super.evaluate(batch, selection, words);
+            }
+        }
+
+        /**
+         * Compares the values of a column with a literal.
+         *
+         * @param  column        the {@code double[]}, {@code long[]} or {@code Object[]} column.
+         * @param  literal       the literal value.
+         * @param  literalFirst  whether the literal is the first operand.
+         * @param  n             the number of records.
+         * @param  words         the bitmap where to set the bits of the accepted records.
+         */
+        private void select(final Object column, final Object literal, final boolean literalFirst, final int n, final long[] words) {
+            final int m = literalFirst ? Values.mirror(mask) : mask;
+            if (literal instanceof Number) {
+                if (column instanceof double[]) {
+                    select((double[]) column, m, ((Number) literal).doubleValue(), n, words);
+                    return;
+                }
+                if (column instanceof long[]) {
+                    final long[] values = (long[]) column;
+                    if (Values.isIntegral(literal)) {
+                        select(values, m, ((Number) literal).longValue(), n, words);
+                    } else {
+                        final double c = ((Number) literal).doubleValue();
+                        for (int i=0; i<n; i++) {
+                            if ((m & Values.compare(values[i], c)) != 0) words[i >>> 6] |= 1L << i;
+                        }
+                    }
+                    return;
+                }
+            }
+            /*
+             * Generic case: compare the values as objects, as done by the scalar filter.
+             * Primitive values are boxed; this path is used only for non-numeric literals.
+             */
+            for (int i=0; i<n; i++) {
+                final Object value;
+                if      (column instanceof double[]) value = ((double[]) column)[i];
+                else if (column instanceof long[])   value = ((long[])   column)[i];
+                else value = ((Object[]) column)[i];
+                final boolean accept;
+                if (value instanceof Collection<?>) {
+                    accept = Values.match(matchAction, (Collection<?>) value, (e) -> test(e, literal, literalFirst));
+                } else {
+                    accept = test(value, literal, literalFirst);
+                }
+                if (accept) words[i >>> 6] |= 1L << i;
+            }
+        }
+
+        /**
+         * Compares a single value with the literal, in the user-specified order of operands.
+         *
+         * @param  value         a value of the column.
+         * @param  literal       the literal value.
+         * @param  literalFirst  whether the literal is the first operand.
+         * @return whether the values satisfy the comparison.
+         */
+        private boolean test(final Object value, final Object literal, final boolean literalFirst) {
+            return (mask & (literalFirst ? Values.compare(literal, value, matchCase)
+                                         : Values.compare(value, literal, matchCase))) != 0;
+        }
+
+        /**
+         * Compares floating point values with a constant. There is one loop for each comparison operator.
+         *
+         * @param  v      the values to compare.
+         * @param  m      the comparison bits accepted by the operator.
+         * @param  c      the constant to compare with.
+         * @param  n      the number of records.
+         * @param  words  the bitmap where to set the bits of the accepted records.
+         */
+        private static void select(final double[] v, final int m, final double c, final int n, final long[] words) {
+            switch (m) {
+                case Values.LESS:                  for (int i=0; i<n; i++) if (v[i] <  c) words[i >>> 6] |= 1L << i; break;
+                case Values.LESS    | Values.EQUAL: for (int i=0; i<n; i++) if (v[i] <= c) words[i >>> 6] |= 1L << i; break;
+                case Values.GREATER:               for (int i=0; i<n; i++) if (v[i] >  c) words[i >>> 6] |= 1L << i; break;
+                case Values.GREATER | Values.EQUAL: for (int i=0; i<n; i++) if (v[i] >= c) words[i >>> 6] |= 1L << i; break;
+                case Values.EQUAL:                 for (int i=0; i<n; i++) if (v[i] == c) words[i >>> 6] |= 1L << i; break;
+                default:                           for (int i=0; i<n; i++) if (v[i] != c) words[i >>> 6] |= 1L << i; break;
+            }
+        }
+
+        /**
+         * Compares integer values with a constant. There is one loop for each comparison operator.
+         *
+         * @param  v      the values to compare.
+         * @param  m      the comparison bits accepted by the operator.
+         * @param  c      the constant to compare with.
+         * @param  n      the number of records.
+         * @param  words  the bitmap where to set the bits of the accepted records.
+         */
+        private static void select(final long[] v, final int m, final long c, final int n, final long[] words) {
+            switch (m) {
+                case Values.LESS:                  for (int i=0; i<n; i++) if (v[i] <  c) words[i >>> 6] |= 1L << i; break;
+                case Values.LESS    | Values.EQUAL: for (int i=0; i<n; i++) if (v[i] <= c) words[i >>> 6] |= 1L << i; break;
+                case Values.GREATER:               for (int i=0; i<n; i++) if (v[i] >  c) words[i >>> 6] |= 1L << i; break;
+                case Values.GREATER | Values.EQUAL: for (int i=0; i<n; i++) if (v[i] >= c) words[i >>> 6] |= 1L << i; break;
+                case Values.EQUAL:                 for (int i=0; i<n; i++) if (v[i] == c) words[i >>> 6] |= 1L << i; break;
+                default:                           for (int i=0; i<n; i++) if (v[i] != c) words[i >>> 6] |= 1L << i; break;
+            }
+        }
+    }
+
+    /**
+     * The "between" operator with numeric literal boundaries.
+     * As in the scalar evaluation, integer values are compared with integer boundaries
+     * as {@code long} values, and all other comparisons use {@code double} values.
+     *
+     * @param  <R>  the type of resources to filter.
+     */
+    private static final class Between<R> extends Node<R> {
+        /** The expression to test. */
+        private final Expression<R,?> expression;
+
+        /** The boundaries as integers, used only if the boundary is integral. */
+        private final long lower, upper;
+
+        /** The boundaries as floating point numbers. */
+        private final double lowerReal, upperReal;
+
+        /** Whether the lower and upper boundaries are integers. */
+        private final boolean lowerIntegral, upperIntegral;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  filter  the operator to vectorize.
+         * @param  lower   the lower boundary, inclusive.
+         * @param  upper   the upper boundary, inclusive.
+         */
+        Between(final BetweenComparisonOperator<R> filter, final Number lower, final Number upper) {
+            super(filter);
+            this.expression = filter.getExpression();
+            this.lower      = lower.longValue();
+            this.upper      = upper.longValue();
+            lowerReal       = lower.doubleValue();
+            upperReal       = upper.doubleValue();
+            lowerIntegral   = Values.isIntegral(lower);
+            upperIntegral   = Values.isIntegral(upper);
+        }
+
+        @Override
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            final Object numbers = numbers(expression, batch);
+            final int n = batch.size();
+            if (numbers instanceof long[]) {
+                final long[] v = (long[]) numbers;
+                for (int i=0; i<n; i++) {
+                    final long x = v[i];
+                    if ((lowerIntegral ? x >= lower : x >= lowerReal) &&
+                        (upperIntegral ? x <= upper : x <= upperReal))
+                    {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            } else if (numbers instanceof double[]) {
+                final double[] v = (double[]) numbers;
+                for (int i=0; i<n; i++) {
+                    if (v[i] >= lowerReal && v[i] <= upperReal) words[i >>> 6] |= 1L << i;
+                }
+            } else {
+                super.evaluate(batch, selection, words);
+            }
+        }
+    }
+
+    /**
+     * The "is null" operator. Values in primitive columns are never null.
+     *
+     * @param  <R>  the type of resources to filter.
+     */
+    private static final class IsNull<R> extends Node<R> {
+        /** The expression to test. */
+        private final Expression<R,?> expression;
+
+        /**
+         * Creates a new operator.
+         *
+         * @param  filter      the operator to vectorize.
+         * @param  expression  the expression to test.
+         */
+        IsNull(final NullOperator<R> filter, final Expression<R,?> expression) {
+            super(filter);
+            this.expression = expression;
+        }
+
+        @Override
+        void evaluate(final ColumnBatch<? extends R> batch, final long[] selection, final long[] words) {
+            final Object column = column(expression, batch);
+            if (column instanceof Object[]) {
+                final Object[] values = (Object[]) column;
+                final int n = batch.size();
+                for (int i=0; i<n; i++) {
+                    final Object v = values[i];
+                    if (v == null || (v instanceof Collection<?> && ((Collection<?>) v).isEmpty())) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            } else if (column == null) {
+                super.evaluate(batch, selection, words);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+
+/**
+ * Implementation of some interfaces from the {@link org.opengis.filter} package.
+ * The {@link org.opengis.example.filter.SimpleFilterFactory} creates filters and expressions
+ * operating on {@link org.opengis.feature.Feature} instances.
+ *
+ * <p>Every classes in this package are hereby placed into the Public Domain.
+ * This means anyone is free to do whatever they wish with those files.</p>
+ */
+package org.opengis.example.filter;
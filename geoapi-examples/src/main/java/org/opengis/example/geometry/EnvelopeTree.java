@@ -0,0 +1,890 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.coordinate.MismatchedCoordinateMetadataException;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.cs.AxisDirection;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.cs.RangeMeaning;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * An <var>N</var>-dimensional R-tree packed with the Sort-Tile-Recursive (<abbr>STR</abbr>) algorithm.
+ * The tree indexes boxes, each box being associated to an integer identifier. The identifier is usually
+ * the index of the item in the list of envelopes given to {@link #of(List)}, but many boxes may have the
+ * same identifier if an envelope has been split in many parts (for example when crossing the anti-meridian).
+ *
+ * <p>Nodes are stored in a single array of primitive values, level by level, from leaves to root.
+ * Each node is stored as the minimal coordinate values in all dimensions followed by the maximal values,
+ * in the same way as {@link SimpleEnvelope}. The children of node <var>i</var> at level <var>L</var> are
+ * the nodes <var>i</var>×{@value #CAPACITY} (inclusive) to (<var>i</var>+1)×{@value #CAPACITY} (exclusive)
+ * at level <var>L</var>-1.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.
+ * Trees built from a large number of boxes are loaded in parallel.</p>
+ */
+public final class EnvelopeTree {
+    /**
+     * Maximal number of children in a node.
+     */
+    static final int CAPACITY = 16;
+
+    /**
+     * Minimal number of boxes for loading the tree in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 10000;
+
+    /**
+     * The coordinate reference system of all boxes, or {@code null} if unspecified.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Number of dimensions of all boxes.
+     */
+    private final int dimension;
+
+    /**
+     * Bounds of all nodes, 2×{@link #dimension} values per node.
+     * The first level contains the boxes of all leaves in <abbr>STR</abbr> order.
+     */
+    private final double[] bounds;
+
+    /**
+     * Index (in units of nodes) of the first node of each level, with an extra element for the total number of nodes.
+     */
+    private final int[] levels;
+
+    /**
+     * Identifier of each leaf, in <abbr>STR</abbr> order.
+     */
+    private final int[] items;
+
+    /**
+     * Maximal identifier value plus one.
+     */
+    private final int itemCount;
+
+    /**
+     * Whether at least two boxes have the same identifier.
+     * In such case, queries need to filter duplicated identifiers.
+     */
+    private final boolean hasDuplicates;
+
+    /**
+     * Builds a tree for the given boxes.
+     *
+     * @param  crs          the coordinate reference system of all boxes, or {@code null} if unspecified.
+     * @param  dimension    number of dimensions of all boxes.
+     * @param  boxes        the boxes, each box stored as the minimal coordinate values followed by the maximal values.
+     * @param  identifiers  identifier of each box, or {@code null} for using the index of each box.
+     * @throws MismatchedDimensionException if the CRS dimension is not the given dimension.
+     * @throws IllegalArgumentException if the length of an array is inconsistent with the number of dimensions,
+     *         or if an identifier is negative.
+     */
+    public EnvelopeTree(final CoordinateReferenceSystem crs, final int dimension, final double[] boxes, final int[] identifiers) {
+        if (dimension <= 0 || boxes.length % (2 * dimension) != 0) {
+            throw new IllegalArgumentException("Array length is not a multiple of twice the dimension.");
+        }
+        if (crs != null && crs.getCoordinateSystem().getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        this.crs       = crs;
+        this.dimension = dimension;
+        final int stride = 2 * dimension;
+        final int count  = boxes.length / stride;
+        if (identifiers != null) {
+            if (identifiers.length != count) {
+                throw new IllegalArgumentException("Expected one identifier per box.");
+            }
+            final BitSet seen = new BitSet();
+            boolean duplicates = false;
+            for (final int id : identifiers) {
+                if (id < 0) {
+                    throw new IllegalArgumentException("Negative identifier: " + id);
+                }
+                duplicates |= seen.get(id);
+                seen.set(id);
+            }
+            itemCount     = seen.length();
+            hasDuplicates = duplicates;
+        } else {
+            itemCount     = count;
+            hasDuplicates = false;
+        }
+        final boolean parallel = count >= PARALLEL_THRESHOLD;
+        /*
+         * Sort-Tile-Recursive: sort by the center in first dimension, cut in slices,
+         * then sort each slice by the center in next dimension, etc.
+         */
+        final int[] order = new int[count];
+        final double[][] centers = new double[dimension][count];
+        range(count, parallel).forEach((i) -> {
+            order[i] = i;
+            for (int d=0; d<dimension; d++) {
+                centers[d][i] = boxes[i*stride + d] + boxes[i*stride + dimension + d];   // Twice the center.
+            }
+        });
+        tile(order, 0, count, 0, centers, parallel);
+        /*
+         * Count the number of levels, then copy the boxes in STR order and compute the union of each group.
+         */
+        int total = count, n = count, depth = 1;
+        while (n > 1) {
+            n = (n + CAPACITY - 1) / CAPACITY;
+            total += n;
+            depth++;
+        }
+        levels = new int[depth + 1];
+        bounds = new double[Math.multiplyExact(total, stride)];
+        items  = new int[count];
+        range(count, parallel).forEach((i) -> {
+            final int box = order[i];
+            System.arraycopy(boxes, box * stride, bounds, i * stride, stride);
+            items[i] = (identifiers != null) ? identifiers[box] : box;
+        });
+        levels[1] = count;
+        for (int level = 1; level < depth; level++) {
+            final int childStart = levels[level - 1];
+            final int childEnd   = levels[level];
+            final int parents    = (childEnd - childStart + CAPACITY - 1) / CAPACITY;
+            range(parents, parallel && parents >= CAPACITY).forEach((p) -> {
+                final int c = childStart + p * CAPACITY;
+                final int end = Math.min(c + CAPACITY, childEnd);
+                final int target = (childEnd + p) * stride;
+                for (int d=0; d<dimension; d++) {
+                    double min = Double.POSITIVE_INFINITY;
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (int i = c*stride + d; i < end*stride; i += stride) {
+                        min = Math.min(min, bounds[i]);
+                        max = Math.max(max, bounds[i + dimension]);
+                    }
+                    bounds[target + d] = min;
+                    bounds[target + dimension + d] = max;
+                }
+            });
+            levels[level + 1] = childEnd + parents;
+        }
+    }
+
+    /**
+     * Builds a tree for the given envelopes. The identifier of each envelope is its index in the list.
+     * Envelopes having a lower coordinate value greater than the upper coordinate value on a wraparound axis
+     * (for example when crossing the anti-meridian) are split in parts using the axis minimum and maximum values.
+     * On other axes, such envelopes are considered empty and are not indexed.
+     * All envelopes shall have the same number of dimensions and the same <abbr>CRS</abbr> (possibly null).
+     *
+     * @param  envelopes  the envelopes to index.
+     * @return a tree over the given envelopes.
+     * @throws MismatchedDimensionException if the envelopes do not have all the same number of dimensions.
+     * @throws MismatchedCoordinateMetadataException if the envelopes do not have all the same <abbr>CRS</abbr>.
+     */
+    public static EnvelopeTree of(final List<? extends Envelope> envelopes) {
+        CoordinateReferenceSystem crs = null;
+        int dimension = 2;
+        if (!envelopes.isEmpty()) {
+            final Envelope first = envelopes.get(0);
+            crs = first.getCoordinateReferenceSystem();
+            dimension = first.getDimension();
+        }
+        final var builder = new Builder(crs, dimension, envelopes.size());
+        for (int i=0; i<envelopes.size(); i++) {
+            final Envelope envelope = envelopes.get(i);
+            if (envelope.getDimension() != dimension) {
+                throw new MismatchedDimensionException();
+            }
+            if (!Objects.equals(crs, envelope.getCoordinateReferenceSystem())) {
+                throw new MismatchedCoordinateMetadataException();
+            }
+            builder.add(envelope.getLowerCorner().getCoordinates(), envelope.getUpperCorner().getCoordinates(), i);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds a tree for the given geographic bounding boxes.
+     * The identifier of each box is its index in the list.
+     * The tree <abbr>CRS</abbr> is unspecified and the axis order is (<var>longitude</var>, <var>latitude</var>),
+     * as in {@link GeographicBoundingBox}. Boxes crossing the anti-meridian are split in two parts.
+     *
+     * @param  boxes  the geographic bounding boxes to index.
+     * @return a tree over the given boxes.
+     */
+    public static EnvelopeTree ofGeographic(final List<? extends GeographicBoundingBox> boxes) {
+        final var builder = new Builder(null, 2, boxes.size());
+        for (int i=0; i<boxes.size(); i++) {
+            builder.add(boxes.get(i), i);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Helper class for collecting boxes, with the split of boxes crossing the anti-meridian.
+     */
+    private static final class Builder {
+        /** The <abbr>CRS</abbr> of all boxes, or {@code null} if unspecified. */
+        private final CoordinateReferenceSystem crs;
+
+        /** Number of dimensions. */
+        private final int dimension;
+
+        /** The boxes added so far. */
+        private double[] boxes;
+
+        /** The identifier of each box added so far. */
+        private int[] identifiers;
+
+        /** Number of boxes added so far. */
+        private int count;
+
+        /**
+         * Creates a new builder.
+         *
+         * @param  crs        the <abbr>CRS</abbr> of all boxes, or {@code null} if unspecified.
+         * @param  dimension  number of dimensions.
+         * @param  capacity   initial capacity, in number of boxes.
+         */
+        Builder(final CoordinateReferenceSystem crs, final int dimension, final int capacity) {
+            this.crs = crs;
+            this.dimension = dimension;
+            boxes = new double[Math.max(capacity, 1) * 2 * dimension];
+            identifiers = new int[Math.max(capacity, 1)];
+        }
+
+        /**
+         * Adds a geographic bounding box with the given identifier.
+         *
+         * @param  box  the bounding box to add.
+         * @param  id   identifier of the box.
+         */
+        void add(final GeographicBoundingBox box, final int id) {
+            add(new double[] {box.getWestBoundLongitude(), box.getSouthBoundLatitude()},
+                new double[] {box.getEastBoundLongitude(), box.getNorthBoundLatitude()}, id);
+        }
+
+        /**
+         * Adds a box with the given identifier, splitting it if it crosses the anti-meridian.
+         * A box having a lower value greater than the upper value on an axis which is not
+         * a wraparound axis is empty, and is ignored.
+         *
+         * @param  lower  minimal coordinate values of the box.
+         * @param  upper  maximal coordinate values of the box.
+         * @param  id     identifier of the box.
+         */
+        void add(final double[] lower, final double[] upper, final int id) {
+            for (int d=0; d<dimension; d++) {
+                if (lower[d] > upper[d]) {
+                    final double[] range = axisRange(crs, dimension, d);
+                    if (range == null) {
+                        return;
+                    }
+                    final double[] east = upper.clone();
+                    final double[] west = lower.clone();
+                    east[d] = range[1];
+                    west[d] = range[0];
+                    add(lower, east, id);
+                    add(west, upper, id);
+                    return;
+                }
+            }
+            if (count >= identifiers.length) {
+                identifiers = Arrays.copyOf(identifiers, count * 2);
+                boxes = Arrays.copyOf(boxes, count * 4 * dimension);
+            }
+            System.arraycopy(lower, 0, boxes, count * 2 * dimension, dimension);
+            System.arraycopy(upper, 0, boxes, count * 2 * dimension + dimension, dimension);
+            identifiers[count++] = id;
+        }
+
+        /**
+         * Builds the tree.
+         *
+         * @return the tree of all boxes added to this builder.
+         */
+        EnvelopeTree build() {
+            return new EnvelopeTree(crs, dimension, Arrays.copyOf(boxes, count * 2 * dimension), Arrays.copyOf(identifiers, count));
+        }
+    }
+
+    /**
+     * Returns the minimum and maximum values of the axis in the given dimension if that axis is a wraparound axis.
+     * If the <abbr>CRS</abbr> is null and the dimension is 2, then the axis order is assumed
+     * (<var>longitude</var>, <var>latitude</var>) and the first axis is a wraparound axis.
+     *
+     * @param  crs        the <abbr>CRS</abbr>, or {@code null} if unknown.
+     * @param  dimension  number of dimensions.
+     * @param  d          the dimension for which to get the axis range.
+     * @return the minimum and maximum values of the axis, or {@code null} if the axis is not a wraparound axis.
+     */
+    private static double[] axisRange(final CoordinateReferenceSystem crs, final int dimension, final int d) {
+        if (crs != null) {
+            final CoordinateSystemAxis axis = crs.getCoordinateSystem().getAxis(d);
+            if (axis.getRangeMeaning() == RangeMeaning.WRAPAROUND) {
+                return new double[] {axis.getMinimumValue(), axis.getMaximumValue()};
+            }
+        } else if (dimension == 2 && d == 0) {
+            return new double[] {-180, 180};
+        }
+        return null;
+    }
+
+    /**
+     * Returns a stream of integers from 0 inclusive to the given value exclusive.
+     *
+     * @param  count     the upper value, exclusive.
+     * @param  parallel  whether the stream should be parallel.
+     * @return a stream of integers from 0 to {@code count}.
+     */
+    private static IntStream range(final int count, final boolean parallel) {
+        final IntStream stream = IntStream.range(0, count);
+        return parallel ? stream.parallel() : stream;
+    }
+
+    /**
+     * Sorts the given range of boxes by their center in the given dimension,
+     * then cuts in slices and sorts each slice by the next dimension.
+     *
+     * @param  order     the indices of the boxes to sort.
+     * @param  lower     index of the first element to sort in {@code order}.
+     * @param  upper     index after the last element to sort in {@code order}.
+     * @param  dim       the dimension to use for sorting.
+     * @param  centers   the centers of all boxes, for each dimension.
+     * @param  parallel  whether to sort the slices in parallel.
+     */
+    private static void tile(final int[] order, final int lower, final int upper, final int dim,
+                             final double[][] centers, final boolean parallel)
+    {
+        sort(order, lower, upper, centers[dim]);
+        final int remaining = centers.length - dim;
+        final int n = upper - lower;
+        if (remaining <= 1 || n <= CAPACITY) {
+            return;
+        }
+        final int leaves    = (n + CAPACITY - 1) / CAPACITY;
+        final int slices    = (int) Math.ceil(Math.pow(leaves, 1.0 / remaining));
+        final int sliceSize = ((leaves + slices - 1) / slices) * CAPACITY;
+        range((n + sliceSize - 1) / sliceSize, parallel).forEach((s) -> {
+            final int start = lower + s * sliceSize;
+            tile(order, start, Math.min(start + sliceSize, upper), dim + 1, centers, parallel);
+        });
+    }
+
+    /**
+     * Sorts the given range of indices by increasing key values.
+     * This is a quick sort using the median of three values as pivot,
+     * with insertion sort for small ranges. This method is also used by {@link SpatialJoin}.
+     *
+     * @param  indices  the indices to sort.
+     * @param  lower    index of the first element to sort.
+     * @param  upper    index after the last element to sort.
+     * @param  keys     the values to compare, indexed by the elements of {@code indices}.
+     */
+    static void sort(final int[] indices, int lower, int upper, final double[] keys) {
+        while (upper - lower > 12) {
+            final int mid = (lower + upper) >>> 1;
+            final double a = keys[indices[lower]], b = keys[indices[mid]], c = keys[indices[upper - 1]];
+            final double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            int i = lower, j = upper - 1;
+            while (i <= j) {
+                while (keys[indices[i]] < pivot) i++;
+                while (keys[indices[j]] > pivot) j--;
+                if (i <= j) {
+                    final int t = indices[i];
+                    indices[i++] = indices[j];
+                    indices[j--] = t;
+                }
+            }
+            // Recurse on the smaller part, loop on the larger part.
+            if (j - lower < upper - i) {
+                sort(indices, lower, j + 1, keys);
+                lower = i;
+            } else {
+                sort(indices, i, upper, keys);
+                upper = j + 1;
+            }
+        }
+        for (int i = lower + 1; i < upper; i++) {
+            final int t = indices[i];
+            final double k = keys[t];
+            int j = i;
+            while (j > lower && keys[indices[j-1]] > k) {
+                indices[j] = indices[j-1];
+                j--;
+            }
+            indices[j] = t;
+        }
+    }
+
+    /**
+     * Returns the coordinate reference system of all boxes.
+     *
+     * @return the <abbr>CRS</abbr> of all boxes, or {@code null} if unspecified.
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the number of dimensions of all boxes.
+     *
+     * @return the number of dimensions.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of boxes in this tree. This is the number of envelopes
+     * given at construction time, plus the number of additional parts created
+     * when an envelope has been split.
+     *
+     * @return number of boxes.
+     */
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Returns the union of all boxes in this tree, or {@code null} if the tree is empty.
+     *
+     * @return union of all boxes, or {@code null} if none.
+     */
+    public SimpleEnvelope getBounds() {
+        if (items.length == 0) {
+            return null;
+        }
+        final int p = (levels[levels.length - 1] - 1) * 2 * dimension;
+        return new SimpleEnvelope(
+                new SimpleDirectPosition(crs, Arrays.copyOfRange(bounds, p, p + dimension)),
+                new SimpleDirectPosition(crs, Arrays.copyOfRange(bounds, p + dimension, p + 2*dimension)));
+    }
+
+    /**
+     * Invokes the given action for the identifier of each box intersecting the given region.
+     * This method does not filter duplicated identifiers: if many boxes have the same identifier,
+     * that identifier may be reported many times.
+     *
+     * @param  lower   minimal coordinate values of the region to search.
+     * @param  upper   maximal coordinate values of the region to search.
+     * @param  action  the action to invoke for each box intersecting the given region.
+     * @throws MismatchedDimensionException if an array length is not the number of dimensions.
+     */
+    public void search(final double[] lower, final double[] upper, final IntConsumer action) {
+        if (lower.length != dimension || upper.length != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final int depth = levels.length - 1;
+        if (levels[1] > 0) {
+            final double[] region = Arrays.copyOf(lower, 2 * dimension);
+            System.arraycopy(upper, 0, region, dimension, dimension);
+            search(depth - 1, levels[depth - 1], region, action);
+        }
+    }
+
+    /**
+     * Searches in the given node and its children.
+     *
+     * @param  level   level of the node, with 0 for leaves.
+     * @param  node    index of the node, relative to the start of all nodes.
+     * @param  region  minimal coordinate values followed by maximal values of the region to search.
+     * @param  action  the action to invoke for the identifier of each box found.
+     */
+    private void search(final int level, final int node, final double[] region, final IntConsumer action) {
+        if (!intersects(bounds, node * 2 * dimension, region, 0, dimension)) {
+            return;
+        }
+        if (level == 0) {
+            action.accept(items[node]);
+            return;
+        }
+        final int first = levels[level - 1] + (node - levels[level]) * CAPACITY;
+        final int end   = Math.min(first + CAPACITY, levels[level]);
+        for (int child = first; child < end; child++) {
+            search(level - 1, child, region, action);
+        }
+    }
+
+    /**
+     * Returns whether the box at offset {@code pa} in {@code a} intersects the box at offset {@code pb} in {@code b}.
+     * NaN values are considered as intersecting.
+     *
+     * @param  a          the array containing the first box.
+     * @param  pa         offset of the first box in {@code a}.
+     * @param  b          the array containing the second box.
+     * @param  pb         offset of the second box in {@code b}.
+     * @param  dimension  number of dimensions.
+     * @return whether the two boxes intersect.
+     */
+    private static boolean intersects(final double[] a, final int pa, final double[] b, final int pb, final int dimension) {
+        for (int d=0; d<dimension; d++) {
+            if (a[pa + d] > b[pb + dimension + d] || a[pa + dimension + d] < b[pb + d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Invokes the given action once for the identifier of each item intersecting the given envelope.
+     * If the envelope crosses the anti-meridian, it is split in parts as documented in {@link #of(List)}.
+     *
+     * @param  region  the region to search.
+     * @param  action  the action to invoke for the identifier of each item intersecting the given region.
+     * @throws MismatchedDimensionException if the envelope does not have the tree dimension.
+     * @throws MismatchedCoordinateMetadataException if the envelope does not have the tree <abbr>CRS</abbr>.
+     */
+    public void search(final Envelope region, final IntConsumer action) {
+        if (region.getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final CoordinateReferenceSystem regionCRS = region.getCoordinateReferenceSystem();
+        if (crs != null && regionCRS != null && !crs.equals(regionCRS)) {
+            throw new MismatchedCoordinateMetadataException();
+        }
+        final var parts = new Builder(crs, dimension, 1);
+        parts.add(region.getLowerCorner().getCoordinates(), region.getUpperCorner().getCoordinates(), 0);
+        search(parts, action);
+    }
+
+    /**
+     * Invokes the given action once for the identifier of each item intersecting the given geographic bounding box.
+     * If the tree <abbr>CRS</abbr> is unspecified, the axis order is assumed (<var>longitude</var>, <var>latitude</var>).
+     * Otherwise, the longitude and latitude dimensions are inferred from the axis directions.
+     * This method does not apply any datum shift.
+     *
+     * @param  region  the region to search.
+     * @param  action  the action to invoke for the identifier of each item intersecting the given region.
+     * @throws IllegalStateException if this tree is not two-dimensional or does not use a geographic <abbr>CRS</abbr>.
+     */
+    public void search(final GeographicBoundingBox region, final IntConsumer action) {
+        int lon = 0, lat = 1;
+        if (crs != null) {
+            lon = lat = -1;
+            final CoordinateSystem cs = crs.getCoordinateSystem();
+            for (int d=0; d<dimension; d++) {
+                final AxisDirection direction = cs.getAxis(d).getDirection();
+                if (direction == AxisDirection.EAST)  lon = d;
+                if (direction == AxisDirection.NORTH) lat = d;
+            }
+        }
+        if (dimension != 2 || lon < 0 || lat < 0) {
+            throw new IllegalStateException("This tree is not geographic.");
+        }
+        final double[] lower = new double[2];
+        final double[] upper = new double[2];
+        lower[lon] = region.getWestBoundLongitude();
+        upper[lon] = region.getEastBoundLongitude();
+        lower[lat] = region.getSouthBoundLatitude();
+        upper[lat] = region.getNorthBoundLatitude();
+        final var parts = new Builder(crs, dimension, 1);
+        parts.add(lower, upper, 0);
+        search(parts, action);
+    }
+
+    /**
+     * Searches all parts of a query region, reporting each identifier only once.
+     *
+     * @param  parts   the parts of the query region.
+     * @param  action  the action to invoke for the identifier of each box found.
+     */
+    private void search(final Builder parts, final IntConsumer action) {
+        final int stride = 2 * dimension;
+        final IntConsumer filter;
+        if (parts.count > 1 || hasDuplicates) {
+            final BitSet found = new BitSet(itemCount);
+            filter = (id) -> {
+                if (!found.get(id)) {
+                    found.set(id);
+                    action.accept(id);
+                }
+            };
+        } else {
+            filter = action;
+        }
+        for (int i=0; i<parts.count; i++) {
+            final int p = i * stride;
+            search(Arrays.copyOfRange(parts.boxes, p, p + dimension),
+                   Arrays.copyOfRange(parts.boxes, p + dimension, p + stride), filter);
+        }
+    }
+
+    /**
+     * Returns the identifiers of all items intersecting the given envelope, in increasing order.
+     *
+     * @param  region  the region to search.
+     * @return identifiers of all items intersecting the given region.
+     * @throws MismatchedDimensionException if the envelope does not have the tree dimension.
+     * @throws MismatchedCoordinateMetadataException if the envelope does not have the tree <abbr>CRS</abbr>.
+     */
+    public int[] intersecting(final Envelope region) {
+        final IntStream.Builder result = IntStream.builder();
+        search(region, result);
+        return result.build().sorted().toArray();
+    }
+
+    /**
+     * A node waiting to be visited in a nearest neighbors search.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        /** Squared distance from the point to the node bounds. */
+        final double distance;
+
+        /** Level of the node, with 0 for leaves. */
+        final int level;
+
+        /** Index of the node, relative to the start of all nodes. */
+        final int node;
+
+        /**
+         * Creates a new candidate.
+         *
+         * @param  distance  squared distance from the point to the node bounds.
+         * @param  level     level of the node, with 0 for leaves.
+         * @param  node      index of the node, relative to the start of all nodes.
+         */
+        Candidate(final double distance, final int level, final int node) {
+            this.distance = distance;
+            this.level    = level;
+            this.node     = node;
+        }
+
+        /** Orders candidates by increasing distance. */
+        @Override
+        public int compareTo(final Candidate other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+
+    /**
+     * Returns the identifiers of the <var>k</var> items nearest to the given point, nearest first.
+     * Distances are Euclidean distances in units of the <abbr>CRS</abbr> axes, zero if the point
+     * is inside a box. Wraparound axes are not taken in account.
+     *
+     * @param  point  the point from which to search the nearest items.
+     * @param  k      maximal number of items to return.
+     * @return identifiers of at most <var>k</var> nearest items, nearest first.
+     * @throws MismatchedDimensionException if the point does not have the tree dimension.
+     * @throws MismatchedCoordinateMetadataException if the point does not have the tree <abbr>CRS</abbr>.
+     */
+    public int[] nearest(final DirectPosition point, final int k) {
+        if (point.getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final CoordinateReferenceSystem pointCRS = point.getCoordinateReferenceSystem();
+        if (crs != null && pointCRS != null && !crs.equals(pointCRS)) {
+            throw new MismatchedCoordinateMetadataException();
+        }
+        final double[] coordinates = point.getCoordinates();
+        final int depth = levels.length - 1;
+        final var result = IntStream.builder();
+        if (levels[1] == 0 || k <= 0) {
+            return new int[0];
+        }
+        final BitSet found = new BitSet(itemCount);
+        final var queue = new PriorityQueue<Candidate>();
+        queue.add(new Candidate(distance(levels[depth - 1], coordinates), depth - 1, levels[depth - 1]));
+        int n = 0;
+        Candidate c;
+        while (n < k && (c = queue.poll()) != null) {
+            if (c.level == 0) {
+                final int id = items[c.node];
+                if (!found.get(id)) {
+                    found.set(id);
+                    result.add(id);
+                    n++;
+                }
+            } else {
+                final int first = levels[c.level - 1] + (c.node - levels[c.level]) * CAPACITY;
+                final int end   = Math.min(first + CAPACITY, levels[c.level]);
+                for (int child = first; child < end; child++) {
+                    queue.add(new Candidate(distance(child, coordinates), c.level - 1, child));
+                }
+            }
+        }
+        return result.build().toArray();
+    }
+
+    /**
+     * Returns the squared distance from the given point to the bounds of the given node.
+     *
+     * @param  node   index of the node, relative to the start of all nodes.
+     * @param  point  the point from which to compute the distance.
+     * @return the squared distance, or 0 if the point is inside the node bounds.
+     */
+    private double distance(final int node, final double[] point) {
+        final int p = node * 2 * dimension;
+        double sum = 0;
+        for (int d=0; d<dimension; d++) {
+            final double v = point[d];
+            final double delta = Math.max(0, Math.max(bounds[p + d] - v, v - bounds[p + dimension + d]));
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    /**
+     * Receives pairs of identifiers found by {@link #join(EnvelopeTree, PairConsumer)}.
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        /**
+         * Invoked for a pair of intersecting items.
+         *
+         * @param  first   identifier of the item in the first tree.
+         * @param  second  identifier of the item in the second tree.
+         */
+        void accept(int first, int second);
+    }
+
+    /**
+     * Invokes the given action once for each pair of intersecting items in this tree and the given tree.
+     * The two trees are traversed together, so that only pairs of intersecting nodes are visited.
+     * If an item has been split in many parts, many pairs of parts may intersect. In such case,
+     * the pair of items is reported only by the first pair of intersecting parts, in leaf order.
+     *
+     * @param  other   the other tree.
+     * @param  action  the action to invoke for each pair of identifiers of intersecting items.
+     * @throws MismatchedDimensionException if the two trees do not have the same dimension.
+     * @throws MismatchedCoordinateMetadataException if the two trees do not have the same <abbr>CRS</abbr>.
+     */
+    public void join(final EnvelopeTree other, final PairConsumer action) {
+        if (other.dimension != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        if (crs != null && other.crs != null && !crs.equals(other.crs)) {
+            throw new MismatchedCoordinateMetadataException();
+        }
+        if (levels[1] == 0 || other.levels[1] == 0) {
+            return;
+        }
+        final PairConsumer leaves;
+        if (hasDuplicates || other.hasDuplicates) {
+            final int[][] partsA = parts();
+            final int[][] partsB = other.parts();
+            leaves = (na, nb) -> {
+                if (owns(na, partsA, other, nb, partsB)) {
+                    action.accept(items[na], other.items[nb]);
+                }
+            };
+        } else {
+            leaves = (na, nb) -> action.accept(items[na], other.items[nb]);
+        }
+        final int la = levels.length - 2;
+        final int lb = other.levels.length - 2;
+        join(la, levels[la], other, lb, other.levels[lb], leaves);
+    }
+
+    /**
+     * Returns the leaves of each identifier, or {@code null} if each identifier has only one leaf.
+     * The leaves of identifier <var>id</var> are {@code parts[1][parts[0][id]]} inclusive to
+     * {@code parts[1][parts[0][id+1]]} exclusive, in increasing order.
+     *
+     * @return the starting offset of each identifier followed by the leaves, or {@code null}.
+     */
+    private int[][] parts() {
+        if (!hasDuplicates) {
+            return null;
+        }
+        final int[] start = new int[itemCount + 1];
+        for (final int id : items) {
+            start[id + 1]++;
+        }
+        for (int i=0; i<itemCount; i++) {
+            start[i + 1] += start[i];
+        }
+        final int[] next   = Arrays.copyOf(start, itemCount);
+        final int[] leaves = new int[items.length];
+        for (int leaf=0; leaf<items.length; leaf++) {
+            leaves[next[items[leaf]]++] = leaf;
+        }
+        return new int[][] {start, leaves};
+    }
+
+    /**
+     * Returns whether the given pair of intersecting leaves is the first intersecting pair of parts of their items.
+     * Pairs of parts are ordered by the leaf in this tree, then by the leaf in the other tree.
+     *
+     * @param  na      a leaf of this tree.
+     * @param  partsA  the leaves of each identifier of this tree, or {@code null} if no identifier is split.
+     * @param  other   the other tree.
+     * @param  nb      a leaf of the other tree intersecting {@code na}.
+     * @param  partsB  the leaves of each identifier of the other tree, or {@code null} if no identifier is split.
+     * @return whether the pair of items shall be reported for the given pair of leaves.
+     */
+    private boolean owns(final int na, final int[][] partsA, final EnvelopeTree other, final int nb, final int[][] partsB) {
+        final int stride = 2 * dimension;
+        final int a = items[na], b = other.items[nb];
+        final int startA = (partsA != null) ? partsA[0][a] : 0;
+        final int endA   = (partsA != null) ? partsA[0][a + 1] : 1;
+        final int startB = (partsB != null) ? partsB[0][b] : 0;
+        final int endB   = (partsB != null) ? partsB[0][b + 1] : 1;
+        for (int i = startA; i < endA; i++) {
+            final int x = (partsA != null) ? partsA[1][i] : na;
+            if (x > na) break;
+            for (int j = startB; j < endB; j++) {
+                final int y = (partsB != null) ? partsB[1][j] : nb;
+                if (x == na && y >= nb) break;
+                if (intersects(bounds, x * stride, other.bounds, y * stride, dimension)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Joins the given node of this tree with the given node of the other tree.
+     * The node at the highest level is expanded first.
+     *
+     * @param  la      level of the node in this tree, with 0 for leaves.
+     * @param  na      index of the node in this tree.
+     * @param  other   the other tree.
+     * @param  lb      level of the node in the other tree.
+     * @param  nb      index of the node in the other tree.
+     * @param  action  the action to invoke for each pair of intersecting leaves.
+     */
+    private void join(final int la, final int na, final EnvelopeTree other, final int lb, final int nb, final PairConsumer action) {
+        if (!intersects(bounds, na * 2 * dimension, other.bounds, nb * 2 * dimension, dimension)) {
+            return;
+        }
+        if (la == 0 && lb == 0) {
+            action.accept(na, nb);
+        } else if (la >= lb) {
+            final int first = levels[la - 1] + (na - levels[la]) * CAPACITY;
+            final int end   = Math.min(first + CAPACITY, levels[la]);
+            for (int child = first; child < end; child++) {
+                join(la - 1, child, other, lb, nb, action);
+            }
+        } else {
+            final int first = other.levels[lb - 1] + (nb - other.levels[lb]) * CAPACITY;
+            final int end   = Math.min(first + CAPACITY, other.levels[lb]);
+            for (int child = first; child < end; child++) {
+                join(la, na, other, lb - 1, child, action);
+            }
+        }
+    }
+
+    /**
+     * Returns a string representation of this tree for debugging purposes.
+     */
+    @Override
+    public String toString() {
+        return "EnvelopeTree[" + dimension + "D, " + items.length + " boxes, " + (levels.length - 1) + " levels]";
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import org.opengis.example.referencing.SimpleCRS;
+
+
+/**
+ * Batch conversions between geographic coordinates and geohashes.
+ * Coordinates are given as interleaved (<var>latitude</var>, <var>longitude</var>) tuples in decimal degrees,
+ * in the axis order of {@link SimpleCRS.Geographic#WGS84}. Geohashes have at most 12 characters.
+ *
+ * <p>Encoding quantizes each coordinate on 30 bits with integer arithmetic, interleaves the bits of
+ * longitude and latitude with bit masks in a single {@code long}, then maps groups of 5 bits to characters.
+ * The integer form of geohashes is also available for use as compact keys.</p>
+ */
+public final class Geohash {
+    /**
+     * Maximal number of characters in a geohash.
+     */
+    public static final int MAX_LENGTH = 12;
+
+    /**
+     * Number of bits used for each coordinate.
+     */
+    private static final int BITS = MAX_LENGTH * 5 / 2;
+
+    /**
+     * The characters used in geohashes, in order of their 5 bits values.
+     */
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * The 5 bits value of each character, or -1 if the character is not valid.
+     */
+    private static final byte[] VALUES = new byte[128];
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i=0; i<BASE32.length; i++) {
+            VALUES[BASE32[i]] = (byte) i;
+        }
+    }
+
+    /**
+     * Minimal number of points for converting in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private Geohash() {
+    }
+
+    /**
+     * Spreads the 32 low bits of the given value to the even bits of the result.
+     *
+     * @param  x  the value having the bits to spread.
+     * @return the spread bits.
+     */
+    private static long spread(long x) {
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x <<  8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x <<  4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x <<  2)) & 0x3333333333333333L;
+        x = (x | (x <<  1)) & 0x5555555555555555L;
+        return x;
+    }
+
+    /**
+     * Gathers the even bits of the given value in the 32 low bits of the result.
+     *
+     * @param  x  the value having the bits to gather.
+     * @return the gathered bits.
+     */
+    private static long compact(long x) {
+        x &= 0x5555555555555555L;
+        x = (x | (x >>>  1)) & 0x3333333333333333L;
+        x = (x | (x >>>  2)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x >>>  4)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x >>>  8)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+        return x;
+    }
+
+    /**
+     * Quantizes the given value in the [0 … 2<sup>30</sup>-1] range.
+     *
+     * @param  value  the value to quantize.
+     * @param  min    the minimal value of the range.
+     * @param  span   the span of the range.
+     * @return the quantized value.
+     */
+    private static long quantize(final double value, final double min, final double span) {
+        final double q = Math.floor((value - min) / span * (1L << BITS));
+        return (q >= (1L << BITS) - 1) ? (1L << BITS) - 1 : (q > 0) ? (long) q : 0;
+    }
+
+    /**
+     * Returns the integer form of the geohash of the given point with the maximal precision.
+     * The 60 bits of the result are the bits of the 12 characters of the geohash.
+     *
+     * @param  latitude   latitude in degrees.
+     * @param  longitude  longitude in degrees.
+     * @return the 60 bits geohash.
+     */
+    public static long encodeBits(final double latitude, final double longitude) {
+        return (spread(quantize(longitude, -180, 360)) << 1) | spread(quantize(latitude, -90, 180));
+    }
+
+    /**
+     * Returns the geohash of the given point.
+     *
+     * @param  latitude   latitude in degrees.
+     * @param  longitude  longitude in degrees.
+     * @param  length     number of characters, from 1 to {@value #MAX_LENGTH} inclusive.
+     * @return the geohash.
+     */
+    public static String encode(final double latitude, final double longitude, final int length) {
+        checkLength(length);
+        return toString(encodeBits(latitude, longitude), length);
+    }
+
+    /**
+     * Computes the geohashes of many points. The computation is done in parallel for large arrays.
+     *
+     * @param  points  interleaved (<var>latitude</var>, <var>longitude</var>) tuples in degrees.
+     * @param  offset  index of the first coordinate value of the first point.
+     * @param  count   number of points.
+     * @param  length  number of characters, from 1 to {@value #MAX_LENGTH} inclusive.
+     * @return the geohashes of all points.
+     */
+    public static String[] encode(final double[] points, final int offset, final int count, final int length) {
+        checkLength(length);
+        Objects.checkFromIndexSize(offset, Math.multiplyExact(count, 2), points.length);
+        final String[] result = new String[count];
+        range(count).forEach((i) -> {
+            final int p = offset + i*2;
+            result[i] = toString(encodeBits(points[p], points[p+1]), length);
+        });
+        return result;
+    }
+
+    /**
+     * Computes the integer form of the geohashes of many points.
+     * The computation is done in parallel for large arrays.
+     *
+     * @param  points  interleaved (<var>latitude</var>, <var>longitude</var>) tuples in degrees.
+     * @param  offset  index of the first coordinate value of the first point.
+     * @param  keys    where to store the 60 bits geohashes.
+     * @param  count   number of points.
+     */
+    public static void encodeBits(final double[] points, final int offset, final long[] keys, final int count) {
+        Objects.checkFromIndexSize(offset, Math.multiplyExact(count, 2), points.length);
+        range(count).forEach((i) -> keys[i] = encodeBits(points[offset + i*2], points[offset + i*2 + 1]));
+    }
+
+    /**
+     * Returns the cell of the given geohash as an envelope in the {@link SimpleCRS.Geographic#WGS84} <abbr>CRS</abbr>.
+     *
+     * @param  geohash  the geohash to decode.
+     * @return the cell identified by the geohash.
+     * @throws IllegalArgumentException if the geohash is empty, too long or contains invalid characters.
+     */
+    public static SimpleEnvelope decodeEnvelope(final String geohash) {
+        final double[] bounds = new double[4];
+        decode(geohash, bounds, 0);
+        return new SimpleEnvelope(new SimpleDirectPosition(SimpleCRS.Geographic.WGS84, bounds[0], bounds[1]),
+                                  new SimpleDirectPosition(SimpleCRS.Geographic.WGS84, bounds[2], bounds[3]));
+    }
+
+    /**
+     * Computes the centers of the cells of many geohashes.
+     *
+     * @param  geohashes  the geohashes to decode.
+     * @param  target     where to store the (<var>latitude</var>, <var>longitude</var>) tuples.
+     * @param  offset     index where to store the first coordinate value.
+     * @throws IllegalArgumentException if a geohash is empty, too long or contains invalid characters.
+     */
+    public static void decode(final String[] geohashes, final double[] target, final int offset) {
+        Objects.checkFromIndexSize(offset, Math.multiplyExact(geohashes.length, 2), target.length);
+        range(geohashes.length).forEach((i) -> {
+            final double[] bounds = new double[4];
+            decode(geohashes[i], bounds, 0);
+            target[offset + i*2]     = (bounds[0] + bounds[2]) / 2;
+            target[offset + i*2 + 1] = (bounds[1] + bounds[3]) / 2;
+        });
+    }
+
+    /**
+     * Decodes the given geohash as (<var>south</var>, <var>west</var>, <var>north</var>, <var>east</var>) bounds.
+     *
+     * @param  geohash  the geohash to decode.
+     * @param  bounds   where to store the bounds.
+     * @param  offset   index where to store the first bound.
+     * @throws IllegalArgumentException if the geohash is empty, too long or contains an invalid character.
+     */
+    private static void decode(final String geohash, final double[] bounds, final int offset) {
+        final int length = geohash.length();
+        checkLength(length);
+        long bits = 0;
+        for (int i=0; i<length; i++) {
+            final char c = geohash.charAt(i);
+            final int v = (c < VALUES.length) ? VALUES[c] : -1;
+            if (v < 0) {
+                throw new IllegalArgumentException("Invalid geohash character: " + c);
+            }
+            bits = (bits << 5) | v;
+        }
+        bits <<= (MAX_LENGTH - length) * 5;
+        final int lonBits = (length * 5 + 1) / 2;
+        final int latBits = (length * 5) / 2;
+        final double lonSize = 360d / (1L << lonBits);
+        final double latSize = 180d / (1L << latBits);
+        final double west  = (compact(bits >>> 1) >>> (BITS - lonBits)) * lonSize - 180;
+        final double south = (compact(bits)       >>> (BITS - latBits)) * latSize -  90;
+        bounds[offset    ] = south;
+        bounds[offset + 1] = west;
+        bounds[offset + 2] = south + latSize;
+        bounds[offset + 3] = west  + lonSize;
+    }
+
+    /**
+     * Returns the first characters of the geohash having the given integer form.
+     *
+     * @param  bits    the integer form of the geohash, on 60 bits.
+     * @param  length  the number of characters to return.
+     * @return the first characters of the geohash.
+     */
+    private static String toString(long bits, final int length) {
+        bits >>>= (MAX_LENGTH - length) * 5;
+        final char[] chars = new char[length];
+        for (int i = length; --i >= 0;) {
+            chars[i] = BASE32[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Verifies the number of characters of a geohash.
+     *
+     * @param  length  the number of characters.
+     * @throws IllegalArgumentException if the number of characters is out of range.
+     */
+    private static void checkLength(final int length) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Geohash length shall be between 1 and " + MAX_LENGTH + '.');
+        }
+    }
+
+    /**
+     * Returns a stream of indices, parallel if the number of elements is large.
+     *
+     * @param  count  the number of elements.
+     * @return the indices from 0 inclusive to {@code count} exclusive.
+     */
+    private static IntStream range(final int count) {
+        final IntStream range = IntStream.range(0, count);
+        return (count >= PARALLEL_THRESHOLD) ? range.parallel() : range;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opengis.geometry.Geometry;
+import org.opengis.referencing.RegisterOperations;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+
+/**
+ * Transforms many geometries to a target <abbr>CRS</abbr> with a single call to {@link MathTransform}
+ * for each source <abbr>CRS</abbr>. The coordinates of all geometries having the same source <abbr>CRS</abbr>
+ * are gathered in one array, transformed in a single batch, then scattered in new {@link PackedGeometry}
+ * instances having the same structure as the source geometries. This avoids the cost of transforming
+ * positions one at a time, as done by a naive implementation of {@link Geometry#transform(CoordinateReferenceSystem)}.
+ *
+ * <p>The transforms are obtained from a {@link RegisterOperations} and cached for each pair of source and target
+ * <abbr>CRS</abbr>. When many operations are available, the first one is used. Instances of this class are
+ * thread-safe.</p>
+ */
+public class GeometryTransformer {
+    /**
+     * The registry where to search for coordinate operations.
+     */
+    private final RegisterOperations register;
+
+    /**
+     * The transforms found for each (source, target) pair of <abbr>CRS</abbr>.
+     */
+    private final Map<List<CoordinateReferenceSystem>, MathTransform> transforms;
+
+    /**
+     * Creates a new transformer which will search for coordinate operations in the given registry.
+     *
+     * @param  register  the registry where to search for coordinate operations.
+     */
+    public GeometryTransformer(final RegisterOperations register) {
+        this.register = Objects.requireNonNull(register);
+        transforms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the transform from the given source <abbr>CRS</abbr> to the given target <abbr>CRS</abbr>.
+     * The result is cached for future calls with the same pair of <abbr>CRS</abbr>.
+     *
+     * @param  source  the source <abbr>CRS</abbr>.
+     * @param  target  the target <abbr>CRS</abbr>.
+     * @return the transform from source to target, or {@code null} if the two <abbr>CRS</abbr> are equal.
+     * @throws FactoryException if no coordinate operation is found.
+     */
+    public MathTransform getTransform(final CoordinateReferenceSystem source, final CoordinateReferenceSystem target)
+            throws FactoryException
+    {
+        if (source.equals(target)) {
+            return null;
+        }
+        final List<CoordinateReferenceSystem> key = List.of(source, target);
+        MathTransform mt = transforms.get(key);
+        if (mt == null) {
+            final Iterator<CoordinateOperation> it = register.findCoordinateOperations(source, target).iterator();
+            if (!it.hasNext()) {
+                throw new FactoryException("No operation found from \"" + source.getName().getCode()
+                                         + "\" to \"" + target.getName().getCode() + "\".");
+            }
+            mt = it.next().getMathTransform();
+            final MathTransform existing = transforms.putIfAbsent(key, mt);
+            if (existing != null) mt = existing;
+        }
+        return mt;
+    }
+
+    /**
+     * Transforms the given geometry to the given <abbr>CRS</abbr>.
+     *
+     * @param  geometry   the geometry to transform.
+     * @param  targetCRS  the target <abbr>CRS</abbr>.
+     * @return the transformed geometry.
+     * @throws IllegalArgumentException if the geometry type is not supported by {@link PackedGeometry}.
+     * @throws FactoryException if no coordinate operation is found.
+     * @throws TransformException if a point cannot be transformed.
+     */
+    public PackedGeometry transform(final Geometry geometry, final CoordinateReferenceSystem targetCRS)
+            throws FactoryException, TransformException
+    {
+        return transform(List.of(PackedGeometry.of(geometry)), targetCRS).get(0);
+    }
+
+    /**
+     * Transforms all given geometries to the given <abbr>CRS</abbr>.
+     * Geometries are grouped by source <abbr>CRS</abbr>, and a single transform call is done for each group.
+     * Geometries without <abbr>CRS</abbr> or already in the target <abbr>CRS</abbr> are returned unchanged.
+     *
+     * @param  geometries  the geometries to transform.
+     * @param  targetCRS   the target <abbr>CRS</abbr>.
+     * @return the transformed geometries, in the same order as the given geometries.
+     * @throws FactoryException if no coordinate operation is found for a source <abbr>CRS</abbr>.
+     * @throws TransformException if a point cannot be transformed.
+     */
+    public List<PackedGeometry> transform(final Collection<PackedGeometry> geometries,
+                                          final CoordinateReferenceSystem targetCRS)
+            throws FactoryException, TransformException
+    {
+        final PackedGeometry[] result = geometries.toArray(PackedGeometry[]::new);
+        final var groups = new LinkedHashMap<CoordinateReferenceSystem, List<Integer>>();
+        for (int i=0; i<result.length; i++) {
+            final CoordinateReferenceSystem crs = result[i].getCoordinateReferenceSystem();
+            if (crs != null) {
+                groups.computeIfAbsent(crs, (k) -> new ArrayList<>()).add(i);
+            }
+        }
+        for (final Map.Entry<CoordinateReferenceSystem, List<Integer>> entry : groups.entrySet()) {
+            final MathTransform mt = getTransform(entry.getKey(), targetCRS);
+            if (mt != null) {
+                transform(mt, targetCRS, result, entry.getValue());
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Transforms in-place the geometries at the given indices with a single call to the given transform.
+     *
+     * @param  mt         the transform to apply.
+     * @param  targetCRS  the target <abbr>CRS</abbr>.
+     * @param  result     the geometries to transform. Elements are replaced by the transformed geometries.
+     * @param  indices    indices of the geometries to transform.
+     * @throws TransformException if a coordinate cannot be transformed.
+     */
+    private static void transform(final MathTransform mt, final CoordinateReferenceSystem targetCRS,
+                                  final PackedGeometry[] result, final List<Integer> indices)
+            throws TransformException
+    {
+        final int srcDim = mt.getSourceDimensions();
+        final int tgtDim = mt.getTargetDimensions();
+        int numPts = 0;
+        for (final int i : indices) {
+            numPts = Math.addExact(numPts, result[i].getPointCount());
+        }
+        /*
+         * Gather the coordinates of all geometries in a single array, transform them,
+         * then scatter the results in arrays of the expected length for each geometry.
+         */
+        final double[] buffer = new double[Math.multiplyExact(numPts, Math.max(srcDim, tgtDim))];
+        int offset = 0;
+        for (final int i : indices) {
+            final PackedGeometry geometry = result[i];
+            if (geometry.getDimension() != srcDim) {
+                throw new TransformException("Geometry dimension does not match the transform.");
+            }
+            geometry.getCoordinates(buffer, offset);
+            offset += geometry.getPointCount() * srcDim;
+        }
+        mt.transform(buffer, 0, buffer, 0, numPts);
+        offset = 0;
+        for (final int i : indices) {
+            final PackedGeometry geometry = result[i];
+            final int length = geometry.getPointCount() * tgtDim;
+            result[i] = geometry.withCoordinates(targetCRS, tgtDim, Arrays.copyOfRange(buffer, offset, offset + length));
+            offset += length;
+        }
+    }
+}
@@ -0,0 +1,640 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.AbstractList;
+import org.opengis.geometry.Geometry;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.aggregate.Aggregate;
+import org.opengis.geometry.complex.CompositeCurve;
+import org.opengis.geometry.coordinate.LineString;
+import org.opengis.geometry.coordinate.PointArray;
+import org.opengis.geometry.primitive.Curve;
+import org.opengis.geometry.primitive.CurveSegment;
+import org.opengis.geometry.primitive.OrientableCurve;
+import org.opengis.geometry.primitive.Point;
+import org.opengis.geometry.primitive.Ring;
+import org.opengis.geometry.primitive.Surface;
+import org.opengis.geometry.primitive.SurfaceBoundary;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * A point, line string or polygon, or a collection of the same type of geometry,
+ * with all coordinates packed in a single array. The structure is described by two arrays of offsets:
+ *
+ * <ul>
+ *   <li>The <em>sequence offsets</em> give the index of the first point of each sequence of points.
+ *       A sequence is a point, a line string or a polygon ring.</li>
+ *   <li>The <em>part offsets</em> give the index of the first sequence of each part.
+ *       A part is a point, a line string or a polygon with its holes.</li>
+ * </ul>
+ *
+ * Both arrays have an extra element at the end, which is the total number of points or sequences.
+ * For example, a polygon with one hole has 2 sequences (the exterior and interior rings) and 1 part.
+ * This layout allows the transformation or serialization of all coordinates in a single operation.
+ * The sequences are available as {@link SimplePointArray} views over the packed coordinates.
+ *
+ * <p>Instances of this class are immutable if the arrays given at construction time are not modified.</p>
+ */
+public final class PackedGeometry {
+    /**
+     * The type of a packed geometry.
+     */
+    public enum Type {
+        /** A single point. */
+        POINT,
+
+        /** A single line string. */
+        LINE_STRING,
+
+        /** A single polygon, where the first ring is the exterior and the other rings are holes. */
+        POLYGON,
+
+        /** A collection of points. */
+        MULTI_POINT,
+
+        /** A collection of line strings. */
+        MULTI_LINE_STRING,
+
+        /** A collection of polygons. */
+        MULTI_POLYGON;
+
+        /**
+         * Returns whether this type is a collection.
+         *
+         * @return whether this type is one of the {@code MULTI_*} types.
+         */
+        public boolean isMulti() {
+            return ordinal() >= MULTI_POINT.ordinal();
+        }
+
+        /**
+         * Returns the type of the elements of a collection, or this type if it is not a collection.
+         *
+         * @return the type of a single part.
+         */
+        public Type single() {
+            return isMulti() ? values()[ordinal() - MULTI_POINT.ordinal()] : this;
+        }
+
+        /**
+         * Returns the collection type for elements of this type, or this type if it is already a collection.
+         *
+         * @return the type of a collection of parts of this type.
+         */
+        public Type multi() {
+            return isMulti() ? this : values()[ordinal() + MULTI_POINT.ordinal()];
+        }
+    }
+
+    /**
+     * The geometry type.
+     *
+     * @see #getType()
+     */
+    private final Type type;
+
+    /**
+     * The coordinate reference system, or {@code null} if unspecified.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Number of dimensions of all points.
+     *
+     * @see #getDimension()
+     */
+    private final int dimension;
+
+    /**
+     * The coordinate values of all points, as interleaved tuples.
+     */
+    private final double[] coordinates;
+
+    /**
+     * Index of the first point of each sequence, plus the total number of points.
+     */
+    private final int[] sequenceOffsets;
+
+    /**
+     * Index of the first sequence of each part, plus the total number of sequences.
+     */
+    private final int[] partOffsets;
+
+    /**
+     * Creates a new packed geometry. The arrays are <strong>not</strong> cloned.
+     *
+     * @param  type             the geometry type.
+     * @param  crs              the coordinate reference system, or {@code null} if unspecified.
+     * @param  dimension        number of dimensions of all points.
+     * @param  coordinates      the coordinate values of all points, as interleaved tuples.
+     * @param  sequenceOffsets  index of the first point of each sequence, plus the total number of points.
+     * @param  partOffsets      index of the first sequence of each part, plus the total number of sequences.
+     * @throws MismatchedDimensionException if the CRS is non-null and does not have the given dimension.
+     * @throws IllegalArgumentException if the offsets are inconsistent with the arrays or the geometry type.
+     */
+    public PackedGeometry(final Type type, final CoordinateReferenceSystem crs, final int dimension,
+                          final double[] coordinates, final int[] sequenceOffsets, final int[] partOffsets)
+    {
+        if (crs != null && crs.getCoordinateSystem().getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        this.type            = Objects.requireNonNull(type);
+        this.crs             = crs;
+        this.dimension       = dimension;
+        this.coordinates     = coordinates;
+        this.sequenceOffsets = sequenceOffsets;
+        this.partOffsets     = partOffsets;
+        verify(sequenceOffsets, coordinates.length / Math.max(dimension, 1));
+        verify(partOffsets, sequenceOffsets.length - 1);
+        if (dimension <= 0 || coordinates.length != sequenceOffsets[sequenceOffsets.length - 1] * dimension) {
+            throw new IllegalArgumentException("Array length does not match the number of points.");
+        }
+        if (!type.isMulti() && partOffsets.length != 2) {
+            throw new IllegalArgumentException("A " + type + " shall have exactly one part.");
+        }
+        if (type.single() != Type.POLYGON) {
+            for (int i=1; i<partOffsets.length; i++) {
+                if (partOffsets[i] - partOffsets[i-1] != 1) {
+                    throw new IllegalArgumentException("Each part shall have exactly one sequence.");
+                }
+            }
+        }
+        if (type.single() == Type.POINT) {
+            for (int i=1; i<sequenceOffsets.length; i++) {
+                if (sequenceOffsets[i] - sequenceOffsets[i-1] != 1) {
+                    throw new IllegalArgumentException("Each point sequence shall have exactly one point.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies that the given offsets start at zero, are increasing and end at the given value.
+     *
+     * @param  offsets  the offsets to verify.
+     * @param  end      the expected last offset.
+     */
+    private static void verify(final int[] offsets, final int end) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != end) {
+            throw new IllegalArgumentException("Offsets shall start at 0 and end at " + end + '.');
+        }
+        for (int i=1; i<offsets.length; i++) {
+            if (offsets[i] < offsets[i-1]) {
+                throw new IllegalArgumentException("Offsets shall be increasing.");
+            }
+        }
+    }
+
+    /**
+     * Creates a packed geometry with the same structure as the given geometry, but another array of coordinates.
+     *
+     * @param  source       the geometry from which to copy the structure.
+     * @param  crs          the coordinate reference system of the new geometry.
+     * @param  dimension    the number of dimensions of the new geometry.
+     * @param  coordinates  the coordinate values of the new geometry.
+     */
+    private PackedGeometry(final PackedGeometry source, final CoordinateReferenceSystem crs, final int dimension,
+                           final double[] coordinates)
+    {
+        this(source.type, crs, dimension, coordinates, source.sequenceOffsets, source.partOffsets);
+    }
+
+    /**
+     * Returns the geometry type.
+     *
+     * @return the geometry type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the coordinate reference system of all points.
+     *
+     * @return the <abbr>CRS</abbr>, or {@code null} if unspecified.
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the number of dimensions of all points.
+     *
+     * @return number of dimensions.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the total number of points.
+     *
+     * @return number of points in all sequences.
+     */
+    public int getPointCount() {
+        return sequenceOffsets[sequenceOffsets.length - 1];
+    }
+
+    /**
+     * Returns the number of parts. This is 1 for single geometries.
+     *
+     * @return number of points, line strings or polygons.
+     */
+    public int getPartCount() {
+        return partOffsets.length - 1;
+    }
+
+    /**
+     * Returns the total number of sequences of points.
+     *
+     * @return number of points, line strings or rings.
+     */
+    public int getSequenceCount() {
+        return sequenceOffsets.length - 1;
+    }
+
+    /**
+     * Returns the index of the first sequence of the given part.
+     * The sequences of a part are from this index inclusive to {@code getFirstSequence(part + 1)} exclusive.
+     *
+     * @param  part  index of the part, from 0 to {@link #getPartCount()} inclusive.
+     * @return index of the first sequence of the given part.
+     */
+    public int getFirstSequence(final int part) {
+        return partOffsets[part];
+    }
+
+    /**
+     * Returns the index of the first point of the given sequence.
+     * The points of a sequence are from this index inclusive to {@code getFirstPoint(sequence + 1)} exclusive.
+     *
+     * @param  sequence  index of the sequence, from 0 to {@link #getSequenceCount()} inclusive.
+     * @return index of the first point of the given sequence.
+     */
+    public int getFirstPoint(final int sequence) {
+        return sequenceOffsets[sequence];
+    }
+
+    /**
+     * Returns the backing array of coordinate values, without copy.
+     * This is used by codecs in this package. The array shall not be modified.
+     *
+     * @return the coordinate values (not cloned).
+     */
+    final double[] coordinates() {
+        return coordinates;
+    }
+
+    /**
+     * Returns a read-only view over the points of the given sequence.
+     * The returned array is backed by the coordinates of this geometry, without copy.
+     * Attempts to add or modify points throw {@link UnsupportedOperationException}.
+     *
+     * @param  sequence  index of the sequence, from 0 inclusive to {@link #getSequenceCount()} exclusive.
+     * @return the points of the given sequence.
+     */
+    public SimplePointArray getSequence(final int sequence) {
+        Objects.checkIndex(sequence, getSequenceCount());
+        final int start = sequenceOffsets[sequence] * dimension;
+        final var array = new SimplePointArray(crs, dimension, coordinates, start,
+                                               sequenceOffsets[sequence + 1] * dimension - start);
+        array.fixedSize = true;
+        array.readOnly  = true;
+        return array;
+    }
+
+    /**
+     * Returns views over all sequences of points.
+     *
+     * @return the points, line strings or rings of this geometry.
+     */
+    public List<SimplePointArray> getSequences() {
+        return new AbstractList<SimplePointArray>() {
+            @Override public int size() {return getSequenceCount();}
+            @Override public SimplePointArray get(int i) {return getSequence(i);}
+        };
+    }
+
+    /**
+     * Copies all coordinate values in the given array, as interleaved tuples.
+     *
+     * @param  dest    the array where to copy the coordinate values.
+     * @param  offset  index in the destination array where to write the first value.
+     */
+    public void getCoordinates(final double[] dest, final int offset) {
+        System.arraycopy(coordinates, 0, dest, offset, coordinates.length);
+    }
+
+    /**
+     * Returns the envelope of all points. NaN values are ignored.
+     *
+     * @return the envelope, or {@code null} if this geometry has no point.
+     */
+    public SimpleEnvelope getEnvelope() {
+        if (coordinates.length == 0) {
+            return null;
+        }
+        final double[] lower = new double[dimension];
+        final double[] upper = new double[dimension];
+        Arrays.fill(lower, Double.POSITIVE_INFINITY);
+        Arrays.fill(upper, Double.NEGATIVE_INFINITY);
+        for (int i=0; i<coordinates.length; i++) {
+            final int d = i % dimension;
+            final double value = coordinates[i];
+            if (value < lower[d]) lower[d] = value;
+            if (value > upper[d]) upper[d] = value;
+        }
+        for (int d=0; d<dimension; d++) {
+            if (lower[d] > upper[d]) {
+                lower[d] = upper[d] = Double.NaN;
+            }
+        }
+        return new SimpleEnvelope(new SimpleDirectPosition(crs, lower), new SimpleDirectPosition(crs, upper));
+    }
+
+    /**
+     * Transforms all points of this geometry with a single call to the given math transform.
+     *
+     * @param  transform  the transform to apply.
+     * @param  targetCRS  the <abbr>CRS</abbr> of the result, or {@code null} if unspecified.
+     * @return a new geometry with the same structure and the transformed points.
+     * @throws MismatchedDimensionException if the transform source dimension is not the geometry dimension.
+     * @throws TransformException if a point cannot be transformed.
+     */
+    public PackedGeometry transform(final MathTransform transform, final CoordinateReferenceSystem targetCRS)
+            throws TransformException
+    {
+        if (transform.getSourceDimensions() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final int tgtDim = transform.getTargetDimensions();
+        final int count  = getPointCount();
+        final double[] target = new double[Math.multiplyExact(count, tgtDim)];
+        transform.transform(coordinates, 0, target, 0, count);
+        return new PackedGeometry(this, targetCRS, tgtDim, target);
+    }
+
+    /**
+     * Returns a geometry with the same structure as this geometry but the given coordinates.
+     * This is used for scattering the result of a batch operation.
+     *
+     * @param  crs          the <abbr>CRS</abbr> of the new coordinates, or {@code null} if unspecified.
+     * @param  dimension    number of dimensions of the new coordinates.
+     * @param  coordinates  the new coordinate values. This array is <strong>not</strong> cloned.
+     * @return a geometry with the same structure and the given coordinates.
+     */
+    PackedGeometry withCoordinates(final CoordinateReferenceSystem crs, final int dimension, final double[] coordinates) {
+        return new PackedGeometry(this, crs, dimension, coordinates);
+    }
+
+    /**
+     * Copies the coordinates of the given geometry in a packed geometry.
+     * Supported geometries are points, curves, rings and surfaces, and aggregates of the same type of geometry.
+     * Curve segments other than {@link LineString} are approximated by a straight line from their start point
+     * to their end point.
+     *
+     * @param  geometry  the geometry to pack.
+     * @return the packed geometry.
+     * @throws IllegalArgumentException if the geometry is of an unsupported type
+     *         or is an aggregate of different types of geometry.
+     */
+    public static PackedGeometry of(final Geometry geometry) {
+        final int dimension = geometry.getCoordinateDimension();
+        final var builder = new Builder(dimension);
+        final Type type;
+        if (geometry instanceof Aggregate) {
+            Type single = null;
+            for (final Geometry element : ((Aggregate) geometry).getElements()) {
+                final Type t = builder.add(element);
+                if (single == null) {
+                    single = t;
+                } else if (single != t) {
+                    throw new IllegalArgumentException("Mixed geometry types in aggregate.");
+                }
+            }
+            type = (single != null) ? single.multi() : Type.MULTI_POINT;
+        } else {
+            type = builder.add(geometry);
+        }
+        return builder.build(type, geometry.getCoordinateReferenceSystem());
+    }
+
+    /**
+     * Helper class for creating a packed geometry.
+     */
+    private static final class Builder {
+        /** Number of dimensions. */
+        private final int dimension;
+
+        /** The coordinate values. */
+        private double[] coordinates;
+
+        /** The offsets in units of points and sequences. */
+        private int[] sequenceOffsets, partOffsets;
+
+        /** Number of valid values in the arrays. */
+        private int numValues, numSequences, numParts;
+
+        /**
+         * Creates a new builder for the given number of dimensions.
+         *
+         * @param  dimension  number of dimensions of the geometry to build.
+         */
+        Builder(final int dimension) {
+            this.dimension  = dimension;
+            coordinates     = new double[dimension * 16];
+            sequenceOffsets = new int[8];
+            partOffsets     = new int[8];
+        }
+
+        /**
+         * Appends a part and returns its type.
+         *
+         * @param  geometry  the part to append.
+         * @return the type of the appended part.
+         */
+        Type add(final Geometry geometry) {
+            final Type type;
+            if (geometry instanceof Point) {
+                add(((Point) geometry).getDirectPosition());
+                endSequence();
+                type = Type.POINT;
+            } else if (geometry instanceof Surface) {
+                final SurfaceBoundary boundary = ((Surface) geometry).getBoundary();
+                addRing(boundary.getExterior());
+                for (final Ring ring : boundary.getInteriors()) {
+                    addRing(ring);
+                }
+                type = Type.POLYGON;
+            } else if (geometry instanceof OrientableCurve) {
+                addCurve((OrientableCurve) geometry);
+                endSequence();
+                type = Type.LINE_STRING;
+            } else {
+                throw new IllegalArgumentException("Unsupported geometry type: " + geometry.getClass().getName());
+            }
+            if (numParts + 2 > partOffsets.length) {
+                partOffsets = Arrays.copyOf(partOffsets, partOffsets.length * 2);
+            }
+            partOffsets[++numParts] = numSequences;
+            return type;
+        }
+
+        /**
+         * Appends a closed sequence of points.
+         *
+         * @param  ring  the ring to append.
+         */
+        private void addRing(final Ring ring) {
+            final int start = numValues;
+            addCurve(ring);
+            if (numValues > start && !Arrays.equals(coordinates, start, start + dimension,
+                                                    coordinates, numValues - dimension, numValues))
+            {
+                add(new SimpleDirectPosition(null, Arrays.copyOfRange(coordinates, start, start + dimension)));
+            }
+            endSequence();
+        }
+
+        /**
+         * Appends the points of the given curve, without ending the sequence.
+         *
+         * @param  curve  the curve to append.
+         */
+        @SuppressWarnings("removal")
+        private void addCurve(final OrientableCurve curve) {
+            if (curve instanceof CompositeCurve) {
+                for (final OrientableCurve generator : ((CompositeCurve) curve).getGenerators()) {
+                    addCurve(generator);
+                }
+                return;
+            }
+            final Curve primitive = (curve instanceof Curve) ? (Curve) curve : curve.getPrimitive();
+            for (final CurveSegment segment : primitive.getSegments()) {
+                if (segment instanceof LineString) {
+                    final PointArray points = ((LineString) segment).getControlPoints();
+                    DirectPosition p = null;
+                    for (int i=0; i<points.size(); i++) {
+                        addVertex(p = points.getDirectPosition(i, p));
+                    }
+                } else {
+                    addVertex(segment.getStartPoint());
+                    addVertex(segment.getEndPoint());
+                }
+            }
+        }
+
+        /**
+         * Appends the given position unless it is equal to the previous position of the same sequence.
+         *
+         * @param  p  the position to append.
+         */
+        private void addVertex(final DirectPosition p) {
+            if (numValues - dimension >= sequenceOffsets[numSequences] * dimension) {
+                boolean same = true;
+                for (int i=0; i<dimension; i++) {
+                    if (Double.doubleToLongBits(coordinates[numValues - dimension + i]) !=
+                        Double.doubleToLongBits(p.getCoordinate(i)))
+                    {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) return;
+            }
+            add(p);
+        }
+
+        /**
+         * Appends the given position.
+         *
+         * @param  p  the position to append.
+         */
+        private void add(final DirectPosition p) {
+            if (p.getDimension() != dimension) {
+                throw new MismatchedDimensionException();
+            }
+            if (numValues + dimension > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            for (int i=0; i<dimension; i++) {
+                coordinates[numValues++] = p.getCoordinate(i);
+            }
+        }
+
+        /** Terminates the current sequence. */
+        private void endSequence() {
+            if (numSequences + 2 > sequenceOffsets.length) {
+                sequenceOffsets = Arrays.copyOf(sequenceOffsets, sequenceOffsets.length * 2);
+            }
+            sequenceOffsets[++numSequences] = numValues / dimension;
+        }
+
+        /**
+         * Returns the packed geometry.
+         *
+         * @param  type  the type of the geometry to build.
+         * @param  crs   the coordinate reference system of the geometry.
+         * @return the geometry built from all appended parts.
+         */
+        PackedGeometry build(final Type type, final CoordinateReferenceSystem crs) {
+            return new PackedGeometry(type, crs, dimension,
+                    Arrays.copyOf(coordinates, numValues),
+                    Arrays.copyOf(sequenceOffsets, numSequences + 1),
+                    Arrays.copyOf(partOffsets, numParts + 1));
+        }
+    }
+
+    /**
+     * Compares this geometry with the given object for equality.
+     *
+     * @param  object  the object to compare with this geometry.
+     * @return whether the two objects are equal.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof PackedGeometry) {
+            final var other = (PackedGeometry) object;
+            return type == other.type && dimension == other.dimension
+                    && Objects.equals(crs, other.crs)
+                    && Arrays.equals(coordinates,     other.coordinates)
+                    && Arrays.equals(sequenceOffsets, other.sequenceOffsets)
+                    && Arrays.equals(partOffsets,     other.partOffsets);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this geometry.
+     *
+     * @return a hash code value.
+     */
+    @Override
+    public int hashCode() {
+        return type.hashCode() + 31 * Arrays.hashCode(coordinates) + 37 * Arrays.hashCode(sequenceOffsets);
+    }
+
+    /**
+     * Returns a string representation of this geometry for debugging purpose.
+     *
+     * @return a string representation of this geometry.
+     */
+    @Override
+    public String toString() {
+        return type + "[" + getPartCount() + " parts, " + getSequenceCount() + " sequences, "
+                + getPointCount() + " points]";
+    }
+}
@@ -0,0 +1,1067 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import org.opengis.geometry.Geometry;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.aggregate.Aggregate;
+import org.opengis.geometry.complex.Composite;
+import org.opengis.geometry.coordinate.LineString;
+import org.opengis.geometry.coordinate.PointArray;
+import org.opengis.geometry.primitive.Curve;
+import org.opengis.geometry.primitive.CurveSegment;
+import org.opengis.geometry.primitive.OrientableCurve;
+import org.opengis.geometry.primitive.Point;
+import org.opengis.geometry.primitive.Ring;
+import org.opengis.geometry.primitive.Surface;
+import org.opengis.geometry.primitive.SurfaceBoundary;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.example.referencing.GeodesicCalculator;
+
+
+/**
+ * A geometry prepared for the repeated evaluation of spatial predicates against many other geometries or points.
+ * The edges of the geometry are extracted once and indexed in two structures:
+ *
+ * <ul>
+ *   <li>A division of the envelope in horizontal bands, each band listing the polygon edges overlapping it.
+ *       A point-in-polygon test only needs to cast a ray against the edges of the band containing the point.</li>
+ *   <li>An {@link EnvelopeTree} over the bounding boxes of all edges, used for intersection and distance
+ *       computations.</li>
+ * </ul>
+ *
+ * The same indexes are used for the topological relationships needed by the spatial operators of filters:
+ * {@link #covers(PreparedGeometry)} and {@link #interiorIntersectionDimension(PreparedGeometry)}.
+ * The points where edges cross are computed with a small tolerance for rounding errors.
+ *
+ * Only the first two dimensions of coordinate tuples are used.
+ * Polygons use the even-odd rule, so interior rings are holes regardless of their orientation.
+ * Curve segments other than {@link LineString} are approximated by a straight line from their
+ * start point to their end point.
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public final class PreparedGeometry {
+    /**
+     * The coordinate reference system of the geometry, or {@code null} if unspecified.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * All edges as (<var>x</var>₀, <var>y</var>₀, <var>x</var>₁, <var>y</var>₁) tuples.
+     * The first {@link #areaEdgeCount} edges are polygon edges, followed by the edges of curves.
+     * Isolated points are stored as edges of zero length.
+     */
+    private final double[] edges;
+
+    /**
+     * Number of edges which are polygon edges.
+     */
+    private final int areaEdgeCount;
+
+    /**
+     * Bounds of all edges, as (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>,
+     * <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>). Values are NaN if there are no edges.
+     */
+    private final double xmin, ymin, xmax, ymax;
+
+    /**
+     * Height of each horizontal band.
+     */
+    private final double bandHeight;
+
+    /**
+     * Index in {@link #bandEdges} of the first edge of each band, plus an extra element for the end of the last band.
+     */
+    private final int[] bandStarts;
+
+    /**
+     * Index of polygon edges overlapping each band, grouped by band.
+     */
+    private final int[] bandEdges;
+
+    /**
+     * R-tree over the bounding boxes of all edges.
+     */
+    private final EnvelopeTree tree;
+
+    /**
+     * Topological dimension: 2 if there are polygons, 1 if there are curves of non-zero length,
+     * 0 if there are only points, or -1 if the geometry is empty.
+     */
+    private final int dimension;
+
+    /**
+     * Boundary points of the curves as (<var>x</var>,<var>y</var>) tuples. Those points are the curve
+     * end points which are shared by an odd number of curves ("mod 2" rule of ISO 19125).
+     */
+    private final double[] curveBoundary;
+
+    /**
+     * Maximal distance for considering that a point is on an edge in topological relationship tests.
+     * This is a small value relative to the magnitude of the coordinates, for accepting rounding errors
+     * in the computation of intersection points.
+     */
+    private final double tolerance;
+
+    /**
+     * Helper class for collecting edges.
+     */
+    private static final class Builder {
+        /** Edges of polygons, then of curves and points. */
+        double[] area = new double[64], lines = new double[64];
+
+        /** Number of values in the {@link #area} and {@link #lines} arrays. */
+        int areaLength, linesLength;
+
+        /** Creates an initially empty builder. */
+        Builder() {
+        }
+
+        /**
+         * Adds the edges of the given ring or polyline, given as interleaved (x,y) tuples.
+         *
+         * @param  xy       the interleaved (x,y) coordinates.
+         * @param  length   number of valid values in {@code xy}.
+         * @param  polygon  whether the coordinates are a ring of a polygon.
+         */
+        void add(final double[] xy, final int length, final boolean polygon) {
+            if (length == 2) {
+                addEdge(xy[0], xy[1], xy[0], xy[1], false);
+            }
+            for (int i=2; i<length; i += 2) {
+                addEdge(xy[i-2], xy[i-1], xy[i], xy[i+1], polygon);
+            }
+            if (polygon && length >= 6 && (xy[0] != xy[length-2] || xy[1] != xy[length-1])) {
+                addEdge(xy[length-2], xy[length-1], xy[0], xy[1], true);     // Close the ring.
+            }
+        }
+
+        /**
+         * Adds a single edge.
+         *
+         * @param  x0       <var>x</var> value of the edge start.
+         * @param  y0       <var>y</var> value of the edge start.
+         * @param  x1       <var>x</var> value of the edge end.
+         * @param  y1       <var>y</var> value of the edge end.
+         * @param  polygon  whether the edge is the edge of a polygon.
+         */
+        private void addEdge(final double x0, final double y0, final double x1, final double y1, final boolean polygon) {
+            double[] array = polygon ? area : lines;
+            int length = polygon ? areaLength : linesLength;
+            if (length + 4 > array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+                if (polygon) area = array; else lines = array;
+            }
+            array[length++] = x0;
+            array[length++] = y0;
+            array[length++] = x1;
+            array[length++] = y1;
+            if (polygon) areaLength = length; else linesLength = length;
+        }
+
+        /**
+         * Adds the vertices of the given curve, which may be a ring or an oriented curve.
+         *
+         * @param  curve    the ring or oriented curve to add.
+         * @param  polygon  whether the curve is a ring of a polygon.
+         */
+        void add(final Geometry curve, final boolean polygon) {
+            final var xy = new Coordinates();
+            vertices(curve, xy);
+            add(xy.values, xy.length, polygon);
+        }
+
+        /**
+         * Adds the edges of the given geometry.
+         *
+         * @param  geometry  the geometry to add.
+         */
+        void collect(final Geometry geometry) {
+            if (geometry instanceof Aggregate) {
+                for (final Geometry element : ((Aggregate) geometry).getElements()) {
+                    collect(element);
+                }
+            } else if (geometry instanceof Surface) {
+                final SurfaceBoundary boundary = ((Surface) geometry).getBoundary();
+                add(boundary.getExterior(), true);
+                for (final Ring ring : boundary.getInteriors()) {
+                    add(ring, true);
+                }
+            } else if (geometry instanceof Ring || geometry instanceof OrientableCurve) {
+                add(geometry, false);
+            } else if (geometry instanceof Composite) {
+                for (final Geometry element : ((Composite) geometry).getGenerators()) {
+                    collect(element);
+                }
+            } else if (geometry instanceof Point) {
+                final DirectPosition p = ((Point) geometry).getDirectPosition();
+                add(new double[] {p.getCoordinate(0), p.getCoordinate(1)}, 2, false);
+            } else {
+                throw new IllegalArgumentException("Unsupported geometry type: " + geometry.getClass().getName());
+            }
+        }
+    }
+
+    /**
+     * A growable array of (<var>x</var>,<var>y</var>) tuples.
+     */
+    private static final class Coordinates {
+        /** The coordinate values. */
+        double[] values = new double[64];
+
+        /** Number of valid values. */
+        int length;
+
+        /** Creates an initially empty array. */
+        Coordinates() {
+        }
+
+        /**
+         * Adds the given position, unless it is the same as the previous one.
+         *
+         * @param  p  the position to add.
+         */
+        void add(final DirectPosition p) {
+            final double x = p.getCoordinate(0);
+            final double y = p.getCoordinate(1);
+            if (length >= 2 && values[length-2] == x && values[length-1] == y) {
+                return;
+            }
+            if (length + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[length++] = x;
+            values[length++] = y;
+        }
+    }
+
+    /**
+     * Adds the vertices of the given ring, oriented curve or curve to the given list.
+     *
+     * @param  curve  the ring, oriented curve or curve from which to get the vertices.
+     * @param  xy     where to add the vertices.
+     */
+    @SuppressWarnings("removal")
+    private static void vertices(final Geometry curve, final Coordinates xy) {
+        if (curve instanceof Ring) {
+            for (final OrientableCurve generator : ((Ring) curve).getGenerators()) {
+                vertices(generator, xy);
+            }
+        } else {
+            final Curve primitive = (curve instanceof Curve) ? (Curve) curve : ((OrientableCurve) curve).getPrimitive();
+            for (final CurveSegment segment : primitive.getSegments()) {
+                if (segment instanceof LineString) {
+                    final PointArray points = ((LineString) segment).getControlPoints();
+                    DirectPosition p = null;
+                    for (int i=0; i<points.size(); i++) {
+                        xy.add(p = points.getDirectPosition(i, p));
+                    }
+                } else {
+                    xy.add(segment.getStartPoint());
+                    xy.add(segment.getEndPoint());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a prepared geometry from the given edges.
+     *
+     * @param  crs      the coordinate reference system of the geometry.
+     * @param  builder  the edges of the geometry.
+     */
+    private PreparedGeometry(final CoordinateReferenceSystem crs, final Builder builder) {
+        this.crs = crs;
+        areaEdgeCount = builder.areaLength / 4;
+        edges = Arrays.copyOf(builder.area, builder.areaLength + builder.linesLength);
+        System.arraycopy(builder.lines, 0, edges, builder.areaLength, builder.linesLength);
+        /*
+         * Compute the envelope and the bounding box of each edge.
+         */
+        final int count = edges.length / 4;
+        final double[] boxes = new double[edges.length];
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i=0; i<edges.length; i += 4) {
+            boxes[i  ] = Math.min(edges[i  ], edges[i+2]);
+            boxes[i+1] = Math.min(edges[i+1], edges[i+3]);
+            boxes[i+2] = Math.max(edges[i  ], edges[i+2]);
+            boxes[i+3] = Math.max(edges[i+1], edges[i+3]);
+            x0 = Math.min(x0, boxes[i  ]);
+            y0 = Math.min(y0, boxes[i+1]);
+            x1 = Math.max(x1, boxes[i+2]);
+            y1 = Math.max(y1, boxes[i+3]);
+        }
+        if (count == 0) {
+            x0 = y0 = x1 = y1 = Double.NaN;
+        }
+        xmin = x0; ymin = y0; xmax = x1; ymax = y1;
+        tree = new EnvelopeTree(null, 2, boxes, null);
+        /*
+         * Distribute polygon edges in horizontal bands, in compressed sparse row format.
+         */
+        final int numBands = Math.max(1, Math.min(areaEdgeCount, 1 << 16));
+        final double h = (y1 - y0) / numBands;
+        bandHeight = (h > 0) ? h : 1;
+        bandStarts = new int[numBands + 1];
+        for (int e=0; e<areaEdgeCount; e++) {
+            final int upper = band(boxes[e*4 + 3]);
+            for (int b = band(boxes[e*4 + 1]); b <= upper; b++) {
+                bandStarts[b + 1]++;
+            }
+        }
+        for (int b=0; b<numBands; b++) {
+            bandStarts[b + 1] += bandStarts[b];
+        }
+        final int[] fill = Arrays.copyOf(bandStarts, numBands);
+        bandEdges = new int[bandStarts[numBands]];
+        for (int e=0; e<areaEdgeCount; e++) {
+            final int upper = band(boxes[e*4 + 3]);
+            for (int b = band(boxes[e*4 + 1]); b <= upper; b++) {
+                bandEdges[fill[b]++] = e;
+            }
+        }
+        /*
+         * Compute the information used by topological relationship tests.
+         * End points of curve edges used an odd number of times are curve boundaries.
+         */
+        final var endPoints = new HashMap<List<Double>,Integer>();
+        for (int i = areaEdgeCount * 4; i < edges.length; i += 4) {
+            if (edges[i] != edges[i+2] || edges[i+1] != edges[i+3]) {
+                endPoints.merge(List.of(edges[i  ], edges[i+1]), 1, Integer::sum);
+                endPoints.merge(List.of(edges[i+2], edges[i+3]), 1, Integer::sum);
+            }
+        }
+        curveBoundary = endPoints.entrySet().stream().filter((e) -> (e.getValue() & 1) != 0)
+                .flatMapToDouble((e) -> e.getKey().stream().mapToDouble(Double::doubleValue)).toArray();
+        dimension = (areaEdgeCount != 0) ? 2 : !endPoints.isEmpty() ? 1 : (count != 0) ? 0 : -1;
+        tolerance = (count != 0) ? 1E-12 * Math.max(Math.max(Math.abs(x0), Math.abs(x1)),
+                                                    Math.max(Math.abs(y0), Math.abs(y1))) : 0;
+    }
+
+    /**
+     * Returns the index of the band containing the given <var>y</var> value, clamped to valid indices.
+     *
+     * @param  y  the <var>y</var> value.
+     * @return index of the band, from 0 inclusive to {@code bandStarts.length - 1} exclusive.
+     */
+    private int band(final double y) {
+        final int b = (int) ((y - ymin) / bandHeight);
+        return Math.max(0, Math.min(bandStarts.length - 2, b));
+    }
+
+    /**
+     * Prepares the given geometry. Supported geometries are surfaces, curves, rings, points,
+     * and aggregates or composites of the above.
+     *
+     * @param  geometry  the geometry to prepare.
+     * @return the prepared geometry.
+     * @throws IllegalArgumentException if the geometry contains an unsupported type of geometry.
+     */
+    public static PreparedGeometry prepare(final Geometry geometry) {
+        final var builder = new Builder();
+        builder.collect(geometry);
+        return new PreparedGeometry(geometry.getCoordinateReferenceSystem(), builder);
+    }
+
+    /**
+     * Prepares a polygon given by its rings. The first ring is usually the exterior and the other rings are holes.
+     * Rings are closed automatically if the last point is not equal to the first point.
+     *
+     * @param  crs    the coordinate reference system of the polygon, or {@code null} if unspecified.
+     * @param  rings  interleaved (<var>x</var>,<var>y</var>) coordinates of each ring.
+     * @return the prepared polygon.
+     */
+    public static PreparedGeometry polygon(final CoordinateReferenceSystem crs, final double[]... rings) {
+        final var builder = new Builder();
+        for (final double[] ring : rings) {
+            builder.add(ring, ring.length & ~1, true);
+        }
+        return new PreparedGeometry(crs, builder);
+    }
+
+    /**
+     * Prepares curves given by the coordinates of their vertices.
+     *
+     * @param  crs     the coordinate reference system of the curves, or {@code null} if unspecified.
+     * @param  curves  interleaved (<var>x</var>,<var>y</var>) coordinates of each curve.
+     * @return the prepared curves.
+     */
+    public static PreparedGeometry curves(final CoordinateReferenceSystem crs, final double[]... curves) {
+        final var builder = new Builder();
+        for (final double[] curve : curves) {
+            builder.add(curve, curve.length & ~1, false);
+        }
+        return new PreparedGeometry(crs, builder);
+    }
+
+    /**
+     * Prepares a point.
+     *
+     * @param  point  the point to prepare.
+     * @return the prepared point.
+     */
+    public static PreparedGeometry point(final DirectPosition point) {
+        final var builder = new Builder();
+        builder.add(new double[] {point.getCoordinate(0), point.getCoordinate(1)}, 2, false);
+        return new PreparedGeometry(point.getCoordinateReferenceSystem(), builder);
+    }
+
+    /**
+     * Returns the coordinate reference system of the prepared geometry.
+     *
+     * @return the <abbr>CRS</abbr>, or {@code null} if unspecified.
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the topological dimension of the prepared geometry.
+     * This is 2 if the geometry contains polygons, 1 if it contains curves of non-zero length,
+     * 0 if it contains only points, or -1 if it is empty.
+     * Geometries mixing many dimensions are handled as geometries of the highest dimension
+     * by {@link #interiorIntersectionDimension(PreparedGeometry)}.
+     *
+     * @return the topological dimension of the geometry, or -1 if empty.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the two-dimensional envelope of the prepared geometry.
+     * The envelope is associated to the geometry <abbr>CRS</abbr> if that <abbr>CRS</abbr> is two-dimensional.
+     * Otherwise only the two first dimensions have been prepared, and the envelope has no <abbr>CRS</abbr>.
+     *
+     * @return the geometry envelope, with NaN values if the geometry is empty.
+     */
+    public SimpleEnvelope getEnvelope() {
+        final CoordinateReferenceSystem envelopeCRS =
+                (crs != null && crs.getCoordinateSystem().getDimension() == 2) ? crs : null;
+        return new SimpleEnvelope(new SimpleDirectPosition(envelopeCRS, xmin, ymin),
+                                  new SimpleDirectPosition(envelopeCRS, xmax, ymax));
+    }
+
+    /**
+     * Returns whether the given point is inside a polygon of the prepared geometry or on a curve or point.
+     * Points exactly on a polygon boundary may be considered inside or outside.
+     *
+     * @param  point  the point to test.
+     * @return whether the given point is inside the geometry.
+     */
+    public boolean contains(final DirectPosition point) {
+        return contains(point.getCoordinate(0), point.getCoordinate(1));
+    }
+
+    /**
+     * Returns whether the given point is inside a polygon of the prepared geometry or on a curve or point.
+     *
+     * @param  x  first coordinate value of the point to test.
+     * @param  y  second coordinate value of the point to test.
+     * @return whether the given point is inside the geometry.
+     */
+    public boolean contains(final double x, final double y) {
+        if (!(x >= xmin && x <= xmax && y >= ymin && y <= ymax)) {
+            return false;
+        }
+        if (insideArea(x, y)) {
+            return true;
+        }
+        return areaEdgeCount * 4 != edges.length && distance(x, y) == 0;
+    }
+
+    /**
+     * Returns whether the given point is inside a polygon, using the even-odd rule.
+     * A horizontal ray is cast toward positive <var>x</var>, and only the edges
+     * of the band containing the point are tested.
+     *
+     * @param  x  <var>x</var> value of the point.
+     * @param  y  <var>y</var> value of the point.
+     * @return whether the point is inside a polygon.
+     */
+    private boolean insideArea(final double x, final double y) {
+        if (areaEdgeCount == 0) {
+            return false;
+        }
+        final int b = band(y);
+        boolean inside = false;
+        for (int k = bandStarts[b]; k < bandStarts[b + 1]; k++) {
+            final int p = bandEdges[k] * 4;
+            final double x0 = edges[p], y0 = edges[p+1], x1 = edges[p+2], y1 = edges[p+3];
+            if ((y0 > y) != (y1 > y) && x < x0 + (y - y0) * (x1 - x0) / (y1 - y0)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Returns the distance from the given point to the prepared geometry.
+     * The distance is zero if the point is inside a polygon.
+     *
+     * @param  point  the point from which to compute the distance.
+     * @return Euclidean distance in units of the <abbr>CRS</abbr>, or NaN if the geometry is empty.
+     */
+    public double distance(final DirectPosition point) {
+        return distance(point.getCoordinate(0), point.getCoordinate(1));
+    }
+
+    /**
+     * Returns the distance from the given point to the prepared geometry.
+     * The search uses a square window around the point, which is enlarged
+     * until the window contains an edge closer than the window half-size.
+     *
+     * @param  x  <var>x</var> value of the point.
+     * @param  y  <var>y</var> value of the point.
+     * @return distance to the nearest edge, or NaN if there is no edge.
+     */
+    private double distance(final double x, final double y) {
+        if (edges.length == 0) {
+            return Double.NaN;
+        }
+        if (insideArea(x, y)) {
+            return 0;
+        }
+        double r = Math.max(xmax - xmin, ymax - ymin) / Math.sqrt(edges.length / 4.0);
+        if (!(r > 0)) r = 1;
+        final double[] best = new double[1];
+        while (true) {
+            best[0] = Double.POSITIVE_INFINITY;
+            tree.search(new double[] {x - r, y - r}, new double[] {x + r, y + r}, (e) -> {
+                best[0] = Math.min(best[0], segmentDistance(e * 4, x, y));
+            });
+            if (best[0] <= r) {
+                return best[0];
+            }
+            if (r > Math.max(Math.max(Math.abs(x - xmin), Math.abs(x - xmax)), Math.max(Math.abs(y - ymin), Math.abs(y - ymax)))) {
+                return best[0];      // The window already contains the whole geometry.
+            }
+            r *= 4;
+        }
+    }
+
+    /**
+     * Returns the distance from the given point to the edge starting at the given offset.
+     *
+     * @param  p  offset of the edge start in the {@link #edges} array.
+     * @param  x  <var>x</var> value of the point.
+     * @param  y  <var>y</var> value of the point.
+     * @return distance from the point to the edge.
+     */
+    private double segmentDistance(final int p, final double x, final double y) {
+        final double x0 = edges[p], y0 = edges[p+1];
+        final double dx = edges[p+2] - x0, dy = edges[p+3] - y0;
+        final double length2 = dx*dx + dy*dy;
+        double t = (length2 > 0) ? ((x - x0) * dx + (y - y0) * dy) / length2 : 0;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(x - (x0 + t*dx), y - (y0 + t*dy));
+    }
+
+    /**
+     * Returns whether this prepared geometry intersects the given geometry.
+     *
+     * @param  other  the geometry to test.
+     * @return whether the two geometries intersect.
+     */
+    public boolean intersects(final Geometry other) {
+        return intersects(prepare(other));
+    }
+
+    /**
+     * Returns whether this prepared geometry intersects the given prepared geometry.
+     * Two geometries intersect if an edge of one geometry intersects an edge of the other,
+     * or if a component of one geometry (point, curve or ring) is inside a polygon of the other.
+     * If no edges intersect, each component is either fully inside or fully outside the polygons,
+     * so only one vertex per component needs to be tested.
+     *
+     * @param  other  the geometry to test.
+     * @return whether the two geometries intersect.
+     */
+    public boolean intersects(final PreparedGeometry other) {
+        if (edges.length == 0 || other.edges.length == 0 ||
+                xmin > other.xmax || xmax < other.xmin || ymin > other.ymax || ymax < other.ymin)
+        {
+            return false;
+        }
+        if (containsComponentOf(other) || other.containsComponentOf(this)) {
+            return true;
+        }
+        final boolean[] found = new boolean[1];
+        tree.join(other.tree, (a, b) -> {
+            if (!found[0] && segmentsIntersect(edges, a * 4, other.edges, b * 4)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Returns whether the first vertex of a component of the given geometry is inside a polygon of this geometry.
+     * A component starts at each edge which does not begin where the previous edge ends.
+     *
+     * @param  other  the geometry for which to test a vertex of each component.
+     * @return whether a vertex of a component of the other geometry is inside a polygon of this geometry.
+     */
+    private boolean containsComponentOf(final PreparedGeometry other) {
+        if (areaEdgeCount == 0) {
+            return false;
+        }
+        final double[] e = other.edges;
+        for (int p=0; p < e.length; p += 4) {
+            if ((p == 0 || e[p] != e[p-2] || e[p+1] != e[p-1]) && insideArea(e[p], e[p+1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the segment at offset {@code pa} in {@code a} intersects the segment at offset {@code pb} in {@code b}.
+     * Segments touching at an end point are considered intersecting.
+     *
+     * @param  a   the array of the first segment.
+     * @param  pa  offset of the first segment in {@code a}.
+     * @param  b   the array of the second segment.
+     * @param  pb  offset of the second segment in {@code b}.
+     * @return whether the two segments intersect.
+     */
+    private static boolean segmentsIntersect(final double[] a, final int pa, final double[] b, final int pb) {
+        final double ax0 = a[pa], ay0 = a[pa+1], ax1 = a[pa+2], ay1 = a[pa+3];
+        final double bx0 = b[pb], by0 = b[pb+1], bx1 = b[pb+2], by1 = b[pb+3];
+        final double d1 = orientation(bx0, by0, bx1, by1, ax0, ay0);
+        final double d2 = orientation(bx0, by0, bx1, by1, ax1, ay1);
+        final double d3 = orientation(ax0, ay0, ax1, ay1, bx0, by0);
+        final double d4 = orientation(ax0, ay0, ax1, ay1, bx1, by1);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && onSegment(bx0, by0, bx1, by1, ax0, ay0))
+            || (d2 == 0 && onSegment(bx0, by0, bx1, by1, ax1, ay1))
+            || (d3 == 0 && onSegment(ax0, ay0, ax1, ay1, bx0, by0))
+            || (d4 == 0 && onSegment(ax0, ay0, ax1, ay1, bx1, by1));
+    }
+
+    /**
+     * Returns the cross product of (p1 − p0) and (p − p0).
+     *
+     * @param  x0  <var>x</var> value of the segment start.
+     * @param  y0  <var>y</var> value of the segment start.
+     * @param  x1  <var>x</var> value of the segment end.
+     * @param  y1  <var>y</var> value of the segment end.
+     * @param  x   <var>x</var> value of the point.
+     * @param  y   <var>y</var> value of the point.
+     * @return the cross product, positive if the point is on the left side.
+     */
+    private static double orientation(double x0, double y0, double x1, double y1, double x, double y) {
+        return (x1 - x0) * (y - y0) - (y1 - y0) * (x - x0);
+    }
+
+    /**
+     * Returns whether the given point, known to be collinear with the segment, is inside the segment bounds.
+     *
+     * @param  x0  <var>x</var> value of the segment start.
+     * @param  y0  <var>y</var> value of the segment start.
+     * @param  x1  <var>x</var> value of the segment end.
+     * @param  y1  <var>y</var> value of the segment end.
+     * @param  x   <var>x</var> value of the point.
+     * @param  y   <var>y</var> value of the point.
+     * @return whether the point is inside the bounding box of the segment.
+     */
+    private static boolean onSegment(double x0, double y0, double x1, double y1, double x, double y) {
+        return x >= Math.min(x0, x1) && x <= Math.max(x0, x1) && y >= Math.min(y0, y1) && y <= Math.max(y0, y1);
+    }
+
+    /**
+     * Returns the distance between this prepared geometry and the given geometry.
+     *
+     * @param  other  the geometry to which to compute the distance.
+     * @return Euclidean distance in units of the <abbr>CRS</abbr>, or NaN if a geometry is empty.
+     */
+    public double distance(final Geometry other) {
+        return distance(prepare(other));
+    }
+
+    /**
+     * Returns the distance between this prepared geometry and the given prepared geometry.
+     * The distance is zero if the geometries intersect. Otherwise, the minimal distance between
+     * two segments is reached at an end point of one of them, so it is sufficient to compute the
+     * distances from all vertices of each geometry to the other geometry.
+     *
+     * @param  other  the geometry to which to compute the distance.
+     * @return Euclidean distance in units of the <abbr>CRS</abbr>, or NaN if a geometry is empty.
+     */
+    public double distance(final PreparedGeometry other) {
+        if (edges.length == 0 || other.edges.length == 0) {
+            return Double.NaN;
+        }
+        if (intersects(other)) {
+            return 0;
+        }
+        double d = Double.POSITIVE_INFINITY;
+        for (int i=0; i<other.edges.length; i += 2) {
+            d = Math.min(d, distance(other.edges[i], other.edges[i+1]));
+        }
+        for (int i=0; i<edges.length; i += 2) {
+            d = Math.min(d, other.distance(edges[i], edges[i+1]));
+        }
+        return d;
+    }
+
+    /**
+     * Returns the geodesic distance from the given point to this geometry, which shall use geographic coordinates.
+     * The nearest point of this geometry is searched in a space where longitude differences are multiplied by the
+     * cosine of the latitude of the given point, which is locally conformal. Then the distance to that nearest point
+     * is computed on the ellipsoid. The search does not wrap around the anti-meridian.
+     *
+     * @param  point       the point from which to compute the distance.
+     * @param  calculator  the calculator for the ellipsoid of the geographic <abbr>CRS</abbr>.
+     * @param  latitude    dimension of latitude values, 0 or 1. The other dimension contains longitude values.
+     * @param  toDegrees   factor converting the coordinate values to decimal degrees.
+     * @return geodesic distance in units of the ellipsoid axes, zero if the point is inside a polygon,
+     *         or NaN if the geometry is empty.
+     */
+    public double geodesicDistance(final DirectPosition point, final GeodesicCalculator calculator,
+                                   final int latitude, final double toDegrees)
+    {
+        return geodesicDistance(point.getCoordinate(0), point.getCoordinate(1), calculator, latitude, toDegrees);
+    }
+
+    /**
+     * Returns the geodesic distance between this geometry and the given geometry, which shall both use the same
+     * geographic coordinates. The distance is zero if the geometries intersect. Otherwise, the distance is the
+     * minimum of the geodesic distances from each vertex of a geometry to the other geometry, computed as in
+     * {@link #geodesicDistance(DirectPosition, GeodesicCalculator, int, double)}.
+     *
+     * @param  other       the geometry to which to compute the distance.
+     * @param  calculator  the calculator for the ellipsoid of the geographic <abbr>CRS</abbr>.
+     * @param  latitude    dimension of latitude values, 0 or 1. The other dimension contains longitude values.
+     * @param  toDegrees   factor converting the coordinate values to decimal degrees.
+     * @return geodesic distance in units of the ellipsoid axes, or NaN if a geometry is empty.
+     */
+    public double geodesicDistance(final PreparedGeometry other, final GeodesicCalculator calculator,
+                                   final int latitude, final double toDegrees)
+    {
+        if (edges.length == 0 || other.edges.length == 0) {
+            return Double.NaN;
+        }
+        if (intersects(other)) {
+            return 0;
+        }
+        double d = Double.POSITIVE_INFINITY;
+        for (int i=0; i<other.edges.length; i += 2) {
+            d = Math.min(d, geodesicDistance(other.edges[i], other.edges[i+1], calculator, latitude, toDegrees));
+        }
+        for (int i=0; i<edges.length; i += 2) {
+            d = Math.min(d, other.geodesicDistance(edges[i], edges[i+1], calculator, latitude, toDegrees));
+        }
+        return d;
+    }
+
+    /**
+     * Returns the geodesic distance from the given point to this geometry.
+     * The search of the nearest point uses a window around the point in the scaled space,
+     * enlarged until the window contains an edge closer than the window half-size.
+     *
+     * @param  x           <var>x</var> value of the point.
+     * @param  y           <var>y</var> value of the point.
+     * @param  calculator  the calculator for the ellipsoid of the geographic <abbr>CRS</abbr>.
+     * @param  latitude    dimension of latitude values, 0 or 1.
+     * @param  toDegrees   factor converting the coordinate values to decimal degrees.
+     * @return geodesic distance in units of the ellipsoid axes, or NaN if there is no edge.
+     */
+    private double geodesicDistance(final double x, final double y, final GeodesicCalculator calculator,
+                                    final int latitude, final double toDegrees)
+    {
+        if (edges.length == 0) {
+            return Double.NaN;
+        }
+        if (insideArea(x, y)) {
+            return 0;
+        }
+        final double cos = Math.max(Math.cos(Math.toRadians(((latitude == 0) ? x : y) * toDegrees)), 1E-12);
+        final double sx = (latitude == 0) ? 1 : cos;
+        final double sy = (latitude == 0) ? cos : 1;
+        double r = Math.max((xmax - xmin) * sx, (ymax - ymin) * sy) / Math.sqrt(edges.length / 4.0);
+        if (!(r > 0)) r = 1;
+        final double[] best = new double[3];        // Scaled distance, then (x,y) of the nearest point.
+        while (true) {
+            best[0] = Double.POSITIVE_INFINITY;
+            tree.search(new double[] {x - r/sx, y - r/sy}, new double[] {x + r/sx, y + r/sy}, (e) -> {
+                nearest(e * 4, x, y, sx, sy, best);
+            });
+            if (best[0] <= r) break;
+            if (r/sx > Math.max(Math.abs(x - xmin), Math.abs(x - xmax)) &&
+                r/sy > Math.max(Math.abs(y - ymin), Math.abs(y - ymax)))
+            {
+                break;                  // The window already contains the whole geometry.
+            }
+            r *= 4;
+        }
+        if (latitude == 0) {
+            return calculator.distance(x * toDegrees, y * toDegrees, best[1] * toDegrees, best[2] * toDegrees);
+        } else {
+            return calculator.distance(y * toDegrees, x * toDegrees, best[2] * toDegrees, best[1] * toDegrees);
+        }
+    }
+
+    /**
+     * Updates the nearest point if a point of the edge at the given offset is nearer in the scaled space.
+     *
+     * @param  p     offset of the edge start in the {@link #edges} array.
+     * @param  x     <var>x</var> value of the point.
+     * @param  y     <var>y</var> value of the point.
+     * @param  sx    scale factor of <var>x</var> differences.
+     * @param  sy    scale factor of <var>y</var> differences.
+     * @param  best  the scaled distance and the (<var>x</var>,<var>y</var>) values of the nearest point found so far.
+     */
+    private void nearest(final int p, final double x, final double y, final double sx, final double sy, final double[] best) {
+        final double x0 = edges[p], y0 = edges[p+1];
+        final double dx = edges[p+2] - x0, dy = edges[p+3] - y0;
+        final double length2 = (dx*dx)*(sx*sx) + (dy*dy)*(sy*sy);
+        double t = (length2 > 0) ? ((x - x0) * dx * (sx*sx) + (y - y0) * dy * (sy*sy)) / length2 : 0;
+        t = Math.max(0, Math.min(1, t));
+        final double nx = x0 + t*dx, ny = y0 + t*dy;
+        final double d = Math.hypot((x - nx) * sx, (y - ny) * sy);
+        if (d < best[0]) {
+            best[0] = d;
+            best[1] = nx;
+            best[2] = ny;
+        }
+    }
+
+    /**
+     * Returns whether this prepared geometry contains all points of the given prepared geometry,
+     * including the points on its boundary. This is the "covers" relationship: contrarily to the
+     * "contains" relationship of ISO 19125, the other geometry may be entirely on the boundary
+     * of this geometry.
+     *
+     * <p>Each edge of the other geometry is split at its intersections with the edges of this geometry,
+     * then the vertices and the middle of each piece are tested. If the other geometry has polygons,
+     * this method also verifies that no polygon boundary of this geometry, for example a hole,
+     * is inside the other geometry.</p>
+     *
+     * @param  other  the geometry to test.
+     * @return whether this geometry covers the other geometry.
+     */
+    public boolean covers(final PreparedGeometry other) {
+        if (dimension < other.dimension || other.dimension < 0 ||
+                other.xmin < xmin || other.xmax > xmax || other.ymin < ymin || other.ymax > ymax)
+        {
+            return false;
+        }
+        for (int p=0; p < other.edges.length; p += 4) {
+            if (!covers(other.edges[p], other.edges[p+1])) {
+                return false;
+            }
+            final double[] t = splitParameters(other.edges, p);
+            for (int i=1; i<t.length; i++) {
+                final double m = (t[i-1] + t[i]) / 2;
+                if (!covers(other.pointAt(p, m, 0), other.pointAt(p, m, 1))) {
+                    return false;
+                }
+            }
+        }
+        if (other.dimension == 2) {
+            for (int p=0; p < areaEdgeCount * 4; p += 2) {
+                if (other.locate(edges[p], edges[p+1]) == INTERIOR) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given point is inside or on the boundary of this geometry, with a tolerance.
+     *
+     * @param  x  <var>x</var> value of the point.
+     * @param  y  <var>y</var> value of the point.
+     * @return whether the point is in the closure of this geometry.
+     */
+    private boolean covers(final double x, final double y) {
+        return insideArea(x, y) || isOnEdge(0, edges.length / 4, x, y);
+    }
+
+    /**
+     * Returns the dimension of the intersection of the interiors of this geometry and the given geometry.
+     * The interior of a polygon excludes its boundary, the interior of a curve excludes its end points,
+     * and the interior of a point is the point itself. For example, this method returns 2 for overlapping
+     * polygons, 1 for curves sharing a segment, 0 for curves crossing each other, and -1 for polygons
+     * touching only at their boundaries.
+     *
+     * @param  other  the geometry to test.
+     * @return dimension of the intersection of the interiors, or -1 if the interiors do not intersect.
+     */
+    public int interiorIntersectionDimension(final PreparedGeometry other) {
+        if (dimension < 0 || other.dimension < 0 ||
+                xmin > other.xmax || xmax < other.xmin || ymin > other.ymax || ymax < other.ymin)
+        {
+            return -1;
+        }
+        if (dimension < other.dimension) {
+            return other.interiorIntersectionDimension(this);
+        }
+        int result = -1;
+        final int start = (other.dimension == 2) ? 0 : other.areaEdgeCount * 4;
+        final int end   = (other.dimension == 2) ? other.areaEdgeCount * 4 : other.edges.length;
+        for (int p = start; p < end; p += 4) {
+            if (other.dimension == 0) {
+                if (locate(other.edges[p], other.edges[p+1]) == INTERIOR) {
+                    return 0;
+                }
+                continue;
+            }
+            final double[] t = splitParameters(other.edges, p);
+            for (int i=0; i<t.length; i++) {
+                final double x = other.pointAt(p, t[i], 0);
+                final double y = other.pointAt(p, t[i], 1);
+                if (i != 0) {
+                    final double m = (t[i-1] + t[i]) / 2;
+                    if (locate(other.pointAt(p, m, 0), other.pointAt(p, m, 1)) == INTERIOR) {
+                        return other.dimension;
+                    }
+                }
+                if (dimension == 1 && locate(x, y) == INTERIOR && other.locate(x, y) == INTERIOR) {
+                    result = 0;
+                }
+            }
+        }
+        if (other.dimension == 2) {
+            for (int p=0; p < areaEdgeCount * 4; p += 2) {
+                if (other.locate(edges[p], edges[p+1]) == INTERIOR) {
+                    return 2;
+                }
+            }
+            if (covers(other) || other.covers(this)) {
+                return 2;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Location of a point in the interior of a geometry.
+     *
+     * @see #locate(double, double)
+     */
+    private static final int INTERIOR = 0, BOUNDARY = 1, EXTERIOR = 2;
+
+    /**
+     * Returns the location of the given point relative to the parts of the highest dimension of this geometry.
+     *
+     * @param  x  <var>x</var> value of the point.
+     * @param  y  <var>y</var> value of the point.
+     * @return {@link #INTERIOR}, {@link #BOUNDARY} or {@link #EXTERIOR}.
+     */
+    private int locate(final double x, final double y) {
+        switch (dimension) {
+            case 2: {
+                if (isOnEdge(0, areaEdgeCount, x, y)) return BOUNDARY;
+                return insideArea(x, y) ? INTERIOR : EXTERIOR;
+            }
+            case 1: {
+                if (!isOnEdge(areaEdgeCount, edges.length / 4, x, y)) return EXTERIOR;
+                for (int i=0; i<curveBoundary.length; i += 2) {
+                    if (Math.hypot(curveBoundary[i] - x, curveBoundary[i+1] - y) <= tolerance) {
+                        return BOUNDARY;
+                    }
+                }
+                return INTERIOR;
+            }
+            case 0: {
+                return isOnEdge(0, edges.length / 4, x, y) ? INTERIOR : EXTERIOR;
+            }
+            default: return EXTERIOR;
+        }
+    }
+
+    /**
+     * Returns whether the given point is on an edge in the given range of edge indices.
+     *
+     * @param  lower  index of the first edge to test, inclusive.
+     * @param  upper  index of the last edge to test, exclusive.
+     * @param  x      <var>x</var> value of the point.
+     * @param  y      <var>y</var> value of the point.
+     * @return whether the point is at a distance not greater than the tolerance from an edge in the given range.
+     */
+    private boolean isOnEdge(final int lower, final int upper, final double x, final double y) {
+        final boolean[] found = new boolean[1];
+        tree.search(new double[] {x - tolerance, y - tolerance}, new double[] {x + tolerance, y + tolerance}, (e) -> {
+            if (!found[0] && e >= lower && e < upper && segmentDistance(e * 4, x, y) <= tolerance) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Returns the parameters, from 0 to 1 inclusive, of the points where the given edge intersects edges of this geometry.
+     * Collinear edges contribute the projections of their end points. The returned array is sorted and always begins
+     * with 0 and ends with 1, so consecutive values delimit pieces of the edge which do not cross this geometry boundary.
+     *
+     * @param  other  the array of the edge to split.
+     * @param  p      offset of the edge in the {@code other} array.
+     * @return sorted parameters of the intersection points along the edge, including 0 and 1.
+     */
+    private double[] splitParameters(final double[] other, final int p) {
+        final double x0 = other[p], y0 = other[p+1];
+        final double dx = other[p+2] - x0, dy = other[p+3] - y0;
+        final double length2 = dx*dx + dy*dy;
+        final double[][] t = {new double[8]};          // Wrapped in an array for modification in lambda.
+        final int[] n = {2};
+        t[0][1] = 1;
+        if (length2 > 0) {
+            tree.search(new double[] {Math.min(x0, other[p+2]), Math.min(y0, other[p+3])},
+                        new double[] {Math.max(x0, other[p+2]), Math.max(y0, other[p+3])}, (e) ->
+            {
+                final int q = e * 4;
+                final double ex = edges[q] - x0, ey = edges[q+1] - y0;
+                final double fx = edges[q+2] - edges[q], fy = edges[q+3] - edges[q+1];
+                final double denominator = dx * fy - dy * fx;
+                double t0 = Double.NaN, t1 = Double.NaN;
+                if (denominator != 0) {
+                    final double u = (ex * dy - ey * dx) / denominator;
+                    if (u >= 0 && u <= 1) {
+                        t0 = (ex * fy - ey * fx) / denominator;
+                    }
+                } else if (ex * dy - ey * dx == 0) {            // Collinear edges.
+                    t0 = (ex * dx + ey * dy) / length2;
+                    t1 = ((ex + fx) * dx + (ey + fy) * dy) / length2;
+                }
+                for (final double v : new double[] {t0, t1}) {
+                    if (v > 0 && v < 1) {
+                        if (n[0] == t[0].length) {
+                            t[0] = Arrays.copyOf(t[0], n[0] * 2);
+                        }
+                        t[0][n[0]++] = v;
+                    }
+                }
+            });
+        }
+        final double[] result = Arrays.copyOf(t[0], n[0]);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns a coordinate value of the point at the given parameter along the edge at the given offset.
+     *
+     * @param  p          offset of the edge in the {@link #edges} array.
+     * @param  t          parameter of the point, from 0 at the edge start to 1 at the edge end.
+     * @param  dimension  0 for the <var>x</var> value, or 1 for the <var>y</var> value.
+     * @return the requested coordinate value of the point.
+     */
+    private double pointAt(final int p, final double t, final int dimension) {
+        if (t == 0) return edges[p + dimension];
+        if (t == 1) return edges[p + 2 + dimension];
+        return edges[p + dimension] + t * (edges[p + 2 + dimension] - edges[p + dimension]);
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.coordinate.PointArray;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * A {@link PointArray} backed by a single array of interleaved {@code double} or {@code float} values.
+ * For example, if the number of dimensions is 3, then the coordinates are packed in this order:
+ * (<var>x₀</var>,<var>y₀</var>,<var>z₀</var>, <var>x₁</var>,<var>y₁</var>,<var>z₁</var> …).
+ * The array given at construction time is not copied, and no {@code DirectPosition} object is retained:
+ * positions are created on the fly when requested by {@link #get(int)} or {@link #iterator()}.
+ * Bulk operations should use {@link #getCoordinates(double[], int)} or the buffers returned by
+ * {@link #asDoubleBuffers()} and {@link #asFloatBuffers()} instead.
+ *
+ * <p>This point array is also a {@link CoordinateSet}, which allows the use of batch transforms.
+ * Points can be added with {@link #add(DirectPosition)}. The first addition copies the coordinate values
+ * in a new array owned by this point array, so the array given at construction time is never modified
+ * outside the range of values given to the constructor.</p>
+ */
+@SuppressWarnings("removal")
+public class SimplePointArray extends AbstractList<DirectPosition>
+        implements PointArray, CoordinateSet, CoordinateMetadata, RandomAccess
+{
+    /**
+     * The coordinate reference system of all positions, or {@code null} if unspecified.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Number of dimensions of all positions.
+     */
+    private final int dimension;
+
+    /**
+     * The coordinate values if stored as {@code double}, or {@code null} if stored as {@code float}.
+     */
+    private double[] doubles;
+
+    /**
+     * The coordinate values if stored as {@code float}, or {@code null} if stored as {@code double}.
+     */
+    private float[] floats;
+
+    /**
+     * Index of the first coordinate value of the first position.
+     */
+    private int start;
+
+    /**
+     * Number of positions.
+     */
+    private int size;
+
+    /**
+     * Whether the backing array has been created by this point array. If {@code false}, the array has been
+     * given by the caller and may be shared, so it shall not be modified outside the range of this point array.
+     */
+    private boolean owned;
+
+    /**
+     * Whether this array is a view over a fixed region of a larger array, for example a row of a grid.
+     * In such case, positions cannot be added.
+     */
+    boolean fixedSize;
+
+    /**
+     * Whether this array is a read-only view over the coordinates of an immutable object.
+     * In such case, positions cannot be added or modified, and the buffers are read-only.
+     */
+    boolean readOnly;
+
+    /**
+     * Creates an empty point array with coordinate values stored as {@code double}.
+     *
+     * @param  crs        the coordinate reference system of all positions, or {@code null} if unspecified.
+     * @param  dimension  number of dimensions of all positions.
+     * @throws MismatchedDimensionException if the CRS is non-null and does not have the given dimension.
+     */
+    public SimplePointArray(final CoordinateReferenceSystem crs, final int dimension) {
+        this(crs, dimension, new double[dimension * 8], 0, 0);
+        owned = true;
+    }
+
+    /**
+     * Creates a point array wrapping the given {@code double} values.
+     *
+     * @param  crs          the coordinate reference system of all positions, or {@code null} if unspecified.
+     * @param  dimension    number of dimensions of all positions.
+     * @param  coordinates  the coordinate values packed as tuples. This array is <strong>not</strong> cloned.
+     * @param  start        index of the first coordinate value of the first position.
+     * @param  length       number of coordinate values (not positions) to use.
+     * @throws MismatchedDimensionException if the length is not a multiple of the dimension,
+     *         or if the CRS is non-null and does not have the given dimension.
+     * @throws IndexOutOfBoundsException if the given start or length are out of array bounds.
+     */
+    public SimplePointArray(final CoordinateReferenceSystem crs, final int dimension,
+                            final double[] coordinates, final int start, final int length)
+    {
+        this(crs, dimension, start, length, coordinates.length);
+        doubles = coordinates;
+    }
+
+    /**
+     * Creates a point array wrapping the given {@code float} values.
+     *
+     * @param  crs          the coordinate reference system of all positions, or {@code null} if unspecified.
+     * @param  dimension    number of dimensions of all positions.
+     * @param  coordinates  the coordinate values packed as tuples. This array is <strong>not</strong> cloned.
+     * @param  start        index of the first coordinate value of the first position.
+     * @param  length       number of coordinate values (not positions) to use.
+     * @throws MismatchedDimensionException if the length is not a multiple of the dimension,
+     *         or if the CRS is non-null and does not have the given dimension.
+     * @throws IndexOutOfBoundsException if the given start or length are out of array bounds.
+     */
+    public SimplePointArray(final CoordinateReferenceSystem crs, final int dimension,
+                            final float[] coordinates, final int start, final int length)
+    {
+        this(crs, dimension, start, length, coordinates.length);
+        floats = coordinates;
+    }
+
+    /**
+     * Verifies the arguments and initializes the fields other than the array.
+     *
+     * @param  crs          the coordinate reference system of all positions, or {@code null} if unspecified.
+     * @param  dimension    number of dimensions of all positions.
+     * @param  start        index of the first coordinate value of the first position.
+     * @param  length       number of coordinate values (not positions) to use.
+     * @param  arrayLength  length of the array of coordinate values.
+     */
+    private SimplePointArray(final CoordinateReferenceSystem crs, final int dimension,
+                             final int start, final int length, final int arrayLength)
+    {
+        if (dimension <= 0 || length % dimension != 0) {
+            throw new MismatchedDimensionException("Length is not a multiple of the dimension.");
+        }
+        if (crs != null && crs.getCoordinateSystem().getDimension() != dimension) {
+            throw new MismatchedDimensionException("Dimension does not match the CRS.");
+        }
+        Objects.checkFromIndexSize(start, length, arrayLength);
+        this.crs       = crs;
+        this.dimension = dimension;
+        this.start     = start;
+        this.size      = length / dimension;
+    }
+
+    /**
+     * Returns the coordinate metadata, which is represented directly by {@code this} implementation.
+     */
+    @Override
+    public CoordinateMetadata getCoordinateMetadata() {
+        return this;
+    }
+
+    /**
+     * Returns the <abbr>CRS</abbr> in which the coordinates are given.
+     */
+    @Override
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the number of dimensions of all positions.
+     */
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of positions in this array.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the coordinate value at the given index relative to {@link #start}.
+     *
+     * @param  index  index of the coordinate value, relative to the first value of the first position.
+     * @return the coordinate value at the given index.
+     */
+    private double coordinate(final int index) {
+        return (doubles != null) ? doubles[start + index] : floats[start + index];
+    }
+
+    /**
+     * Returns a copy of the position at the given index.
+     * Changes in the returned position are not reflected in this array.
+     *
+     * @param  index  index of the position to get.
+     * @return a copy of the position at the given index.
+     */
+    @Override
+    public DirectPosition get(final int index) {
+        return getDirectPosition(index, null);
+    }
+
+    /**
+     * Gets a copy of the position at the given index, reusing the given position if non-null.
+     *
+     * @param  index  index of the position to get.
+     * @param  dest   an optionally pre-allocated direct position.
+     * @return the {@code dest} argument, or a new object if {@code dest} was null.
+     */
+    @Override
+    public DirectPosition getDirectPosition(final int index, DirectPosition dest) {
+        Objects.checkIndex(index, size);
+        final int offset = index * dimension;
+        if (dest == null) {
+            dest = new SimpleDirectPosition(crs, new double[dimension]);
+        } else if (dest.getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        for (int i=0; i<dimension; i++) {
+            dest.setCoordinate(i, coordinate(offset + i));
+        }
+        return dest;
+    }
+
+    /**
+     * Copies all coordinate values in the given array, as interleaved tuples.
+     *
+     * @param  dest    the array where to copy the coordinate values.
+     * @param  offset  index in the destination array where to write the first value.
+     * @throws IndexOutOfBoundsException if the destination array is too small.
+     */
+    public void getCoordinates(final double[] dest, final int offset) {
+        final int length = size * dimension;
+        if (doubles != null) {
+            System.arraycopy(doubles, start, dest, offset, length);
+        } else {
+            Objects.checkFromIndexSize(offset, length, dest.length);
+            for (int i=0; i<length; i++) {
+                dest[offset + i] = floats[start + i];
+            }
+        }
+    }
+
+    /**
+     * Replaces the position at the given index. The previous position is returned as required by
+     * the {@link java.util.List#set(int, Object)} contract. Callers which do not need the previous
+     * position can use {@link #setCoordinates(int, DirectPosition)} instead, which allocates nothing.
+     *
+     * @param  index     index of the position to replace.
+     * @param  position  the new position.
+     * @return the previous position.
+     */
+    @Override
+    public DirectPosition set(final int index, final DirectPosition position) {
+        final DirectPosition old = get(index);
+        setCoordinates(index, position);
+        return old;
+    }
+
+    /**
+     * Replaces the coordinate values of the position at the given index.
+     * This method does not create any object.
+     *
+     * @param  index     index of the position to replace.
+     * @param  position  the new position.
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     * @throws MismatchedDimensionException if the position does not have the dimension of this array.
+     * @throws UnsupportedOperationException if this array is a read-only view.
+     */
+    public void setCoordinates(final int index, final DirectPosition position) {
+        Objects.checkIndex(index, size);
+        write(index, position);
+    }
+
+    /**
+     * Writes the coordinate values of the given position at the given index, without verification of the index.
+     *
+     * @param  index     index of the position to write.
+     * @param  position  the position to write.
+     * @throws MismatchedDimensionException if the position does not have the dimension of this array.
+     * @throws UnsupportedOperationException if this array is a read-only view.
+     */
+    private void write(final int index, final DirectPosition position) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Read-only array.");
+        }
+        if (position.getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final int offset = start + index * dimension;
+        for (int i=0; i<dimension; i++) {
+            final double value = position.getCoordinate(i);
+            if (doubles != null) {
+                doubles[offset + i] = value;
+            } else {
+                floats[offset + i] = (float) value;
+            }
+        }
+    }
+
+    /**
+     * Appends the given position at the end of this array.
+     * If the backing array has been given by the caller or if there is no room left,
+     * it is replaced by a larger copy.
+     *
+     * @param  position  the position to add.
+     * @return {@code true}.
+     * @throws UnsupportedOperationException if this array is a view over a fixed region of a larger array,
+     *         or a read-only view.
+     */
+    @Override
+    public boolean add(final DirectPosition position) {
+        if (fixedSize || readOnly) {
+            throw new UnsupportedOperationException("Fixed-size array.");
+        }
+        if (position.getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final int end = start + (size + 1) * dimension;
+        final int capacity = (doubles != null) ? doubles.length : floats.length;
+        if (!owned || end > capacity) {
+            final int length = Math.max(size * 2, 8) * dimension;
+            if (doubles != null) {
+                doubles = Arrays.copyOfRange(doubles, start, start + length);
+            } else {
+                floats = Arrays.copyOfRange(floats, start, start + length);
+            }
+            start = 0;
+            owned = true;
+        }
+        write(size, position);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Returns a stream of views over the coordinate tuples.
+     */
+    @Override
+    public Stream<DirectPosition> stream() {
+        return CoordinateSet.super.stream();
+    }
+
+    /**
+     * Returns a view over the coordinate values if they are stored as {@code double}.
+     * Each call to this method returns a new buffer instance, which is read-only if this array is read-only.
+     */
+    @Override
+    public Optional<Stream<DoubleBuffer>> asDoubleBuffers() {
+        if (doubles == null) {
+            return Optional.empty();
+        }
+        final DoubleBuffer buffer = DoubleBuffer.wrap(doubles, start, size * dimension).slice();
+        return Optional.of(Stream.of(readOnly ? buffer.asReadOnlyBuffer() : buffer));
+    }
+
+    /**
+     * Returns a view over the coordinate values if they are stored as {@code float}.
+     * Each call to this method returns a new buffer instance, which is read-only if this array is read-only.
+     */
+    @Override
+    public Optional<Stream<FloatBuffer>> asFloatBuffers() {
+        if (floats == null) {
+            return Optional.empty();
+        }
+        final FloatBuffer buffer = FloatBuffer.wrap(floats, start, size * dimension).slice();
+        return Optional.of(Stream.of(readOnly ? buffer.asReadOnlyBuffer() : buffer));
+    }
+}
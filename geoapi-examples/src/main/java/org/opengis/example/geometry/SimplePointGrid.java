@@ -0,0 +1,408 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.coordinate.PointGrid;
+import org.opengis.geometry.coordinate.PointArray;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * A {@link PointGrid} backed by a single array of interleaved {@code double} values in row-major order.
+ * The coordinates of the point at (<var>row</var>, <var>column</var>) start at index
+ * (<var>row</var> × {@linkplain #width() width} + <var>column</var>) × <var>dimension</var>.
+ * The {@linkplain #rows() rows} are views over the same array, and the whole grid
+ * can be {@linkplain #transform(MathTransform, CoordinateReferenceSystem) transformed}
+ * with a single call to {@link MathTransform#transform(double[], int, double[], int, int)}.
+ *
+ * <p>Traversal of the grid without creating a position for each point is done with a {@link Cursor}.
+ * A cursor can visit the points tile by tile, which improves cache locality for algorithms working
+ * on neighborhoods of points.</p>
+ */
+@SuppressWarnings("removal")
+public class SimplePointGrid implements PointGrid, CoordinateSet, CoordinateMetadata {
+    /**
+     * The coordinate reference system of all points, or {@code null} if unspecified.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Number of dimensions of all points.
+     */
+    private final int dimension;
+
+    /**
+     * Number of points in a row.
+     */
+    private final int width;
+
+    /**
+     * Number of rows.
+     */
+    private final int height;
+
+    /**
+     * The coordinate values of all points, in row-major order.
+     */
+    private final double[] coordinates;
+
+    /**
+     * Creates a grid with all coordinates initialized to zero.
+     *
+     * @param  crs        the coordinate reference system of all points, or {@code null} if unspecified.
+     * @param  dimension  number of dimensions of all points.
+     * @param  width      number of points in a row.
+     * @param  height     number of rows.
+     */
+    public SimplePointGrid(final CoordinateReferenceSystem crs, final int dimension, final int width, final int height) {
+        this(crs, dimension, width, height, new double[Math.multiplyExact(Math.multiplyExact(width, height), dimension)]);
+    }
+
+    /**
+     * Creates a grid wrapping the given array.
+     *
+     * @param  crs          the coordinate reference system of all points, or {@code null} if unspecified.
+     * @param  dimension    number of dimensions of all points.
+     * @param  width        number of points in a row.
+     * @param  height       number of rows.
+     * @param  coordinates  the coordinate values in row-major order. This array is <strong>not</strong> cloned.
+     * @throws MismatchedDimensionException if the CRS is non-null and does not have the given dimension.
+     * @throws IllegalArgumentException if the array length is not <var>width</var> × <var>height</var> × <var>dimension</var>.
+     */
+    public SimplePointGrid(final CoordinateReferenceSystem crs, final int dimension, final int width, final int height,
+                           final double[] coordinates)
+    {
+        if (crs != null && crs.getCoordinateSystem().getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        if (width < 0 || height < 0 || dimension <= 0 || coordinates.length != (long) width * height * dimension) {
+            throw new IllegalArgumentException("Array length does not match the grid size.");
+        }
+        this.crs         = crs;
+        this.dimension   = dimension;
+        this.width       = width;
+        this.height      = height;
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * Returns the coordinate metadata, which is represented directly by {@code this} implementation.
+     */
+    @Override
+    public CoordinateMetadata getCoordinateMetadata() {
+        return this;
+    }
+
+    /**
+     * Returns the <abbr>CRS</abbr> in which the coordinates are given.
+     */
+    @Override
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the number of dimensions of all points.
+     */
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of points in a row.
+     */
+    @Override
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    @Override
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the index in {@link #coordinates} of the first value of the given point.
+     *
+     * @param  row     index of the row of the point.
+     * @param  column  index of the column of the point.
+     * @return index of the first coordinate value of the point.
+     * @throws IndexOutOfBoundsException if the row or column index is out of bounds.
+     */
+    private int offset(final int row, final int column) {
+        Objects.checkIndex(row, height);
+        Objects.checkIndex(column, width);
+        return (row * width + column) * dimension;
+    }
+
+    /**
+     * Returns a copy of the point at the given row and column index.
+     * Changes in the returned position are not reflected in this grid.
+     */
+    @Override
+    public DirectPosition get(final int row, final int column) {
+        final int offset = offset(row, column);
+        return new SimpleDirectPosition(crs, Arrays.copyOfRange(coordinates, offset, offset + dimension));
+    }
+
+    /**
+     * Returns a view of all rows in this grid. Each row is a {@link SimplePointArray}
+     * backed by the array of this grid, so changes in a row are reflected in the grid.
+     * Rows are fixed-size: positions cannot be added.
+     */
+    @Override
+    public List<PointArray> rows() {
+        return new Rows();
+    }
+
+    /**
+     * The list returned by {@link #rows()}.
+     */
+    private final class Rows extends AbstractList<PointArray> implements RandomAccess {
+        /** Creates a new view over the rows of the enclosing grid. */
+        Rows() {
+        }
+
+        /** Returns the number of rows. */
+        @Override public int size() {
+            return height;
+        }
+
+        /** Returns a view over the row at the given index. */
+        @Override public PointArray get(final int row) {
+            Objects.checkIndex(row, height);
+            final int length = width * dimension;
+            final var array = new SimplePointArray(crs, dimension, coordinates, row * length, length);
+            array.fixedSize = true;
+            return array;
+        }
+    }
+
+    /**
+     * Returns an iterator over all points in row-major order.
+     */
+    @Override
+    public Iterator<DirectPosition> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * Returns a view over the array of coordinate values.
+     * Each call to this method returns a new buffer instance.
+     */
+    @Override
+    public Optional<Stream<DoubleBuffer>> asDoubleBuffers() {
+        return Optional.of(Stream.of(DoubleBuffer.wrap(coordinates)));
+    }
+
+    /**
+     * Transforms all points of this grid with a single call to the given math transform.
+     *
+     * @param  transform  the transform to apply.
+     * @param  targetCRS  the <abbr>CRS</abbr> of the result, or {@code null} if unspecified.
+     * @return a new grid with the transformed points.
+     * @throws MismatchedDimensionException if the transform source dimension is not the grid dimension.
+     * @throws TransformException if a point cannot be transformed.
+     */
+    public SimplePointGrid transform(final MathTransform transform, final CoordinateReferenceSystem targetCRS)
+            throws TransformException
+    {
+        if (transform.getSourceDimensions() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        final int tgtDim = transform.getTargetDimensions();
+        final double[] target = new double[Math.multiplyExact(width * height, tgtDim)];
+        transform.transform(coordinates, 0, target, 0, width * height);
+        return new SimplePointGrid(targetCRS, tgtDim, width, height, target);
+    }
+
+    /**
+     * Returns a cursor visiting all points in row-major order.
+     *
+     * @return a cursor positioned before the first point.
+     */
+    public Cursor cursor() {
+        return new Cursor(Math.max(width, 1), Math.max(height, 1));
+    }
+
+    /**
+     * Returns a cursor visiting all points tile by tile. Tiles are visited in row-major order,
+     * and the points inside each tile are also visited in row-major order.
+     * Tiles in the last column or last row may be smaller.
+     *
+     * @param  tileWidth   number of columns in a tile.
+     * @param  tileHeight  number of rows in a tile.
+     * @return a cursor positioned before the first point.
+     */
+    public Cursor cursor(final int tileWidth, final int tileHeight) {
+        if (tileWidth <= 0 || tileHeight <= 0) {
+            throw new IllegalArgumentException("Tile size shall be positive.");
+        }
+        return new Cursor(tileWidth, tileHeight);
+    }
+
+    /**
+     * A movable view over the points of the grid. The cursor itself is the position:
+     * after each call to {@link #next()}, the coordinates returned by {@link #getCoordinate(int)}
+     * are the coordinates of the current point. No object is created during the traversal.
+     * Changes to the coordinates of the cursor are written in the grid.
+     *
+     * <p>A cursor is not thread-safe, but many cursors can be used concurrently on the same grid.</p>
+     */
+    public final class Cursor implements DirectPosition {
+        /** Size of the tiles. */
+        private final int tileWidth, tileHeight;
+
+        /** Bounds of the current tile. */
+        private int tileX, tileY, tileXmax, tileYmax;
+
+        /** Current point. */
+        private int row, column;
+
+        /** Index in the grid array of the first coordinate value of the current point. */
+        private int offset;
+
+        /**
+         * Creates a new cursor positioned before the first point.
+         *
+         * @param  tileWidth   number of columns in each tile.
+         * @param  tileHeight  number of rows in each tile.
+         */
+        Cursor(final int tileWidth, final int tileHeight) {
+            this.tileWidth  = tileWidth;
+            this.tileHeight = tileHeight;
+            tileXmax = Math.min(tileWidth,  width);
+            tileYmax = Math.min(tileHeight, height);
+            column   = -1;
+            offset   = -dimension;
+        }
+
+        /**
+         * Moves to the next point.
+         *
+         * @return {@code true} on success, or {@code false} if there are no more points.
+         */
+        public boolean next() {
+            if (row >= height || width == 0) {
+                return false;
+            }
+            if (++column < tileXmax) {
+                offset += dimension;
+                return true;
+            }
+            column = tileX;
+            if (++row >= tileYmax) {
+                tileX = tileXmax;
+                if (tileX >= width) {
+                    tileX = 0;
+                    tileY = tileYmax;
+                    if (tileY >= height) {
+                        column = width;
+                        row = height;
+                        return false;
+                    }
+                    tileYmax = Math.min(tileY + tileHeight, height);
+                }
+                tileXmax = Math.min(tileX + tileWidth, width);
+                column = tileX;
+                row = tileY;
+            }
+            offset = (row * width + column) * dimension;
+            return true;
+        }
+
+        /**
+         * Moves to the given point. The next call to {@link #next()} will continue
+         * the traversal from that point in the tile containing it.
+         *
+         * @param  row     the row index.
+         * @param  column  the column index.
+         */
+        public void moveTo(final int row, final int column) {
+            offset      = offset(row, column);
+            this.row    = row;
+            this.column = column;
+            tileX    = column - column % tileWidth;
+            tileY    = row    - row    % tileHeight;
+            tileXmax = Math.min(tileX + tileWidth,  width);
+            tileYmax = Math.min(tileY + tileHeight, height);
+        }
+
+        /**
+         * Returns the row of the current point.
+         *
+         * @return the current row index.
+         */
+        public int row() {
+            return row;
+        }
+
+        /**
+         * Returns the column of the current point.
+         *
+         * @return the current column index.
+         */
+        public int column() {
+            return column;
+        }
+
+        /** Returns the <abbr>CRS</abbr> of the grid. */
+        @Override public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+            return crs;
+        }
+
+        /** Returns the number of dimensions of the grid points. */
+        @Override public int getDimension() {
+            return dimension;
+        }
+
+        /** Returns a coordinate value of the current point. */
+        @Override public double getCoordinate(final int i) {
+            return coordinates[offset + Objects.checkIndex(i, dimension)];
+        }
+
+        /** Sets a coordinate value of the current point. */
+        @Override public void setCoordinate(final int i, final double value) {
+            coordinates[offset + Objects.checkIndex(i, dimension)] = value;
+        }
+
+        /** Compares coordinate values and <abbr>CRS</abbr> as required by {@link DirectPosition#equals(Object)}. */
+        @Override public boolean equals(final Object object) {
+            if (object instanceof DirectPosition) {
+                final var other = (DirectPosition) object;
+                return Arrays.equals(getCoordinates(), other.getCoordinates()) &&
+                       Objects.equals(crs, other.getCoordinateReferenceSystem());
+            }
+            return false;
+        }
+
+        /** Returns a hash code as required by {@link DirectPosition#hashCode()}. */
+        @Override public int hashCode() {
+            return Arrays.hashCode(getCoordinates()) + Objects.hashCode(crs);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Objects;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.PositionFactory;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * A factory of positions and point arrays in a fixed coordinate reference system.
+ * The arrays given to the factory methods are not copied: the created objects take ownership of them.
+ */
+public class SimplePositionFactory implements PositionFactory {
+    /**
+     * The coordinate reference system of all positions created by this factory.
+     *
+     * @see #getCoordinateReferenceSystem()
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Creates a new factory for the given coordinate reference system.
+     *
+     * @param  crs  the coordinate reference system of all positions to create.
+     */
+    public SimplePositionFactory(final CoordinateReferenceSystem crs) {
+        this.crs = Objects.requireNonNull(crs);
+    }
+
+    /**
+     * Returns the coordinate reference system of all positions created by this factory.
+     */
+    @Override
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the number of dimensions of the coordinate reference system.
+     *
+     * @return the number of dimensions.
+     */
+    private int getDimension() {
+        return crs.getCoordinateSystem().getDimension();
+    }
+
+    /**
+     * Creates a direct position wrapping the given coordinates.
+     *
+     * @param  coordinates  the coordinate values. This array is <strong>not</strong> cloned.
+     * @throws MismatchedDimensionException if the array length is not the <abbr>CRS</abbr> dimension.
+     */
+    @Override
+    public DirectPosition createDirectPosition(final double[] coordinates) throws MismatchedDimensionException {
+        if (coordinates.length != getDimension()) {
+            throw new MismatchedDimensionException();
+        }
+        return new SimpleDirectPosition(crs, coordinates);
+    }
+
+    /**
+     * Creates an initially empty point array storing coordinate values as {@code double}.
+     */
+    @Override
+    @SuppressWarnings("removal")
+    public SimplePointArray createPointArray() {
+        return new SimplePointArray(crs, getDimension());
+    }
+
+    /**
+     * Creates a point array wrapping the given {@code double} values without copying them.
+     *
+     * @param  coordinates  the coordinate values packed as tuples.
+     * @param  start        index of the first coordinate value of the first position.
+     * @param  length       number of coordinate values (not positions) to use.
+     */
+    @Override
+    @SuppressWarnings("removal")
+    public SimplePointArray createPointArray(final double[] coordinates, final int start, final int length) {
+        return new SimplePointArray(crs, getDimension(), coordinates, start, length);
+    }
+
+    /**
+     * Creates a point array wrapping the given {@code float} values without copying them.
+     *
+     * @param  coordinates  the coordinate values packed as tuples.
+     * @param  start        index of the first coordinate value of the first position.
+     * @param  length       number of coordinate values (not positions) to use.
+     */
+    @Override
+    @SuppressWarnings("removal")
+    public SimplePointArray createPointArray(final float[] coordinates, final int start, final int length) {
+        return new SimplePointArray(crs, getDimension(), coordinates, start, length);
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import org.opengis.geometry.Envelope;
+
+
+/**
+ * Finds all pairs of items from two sources whose envelopes intersect.
+ * The join is executed by blocks of a bounded number of items, so the sources can be larger than memory.
+ * For each block of items from the left source, the right source is read again by blocks of the same size.
+ * For each pair of blocks, the space is partitioned in vertical strips, and a plane sweep along the
+ * <var>x</var> axis is executed in each strip in parallel. A pair of items overlapping many strips
+ * is reported only in the strip containing the largest of their minimal <var>x</var> values.
+ *
+ * <p>Only the first two dimensions of the envelopes are used. Envelopes crossing the anti-meridian
+ * are not supported: the minimum and maximum values are used as-is. Items with an envelope containing
+ * NaN values are ignored.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe if the functions given at construction time
+ * are thread-safe.</p>
+ *
+ * @param <L>  type of items in the left source.
+ * @param <R>  type of items in the right source.
+ */
+public final class SpatialJoin<L,R> {
+    /**
+     * Default maximal number of items from each source to keep in memory.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 100_000;
+
+    /**
+     * Function computing the envelope of items from the left source.
+     */
+    private final Function<? super L, ? extends Envelope> leftEnvelope;
+
+    /**
+     * Function computing the envelope of items from the right source.
+     */
+    private final Function<? super R, ? extends Envelope> rightEnvelope;
+
+    /**
+     * Test to apply on pairs of items having intersecting envelopes, or {@code null} if none.
+     */
+    private final BiPredicate<? super L, ? super R> refinement;
+
+    /**
+     * Maximal number of items from each source to keep in memory.
+     */
+    private final int blockSize;
+
+    /**
+     * Creates a new spatial join.
+     *
+     * @param  leftEnvelope   function computing the envelope of items from the left source.
+     * @param  rightEnvelope  function computing the envelope of items from the right source.
+     * @param  refinement     test to apply on pairs of items having intersecting envelopes, or {@code null} if none.
+     * @param  blockSize      maximal number of items from each source to keep in memory.
+     */
+    public SpatialJoin(final Function<? super L, ? extends Envelope> leftEnvelope,
+                       final Function<? super R, ? extends Envelope> rightEnvelope,
+                       final BiPredicate<? super L, ? super R> refinement,
+                       final int blockSize)
+    {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size shall be positive.");
+        }
+        this.leftEnvelope  = Objects.requireNonNull(leftEnvelope);
+        this.rightEnvelope = Objects.requireNonNull(rightEnvelope);
+        this.refinement    = refinement;
+        this.blockSize     = blockSize;
+    }
+
+    /**
+     * A block of items with their bounding boxes.
+     *
+     * @param <E>  type of items.
+     */
+    private static final class Block<E> {
+        /** The items. */
+        final List<E> items;
+
+        /** Bounding boxes as (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>, <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) tuples. */
+        double[] boxes;
+
+        /** Minimal and maximal <var>x</var> values of all boxes. */
+        double xmin, xmax;
+
+        /**
+         * Creates an empty block.
+         *
+         * @param  capacity  maximal number of items in the block.
+         */
+        Block(final int capacity) {
+            items = new ArrayList<>(capacity);
+            boxes = new double[Math.min(capacity, 1024) * 4];
+            xmin  = Double.POSITIVE_INFINITY;
+            xmax  = Double.NEGATIVE_INFINITY;
+        }
+
+        /**
+         * Reads the next block of items from the given iterator.
+         *
+         * @param  <E>       the type of items.
+         * @param  it        the iterator from which to read the items.
+         * @param  envelope  the function computing the envelope of an item.
+         * @param  capacity  maximal number of items to read.
+         * @return the items read, excluding the items having an empty envelope.
+         */
+        static <E> Block<E> read(final Iterator<? extends E> it, final Function<? super E, ? extends Envelope> envelope,
+                                 final int capacity)
+        {
+            final var block = new Block<E>(capacity);
+            while (block.items.size() < capacity && it.hasNext()) {
+                final E item = it.next();
+                final Envelope env = envelope.apply(item);
+                final double x0 = env.getMinimum(0), y0 = env.getMinimum(1);
+                final double x1 = env.getMaximum(0), y1 = env.getMaximum(1);
+                if (x0 <= x1 && y0 <= y1) {                             // Also false for NaN.
+                    final int p = block.items.size() * 4;
+                    if (p + 4 > block.boxes.length) {
+                        block.boxes = Arrays.copyOf(block.boxes, block.boxes.length * 2);
+                    }
+                    block.boxes[p  ] = x0;
+                    block.boxes[p+1] = y0;
+                    block.boxes[p+2] = x1;
+                    block.boxes[p+3] = y1;
+                    block.xmin = Math.min(block.xmin, x0);
+                    block.xmax = Math.max(block.xmax, x1);
+                    block.items.add(item);
+                }
+            }
+            return block;
+        }
+
+        /**
+         * Returns the indices of the items overlapping the given strip, sorted by minimal <var>x</var> value.
+         *
+         * @param  lower  minimal <var>x</var> value of the strip.
+         * @param  upper  maximal <var>x</var> value of the strip.
+         * @return indices of the items overlapping the strip.
+         */
+        int[] select(final double lower, final double upper) {
+            final int[] selected = new int[items.size()];
+            int count = 0;
+            for (int p=0; p < selected.length * 4; p += 4) {
+                if (boxes[p] <= upper && boxes[p+2] >= lower) {
+                    selected[count++] = p;
+                }
+            }
+            /*
+             * The selected values are offsets of boxes, so the keys are the minimal x values in the
+             * boxes array itself. After sorting, the offsets are converted to indices of items.
+             */
+            EnvelopeTree.sort(selected, 0, count, boxes);
+            for (int k=0; k<count; k++) {
+                selected[k] >>>= 2;
+            }
+            return Arrays.copyOf(selected, count);
+        }
+    }
+
+    /**
+     * Reports all pairs of items from the given sources whose envelopes intersect and which pass the refinement test.
+     * The left source is iterated once. The right source is iterated once for each block of items from the left source,
+     * so it shall be possible to iterate over it many times. A {@link java.util.stream.Stream} can be used as the left
+     * source with {@code stream::iterator}.
+     *
+     * <p>The action is invoked concurrently from many threads, in no particular order.</p>
+     *
+     * @param  left    the left source.
+     * @param  right   the right source.
+     * @param  action  the action to invoke for each pair of matching items.
+     * @return number of pairs given to the action.
+     */
+    public long join(final Iterable<? extends L> left, final Iterable<? extends R> right,
+                     final BiConsumer<? super L, ? super R> action)
+    {
+        final var count = new LongAdder();
+        final Iterator<? extends L> it = left.iterator();
+        while (it.hasNext()) {
+            final Block<L> leftBlock = Block.read(it, leftEnvelope, blockSize);
+            final Iterator<? extends R> rit = right.iterator();
+            while (rit.hasNext()) {
+                final Block<R> rightBlock = Block.read(rit, rightEnvelope, blockSize);
+                join(leftBlock, rightBlock, action, count);
+            }
+        }
+        return count.sum();
+    }
+
+    /**
+     * Reports all pairs of matching items from the given blocks.
+     *
+     * @param  left    block of items from the left source.
+     * @param  right   block of items from the right source.
+     * @param  action  the action to invoke for each pair of matching items.
+     * @param  count   the counter to increment for each pair given to the action.
+     */
+    private void join(final Block<L> left, final Block<R> right, final BiConsumer<? super L, ? super R> action,
+                      final LongAdder count)
+    {
+        final double xmin = Math.max(left.xmin, right.xmin);
+        final double xmax = Math.min(left.xmax, right.xmax);
+        if (!(xmin <= xmax)) {
+            return;
+        }
+        final int numStrips = (xmin < xmax) ? Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4,
+                                                       (left.items.size() + right.items.size()) / 256)) : 1;
+        final double width = (xmax - xmin) / numStrips;
+        IntStream.range(0, numStrips).parallel().forEach((strip) -> {
+            final double lower = (strip == 0) ? Double.NEGATIVE_INFINITY : xmin + strip * width;
+            final double upper = (strip == numStrips - 1) ? Double.POSITIVE_INFINITY : xmin + (strip + 1) * width;
+            sweep(left, right, left.select(lower, upper), right.select(lower, upper), lower, upper, action, count);
+        });
+    }
+
+    /**
+     * Executes a plane sweep along the <var>x</var> axis over the items of a strip.
+     * Pairs are reported only if the larger of their minimal <var>x</var> values is in the strip.
+     *
+     * @param  left    block of items from the left source.
+     * @param  right   block of items from the right source.
+     * @param  li      indices of the left items in the strip, sorted by minimal <var>x</var> value.
+     * @param  ri      indices of the right items in the strip, sorted by minimal <var>x</var> value.
+     * @param  lower   minimal <var>x</var> value of the strip, inclusive.
+     * @param  upper   maximal <var>x</var> value of the strip, exclusive.
+     * @param  action  the action to invoke for each pair of matching items.
+     * @param  count   the counter to increment for each pair given to the action.
+     */
+    private void sweep(final Block<L> left, final Block<R> right, final int[] li, final int[] ri,
+                       final double lower, final double upper,
+                       final BiConsumer<? super L, ? super R> action, final LongAdder count)
+    {
+        final double[] lb = left.boxes;
+        final double[] rb = right.boxes;
+        int i = 0, j = 0;
+        while (i < li.length && j < ri.length) {
+            if (lb[li[i]*4] < rb[ri[j]*4]) {
+                final int p = li[i++] * 4;
+                for (int k = j; k < ri.length; k++) {
+                    final int q = ri[k] * 4;
+                    if (rb[q] > lb[p+2]) break;
+                    test(left, right, p, q, lower, upper, action, count);
+                }
+            } else {
+                final int q = ri[j++] * 4;
+                for (int k = i; k < li.length; k++) {
+                    final int p = li[k] * 4;
+                    if (lb[p] > rb[q+2]) break;
+                    test(left, right, p, q, lower, upper, action, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests a pair of items known to overlap along the <var>x</var> axis, and reports it if it matches.
+     *
+     * @param  left    block of items from the left source.
+     * @param  right   block of items from the right source.
+     * @param  p       offset of the left item box in {@code left.boxes}.
+     * @param  q       offset of the right item box in {@code right.boxes}.
+     * @param  lower   minimal <var>x</var> value of the strip, inclusive.
+     * @param  upper   maximal <var>x</var> value of the strip, exclusive.
+     * @param  action  the action to invoke for each pair of matching items.
+     * @param  count   the counter to increment for each pair given to the action.
+     */
+    private void test(final Block<L> left, final Block<R> right, final int p, final int q,
+                      final double lower, final double upper,
+                      final BiConsumer<? super L, ? super R> action, final LongAdder count)
+    {
+        final double[] lb = left.boxes;
+        final double[] rb = right.boxes;
+        if (lb[p+1] <= rb[q+3] && lb[p+3] >= rb[q+1]) {
+            final double x = Math.max(lb[p], rb[q]);
+            if (x >= lower && x < upper) {
+                final L a = left.items.get(p / 4);
+                final R b = right.items.get(q / 4);
+                if (refinement == null || refinement.test(a, b)) {
+                    action.accept(a, b);
+                    count.increment();
+                }
+            }
+        }
+    }
+}
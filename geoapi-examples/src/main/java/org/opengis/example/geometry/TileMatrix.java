@@ -0,0 +1,304 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Objects;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * A pyramid of regular tile matrices covering an envelope, with batch conversions between coordinates and tiles.
+ * At zoom level 0, the envelope is divided in a given number of columns and rows.
+ * Each subsequent zoom level divides each tile in 2×2 tiles. Columns are along the first dimension of the envelope,
+ * in increasing order of coordinate values. Rows are along the second dimension, from the maximal coordinate value
+ * (top) to the minimal one (bottom), as in the <abbr>OGC</abbr> Two Dimensional Tile Matrix Set standard.
+ *
+ * <p>Coordinates can be converted to tile indices directly if they are in the <abbr>CRS</abbr> of the tile matrix,
+ * or with a {@link MathTransform} from another <abbr>CRS</abbr>, for example from geographic coordinates.
+ * In the latter case, all points are transformed by a single call to the transform before computing the indices.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public final class TileMatrix {
+    /**
+     * Maximal zoom level. Tile indices and tile keys can be stored in integers up to that level.
+     */
+    public static final int MAX_ZOOM = 24;
+
+    /**
+     * Number of bits of the column and row indices in a {@linkplain #key tile key}.
+     */
+    private static final int KEY_INDEX_BITS = 29;
+
+    /**
+     * The coordinate reference system of the tile matrix, or {@code null} if unspecified.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Minimal coordinate values of the first two dimensions of the tile matrix extent.
+     */
+    private final double xmin, ymax;
+
+    /**
+     * Width and height of tiles at zoom level 0.
+     */
+    private final double tileWidth, tileHeight;
+
+    /**
+     * Number of columns and rows at zoom level 0.
+     */
+    private final int columns, rows;
+
+    /**
+     * Creates a tile matrix covering the given envelope.
+     *
+     * @param  extent   the envelope covered by the tiles, with at least two dimensions.
+     * @param  columns  number of columns at zoom level 0.
+     * @param  rows     number of rows at zoom level 0.
+     * @throws IllegalArgumentException if the envelope is empty or the number of columns or rows is not positive.
+     */
+    public TileMatrix(final Envelope extent, final int columns, final int rows) {
+        if (extent.getDimension() < 2) {
+            throw new MismatchedDimensionException("The extent shall have at least two dimensions.");
+        }
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("The number of columns and rows shall be positive.");
+        }
+        crs = extent.getCoordinateReferenceSystem();
+        xmin = extent.getMinimum(0);
+        ymax = extent.getMaximum(1);
+        tileWidth  = extent.getSpan(0) / columns;
+        tileHeight = extent.getSpan(1) / rows;
+        if (!(tileWidth > 0 && tileHeight > 0 && Double.isFinite(tileWidth) && Double.isFinite(tileHeight))) {
+            throw new IllegalArgumentException("The extent shall be finite and non-empty.");
+        }
+        this.columns = columns;
+        this.rows    = rows;
+    }
+
+    /**
+     * Returns the coordinate reference system of the tile matrix.
+     *
+     * @return the coordinate reference system, or {@code null} if unspecified.
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the number of columns at the given zoom level.
+     *
+     * @param  zoom  the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @return number of columns at the given zoom level.
+     */
+    public long getColumnCount(final int zoom) {
+        return ((long) columns) << checkZoom(zoom);
+    }
+
+    /**
+     * Returns the number of rows at the given zoom level.
+     *
+     * @param  zoom  the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @return number of rows at the given zoom level.
+     */
+    public long getRowCount(final int zoom) {
+        return ((long) rows) << checkZoom(zoom);
+    }
+
+    /**
+     * Computes the indices of the tiles containing the given points.
+     * Only the first two coordinates of each point are used. Points outside the tile matrix extent
+     * are clamped to the nearest tile, and NaN coordinates are mapped to tile (-1, -1).
+     *
+     * <p>Coordinates are converted to tile indices at zoom level {@value #MAX_ZOOM}, then the indices at the
+     * requested zoom level are obtained by integer shifts. Consequently, the tile containing a point at a given
+     * zoom level is always the parent of the tile containing the same point at the next zoom level.</p>
+     *
+     * @param  points     coordinates of the points in the <abbr>CRS</abbr> of this tile matrix.
+     * @param  offset     index of the first coordinate value of the first point.
+     * @param  dimension  number of coordinate values per point, at least 2.
+     * @param  zoom       the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @param  tiles      where to store the (<var>column</var>, <var>row</var>) pairs.
+     * @param  tileOffset index where to store the first column index.
+     * @param  count      number of points.
+     */
+    public void toTiles(final double[] points, int offset, final int dimension, final int zoom,
+                        final int[] tiles, int tileOffset, final int count)
+    {
+        if (dimension < 2) {
+            throw new MismatchedDimensionException("Points shall have at least two dimensions.");
+        }
+        Objects.checkFromIndexSize(offset, Math.multiplyExact(count, dimension), points.length);
+        Objects.checkFromIndexSize(tileOffset, Math.multiplyExact(count, 2), tiles.length);
+        final int    shift  = MAX_ZOOM - checkZoom(zoom);
+        final double scale  = 1L << MAX_ZOOM;
+        final double xscale = scale / tileWidth;
+        final double yscale = scale / tileHeight;
+        final long   maxCol = getColumnCount(MAX_ZOOM) - 1;
+        final long   maxRow = getRowCount(MAX_ZOOM) - 1;
+        for (int i=0; i<count; i++) {
+            final double x = (points[offset]     - xmin) * xscale;
+            final double y = (ymax - points[offset + 1]) * yscale;
+            tiles[tileOffset++] = toInt(clamp(x, maxCol) >> shift);
+            tiles[tileOffset++] = toInt(clamp(y, maxRow) >> shift);
+            offset += dimension;
+        }
+    }
+
+    /**
+     * Computes the indices of the tiles containing the given points in another <abbr>CRS</abbr>.
+     * All points are transformed to the <abbr>CRS</abbr> of this tile matrix by a single call
+     * to the given transform, then converted to tile indices as in
+     * {@link #toTiles(double[], int, int, int, int[], int, int)}.
+     *
+     * @param  transform  the transform from the <abbr>CRS</abbr> of the points to the <abbr>CRS</abbr> of this tile matrix.
+     * @param  points     coordinates of the points in the source <abbr>CRS</abbr> of the transform.
+     * @param  offset     index of the first coordinate value of the first point.
+     * @param  zoom       the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @param  tiles      where to store the (<var>column</var>, <var>row</var>) pairs.
+     * @param  tileOffset index where to store the first column index.
+     * @param  count      number of points.
+     * @throws TransformException if the points cannot be transformed.
+     */
+    public void toTiles(final MathTransform transform, final double[] points, final int offset, final int zoom,
+                        final int[] tiles, final int tileOffset, final int count) throws TransformException
+    {
+        final int dimension = transform.getTargetDimensions();
+        final double[] buffer = new double[Math.multiplyExact(count, dimension)];
+        transform.transform(points, offset, buffer, 0, count);
+        toTiles(buffer, 0, dimension, zoom, tiles, tileOffset, count);
+    }
+
+    /**
+     * Converts a coordinate value relative to the tile origin to a tile index in the [0 … max] range.
+     *
+     * @param  value  the coordinate value in units of tiles at the maximal zoom level.
+     * @param  max    the maximal tile index at the maximal zoom level.
+     * @return the tile index at the maximal zoom level, or -1 if the value is NaN.
+     */
+    private static long clamp(final double value, final long max) {
+        if (Double.isNaN(value)) return -1;
+        if (value <= 0)  return 0;
+        if (value >= max) return max;
+        return (long) value;
+    }
+
+    /**
+     * Returns the given tile index as an integer, clamped to the maximal integer value.
+     *
+     * @param  index  the tile index.
+     * @return the tile index as an integer.
+     */
+    private static int toInt(final long index) {
+        return (int) Math.min(Integer.MAX_VALUE, index);
+    }
+
+    /**
+     * Returns the envelope of the given tile.
+     *
+     * @param  zoom    the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @param  column  index of the tile column.
+     * @param  row     index of the tile row.
+     * @return envelope of the tile, in the <abbr>CRS</abbr> of this tile matrix.
+     */
+    public SimpleEnvelope getTileEnvelope(final int zoom, final int column, final int row) {
+        final double[] bounds = new double[4];
+        getTileBounds(zoom, new int[] {column, row}, 0, bounds, 0, 1);
+        return new SimpleEnvelope(new SimpleDirectPosition(crs, bounds[0], bounds[1]),
+                                  new SimpleDirectPosition(crs, bounds[2], bounds[3]));
+    }
+
+    /**
+     * Computes the bounds of many tiles.
+     * Bounds are stored as (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>,
+     * <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) tuples.
+     *
+     * @param  zoom          the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @param  tiles         the (<var>column</var>, <var>row</var>) pairs.
+     * @param  tileOffset    index of the first column index.
+     * @param  bounds        where to store the bounds of the tiles.
+     * @param  boundsOffset  index where to store the first bound.
+     * @param  count         number of tiles.
+     */
+    public void getTileBounds(final int zoom, final int[] tiles, int tileOffset,
+                              final double[] bounds, int boundsOffset, final int count)
+    {
+        Objects.checkFromIndexSize(tileOffset, Math.multiplyExact(count, 2), tiles.length);
+        Objects.checkFromIndexSize(boundsOffset, Math.multiplyExact(count, 4), bounds.length);
+        final double scale = 1L << checkZoom(zoom);
+        final double width  = tileWidth  / scale;
+        final double height = tileHeight / scale;
+        for (int i=0; i<count; i++) {
+            final int column = tiles[tileOffset++];
+            final int row    = tiles[tileOffset++];
+            final double x = xmin + column * width;
+            final double y = ymax - row * height;
+            bounds[boundsOffset++] = x;
+            bounds[boundsOffset++] = y - height;
+            bounds[boundsOffset++] = x + width;
+            bounds[boundsOffset++] = y;
+        }
+    }
+
+    /**
+     * Returns the indices of the tiles at the given zoom level which intersect the given envelope.
+     *
+     * @param  zoom      the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @param  envelope  the envelope in the <abbr>CRS</abbr> of this tile matrix.
+     * @return (<var>column</var><sub>min</sub>, <var>row</var><sub>min</sub>,
+     *         <var>column</var><sub>max</sub>, <var>row</var><sub>max</sub>) inclusive.
+     */
+    public int[] getTileRange(final int zoom, final Envelope envelope) {
+        final DirectPosition lower = envelope.getLowerCorner();
+        final DirectPosition upper = envelope.getUpperCorner();
+        final double[] corners = {
+            lower.getCoordinate(0), upper.getCoordinate(1),
+            upper.getCoordinate(0), lower.getCoordinate(1)
+        };
+        final int[] range = new int[4];
+        toTiles(corners, 0, 2, zoom, range, 0, 2);
+        return range;
+    }
+
+    /**
+     * Returns a key identifying the given tile in a single integer.
+     * The key encodes the zoom level in the 6 highest bits, followed by the column and row indices
+     * on 29 bits each. Keys are unique for all tiles of tile matrices having at most 32 columns and rows
+     * at zoom level 0. Tiles having larger indices have no key.
+     *
+     * @param  zoom    the zoom level, from 0 to {@value #MAX_ZOOM} inclusive.
+     * @param  column  index of the tile column, from 0 inclusive to 2<sup>29</sup> exclusive.
+     * @param  row     index of the tile row, from 0 inclusive to 2<sup>29</sup> exclusive.
+     * @return a key identifying the tile.
+     * @throws IllegalArgumentException if the zoom level, the column or the row is out of range.
+     */
+    public static long key(final int zoom, final int column, final int row) {
+        if (((column | row) >>> KEY_INDEX_BITS) != 0) {
+            throw new IllegalArgumentException("Tile indices shall be between 0 and 2^" + KEY_INDEX_BITS + " exclusive.");
+        }
+        return ((long) checkZoom(zoom) << (2 * KEY_INDEX_BITS)) | ((long) column << KEY_INDEX_BITS) | row;
+    }
+
+    /**
+     * Verifies that the given zoom level is valid and returns it.
+     *
+     * @param  zoom  the zoom level to verify.
+     * @return the given zoom level.
+     * @throws IllegalArgumentException if the zoom level is out of range.
+     */
+    private static int checkZoom(final int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom level shall be between 0 and " + MAX_ZOOM + '.');
+        }
+        return zoom;
+    }
+}
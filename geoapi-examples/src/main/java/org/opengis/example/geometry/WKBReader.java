@@ -0,0 +1,619 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.io.IOException;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * Reads a sequence of geometries encoded in Well-Known Binary (<abbr>WKB</abbr>)
+ * or Tiny Well-Known Binary (<abbr>TWKB</abbr>) format.
+ * The coordinates are decoded directly in the arrays of {@link PackedGeometry} instances,
+ * without creating an object for each point.
+ *
+ * <p>The envelope of the next geometry can be obtained with {@link #readEnvelope()} before deciding to
+ * {@linkplain #read() read} or {@linkplain #skip() skip} that geometry. If the geometry is encoded in
+ * <abbr>TWKB</abbr> format with a bounding box, only the header is read. Otherwise, the coordinates
+ * are decoded in internal arrays which are reused by the next call to {@code read()}.</p>
+ *
+ * <p>Both <abbr>ISO</abbr> and extended (<abbr>PostGIS</abbr>) <abbr>WKB</abbr> variants are supported.
+ * The <abbr>SRID</abbr> of extended <abbr>WKB</abbr> is ignored: all geometries are associated to the
+ * <abbr>CRS</abbr> given at construction time. Geometry collections are not supported.</p>
+ *
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class WKBReader {
+    /**
+     * Default capacity of the buffer when reading from a channel.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Maximal number of dimensions supported by the formats.
+     */
+    private static final int MAX_DIMENSION = 4;
+
+    /**
+     * The channel from which to read data, or {@code null} if all data are in the {@linkplain #buffer}.
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * The buffer from which to decode the geometries.
+     * When reading from a channel, this buffer is refilled and enlarged as needed.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Position in the buffer of the first byte of the current geometry.
+     * Bytes from this position are kept in the buffer when it is refilled,
+     * for allowing to read the geometry again after {@link #readEnvelope()}.
+     */
+    private int mark;
+
+    /**
+     * Number of bytes of the geometry decoded in the internal arrays, or -1 if none.
+     * If positive, the geometry starting at {@link #mark} has already been decoded.
+     */
+    private int decodedLength;
+
+    /**
+     * The <abbr>CRS</abbr> to assign to the geometries, or {@code null} if unspecified.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Whether the data are encoded in <abbr>TWKB</abbr> format instead of <abbr>WKB</abbr>.
+     */
+    private final boolean twkb;
+
+    /**
+     * Type of the geometry being decoded.
+     */
+    private PackedGeometry.Type type;
+
+    /**
+     * Number of dimensions of the geometry being decoded.
+     */
+    private int dimension;
+
+    /**
+     * Coordinate values of the geometry being decoded.
+     */
+    private double[] coordinates;
+
+    /**
+     * Offsets of sequences and parts of the geometry being decoded.
+     */
+    private int[] sequenceOffsets, partOffsets;
+
+    /**
+     * Number of valid elements in {@link #coordinates}, and number of sequences and parts.
+     */
+    private int numValues, numSequences, numParts;
+
+    /**
+     * For <abbr>TWKB</abbr> only: the previous quantized coordinate values, for delta decoding.
+     */
+    private final long[] previous;
+
+    /**
+     * For <abbr>TWKB</abbr> only: the divisors to apply on quantized values for each dimension.
+     */
+    private final double[] divisors;
+
+    /**
+     * Creates a reader for geometries in the given buffer.
+     * Geometries are read from the buffer position to the buffer limit.
+     *
+     * @param  source  the buffer from which to read geometries.
+     * @param  crs     the <abbr>CRS</abbr> to assign to the geometries, or {@code null} if unspecified.
+     * @param  twkb    {@code true} for the <abbr>TWKB</abbr> format, or {@code false} for <abbr>WKB</abbr>.
+     */
+    public WKBReader(final ByteBuffer source, final CoordinateReferenceSystem crs, final boolean twkb) {
+        this(null, source.slice(), crs, twkb);
+    }
+
+    /**
+     * Creates a reader for geometries in the given channel.
+     * Bytes are read from the channel only when needed.
+     *
+     * @param  source  the channel from which to read geometries.
+     * @param  crs     the <abbr>CRS</abbr> to assign to the geometries, or {@code null} if unspecified.
+     * @param  twkb    {@code true} for the <abbr>TWKB</abbr> format, or {@code false} for <abbr>WKB</abbr>.
+     */
+    public WKBReader(final ReadableByteChannel source, final CoordinateReferenceSystem crs, final boolean twkb) {
+        this(Objects.requireNonNull(source), ByteBuffer.allocate(BUFFER_SIZE).limit(0), crs, twkb);
+    }
+
+    /**
+     * Creates a new reader.
+     *
+     * @param  channel  the channel from which to read, or {@code null} if reading only the given buffer.
+     * @param  buffer   the buffer containing the bytes to decode.
+     * @param  crs      the coordinate reference system of the geometries, or {@code null}.
+     * @param  twkb     whether the geometries are in <abbr>TWKB</abbr> format instead of <abbr>WKB</abbr>.
+     */
+    private WKBReader(final ReadableByteChannel channel, final ByteBuffer buffer,
+                      final CoordinateReferenceSystem crs, final boolean twkb)
+    {
+        this.channel    = channel;
+        this.buffer     = buffer;
+        this.crs        = crs;
+        this.twkb       = twkb;
+        decodedLength   = -1;
+        coordinates     = new double[64];
+        sequenceOffsets = new int[16];
+        partOffsets     = new int[16];
+        previous        = new long[MAX_DIMENSION];
+        divisors        = new double[MAX_DIMENSION];
+    }
+
+    /**
+     * Ensures that the buffer contains at least the given number of remaining bytes.
+     * When reading from a channel, this method keeps the bytes of the current geometry
+     * and enlarges the buffer if needed.
+     *
+     * @param  n  the number of bytes required.
+     * @return whether the requested number of bytes is available.
+     * @throws IOException if an error occurred while reading from the channel.
+     */
+    private boolean fill(final int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return true;
+        }
+        if (channel == null) {
+            return false;
+        }
+        final ByteOrder order = buffer.order();
+        final int position = buffer.position() - mark;
+        buffer.position(mark).compact();
+        mark = 0;
+        if (buffer.capacity() < position + n) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, position + n));
+            buffer = larger.put(buffer.flip());
+        }
+        while (buffer.position() < position + n) {
+            if (channel.read(buffer) < 0) break;
+        }
+        buffer.flip().position(position);
+        buffer.order(order);
+        return buffer.remaining() >= n;
+    }
+
+    /**
+     * Ensures that the buffer contains at least the given number of remaining bytes.
+     *
+     * @param  n  the number of bytes required.
+     * @throws EOFException if the end of data is reached.
+     */
+    private void require(final int n) throws IOException {
+        if (!fill(n)) {
+            throw new EOFException("Unexpected end of geometry data.");
+        }
+    }
+
+    /**
+     * Returns whether there is at least one more geometry to read.
+     *
+     * @return whether there is more data.
+     * @throws IOException if an error occurred while reading from the channel.
+     */
+    public boolean hasNext() throws IOException {
+        if (decodedLength >= 0) {
+            return true;
+        }
+        mark = buffer.position();
+        return fill(1);
+    }
+
+    /**
+     * Returns the envelope of the next geometry without consuming it.
+     * The next call to {@link #read()} or {@link #skip()} will apply on the same geometry.
+     *
+     * @return envelope of the next geometry, or {@code null} if the geometry is empty.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    public SimpleEnvelope readEnvelope() throws IOException {
+        if (decodedLength < 0) {
+            mark = buffer.position();
+            if (twkb) {
+                final double[] bbox = readTWKB(true);
+                buffer.position(mark);
+                if (bbox != null) {
+                    return new SimpleEnvelope(
+                            new SimpleDirectPosition(crs, Arrays.copyOfRange(bbox, 0, dimension)),
+                            new SimpleDirectPosition(crs, Arrays.copyOfRange(bbox, dimension, 2*dimension)));
+                }
+            }
+            decode();
+        }
+        if (numValues == 0) {
+            return null;
+        }
+        final double[] lower = Arrays.copyOf(coordinates, dimension);
+        final double[] upper = lower.clone();
+        for (int i=dimension; i<numValues; i++) {
+            final int d = i % dimension;
+            final double value = coordinates[i];
+            if (!(value >= lower[d])) lower[d] = value;     // Also replace NaN by real values.
+            if (!(value <= upper[d])) upper[d] = value;
+        }
+        for (int d=0; d<dimension; d++) {
+            if (Double.isNaN(upper[d])) upper[d] = lower[d];
+            if (Double.isNaN(lower[d])) lower[d] = upper[d];
+        }
+        return new SimpleEnvelope(new SimpleDirectPosition(crs, lower), new SimpleDirectPosition(crs, upper));
+    }
+
+    /**
+     * Decodes the geometry starting at {@link #mark} in the internal arrays,
+     * then resets the buffer position to the mark.
+     *
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private void decode() throws IOException {
+        numValues = numSequences = numParts = 0;
+        if (twkb) {
+            readTWKB(false);
+        } else {
+            readWKB(null);
+        }
+        decodedLength = buffer.position() - mark;
+        buffer.position(mark);
+    }
+
+    /**
+     * Reads the next geometry.
+     *
+     * @return the next geometry.
+     * @throws EOFException if there are no more geometries.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    public PackedGeometry read() throws IOException {
+        skip();
+        return new PackedGeometry(type, crs, dimension,
+                Arrays.copyOf(coordinates, numValues),
+                Arrays.copyOf(sequenceOffsets, numSequences + 1),
+                Arrays.copyOf(partOffsets, numParts + 1));
+    }
+
+    /**
+     * Skips the next geometry.
+     *
+     * @throws EOFException if there are no more geometries.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    public void skip() throws IOException {
+        if (decodedLength < 0) {
+            mark = buffer.position();
+            decode();
+        }
+        buffer.position(mark + decodedLength);
+        decodedLength = -1;
+    }
+
+    /**
+     * Returns the geometry type for the given <abbr>WKB</abbr> or <abbr>TWKB</abbr> code.
+     *
+     * @param  code  the geometry type code, without dimension flags.
+     * @return the geometry type.
+     * @throws IOException if the code is not a supported geometry type.
+     */
+    private static PackedGeometry.Type type(final int code) throws IOException {
+        if (code >= 1 && code <= 6) {
+            return PackedGeometry.Type.values()[code - 1];
+        }
+        throw new IOException("Unsupported geometry type: " + code);
+    }
+
+    /**
+     * Ensures that the {@link #coordinates} array has room for the given number of additional values.
+     *
+     * @param  n  the number of values to add.
+     */
+    private void reserve(final int n) {
+        final int length = Math.addExact(numValues, n);
+        if (length > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, Math.max(coordinates.length * 2, length));
+        }
+    }
+
+    /**
+     * Marks the end of a sequence of points.
+     */
+    private void endSequence() {
+        if (numSequences + 2 > sequenceOffsets.length) {
+            sequenceOffsets = Arrays.copyOf(sequenceOffsets, sequenceOffsets.length * 2);
+        }
+        sequenceOffsets[++numSequences] = numValues / dimension;
+    }
+
+    /**
+     * Marks the end of a part.
+     */
+    private void endPart() {
+        if (numParts + 2 > partOffsets.length) {
+            partOffsets = Arrays.copyOf(partOffsets, partOffsets.length * 2);
+        }
+        partOffsets[++numParts] = numSequences;
+    }
+
+    /**
+     * Reads a <abbr>WKB</abbr> geometry with its header.
+     *
+     * @param  expected  the expected type for an element of a collection, or {@code null} for a top-level geometry.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private void readWKB(final PackedGeometry.Type expected) throws IOException {
+        require(Byte.BYTES + Integer.BYTES);
+        switch (buffer.get()) {
+            case 0:  buffer.order(ByteOrder.BIG_ENDIAN); break;
+            case 1:  buffer.order(ByteOrder.LITTLE_ENDIAN); break;
+            default: throw new IOException("Invalid byte order marker.");
+        }
+        int code = buffer.getInt();
+        int dim = 2;
+        if ((code & 0x80000000) != 0) dim++;                // Extended WKB with Z.
+        if ((code & 0x40000000) != 0) dim++;                // Extended WKB with M.
+        if ((code & 0x20000000) != 0) {                     // Extended WKB with SRID.
+            require(Integer.BYTES);
+            buffer.getInt();
+        }
+        code &= 0x0FFFFFFF;
+        switch (code / 1000) {
+            case 0:  break;
+            case 1:
+            case 2:  dim++; break;                          // ISO WKB with Z or M.
+            case 3:  dim += 2; break;                       // ISO WKB with Z and M.
+            default: throw new IOException("Unsupported geometry type: " + code);
+        }
+        final PackedGeometry.Type t = type(code % 1000);
+        if (expected == null) {
+            type = t;
+            dimension = dim;
+        } else if (t != expected || dim != dimension) {
+            throw new IOException("Inconsistent geometry in collection.");
+        }
+        switch (t) {
+            case POINT: {
+                readWKBPoints(1);
+                endSequence();
+                endPart();
+                break;
+            }
+            case LINE_STRING: {
+                readWKBPoints(readCount());
+                endSequence();
+                endPart();
+                break;
+            }
+            case POLYGON: {
+                for (int n = readCount(); --n >= 0;) {
+                    readWKBPoints(readCount());
+                    endSequence();
+                }
+                endPart();
+                break;
+            }
+            default: {
+                for (int n = readCount(); --n >= 0;) {
+                    readWKB(t.single());
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reads a <abbr>WKB</abbr> count of points, rings or parts.
+     *
+     * @return the count, which is never negative.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private int readCount() throws IOException {
+        require(Integer.BYTES);
+        final int n = buffer.getInt();
+        if (n < 0) {
+            throw new IOException("Invalid count: " + Integer.toUnsignedString(n));
+        }
+        return n;
+    }
+
+    /**
+     * Reads the given number of <abbr>WKB</abbr> points. Values are copied directly from
+     * the buffer to the {@link #coordinates} array in the largest possible chunks.
+     *
+     * @param  count  the number of points to read.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private void readWKBPoints(final int count) throws IOException {
+        int remaining = Math.multiplyExact(count, dimension);
+        reserve(remaining);
+        while (remaining > 0) {
+            require(Double.BYTES);
+            final int n = Math.min(remaining, buffer.remaining() / Double.BYTES);
+            buffer.asDoubleBuffer().get(coordinates, numValues, n);
+            buffer.position(buffer.position() + n * Double.BYTES);
+            numValues += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Reads a <abbr>TWKB</abbr> geometry.
+     *
+     * @param  headerOnly  whether to stop after the header.
+     * @return the bounding box as minimum values followed by maximum values, or {@code null} if none.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private double[] readTWKB(final boolean headerOnly) throws IOException {
+        final int header = readByte();
+        final PackedGeometry.Type t = type(header & 0x0F);
+        final int metadata = readByte();
+        dimension = 2;
+        divisors[0] = divisors[1] = Math.pow(10, zigzag(header >>> 4));
+        if ((metadata & 0x08) != 0) {                       // Extended precision.
+            final int extended = readByte();
+            if ((extended & 0x01) != 0) divisors[dimension++] = Math.pow(10, (extended >>> 2) & 7);
+            if ((extended & 0x02) != 0) divisors[dimension++] = Math.pow(10, (extended >>> 5) & 7);
+        }
+        type = t;
+        if ((metadata & 0x02) != 0) {
+            readVarint();                                   // Size in bytes, not needed.
+        }
+        double[] bbox = null;
+        if ((metadata & 0x01) != 0) {
+            bbox = new double[dimension * 2];
+            for (int d=0; d<dimension; d++) {
+                final long min = zigzag(readVarint());
+                bbox[d] = min / divisors[d];
+                bbox[d + dimension] = (min + zigzag(readVarint())) / divisors[d];
+            }
+        }
+        if (headerOnly) {
+            return bbox;
+        }
+        Arrays.fill(previous, 0);
+        if ((metadata & 0x10) != 0) {                       // Empty geometry.
+            if (t == PackedGeometry.Type.POINT) {
+                reserve(dimension);
+                Arrays.fill(coordinates, numValues, numValues += dimension, Double.NaN);
+            }
+            if (!t.isMulti()) {
+                if (t != PackedGeometry.Type.POLYGON) endSequence();
+                endPart();
+            }
+            return bbox;
+        }
+        if (!t.isMulti()) {
+            readTWKBPart(t);
+        } else {
+            final int n = readVarCount();
+            if ((metadata & 0x04) != 0) {                   // Identifiers, ignored.
+                for (int i=0; i<n; i++) readVarint();
+            }
+            for (int i=0; i<n; i++) {
+                readTWKBPart(t.single());
+            }
+        }
+        return bbox;
+    }
+
+    /**
+     * Reads the points of a single point, line string or polygon in <abbr>TWKB</abbr> format.
+     *
+     * @param  t  the type of the part to read.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private void readTWKBPart(final PackedGeometry.Type t) throws IOException {
+        switch (t) {
+            case POINT: {
+                readTWKBPoints(1);
+                endSequence();
+                break;
+            }
+            case LINE_STRING: {
+                readTWKBPoints(readVarCount());
+                endSequence();
+                break;
+            }
+            default: {
+                for (int n = readVarCount(); --n >= 0;) {
+                    readTWKBPoints(readVarCount());
+                    endSequence();
+                }
+                break;
+            }
+        }
+        endPart();
+    }
+
+    /**
+     * Reads the given number of <abbr>TWKB</abbr> points, as differences from the previous point.
+     *
+     * @param  count  the number of points to read.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private void readTWKBPoints(final int count) throws IOException {
+        reserve(Math.multiplyExact(count, dimension));
+        for (int i=0; i<count; i++) {
+            for (int d=0; d<dimension; d++) {
+                coordinates[numValues++] = (previous[d] += zigzag(readVarint())) / divisors[d];
+            }
+        }
+    }
+
+    /**
+     * Reads an unsigned byte.
+     *
+     * @return the byte value, from 0 to 255 inclusive.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private int readByte() throws IOException {
+        require(Byte.BYTES);
+        return Byte.toUnsignedInt(buffer.get());
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @return the decoded value.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer.");
+    }
+
+    /**
+     * Reads a variable-length count of points, rings or parts.
+     *
+     * @return the count, which is never negative.
+     * @throws IOException if an error occurred while reading or decoding the geometry.
+     */
+    private int readVarCount() throws IOException {
+        final long n = readVarint();
+        if (n > Integer.MAX_VALUE) {
+            throw new IOException("Invalid count: " + n);
+        }
+        return (int) n;
+    }
+
+    /**
+     * Decodes a signed integer encoded with the zigzag method.
+     *
+     * @param  value  the encoded value.
+     * @return the decoded value.
+     */
+    private static long zigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Decodes a signed integer encoded with the zigzag method.
+     *
+     * @param  value  the encoded value.
+     * @return the decoded value.
+     */
+    private static int zigzag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.BufferOverflowException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+
+/**
+ * Writes a sequence of geometries in Well-Known Binary (<abbr>WKB</abbr>)
+ * or Tiny Well-Known Binary (<abbr>TWKB</abbr>) format.
+ * The coordinates are written directly from the array of each {@link PackedGeometry},
+ * without creating an object for each point. In <abbr>WKB</abbr> format, the coordinates
+ * of each sequence of points are copied in the destination buffer with bulk operations.
+ *
+ * <p>The <abbr>WKB</abbr> variant is <abbr>ISO</abbr> 13249-3, with the byte order of the destination buffer.
+ * The third and fourth dimensions, if any, are written as <var>z</var> and <var>m</var> values.</p>
+ *
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class WKBWriter {
+    /**
+     * Capacity of the buffer when writing to a channel.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Maximal number of bytes written by a single write operation other than bulk copies.
+     */
+    private static final int MAX_ELEMENT_SIZE = 10;
+
+    /**
+     * The channel where to write data, or {@code null} if data are written only in the {@linkplain #buffer}.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * The buffer where to encode the geometries.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Whether to write in <abbr>TWKB</abbr> format instead of <abbr>WKB</abbr>.
+     */
+    private boolean twkb;
+
+    /**
+     * For <abbr>TWKB</abbr> only: number of decimal digits to keep.
+     */
+    private int precision;
+
+    /**
+     * For <abbr>TWKB</abbr> only: whether to write the bounding box of each geometry.
+     */
+    private boolean boundingBox;
+
+    /**
+     * For <abbr>TWKB</abbr> only: the previous quantized coordinate values, for delta encoding.
+     */
+    private final long[] previous;
+
+    /**
+     * Creates a writer which will encode geometries in the given buffer.
+     * Geometries are written from the buffer position.
+     *
+     * @param  target  the buffer where to write the geometries.
+     */
+    public WKBWriter(final ByteBuffer target) {
+        this(null, target);
+    }
+
+    /**
+     * Creates a writer which will encode geometries in the given channel.
+     * The geometries are buffered, so {@link #flush()} shall be invoked after the last geometry.
+     *
+     * @param  target  the channel where to write the geometries.
+     */
+    public WKBWriter(final WritableByteChannel target) {
+        this(Objects.requireNonNull(target), ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Creates a new writer.
+     *
+     * @param  channel  the channel where to write, or {@code null} if writing only in the given buffer.
+     * @param  buffer   the buffer where to write the bytes.
+     */
+    private WKBWriter(final WritableByteChannel channel, final ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer  = buffer;
+        previous = new long[4];
+    }
+
+    /**
+     * Sets this writer to the <abbr>TWKB</abbr> format with the given precision.
+     * The precision is the number of decimal digits to keep, and may be negative.
+     * The third and fourth dimensions use the same precision, clamped to the [0 … 7] range.
+     *
+     * @param  precision    number of decimal digits to keep, between -8 and 7 inclusive.
+     * @param  boundingBox  whether to write the bounding box of each geometry.
+     */
+    public void setTWKB(final int precision, final boolean boundingBox) {
+        if (precision < -8 || precision > 7) {
+            throw new IllegalArgumentException("Precision out of range: " + precision);
+        }
+        this.twkb        = true;
+        this.precision   = precision;
+        this.boundingBox = boundingBox;
+    }
+
+    /**
+     * Ensures that the buffer has room for at least the given number of bytes.
+     *
+     * @param  n  the number of bytes required.
+     * @throws BufferOverflowException if writing in a buffer without channel and there is not enough room.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void ensure(final int n) throws IOException {
+        if (buffer.remaining() < n) {
+            if (channel == null) {
+                throw new BufferOverflowException();
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel. This method does nothing if there is no channel.
+     *
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    public void flush() throws IOException {
+        if (channel != null) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes the given geometry.
+     *
+     * @param  geometry  the geometry to write.
+     * @throws IllegalArgumentException if the geometry does not have 2, 3 or 4 dimensions.
+     * @throws BufferOverflowException if writing in a buffer without channel and there is not enough room.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    public void write(final PackedGeometry geometry) throws IOException {
+        final int dimension = geometry.getDimension();
+        if (dimension < 2 || dimension > 4) {
+            throw new IllegalArgumentException("Unsupported number of dimensions: " + dimension);
+        }
+        if (twkb) {
+            writeTWKB(geometry);
+            return;
+        }
+        final PackedGeometry.Type type = geometry.getType();
+        if (!type.isMulti()) {
+            writeWKB(geometry, type, 0);
+        } else {
+            final int n = geometry.getPartCount();
+            writeHeader(type, dimension);
+            buffer.putInt(n);
+            for (int i=0; i<n; i++) {
+                writeWKB(geometry, type.single(), i);
+            }
+        }
+    }
+
+    /**
+     * Writes the <abbr>WKB</abbr> header followed by a count.
+     *
+     * @param  type       the geometry type.
+     * @param  dimension  the number of dimensions of the geometry.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void writeHeader(final PackedGeometry.Type type, final int dimension) throws IOException {
+        ensure(Byte.BYTES + 2*Integer.BYTES);
+        buffer.put((byte) (buffer.order() == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+        buffer.putInt(type.ordinal() + 1 + (dimension == 3 ? 1000 : dimension == 4 ? 3000 : 0));
+    }
+
+    /**
+     * Writes a single part of the given geometry in <abbr>WKB</abbr> format.
+     *
+     * @param  geometry  the geometry to write.
+     * @param  type      the type of the part.
+     * @param  part      index of the part to write.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void writeWKB(final PackedGeometry geometry, final PackedGeometry.Type type, final int part)
+            throws IOException
+    {
+        writeHeader(type, geometry.getDimension());
+        final int first = geometry.getFirstSequence(part);
+        final int last  = geometry.getFirstSequence(part + 1);
+        switch (type) {
+            case POINT: {
+                writeWKBPoints(geometry, first);
+                break;
+            }
+            case LINE_STRING: {
+                buffer.putInt(geometry.getFirstPoint(first + 1) - geometry.getFirstPoint(first));
+                writeWKBPoints(geometry, first);
+                break;
+            }
+            default: {
+                buffer.putInt(last - first);
+                for (int i=first; i<last; i++) {
+                    ensure(Integer.BYTES);
+                    buffer.putInt(geometry.getFirstPoint(i + 1) - geometry.getFirstPoint(i));
+                    writeWKBPoints(geometry, i);
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Copies the coordinates of the given sequence in the buffer with bulk operations.
+     *
+     * @param  geometry  the geometry to write.
+     * @param  sequence  index of the sequence of points to write.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void writeWKBPoints(final PackedGeometry geometry, final int sequence) throws IOException {
+        final int dimension = geometry.getDimension();
+        final double[] coordinates = geometry.coordinates();
+        int offset = geometry.getFirstPoint(sequence) * dimension;
+        int remaining = geometry.getFirstPoint(sequence + 1) * dimension - offset;
+        while (remaining > 0) {
+            ensure(Double.BYTES);
+            final int n = Math.min(remaining, buffer.remaining() / Double.BYTES);
+            buffer.asDoubleBuffer().put(coordinates, offset, n);
+            buffer.position(buffer.position() + n * Double.BYTES);
+            offset    += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Writes the given geometry in <abbr>TWKB</abbr> format.
+     *
+     * @param  geometry  the geometry to write.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void writeTWKB(final PackedGeometry geometry) throws IOException {
+        final PackedGeometry.Type type = geometry.getType();
+        final int dimension = geometry.getDimension();
+        final double[] coordinates = geometry.coordinates();
+        final double[] scales = new double[dimension];
+        final int extraPrecision = Math.max(0, Math.min(7, precision));
+        for (int d=0; d<dimension; d++) {
+            scales[d] = Math.pow(10, d < 2 ? precision : extraPrecision);
+        }
+        boolean empty = geometry.getPointCount() == 0;
+        if (type == PackedGeometry.Type.POINT && Double.isNaN(coordinates[0])) {
+            empty = true;
+        }
+        ensure(3);
+        buffer.put((byte) (type.ordinal() + 1 | ((precision << 1) ^ (precision >> 31)) << 4));
+        buffer.put((byte) ((boundingBox && !empty ? 0x01 : 0) | (dimension > 2 ? 0x08 : 0) | (empty ? 0x10 : 0)));
+        if (dimension > 2) {
+            buffer.put((byte) ((dimension == 3 ? 0x01 : 0x03) | extraPrecision << 2 | (dimension == 4 ? extraPrecision << 5 : 0)));
+        }
+        if (empty) {
+            return;
+        }
+        if (boundingBox) {
+            final long[] min = new long[dimension];
+            final long[] max = new long[dimension];
+            for (int i=0; i<coordinates.length; i++) {
+                final int d = i % dimension;
+                final long q = Math.round(coordinates[i] * scales[d]);
+                if (i < dimension || q < min[d]) min[d] = q;
+                if (i < dimension || q > max[d]) max[d] = q;
+            }
+            for (int d=0; d<dimension; d++) {
+                writeSigned(min[d]);
+                writeSigned(max[d] - min[d]);
+            }
+        }
+        Arrays.fill(previous, 0);
+        if (!type.isMulti()) {
+            writeTWKBPart(geometry, type, 0, scales);
+        } else {
+            final int n = geometry.getPartCount();
+            writeVarint(n);
+            for (int i=0; i<n; i++) {
+                writeTWKBPart(geometry, type.single(), i, scales);
+            }
+        }
+    }
+
+    /**
+     * Writes a single part of the given geometry in <abbr>TWKB</abbr> format.
+     *
+     * @param  geometry  the geometry to write.
+     * @param  type      the type of the part.
+     * @param  part      index of the part to write.
+     * @param  scales    the scale factors by which to multiply coordinates before rounding.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void writeTWKBPart(final PackedGeometry geometry, final PackedGeometry.Type type, final int part,
+                               final double[] scales) throws IOException
+    {
+        final int first = geometry.getFirstSequence(part);
+        final int last  = geometry.getFirstSequence(part + 1);
+        if (type == PackedGeometry.Type.POLYGON) {
+            writeVarint(last - first);
+        }
+        for (int i=first; i<last; i++) {
+            final int start = geometry.getFirstPoint(i);
+            final int end   = geometry.getFirstPoint(i + 1);
+            if (type != PackedGeometry.Type.POINT) {
+                writeVarint(end - start);
+            }
+            final double[] coordinates = geometry.coordinates();
+            for (int j = start * scales.length; j < end * scales.length; j++) {
+                final int d = j % scales.length;
+                final long q = Math.round(coordinates[j] * scales[d]);
+                writeSigned(q - previous[d]);
+                previous[d] = q;
+            }
+        }
+    }
+
+    /**
+     * Writes an unsigned variable-length integer.
+     *
+     * @param  value  the value to write.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void writeVarint(long value) throws IOException {
+        ensure(MAX_ELEMENT_SIZE);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a signed variable-length integer encoded with the zigzag method.
+     *
+     * @param  value  the value to write.
+     * @throws IOException if an error occurred while writing to the channel.
+     */
+    private void writeSigned(final long value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.metadata;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+
+
+/**
+ * Many geographic bounding boxes stored in columns of primitive values.
+ * The west, east, south and north bounds are stored in four separated arrays, so that operations
+ * on all boxes are loops over arrays of primitive values, which the compiler can vectorize.
+ * Boxes having a west bound greater than the east bound are crossing the anti-meridian.
+ * Selections are returned as {@link BitSet}, where bit <var>i</var> is the result for the box at index <var>i</var>.
+ *
+ * <p>All bounds are in decimal degrees, with longitudes between -180° and +180°.
+ * Operations on a large number of boxes are executed in parallel.
+ * Instances of this class are thread-safe if the arrays are not modified.</p>
+ */
+public final class GeographicBoundingBoxArray {
+    /**
+     * Minimal number of boxes for executing operations in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 100_000;
+
+    /**
+     * The bounds of all boxes, in decimal degrees.
+     */
+    private final double[] west, east, south, north;
+
+    /**
+     * Creates an array of boxes wrapping the given columns. The arrays are <strong>not</strong> cloned.
+     *
+     * @param  west   the western-most longitude of each box.
+     * @param  east   the eastern-most longitude of each box.
+     * @param  south  the southern-most latitude of each box.
+     * @param  north  the northern-most latitude of each box.
+     * @throws IllegalArgumentException if the arrays do not have the same length.
+     */
+    public GeographicBoundingBoxArray(final double[] west, final double[] east, final double[] south, final double[] north) {
+        if (east.length != west.length || south.length != west.length || north.length != west.length) {
+            throw new IllegalArgumentException("All arrays shall have the same length.");
+        }
+        this.west  = west;
+        this.east  = east;
+        this.south = south;
+        this.north = north;
+    }
+
+    /**
+     * Creates an array of boxes with the bounds of the given geographic bounding boxes.
+     *
+     * @param  boxes  the boxes to copy.
+     * @return the bounds of the given boxes, in iteration order.
+     */
+    public static GeographicBoundingBoxArray of(final Collection<? extends GeographicBoundingBox> boxes) {
+        final int n = boxes.size();
+        final var array = new GeographicBoundingBoxArray(new double[n], new double[n], new double[n], new double[n]);
+        int i = 0;
+        for (final GeographicBoundingBox box : boxes) {
+            array.west [i] = box.getWestBoundLongitude();
+            array.east [i] = box.getEastBoundLongitude();
+            array.south[i] = box.getSouthBoundLatitude();
+            array.north[i] = box.getNorthBoundLatitude();
+            i++;
+        }
+        return array;
+    }
+
+    /**
+     * Returns the number of boxes.
+     *
+     * @return number of boxes.
+     */
+    public int size() {
+        return west.length;
+    }
+
+    /**
+     * Returns the eastern bound of the given box, with 360° added if the box crosses the anti-meridian.
+     * The result is always greater than or equal to the western bound.
+     *
+     * @param  west  the western bound of the box.
+     * @param  east  the eastern bound of the box.
+     * @return the eastern bound, unwrapped if needed.
+     */
+    private static double unwrap(final double west, final double east) {
+        return (west > east) ? east + 360 : east;
+    }
+
+    /**
+     * Computes the bitset words by applying the given function on each block of 64 boxes.
+     * Each word is computed independently, in parallel if the number of boxes is large.
+     *
+     * @param  word  the function computing the word of 64 bits for the block starting at the given box index.
+     * @return the bitset of all selected boxes.
+     */
+    private BitSet select(final IntToLongFunction word) {
+        IntStream indices = IntStream.range(0, (west.length + Long.SIZE - 1) / Long.SIZE);
+        if (west.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        final long[] words = new long[(west.length + Long.SIZE - 1) / Long.SIZE];
+        indices.forEach((w) -> words[w] = word.applyAsLong(w * Long.SIZE));
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Returns the boxes intersecting the given box. Boxes touching only by their borders are considered
+     * intersecting. The given box and the boxes of this array may cross the anti-meridian.
+     *
+     * @param  query  the box to test for intersection.
+     * @return the boxes intersecting the given box.
+     */
+    public BitSet intersects(final GeographicBoundingBox query) {
+        final double qw = query.getWestBoundLongitude();
+        final double qe = unwrap(qw, query.getEastBoundLongitude());
+        final double qs = query.getSouthBoundLatitude();
+        final double qn = query.getNorthBoundLatitude();
+        return select((start) -> {
+            final int end = Math.min(start + Long.SIZE, west.length);
+            long bits = 0;
+            for (int i=start; i<end; i++) {
+                final double w = west[i];
+                final double e = unwrap(w, east[i]);
+                /*
+                 * Unwrapped intervals are in the [-180 … 540] range. They intersect
+                 * if they overlap directly or after a shift of 360° of one of them.
+                 */
+                final boolean lon = (qw <= e & w <= qe) | (qw + 360 <= e) | (w + 360 <= qe);
+                final boolean lat = (south[i] <= qn) & (north[i] >= qs);
+                bits |= ((lon & lat) ? 1L : 0L) << (i - start);
+            }
+            return bits;
+        });
+    }
+
+    /**
+     * Returns the boxes fully containing the given box.
+     *
+     * @param  query  the box which must be inside the selected boxes.
+     * @return the boxes containing the given box.
+     */
+    public BitSet contains(final GeographicBoundingBox query) {
+        final double qw = query.getWestBoundLongitude();
+        final double qe = unwrap(qw, query.getEastBoundLongitude());
+        final double qs = query.getSouthBoundLatitude();
+        final double qn = query.getNorthBoundLatitude();
+        return select((start) -> {
+            final int end = Math.min(start + Long.SIZE, west.length);
+            long bits = 0;
+            for (int i=start; i<end; i++) {
+                final double w = west[i];
+                final double e = unwrap(w, east[i]);
+                final boolean lon = (e - w >= 360) | (w <= qw & qe <= e) | (w <= qw + 360 & qe + 360 <= e);
+                final boolean lat = (south[i] <= qs) & (north[i] >= qn);
+                bits |= ((lon & lat) ? 1L : 0L) << (i - start);
+            }
+            return bits;
+        });
+    }
+
+    /**
+     * Returns the boxes fully inside the given box.
+     *
+     * @param  query  the box which must contain the selected boxes.
+     * @return the boxes inside the given box.
+     */
+    public BitSet within(final GeographicBoundingBox query) {
+        final double qw = query.getWestBoundLongitude();
+        final double qe = unwrap(qw, query.getEastBoundLongitude());
+        final double qs = query.getSouthBoundLatitude();
+        final double qn = query.getNorthBoundLatitude();
+        final boolean world = (qe - qw >= 360);
+        return select((start) -> {
+            final int end = Math.min(start + Long.SIZE, west.length);
+            long bits = 0;
+            for (int i=start; i<end; i++) {
+                final double w = west[i];
+                final double e = unwrap(w, east[i]);
+                final boolean lon = world | (qw <= w & e <= qe) | (qw <= w + 360 & e + 360 <= qe);
+                final boolean lat = (south[i] >= qs) & (north[i] <= qn);
+                bits |= ((lon & lat) ? 1L : 0L) << (i - start);
+            }
+            return bits;
+        });
+    }
+
+    /**
+     * Returns the area of each box on a sphere of the given radius.
+     * The area of a box is <var>R</var>²⋅Δλ⋅(sin φ<sub>north</sub> − sin φ<sub>south</sub>).
+     *
+     * @param  radius  radius of the sphere, for example the authalic radius of an ellipsoid.
+     * @return area of each box, in units of the square of the radius unit.
+     */
+    public double[] area(final double radius) {
+        final double r2 = radius * radius;
+        final double[] area = new double[west.length];
+        IntStream blocks = IntStream.range(0, (west.length + 4095) / 4096);
+        if (west.length >= PARALLEL_THRESHOLD) {
+            blocks = blocks.parallel();
+        }
+        blocks.forEach((b) -> {
+            final int end = Math.min((b + 1) * 4096, west.length);
+            for (int i = b * 4096; i < end; i++) {
+                final double w = west[i];
+                final double e = unwrap(w, east[i]);
+                area[i] = r2 * Math.toRadians(e - w) * (Math.sin(Math.toRadians(north[i])) - Math.sin(Math.toRadians(south[i])));
+            }
+        });
+        return area;
+    }
+
+    /**
+     * Returns the smallest box containing all selected boxes.
+     * If the smallest box crosses the anti-meridian, then the returned west bound is greater than the east bound.
+     *
+     * @param  selection  the boxes to include in the union, or {@code null} for all boxes.
+     * @return the union as (west, east, south, north) bounds in decimal degrees, or {@code null} if the selection is empty.
+     */
+    public double[] union(BitSet selection) {
+        if (selection == null) {
+            selection = new BitSet(west.length);
+            selection.set(0, west.length);
+        }
+        /*
+         * Collect longitude intervals, with intervals crossing the anti-meridian split in two parts.
+         */
+        double s = Double.POSITIVE_INFINITY;
+        double n = Double.NEGATIVE_INFINITY;
+        final double[] lows  = new double[selection.cardinality() * 2];
+        final double[] highs = new double[lows.length];
+        int count = 0;
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            s = Math.min(s, south[i]);
+            n = Math.max(n, north[i]);
+            final double w = west[i];
+            final double e = east[i];
+            if (w > e) {
+                lows[count] = w;    highs[count++] = 180;
+                lows[count] = -180; highs[count++] = e;
+            } else {
+                lows[count] = w;    highs[count++] = e;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        /*
+         * Sort the west bounds and the east bounds independently. A longitude between the k-1 smallest east bound
+         * and the k smallest west bound is covered by no interval when the former is less than the latter,
+         * so the positive gaps are the same as the gaps between merged intervals sorted by west bound.
+         * Find the largest gap, including the gap crossing the anti-meridian. The union is the complement
+         * of the largest gap.
+         */
+        Arrays.sort(lows,  0, count);
+        Arrays.sort(highs, 0, count);
+        final double first = lows[0];
+        final double reach = highs[count - 1];
+        double gap = Double.NEGATIVE_INFINITY, gapStart = Double.NaN, gapEnd = Double.NaN;
+        for (int k=1; k<count; k++) {
+            final double w = lows[k];
+            if (w - highs[k-1] > gap) {
+                gap      = w - highs[k-1];
+                gapStart = highs[k-1];
+                gapEnd   = w;
+            }
+        }
+        final double wrapGap = (first + 360) - reach;
+        if (wrapGap >= gap || !(gap > 0)) {
+            if (wrapGap <= 0) {
+                return new double[] {-180, 180, s, n};
+            }
+            return new double[] {first, reach, s, n};
+        }
+        return new double[] {gapEnd, gapStart, s, n};
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Map;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.time.temporal.Temporal;
+import java.time.temporal.ChronoField;
+import javax.measure.Unit;
+import javax.measure.Dimension;
+import javax.measure.Quantity;
+import org.opengis.util.CodeList;
+import org.opengis.parameter.ParameterValue;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.parameter.GeneralParameterValue;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.crs.CompoundCRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.DerivedCRS;
+import org.opengis.referencing.crs.EngineeringCRS;
+import org.opengis.referencing.crs.GeodeticCRS;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ParametricCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.crs.SingleCRS;
+import org.opengis.referencing.crs.TemporalCRS;
+import org.opengis.referencing.crs.VerticalCRS;
+import org.opengis.referencing.datum.Datum;
+import org.opengis.referencing.datum.DatumEnsemble;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.GeodeticDatum;
+import org.opengis.referencing.datum.PrimeMeridian;
+import org.opengis.referencing.datum.TemporalDatum;
+import org.opengis.referencing.datum.VerticalDatum;
+import org.opengis.referencing.operation.Conversion;
+
+
+/**
+ * Computes a numeric fingerprint of a coordinate reference system which ignores metadata.
+ * Names, identifiers, aliases, domains of validity and remarks are ignored. Only the properties
+ * which have an impact on coordinate values are taken in account:
+ *
+ * <ul>
+ *   <li>The kind of <abbr>CRS</abbr> (geographic, projected, vertical, <i>etc.</i>).</li>
+ *   <li>The ellipsoid axis lengths and the prime meridian longitude of geodetic reference frames.</li>
+ *   <li>The direction and unit of measurement of each coordinate system axis.</li>
+ *   <li>The base <abbr>CRS</abbr>, the operation method and the parameter values of derived <abbr>CRS</abbr>.</li>
+ *   <li>The components of compound <abbr>CRS</abbr>, in order.</li>
+ * </ul>
+ *
+ * Numerical values are converted to <abbr>SI</abbr> units, then rounded to a relative tolerance before to be hashed.
+ * Consequently, two <abbr>CRS</abbr> having the same definition except for rounding errors smaller than the tolerance
+ * will usually have the same fingerprint. However, a value which is very close to a rounding boundary may still be
+ * rounded differently than a nearly equal value. Users should consider fingerprints as a fast way to find candidates,
+ * not as a proof of equivalence.
+ *
+ * <p>Fingerprints are computed only from values such as numbers, normalized strings and code names,
+ * never from identity hash codes or from {@code hashCode()} methods of arbitrary objects.
+ * Consequently, the fingerprint of a given <abbr>CRS</abbr> is the same in all executions,
+ * which allows to save fingerprints in a file.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ *
+ * @see CRSIdentificationIndex
+ */
+public final class CRSFingerprint {
+    /**
+     * A fingerprint calculator with a relative tolerance of 10⁻⁹.
+     */
+    public static final CRSFingerprint DEFAULT = new CRSFingerprint(1E-9);
+
+    /**
+     * Multiplication factor used for mixing hash codes. This is the 64 bits golden ratio.
+     */
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The relative tolerance, as given to the constructor.
+     */
+    private final double tolerance;
+
+    /**
+     * The value of {@code log(1 + tolerance)}, used for rounding values in a logarithmic scale.
+     */
+    private final double logStep;
+
+    /**
+     * Creates a new fingerprint calculator for the given relative tolerance.
+     * Values smaller (in absolute value) than the tolerance are considered equal to zero.
+     *
+     * @param  tolerance  the relative tolerance, as a small strictly positive number such as 10⁻⁹.
+     * @throws IllegalArgumentException if the given tolerance is not strictly positive and lower than 1.
+     */
+    public CRSFingerprint(final double tolerance) {
+        if (!(tolerance > 0 && tolerance < 1)) {
+            throw new IllegalArgumentException("Illegal tolerance: " + tolerance);
+        }
+        this.tolerance = tolerance;
+        this.logStep   = Math.log1p(tolerance);
+    }
+
+    /**
+     * Returns the relative tolerance used by this fingerprint calculator.
+     *
+     * @return the relative tolerance.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Computes the fingerprint of the given coordinate reference system.
+     *
+     * @param  crs  the coordinate reference system for which to compute a fingerprint.
+     * @return a fingerprint of the given <abbr>CRS</abbr>, ignoring metadata.
+     */
+    public long compute(final CoordinateReferenceSystem crs) {
+        return finish(hash(crs, 1));
+    }
+
+    /**
+     * Returns the given value mixed with the given hash code.
+     *
+     * @param  hash   the hash code to update.
+     * @param  value  the value to mix with the hash code.
+     * @return the updated hash code.
+     */
+    private static long mix(final long hash, final long value) {
+        return (hash ^ value) * MIX + 1;
+    }
+
+    /**
+     * Applies a final avalanche on the given hash code,
+     * in order to spread the bits of small differences.
+     *
+     * @param  h  the hash code to finish.
+     * @return the hash code with bits spread.
+     */
+    private static long finish(long h) {
+        h ^= (h >>> 33); h *= 0xFF51AFD7ED558CCDL;
+        h ^= (h >>> 33); h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Returns the given value rounded to the relative tolerance, as an integer.
+     * The rounding is done in a logarithmic scale, with values close to zero snapped to zero.
+     *
+     * @param  value  the value to round.
+     * @return an integer identifying the rounded value.
+     */
+    private long round(final double value) {
+        if (Double.isNaN(value)) return 0x7FF8000000000000L;
+        if (Double.isInfinite(value)) return (value > 0) ? Long.MAX_VALUE : Long.MIN_VALUE;
+        final double abs = Math.abs(value);
+        if (abs <= tolerance) return 0;
+        final long bucket = Math.round(Math.log(abs) / logStep) * 2 + 1;
+        return (value < 0) ? -bucket : bucket;
+    }
+
+    /**
+     * Returns a value identifying the given code list element.
+     *
+     * @param  code  the code list element, or {@code null}.
+     * @return a value identifying the code list element.
+     */
+    private static long hash(final CodeList<?> code) {
+        return (code != null) ? code.name().hashCode() : 0;
+    }
+
+    /**
+     * Converts the given value from the given unit to the corresponding <abbr>SI</abbr> unit.
+     *
+     * @param  <Q>    the kind of quantity.
+     * @param  unit   the unit of the value to convert.
+     * @param  value  the value to convert.
+     * @return the value in <abbr>SI</abbr> unit.
+     */
+    private static <Q extends Quantity<Q>> double toSystemUnit(final Unit<Q> unit, final double value) {
+        return unit.getConverterTo(unit.getSystemUnit()).convert(value);
+    }
+
+    /**
+     * Returns a value identifying the given unit of measurement, ignoring its name and symbol.
+     *
+     * @param  unit  the unit of measurement, or {@code null}.
+     * @return a value identifying the unit.
+     */
+    private long hash(final Unit<?> unit) {
+        if (unit == null) return 0;
+        return mix(hash(unit.getSystemUnit().getDimension()), round(toSystemUnit(unit, 1)));
+    }
+
+    /**
+     * Returns a value identifying the given dimension, computed from the symbols and exponents
+     * of its base dimensions. This value does not depend on the implementation of {@code hashCode()}.
+     *
+     * @param  dimension  the dimension of a unit of measurement.
+     * @return a value identifying the dimension.
+     */
+    private static long hash(final Dimension dimension) {
+        final Map<? extends Dimension, Integer> bases = dimension.getBaseDimensions();
+        if (bases == null) {
+            return dimension.toString().hashCode();             // Base dimension.
+        }
+        final long[] codes = new long[bases.size()];
+        int i = 0;
+        for (final Map.Entry<? extends Dimension, Integer> entry : bases.entrySet()) {
+            codes[i++] = mix(hash(entry.getKey()), entry.getValue());
+        }
+        return combine(codes);
+    }
+
+    /**
+     * Returns a value computed from the given codes, independently of their order.
+     * This method sorts the given array in-place.
+     *
+     * @param  codes  the codes to combine.
+     * @return a value computed from all codes.
+     */
+    private static long combine(final long[] codes) {
+        Arrays.sort(codes);
+        long h = codes.length;
+        for (final long code : codes) {
+            h = mix(h, code);
+        }
+        return h;
+    }
+
+    /**
+     * Mixes the fingerprint of the given <abbr>CRS</abbr> into the given hash code.
+     *
+     * @param  crs  the <abbr>CRS</abbr> to hash, or {@code null}.
+     * @param  h    the hash code to update.
+     * @return the updated hash code.
+     */
+    private long hash(final CoordinateReferenceSystem crs, long h) {
+        if (crs == null) {
+            return mix(h, 0);
+        }
+        if (crs instanceof CompoundCRS) {
+            h = mix(h, 'C');
+            for (final CoordinateReferenceSystem component : ((CompoundCRS) crs).getComponents()) {
+                h = hash(component, h);
+            }
+            return h;
+        }
+        h = mix(h, kind(crs));
+        if (crs instanceof DerivedCRS) {
+            final DerivedCRS derived = (DerivedCRS) crs;
+            h = hash(derived.getBaseCRS(), h);
+            h = hash(derived.getConversionFromBase(), h);
+        } else if (crs instanceof SingleCRS) {
+            final SingleCRS single = (SingleCRS) crs;
+            Datum datum = single.getDatum();
+            if (datum == null) {
+                final DatumEnsemble<?> ensemble = single.getDatumEnsemble();
+                if (ensemble != null) {
+                    final Iterator<? extends Datum> it = ensemble.getMembers().iterator();
+                    if (it.hasNext()) datum = it.next();
+                }
+            }
+            h = hash(datum, h);
+        }
+        return hash(crs.getCoordinateSystem(), h);
+    }
+
+    /**
+     * Returns a code identifying the kind of the given <abbr>CRS</abbr>.
+     * The order of {@code instanceof} checks matter, since sub-types shall be tested first.
+     *
+     * @param  crs  the <abbr>CRS</abbr> for which to get the kind.
+     * @return a code identifying the kind of <abbr>CRS</abbr>.
+     */
+    private static long kind(final CoordinateReferenceSystem crs) {
+        if (crs instanceof ProjectedCRS)  return 'P';
+        if (crs instanceof DerivedCRS)    return 'D';
+        if (crs instanceof GeographicCRS) return 'G';
+        if (crs instanceof GeodeticCRS)   return 'X';
+        if (crs instanceof VerticalCRS)   return 'V';
+        if (crs instanceof TemporalCRS)   return 'T';
+        if (crs instanceof ParametricCRS) return 'R';
+        if (crs instanceof EngineeringCRS) return 'E';
+        return '?';
+    }
+
+    /**
+     * Mixes the fingerprint of the given datum into the given hash code.
+     * Only geodetic and temporal datum have numerical properties.
+     *
+     * @param  datum  the datum to hash, or {@code null}.
+     * @param  h      the hash code to update.
+     * @return the updated hash code.
+     */
+    private long hash(final Datum datum, long h) {
+        if (datum instanceof GeodeticDatum) {
+            final GeodeticDatum gd = (GeodeticDatum) datum;
+            final Ellipsoid ellipsoid = gd.getEllipsoid();
+            if (ellipsoid != null) {
+                final Unit<?> unit = ellipsoid.getAxisUnit();
+                double a = ellipsoid.getSemiMajorAxis();
+                double b = ellipsoid.getSemiMinorAxis();
+                if (unit != null) {
+                    a = toSystemUnit(unit, a);
+                    b = toSystemUnit(unit, b);
+                }
+                h = mix(mix(h, round(a)), round(b));
+            }
+            final PrimeMeridian pm = gd.getPrimeMeridian();
+            if (pm != null) {
+                double longitude = pm.getGreenwichLongitude();
+                final Unit<?> unit = pm.getAngularUnit();
+                if (unit != null) longitude = toSystemUnit(unit, longitude);
+                h = mix(h, round(longitude));
+            }
+        } else if (datum instanceof TemporalDatum) {
+            final Temporal origin = ((TemporalDatum) datum).getOrigin();
+            if (origin != null && origin.isSupported(ChronoField.INSTANT_SECONDS)) {
+                h = mix(h, origin.getLong(ChronoField.INSTANT_SECONDS));
+                if (origin.isSupported(ChronoField.NANO_OF_SECOND)) {
+                    h = mix(h, origin.getLong(ChronoField.NANO_OF_SECOND));
+                }
+            } else {
+                h = mix(h, Objects.toString(origin, "").hashCode());
+            }
+        } else if (datum instanceof VerticalDatum) {
+            h = mix(h, hash(((VerticalDatum) datum).getRealizationMethod().orElse(null)));
+        }
+        return h;
+    }
+
+    /**
+     * Mixes the fingerprint of the given coordinate system into the given hash code.
+     * Axis order matter, but axis names and abbreviations are ignored.
+     *
+     * @param  cs  the coordinate system to hash, or {@code null}.
+     * @param  h   the hash code to update.
+     * @return the updated hash code.
+     */
+    private long hash(final CoordinateSystem cs, long h) {
+        if (cs != null) {
+            final int dimension = cs.getDimension();
+            h = mix(h, dimension);
+            for (int i=0; i<dimension; i++) {
+                final CoordinateSystemAxis axis = cs.getAxis(i);
+                h = mix(mix(h, hash(axis.getDirection())), hash(axis.getUnit()));
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Mixes the fingerprint of the given conversion into the given hash code.
+     * The method is identified by its name, ignoring case and punctuation.
+     * Parameters are sorted by name for making the result independent of parameter order.
+     *
+     * @param  conversion  the conversion to hash, or {@code null}.
+     * @param  h           the hash code to update.
+     * @return the updated hash code.
+     */
+    private long hash(final Conversion conversion, long h) {
+        if (conversion == null) {
+            return mix(h, 0);
+        }
+        final var method = conversion.getMethod();
+        if (method != null) {
+            h = mix(h, normalize(method.getName().getCode()).hashCode());
+        }
+        final ParameterValueGroup parameters = conversion.getParameterValues();
+        if (parameters != null) {
+            h = mix(h, hash(parameters));
+        }
+        return h;
+    }
+
+    /**
+     * Computes a hash code of the given group of parameters, independently of parameter order.
+     *
+     * @param  group  the parameters to hash.
+     * @return a hash code of the parameters.
+     */
+    private long hash(final ParameterValueGroup group) {
+        final var values = group.values();
+        final long[] codes = new long[values.size()];
+        for (int i=0; i<codes.length; i++) {
+            final GeneralParameterValue param = values.get(i);
+            long h = normalize(param.getDescriptor().getName().getCode()).hashCode();
+            if (param instanceof ParameterValueGroup) {
+                h = mix(h, hash((ParameterValueGroup) param));
+            } else if (param instanceof ParameterValue<?>) {
+                final ParameterValue<?> pv = (ParameterValue<?>) param;
+                final Object value = pv.getValue();
+                if (value instanceof Number) {
+                    double v = ((Number) value).doubleValue();
+                    final Unit<?> unit = pv.getUnit();
+                    if (unit != null) v = toSystemUnit(unit, v);
+                    h = mix(h, round(v));
+                } else {
+                    h = mix(h, hashValue(value));
+                }
+            }
+            codes[i] = h;
+        }
+        return combine(codes);
+    }
+
+    /**
+     * Returns a value identifying the given non-numerical parameter value.
+     * Arrays are hashed element by element, code lists and enumerations by name,
+     * and other objects by their string representation.
+     *
+     * @param  value  the parameter value, or {@code null}.
+     * @return a value identifying the parameter value.
+     */
+    private long hashValue(final Object value) {
+        if (value == null) {
+            return 0;
+        }
+        long h = 1;
+        if (value instanceof double[]) {
+            for (final double v : (double[]) value) h = mix(h, round(v));
+        } else if (value instanceof int[]) {
+            for (final int v : (int[]) value) h = mix(h, v);
+        } else if (value instanceof Object[]) {
+            for (final Object v : (Object[]) value) h = mix(h, hashValue(v));
+        } else if (value instanceof Number) {
+            h = round(((Number) value).doubleValue());
+        } else if (value instanceof CodeList<?>) {
+            h = hash((CodeList<?>) value);
+        } else if (value instanceof Enum<?>) {
+            h = ((Enum<?>) value).name().hashCode();
+        } else {
+            h = value.toString().hashCode();
+        }
+        return h;
+    }
+
+    /**
+     * Returns the given name in lower cases without spaces, punctuation or other non-alphanumeric characters.
+     *
+     * @param  name  the name to normalize, or {@code null}.
+     * @return the normalized name.
+     */
+    private static String normalize(final String name) {
+        if (name == null) return "";
+        final StringBuilder buffer = new StringBuilder(name.length());
+        name.codePoints().filter(Character::isLetterOrDigit).map(Character::toLowerCase).forEach(buffer::appendCodePoint);
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.LinkedHashSet;
+import java.util.Collections;
+import org.opengis.util.FactoryException;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * An index from {@linkplain CRSFingerprint fingerprints} to the authority codes of a factory.
+ * This index allows to find the authority code of a coordinate reference system parsed from a file
+ * by a hash lookup, instead of creating and comparing every <abbr>CRS</abbr> known to the factory.
+ *
+ * <p>The index is built once by creating all coordinate reference systems declared by
+ * {@link CRSAuthorityFactory#getAuthorityCodes(Class)}. This is a costly operation,
+ * which is why {@link #forFactory(CRSAuthorityFactory)} caches the index for each factory.
+ * The index can also be {@linkplain #write(OutputStream) saved} to a file and {@linkplain #read(InputStream)
+ * loaded} in a later execution, for example with {@link #forFactory(CRSAuthorityFactory, Path)}.
+ * Codes for which the <abbr>CRS</abbr> cannot be created are silently excluded from the index.
+ * The file records the {@linkplain #getSource() identity of the factory}, so that an index built
+ * from another factory is not reused.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public class CRSIdentificationIndex {
+    /**
+     * The indexes created by {@link #forFactory(CRSAuthorityFactory)}, kept as long as the factory is alive.
+     * All accesses to this map shall be synchronized on the map.
+     */
+    private static final Map<CRSAuthorityFactory, CRSIdentificationIndex> CACHE = new WeakHashMap<>();
+
+    /**
+     * Identifies the format of files written by {@link #write(OutputStream)}. This number shall be changed
+     * when the file format or the fingerprint algorithm changes, for making previous files obsolete.
+     */
+    private static final int FORMAT = 0x43524932;        // "CRI2"
+
+    /**
+     * The calculator of fingerprints used for building this index.
+     */
+    private final CRSFingerprint fingerprint;
+
+    /**
+     * Identity of the factory from which this index has been built.
+     *
+     * @see #identity(CRSAuthorityFactory)
+     */
+    private final String source;
+
+    /**
+     * Authority codes for each fingerprint. Values are unmodifiable sets,
+     * usually singletons. Codes are in the iteration order of the factory.
+     */
+    private final Map<Long, Set<String>> codes;
+
+    /**
+     * Builds an index for all coordinate reference systems known to the given factory.
+     *
+     * @param  factory      the factory for which to build an index.
+     * @param  fingerprint  the calculator of fingerprints to use.
+     * @throws FactoryException if the authority codes cannot be obtained from the given factory.
+     */
+    public CRSIdentificationIndex(final CRSAuthorityFactory factory, final CRSFingerprint fingerprint)
+            throws FactoryException
+    {
+        this.fingerprint = fingerprint;
+        this.source = identity(factory);
+        final Map<Long, Set<String>> index = new HashMap<>();
+        for (final String code : factory.getAuthorityCodes(CoordinateReferenceSystem.class)) {
+            final CoordinateReferenceSystem crs;
+            try {
+                crs = factory.createCoordinateReferenceSystem(code);
+            } catch (FactoryException | RuntimeException e) {
+                continue;           // Unsupported CRS are excluded from the index.
+            }
+            index.computeIfAbsent(fingerprint.compute(crs), (k) -> new LinkedHashSet<>()).add(code);
+        }
+        index.replaceAll((k, v) -> (v.size() == 1) ? Set.of(v.iterator().next()) : Collections.unmodifiableSet(v));
+        codes = index;
+    }
+
+    /**
+     * Creates an index with the given content. Used when reading an index from a file.
+     *
+     * @param  fingerprint  the calculator of fingerprints used for building the index.
+     * @param  source       identity of the factory from which the index has been built.
+     * @param  codes        authority codes for each fingerprint, as unmodifiable sets.
+     */
+    private CRSIdentificationIndex(final CRSFingerprint fingerprint, final String source,
+                                   final Map<Long, Set<String>> codes)
+    {
+        this.fingerprint = fingerprint;
+        this.source = source;
+        this.codes = codes;
+    }
+
+    /**
+     * Returns a string identifying the given factory, made of the factory class, authority and vendor.
+     *
+     * @param  factory  the factory for which to get an identity.
+     * @return a string identifying the factory.
+     * @throws FactoryException if the authority or vendor cannot be obtained from the given factory.
+     */
+    static String identity(final CRSAuthorityFactory factory) throws FactoryException {
+        return factory.getClass().getName() + ';' + title(factory.getAuthority()) + ';' + title(factory.getVendor());
+    }
+
+    /**
+     * Returns the title of the given citation, or an empty string if none.
+     *
+     * @param  citation  the citation, or {@code null}.
+     * @return the title of the citation, or an empty string.
+     */
+    private static String title(final Citation citation) {
+        return (citation != null && citation.getTitle() != null) ? citation.getTitle().toString() : "";
+    }
+
+    /**
+     * Returns the index for the given factory, building it on the first invocation.
+     * The index uses the {@linkplain CRSFingerprint#DEFAULT default fingerprint calculator}
+     * and is cached for as long as the factory is reachable.
+     *
+     * @param  factory  the factory for which to get an index.
+     * @return the index of all coordinate reference systems known to the given factory.
+     * @throws FactoryException if the authority codes cannot be obtained from the given factory.
+     */
+    public static CRSIdentificationIndex forFactory(final CRSAuthorityFactory factory) throws FactoryException {
+        return forFactory(factory, null);
+    }
+
+    /**
+     * Returns the index for the given factory, loading it from the given file or building it on the first invocation.
+     * If the file exists and has been written by {@link #write(OutputStream)} for an index of the same factory,
+     * the index is read from that file. Otherwise the index is built from the factory, then written to the file for use by future executions.
+     * Callers are responsible for deleting the file when the factory content changes.
+     *
+     * <p>The index is cached for as long as the factory is reachable. The cache is not locked while the index
+     * is built, so building an index does not block the threads asking for the index of other factories.</p>
+     *
+     * @param  factory  the factory for which to get an index.
+     * @param  file     the file where to save the index, or {@code null} for keeping the index in memory only.
+     * @return the index of all coordinate reference systems known to the given factory.
+     * @throws FactoryException if the authority codes cannot be obtained from the given factory,
+     *         or if the index cannot be read from or written to the file.
+     */
+    public static CRSIdentificationIndex forFactory(final CRSAuthorityFactory factory, final Path file)
+            throws FactoryException
+    {
+        CRSIdentificationIndex index;
+        synchronized (CACHE) {
+            index = CACHE.get(factory);
+        }
+        if (index == null) {
+            index = load(file);
+            if (index == null || !index.source.equals(identity(factory))) {
+                index = new CRSIdentificationIndex(factory, CRSFingerprint.DEFAULT);
+                if (file != null) {
+                    try (OutputStream out = Files.newOutputStream(file)) {
+                        index.write(out);
+                    } catch (IOException e) {
+                        throw new FactoryException("Cannot write the index to " + file, e);
+                    }
+                }
+            }
+            synchronized (CACHE) {
+                final CRSIdentificationIndex existing = CACHE.putIfAbsent(factory, index);
+                if (existing != null) {
+                    index = existing;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads the index from the given file if it exists and is in the current format.
+     *
+     * @param  file  the file from which to read the index, or {@code null}.
+     * @return the index read from the file, or {@code null} if none or obsolete. The source is not verified.
+     * @throws FactoryException if an error occurred while reading the file.
+     */
+    private static CRSIdentificationIndex load(final Path file) throws FactoryException {
+        if (file != null && Files.isRegularFile(file)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                return read(in);
+            } catch (IllegalArgumentException e) {
+                return null;                        // Obsolete format: the index will be rebuilt.
+            } catch (IOException e) {
+                throw new FactoryException("Cannot read the index from " + file, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes this index to the given output stream. The stream is flushed but not closed.
+     * The index can be read back by {@link #read(InputStream)}.
+     *
+     * @param  out  the stream where to write this index.
+     * @throws IOException if an error occurred while writing the index.
+     */
+    public void write(final OutputStream out) throws IOException {
+        final var data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(FORMAT);
+        data.writeUTF(source);
+        data.writeDouble(fingerprint.getTolerance());
+        data.writeInt(codes.size());
+        for (final Map.Entry<Long, Set<String>> entry : codes.entrySet()) {
+            data.writeLong(entry.getKey());
+            data.writeInt(entry.getValue().size());
+            for (final String code : entry.getValue()) {
+                data.writeUTF(code);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads an index previously written by {@link #write(OutputStream)}. The stream is not closed.
+     *
+     * @param  in  the stream from which to read the index.
+     * @return the index read from the given stream.
+     * @throws IOException if an error occurred while reading the index.
+     * @throws IllegalArgumentException if the stream does not contain an index in the current format.
+     */
+    public static CRSIdentificationIndex read(final InputStream in) throws IOException {
+        final var data = new DataInputStream(in);
+        if (data.readInt() != FORMAT) {
+            throw new IllegalArgumentException("Not an index in the current format.");
+        }
+        final String source = data.readUTF();
+        final double tolerance = data.readDouble();
+        final CRSFingerprint fingerprint = (tolerance == CRSFingerprint.DEFAULT.getTolerance())
+                                         ? CRSFingerprint.DEFAULT : new CRSFingerprint(tolerance);
+        final int count = data.readInt();
+        final Map<Long, Set<String>> codes = new HashMap<>(Math.max(16, 2 * count));
+        for (int i=0; i<count; i++) {
+            final long key = data.readLong();
+            final var set = new LinkedHashSet<String>();
+            for (int n = data.readInt(); --n >= 0;) {
+                set.add(data.readUTF());
+            }
+            codes.put(key, (set.size() == 1) ? Set.of(set.iterator().next()) : Collections.unmodifiableSet(set));
+        }
+        return new CRSIdentificationIndex(fingerprint, source, codes);
+    }
+
+    /**
+     * Returns a string identifying the factory from which this index has been built.
+     * The string is made of the factory class name, the authority title and the vendor title.
+     *
+     * @return identity of the factory from which this index has been built.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the authority codes of all coordinate reference systems having the same fingerprint
+     * than the given <abbr>CRS</abbr>. The returned set is empty if no match is found, or may
+     * contain more than one element if the factory contains duplicated definitions.
+     *
+     * @param  crs  the coordinate reference system for which to search authority codes.
+     * @return authority codes of <abbr>CRS</abbr> having the same definition, ignoring metadata.
+     */
+    public Set<String> lookup(final CoordinateReferenceSystem crs) {
+        return codes.getOrDefault(fingerprint.compute(crs), Set.of());
+    }
+
+    /**
+     * Returns the authority code of the given coordinate reference system, if a unique code is found.
+     *
+     * @param  crs  the coordinate reference system for which to search the authority code.
+     * @return the authority code, or an empty value if none or if the match is ambiguous.
+     */
+    public Optional<String> identify(final CoordinateReferenceSystem crs) {
+        final Set<String> candidates = lookup(crs);
+        return (candidates.size() == 1) ? Optional.of(candidates.iterator().next()) : Optional.empty();
+    }
+
+    /**
+     * Returns the number of distinct fingerprints in this index.
+     *
+     * @return number of distinct fingerprints.
+     */
+    public int size() {
+        return codes.size();
+    }
+}
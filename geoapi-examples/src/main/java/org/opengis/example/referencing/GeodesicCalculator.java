@@ -0,0 +1,458 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.stream.IntStream;
+import org.opengis.referencing.datum.Ellipsoid;
+
+
+/**
+ * Computes geodesic distances and azimuths on an ellipsoid, in batch over arrays of coordinates.
+ * Points are given as interleaved (<var>latitude</var>, <var>longitude</var>) tuples in decimal degrees,
+ * in the axis order of {@link SimpleCRS.Geographic#WGS84}. Azimuths are in decimal degrees clockwise
+ * from north, and distances are in the units of the ellipsoid axes.
+ *
+ * <p>The direct and inverse problems are solved with Vincenty's formulas, which are accurate to
+ * a fraction of millimetre on the Earth. For nearly antipodal points where the inverse iteration
+ * does not converge, the inverse problem is solved by a bisection on the azimuth at the starting point,
+ * using the same series for the longitude and the distance. If no geodesic is found by the bisection,
+ * the distance and azimuths are NaN. No approximation is used silently: only when the caller accepts
+ * a tolerance larger than the error of the spherical model, {@link #distanceMatrix(double[], double[], double)}
+ * uses the great circle distance on a sphere of mean radius.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public class GeodesicCalculator {
+    /**
+     * Maximal number of iterations for Vincenty's formulas.
+     */
+    private static final int MAX_ITERATIONS = 100;
+
+    /**
+     * Threshold for stopping the iterations, in radians.
+     */
+    private static final double EPS = 1E-12;
+
+    /**
+     * Number of bisections on the azimuth for nearly antipodal points.
+     * Sixty halvings of π are below the resolution of {@code double} values.
+     */
+    private static final int BISECTIONS = 60;
+
+    /**
+     * Maximal difference, in radians, between the longitude difference of a geodesic found by bisection
+     * and the desired longitude difference. Larger differences mean that no geodesic has been found.
+     */
+    private static final double LONGITUDE_TOLERANCE = 1E-9;
+
+    /**
+     * Number of rows and columns in the blocks of a distance matrix.
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * Semi-major and semi-minor axis lengths.
+     */
+    private final double a, b;
+
+    /**
+     * Flattening, computed as 1 − <var>b</var>/<var>a</var>.
+     */
+    private final double f;
+
+    /**
+     * Radius of the sphere used for the spherical approximation, as (2<var>a</var> + <var>b</var>) / 3.
+     */
+    private final double meanRadius;
+
+    /**
+     * Upper bound of the relative error of distances computed on the sphere of mean radius.
+     */
+    private final double sphericalError;
+
+    /**
+     * Creates a calculator for the given ellipsoid.
+     *
+     * @param  ellipsoid  the ellipsoid on which to compute geodesics.
+     */
+    public GeodesicCalculator(final Ellipsoid ellipsoid) {
+        a = ellipsoid.getSemiMajorAxis();
+        b = ellipsoid.getSemiMinorAxis();
+        f = 1 - b / a;
+        meanRadius = (2*a + b) / 3;
+        sphericalError = 2 * f;
+    }
+
+    /**
+     * Returns the upper bound of the relative error of distances computed on a sphere instead of the ellipsoid.
+     * This is a conservative estimation.
+     *
+     * @return relative error of the spherical approximation.
+     */
+    public double getSphericalError() {
+        return sphericalError;
+    }
+
+    /**
+     * Returns the sine and cosine of the reduced latitudes of the given points,
+     * together with the longitudes in radians.
+     *
+     * @param  points  interleaved (<var>latitude</var>, <var>longitude</var>) tuples in degrees.
+     * @return interleaved (sin <var>U</var>, cos <var>U</var>, λ) tuples.
+     */
+    private double[] reduced(final double[] points) {
+        final double[] result = new double[points.length / 2 * 3];
+        for (int i=0, j=0; i<points.length - 1; i += 2) {
+            final double tanU = (1 - f) * Math.tan(Math.toRadians(points[i]));
+            final double cosU = 1 / Math.sqrt(1 + tanU * tanU);
+            result[j++] = tanU * cosU;
+            result[j++] = cosU;
+            result[j++] = Math.toRadians(points[i+1]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sine and cosine of the latitudes used on the sphere, together with the longitudes in radians.
+     *
+     * @param  points  interleaved (<var>latitude</var>, <var>longitude</var>) tuples in degrees.
+     * @return interleaved (sin φ, cos φ, λ) tuples.
+     */
+    private static double[] spherical(final double[] points) {
+        final double[] result = new double[points.length / 2 * 3];
+        for (int i=0, j=0; i<points.length - 1; i += 2) {
+            final double φ = Math.toRadians(points[i]);
+            result[j++] = Math.sin(φ);
+            result[j++] = Math.cos(φ);
+            result[j++] = Math.toRadians(points[i+1]);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the great circle distance between two points on the sphere of mean radius.
+     *
+     * @param  sinφ1  sine of the latitude of the first point.
+     * @param  cosφ1  cosine of the latitude of the first point.
+     * @param  λ1     longitude of the first point in radians.
+     * @param  sinφ2  sine of the latitude of the second point.
+     * @param  cosφ2  cosine of the latitude of the second point.
+     * @param  λ2     longitude of the second point in radians.
+     * @return the great circle distance, in units of the ellipsoid axes.
+     */
+    private double sphereDistance(final double sinφ1, final double cosφ1, final double λ1,
+                                  final double sinφ2, final double cosφ2, final double λ2)
+    {
+        final double Δλ = λ2 - λ1;
+        final double x = cosφ2 * Math.sin(Δλ);
+        final double y = cosφ1 * sinφ2 - sinφ1 * cosφ2 * Math.cos(Δλ);
+        return meanRadius * Math.atan2(Math.hypot(x, y), sinφ1 * sinφ2 + cosφ1 * cosφ2 * Math.cos(Δλ));
+    }
+
+    /**
+     * Solves the inverse problem with Vincenty's formulas.
+     *
+     * @param  sinU1     sine of the reduced latitude of the first point.
+     * @param  cosU1     cosine of the reduced latitude of the first point.
+     * @param  λ1        longitude of the first point in radians.
+     * @param  sinU2     sine of the reduced latitude of the second point.
+     * @param  cosU2     cosine of the reduced latitude of the second point.
+     * @param  λ2        longitude of the second point in radians.
+     * @param  azimuths  where to store the azimuths at the two points in radians, or {@code null}.
+     * @param  offset    index where to store the azimuths.
+     * @return the distance, or NaN if the iteration did not converge.
+     */
+    private double vincenty(final double sinU1, final double cosU1, final double λ1,
+                            final double sinU2, final double cosU2, final double λ2,
+                            final double[] azimuths, final int offset)
+    {
+        double L = λ2 - λ1;
+        L = Math.IEEEremainder(L, 2*Math.PI);
+        double λ = L, sinλ, cosλ, sinσ, cosσ, σ, cos2α, cos2σm;
+        int n = MAX_ITERATIONS;
+        do {
+            sinλ  = Math.sin(λ);
+            cosλ  = Math.cos(λ);
+            sinσ  = Math.hypot(cosU2 * sinλ, cosU1 * sinU2 - sinU1 * cosU2 * cosλ);
+            if (sinσ == 0) {
+                if (azimuths != null) azimuths[offset] = azimuths[offset + 1] = 0;
+                return 0;                                       // Coincident points.
+            }
+            cosσ   = sinU1 * sinU2 + cosU1 * cosU2 * cosλ;
+            σ      = Math.atan2(sinσ, cosσ);
+            final double sinα = cosU1 * cosU2 * sinλ / sinσ;
+            cos2α  = 1 - sinα * sinα;
+            cos2σm = (cos2α != 0) ? cosσ - 2 * sinU1 * sinU2 / cos2α : 0;    // Zero on equatorial lines.
+            final double C = f / 16 * cos2α * (4 + f * (4 - 3 * cos2α));
+            final double previous = λ;
+            λ = L + (1 - C) * f * sinα * (σ + C * sinσ * (cos2σm + C * cosσ * (-1 + 2 * cos2σm * cos2σm)));
+            if (Math.abs(λ - previous) <= EPS) break;
+            if (--n == 0 || Math.abs(λ) > Math.PI) return Double.NaN;
+        } while (true);
+        final double u2 = cos2α * (a*a - b*b) / (b*b);
+        final double A  = 1 + u2 / 16384 * (4096 + u2 * (-768 + u2 * (320 - 175 * u2)));
+        final double B  = u2 / 1024 * (256 + u2 * (-128 + u2 * (74 - 47 * u2)));
+        final double Δσ = B * sinσ * (cos2σm + B / 4 * (cosσ * (-1 + 2 * cos2σm * cos2σm)
+                        - B / 6 * cos2σm * (-3 + 4 * sinσ * sinσ) * (-3 + 4 * cos2σm * cos2σm)));
+        if (azimuths != null) {
+            azimuths[offset]     = Math.atan2(cosU2 * sinλ,  cosU1 * sinU2 - sinU1 * cosU2 * cosλ);
+            azimuths[offset + 1] = Math.atan2(cosU1 * sinλ, -sinU1 * cosU2 + cosU1 * sinU2 * cosλ);
+        }
+        return b * A * (σ - Δσ);
+    }
+
+    /**
+     * Solves the inverse problem for nearly antipodal points, where the iteration of Vincenty's formulas does not
+     * converge. The points are first brought in the canonical configuration described by Karney (2013): the first
+     * point is in the southern hemisphere and is not closer to the equator than the second point, and the second
+     * point is eastward. In that configuration, the longitude difference of the geodesic reaching the latitude of
+     * the second point is an increasing function of the azimuth at the first point, from 0 for an azimuth of 0°
+     * to π for an azimuth of 180°. That azimuth is found by bisection, then the distance is computed with the
+     * series of Vincenty's formulas.
+     *
+     * @param  sinU1     sine of the reduced latitude of the first point.
+     * @param  cosU1     cosine of the reduced latitude of the first point.
+     * @param  λ1        longitude of the first point in radians.
+     * @param  sinU2     sine of the reduced latitude of the second point.
+     * @param  cosU2     cosine of the reduced latitude of the second point.
+     * @param  λ2        longitude of the second point in radians.
+     * @param  azimuths  where to store the azimuths at the two points in radians, or {@code null}.
+     * @param  offset    index where to store the azimuths.
+     * @return the distance, or NaN if no geodesic has been found.
+     */
+    private double antipodal(double sinU1, double cosU1, final double λ1,
+                             double sinU2, double cosU2, final double λ2,
+                             final double[] azimuths, final int offset)
+    {
+        final boolean swap = Math.abs(sinU1) < Math.abs(sinU2);
+        if (swap) {
+            double t;
+            t = sinU1; sinU1 = sinU2; sinU2 = t;
+            t = cosU1; cosU1 = cosU2; cosU2 = t;
+        }
+        double L = Math.IEEEremainder(swap ? λ1 - λ2 : λ2 - λ1, 2*Math.PI);
+        final boolean west = L < 0;
+        L = Math.abs(L);
+        final boolean north = sinU1 > 0;
+        if (north) {
+            sinU2 = -sinU2;
+        }
+        sinU1 = -Math.abs(sinU1);           // Negative zero on the equator, for the branch cut of atan2.
+        final double Δcos2U = cosU2 * cosU2 - cosU1 * cosU1;
+        double lower = 0, upper = Math.PI;
+        double α1, sinα0, cos2α, cosα2cosU2, σ, cos2σm, λ;
+        int n = BISECTIONS;
+        while (true) {
+            α1 = (lower + upper) / 2;
+            final double cosα1cosU1 = Math.cos(α1) * cosU1;
+            sinα0      = Math.sin(α1) * cosU1;
+            cos2α      = 1 - sinα0 * sinα0;
+            cosα2cosU2 = Math.sqrt(Math.max(0, cosα1cosU1 * cosα1cosU1 + Δcos2U));
+            final double σ1 = Math.atan2(sinU1, cosα1cosU1);
+            final double σ2 = Math.atan2(sinU2, cosα2cosU2);
+            final double ω1 = Math.atan2(sinα0 * Math.sin(σ1), Math.cos(σ1));
+            final double ω2 = Math.atan2(sinα0 * Math.sin(σ2), Math.cos(σ2));
+            σ      = σ2 - σ1;
+            cos2σm = Math.cos(σ1 + σ2);
+            final double C = f / 16 * cos2α * (4 + f * (4 - 3 * cos2α));
+            λ = (ω2 - ω1) - (1 - C) * f * sinα0 * (σ + C * Math.sin(σ) * (cos2σm + C * Math.cos(σ) * (-1 + 2 * cos2σm * cos2σm)));
+            if (--n == 0) break;
+            if (λ < L) lower = α1;
+            else       upper = α1;
+        }
+        if (!(Math.abs(λ - L) <= LONGITUDE_TOLERANCE)) {
+            if (azimuths != null) azimuths[offset] = azimuths[offset + 1] = Double.NaN;
+            return Double.NaN;
+        }
+        final double sinσ = Math.sin(σ);
+        final double cosσ = Math.cos(σ);
+        final double u2 = cos2α * (a*a - b*b) / (b*b);
+        final double A  = 1 + u2 / 16384 * (4096 + u2 * (-768 + u2 * (320 - 175 * u2)));
+        final double B  = u2 / 1024 * (256 + u2 * (-128 + u2 * (74 - 47 * u2)));
+        final double Δσ = B * sinσ * (cos2σm + B / 4 * (cosσ * (-1 + 2 * cos2σm * cos2σm)
+                        - B / 6 * cos2σm * (-3 + 4 * sinσ * sinσ) * (-3 + 4 * cos2σm * cos2σm)));
+        if (azimuths != null) {
+            double α2 = Math.atan2(sinα0, cosα2cosU2);
+            if (north) {                    // Reflection on the equator.
+                α1 = Math.PI - α1;
+                α2 = Math.PI - α2;
+            }
+            if (west) {                     // Reflection on the meridian.
+                α1 = -α1;
+                α2 = -α2;
+            }
+            if (swap) {                     // Geodesic in the reverse direction.
+                final double t = α1;
+                α1 = α2 + Math.PI;
+                α2 = t  + Math.PI;
+            }
+            azimuths[offset]     = Math.IEEEremainder(α1, 2*Math.PI);
+            azimuths[offset + 1] = Math.IEEEremainder(α2, 2*Math.PI);
+        }
+        return b * A * (σ - Δσ);
+    }
+
+    /**
+     * Solves the inverse problem with Vincenty's formulas, or by bisection if the iteration does not converge.
+     *
+     * @param  sinU1     sine of the reduced latitude of the first point.
+     * @param  cosU1     cosine of the reduced latitude of the first point.
+     * @param  λ1        longitude of the first point in radians.
+     * @param  sinU2     sine of the reduced latitude of the second point.
+     * @param  cosU2     cosine of the reduced latitude of the second point.
+     * @param  λ2        longitude of the second point in radians.
+     * @param  azimuths  where to store the azimuths at the two points in radians, or {@code null}.
+     * @param  offset    index where to store the azimuths.
+     * @return the distance, or NaN if no geodesic has been found.
+     */
+    private double geodesic(final double sinU1, final double cosU1, final double λ1,
+                            final double sinU2, final double cosU2, final double λ2,
+                            final double[] azimuths, final int offset)
+    {
+        final double d = vincenty(sinU1, cosU1, λ1, sinU2, cosU2, λ2, azimuths, offset);
+        return Double.isNaN(d) ? antipodal(sinU1, cosU1, λ1, sinU2, cosU2, λ2, azimuths, offset) : d;
+    }
+
+    /**
+     * Computes the geodesic distance between two points.
+     *
+     * @param  φ1  latitude of the first point in degrees.
+     * @param  λ1  longitude of the first point in degrees.
+     * @param  φ2  latitude of the second point in degrees.
+     * @param  λ2  longitude of the second point in degrees.
+     * @return the distance between the two points, in units of the ellipsoid axes, or NaN if no geodesic has been found.
+     */
+    public double distance(final double φ1, final double λ1, final double φ2, final double λ2) {
+        final double[] distance = new double[1];
+        inverse(new double[] {φ1, λ1}, new double[] {φ2, λ2}, 1, distance, null);
+        return distance[0];
+    }
+
+    /**
+     * Solves the inverse problem for pairs of points: computes the distances and azimuths from
+     * each point of the first array to the point at the same index in the second array.
+     *
+     * @param  points1    interleaved (<var>latitude</var>, <var>longitude</var>) tuples of starting points in degrees.
+     * @param  points2    interleaved (<var>latitude</var>, <var>longitude</var>) tuples of ending points in degrees.
+     * @param  count      number of pairs of points.
+     * @param  distances  where to store the {@code count} distances. NaN values if no geodesic has been found.
+     * @param  azimuths   where to store the azimuths at starting and ending points as interleaved tuples,
+     *                    or {@code null} if not needed.
+     */
+    public void inverse(final double[] points1, final double[] points2, final int count,
+                        final double[] distances, final double[] azimuths)
+    {
+        final double[] r1 = reduced(points1);
+        final double[] r2 = reduced(points2);
+        IntStream.range(0, count).parallel().forEach((i) -> {
+            final int p = i * 3;
+            distances[i] = geodesic(r1[p], r1[p+1], r1[p+2], r2[p], r2[p+1], r2[p+2], azimuths, i*2);
+            if (azimuths != null) {
+                azimuths[i*2]     = Math.toDegrees(azimuths[i*2]);
+                azimuths[i*2 + 1] = Math.toDegrees(azimuths[i*2 + 1]);
+            }
+        });
+    }
+
+    /**
+     * Solves the direct problem: computes the points at the given distances and azimuths from the starting points.
+     *
+     * @param  points     interleaved (<var>latitude</var>, <var>longitude</var>) tuples of starting points in degrees.
+     * @param  azimuths   azimuths at the starting points in degrees.
+     * @param  distances  distances from the starting points, in units of the ellipsoid axes.
+     * @param  count      number of points.
+     * @param  results    where to store the (<var>latitude</var>, <var>longitude</var>) tuples of ending points.
+     * @param  finalAzimuths  where to store the azimuths at the ending points in degrees, or {@code null}.
+     */
+    public void direct(final double[] points, final double[] azimuths, final double[] distances, final int count,
+                       final double[] results, final double[] finalAzimuths)
+    {
+        IntStream.range(0, count).parallel().forEach((i) -> {
+            final double α1    = Math.toRadians(azimuths[i]);
+            final double sinα1 = Math.sin(α1);
+            final double cosα1 = Math.cos(α1);
+            final double tanU1 = (1 - f) * Math.tan(Math.toRadians(points[i*2]));
+            final double cosU1 = 1 / Math.sqrt(1 + tanU1 * tanU1);
+            final double sinU1 = tanU1 * cosU1;
+            final double σ1    = Math.atan2(tanU1, cosα1);
+            final double sinα  = cosU1 * sinα1;
+            final double cos2α = 1 - sinα * sinα;
+            final double u2    = cos2α * (a*a - b*b) / (b*b);
+            final double A     = 1 + u2 / 16384 * (4096 + u2 * (-768 + u2 * (320 - 175 * u2)));
+            final double B     = u2 / 1024 * (256 + u2 * (-128 + u2 * (74 - 47 * u2)));
+            final double σ0    = distances[i] / (b * A);
+            double σ = σ0, sinσ, cosσ, cos2σm;
+            int n = MAX_ITERATIONS;
+            do {
+                cos2σm = Math.cos(2 * σ1 + σ);
+                sinσ   = Math.sin(σ);
+                cosσ   = Math.cos(σ);
+                final double Δσ = B * sinσ * (cos2σm + B / 4 * (cosσ * (-1 + 2 * cos2σm * cos2σm)
+                                - B / 6 * cos2σm * (-3 + 4 * sinσ * sinσ) * (-3 + 4 * cos2σm * cos2σm)));
+                final double previous = σ;
+                σ = σ0 + Δσ;
+                if (Math.abs(σ - previous) <= EPS) break;
+            } while (--n != 0);
+            sinσ   = Math.sin(σ);
+            cosσ   = Math.cos(σ);
+            cos2σm = Math.cos(2 * σ1 + σ);
+            final double t  = sinU1 * sinσ - cosU1 * cosσ * cosα1;
+            final double φ2 = Math.atan2(sinU1 * cosσ + cosU1 * sinσ * cosα1, (1 - f) * Math.hypot(sinα, t));
+            final double λ  = Math.atan2(sinσ * sinα1, cosU1 * cosσ - sinU1 * sinσ * cosα1);
+            final double C  = f / 16 * cos2α * (4 + f * (4 - 3 * cos2α));
+            final double L  = λ - (1 - C) * f * sinα * (σ + C * sinσ * (cos2σm + C * cosσ * (-1 + 2 * cos2σm * cos2σm)));
+            results[i*2]     = Math.toDegrees(φ2);
+            results[i*2 + 1] = Math.IEEEremainder(points[i*2 + 1] + Math.toDegrees(L), 360);
+            if (finalAzimuths != null) {
+                finalAzimuths[i] = Math.toDegrees(Math.atan2(sinα, -t));
+            }
+        });
+    }
+
+    /**
+     * Computes the distances from all source points to all target points.
+     * The matrix is computed by blocks of rows and columns for cache efficiency, and the blocks of rows
+     * are computed in parallel. If the given tolerance is larger than the error of the spherical model
+     * for a pair of points, the distance of that pair is computed on the sphere of mean radius.
+     * Otherwise the distance is computed on the ellipsoid as in {@link #inverse inverse(…)},
+     * including for nearly antipodal points.
+     *
+     * @param  sources    interleaved (<var>latitude</var>, <var>longitude</var>) tuples of source points in degrees.
+     * @param  targets    interleaved (<var>latitude</var>, <var>longitude</var>) tuples of target points in degrees.
+     * @param  tolerance  maximal error accepted on distances, in units of the ellipsoid axes. May be 0.
+     * @return the distances in row-major order: the distance from source <var>i</var> to target <var>j</var>
+     *         is at index <var>i</var> × <var>M</var> + <var>j</var> where <var>M</var> is the number of targets.
+     */
+    public double[] distanceMatrix(final double[] sources, final double[] targets, final double tolerance) {
+        final int numRows = sources.length / 2;
+        final int numCols = targets.length / 2;
+        final double[] matrix = new double[Math.multiplyExact(numRows, numCols)];
+        final double[] rs = reduced(sources), ss = spherical(sources);
+        final double[] rt = reduced(targets), st = spherical(targets);
+        /*
+         * A spherical distance d is accepted if its error bound d × ε is within the tolerance.
+         */
+        final double sphericalThreshold = tolerance / sphericalError;
+        IntStream.range(0, (numRows + BLOCK_SIZE - 1) / BLOCK_SIZE).parallel().forEach((rowBlock) -> {
+            final int rowEnd = Math.min(numRows, (rowBlock + 1) * BLOCK_SIZE);
+            for (int colStart = 0; colStart < numCols; colStart += BLOCK_SIZE) {
+                final int colEnd = Math.min(numCols, colStart + BLOCK_SIZE);
+                for (int i = rowBlock * BLOCK_SIZE; i < rowEnd; i++) {
+                    final int p = i * 3;
+                    for (int j = colStart; j < colEnd; j++) {
+                        final int q = j * 3;
+                        double d = sphereDistance(ss[p], ss[p+1], ss[p+2], st[q], st[q+1], st[q+2]);
+                        if (!(d <= sphericalThreshold)) {
+                            d = geodesic(rs[p], rs[p+1], rs[p+2], rt[q], rt[q+1], rt[q+2], null, 0);
+                        }
+                        matrix[i * numCols + j] = d;
+                    }
+                }
+            }
+        });
+        return matrix;
+    }
+}
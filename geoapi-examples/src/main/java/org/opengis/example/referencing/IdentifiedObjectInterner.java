@@ -0,0 +1,178 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opengis.referencing.IdentifiedObject;
+
+
+/**
+ * A pool of canonical instances of referencing objects (<abbr>CRS</abbr>, datum, ellipsoid, coordinate system, axis).
+ * For any two objects <var>a</var> and <var>b</var> such as {@code a.equals(b)} is {@code true},
+ * {@code unique(a) == unique(b)} is also {@code true}. Consequently, code using only canonical instances
+ * can replace deep {@code equals(Object)} comparisons by reference comparisons, and structurally identical
+ * object graphs are not duplicated in memory.
+ *
+ * <p>The pool holds canonical instances by weak references.
+ * An instance is removed from the pool after it has been garbage-collected.
+ * The hash code of each instance is computed only once, when the instance is added to the pool.</p>
+ *
+ * <h2>Object graphs</h2>
+ * This class cannot replace the components of an existing object, since the GeoAPI interfaces are read-only.
+ * For sharing the components of a graph, users should get the canonical instances of the ellipsoid, datum,
+ * axes and coordinate system before to create the <abbr>CRS</abbr> which will use them.
+ * For example:
+ *
+ * {@snippet lang="java" :
+ * var pool  = new IdentifiedObjectInterner();
+ * var datum = pool.unique(new SimpleDatum(authority, "My datum", 6378137, 298.257223563));
+ * var crs   = pool.unique(new SimpleCRS.Geographic(authority, "My CRS", datum, latitude, longitude));
+ * }
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ */
+public class IdentifiedObjectInterner {
+    /**
+     * The canonical instances, wrapped in weak references. Keys and values are the same references.
+     * We use a map instead of a set because {@link ConcurrentHashMap#putIfAbsent(Object, Object)}
+     * gives us the existing reference in a single atomic operation.
+     */
+    private final ConcurrentHashMap<Entry, Entry> pool;
+
+    /**
+     * The queue of references to canonical instances that have been garbage-collected.
+     */
+    private final ReferenceQueue<IdentifiedObject> collected;
+
+    /**
+     * Creates a new, initially empty, pool of canonical instances.
+     */
+    public IdentifiedObjectInterner() {
+        pool = new ConcurrentHashMap<>();
+        collected = new ReferenceQueue<>();
+    }
+
+    /**
+     * Weak reference to a canonical instance, together with its hash code computed at construction time.
+     * After the referent has been garbage-collected, an entry is equal only to itself.
+     */
+    private static final class Entry extends WeakReference<IdentifiedObject> {
+        /**
+         * The hash code of the referent, computed when this entry has been created.
+         */
+        private final int hash;
+
+        /**
+         * Creates a new entry for the given object.
+         *
+         * @param  object  the canonical instance to reference.
+         * @param  queue   the queue where to enqueue this entry after the object has been collected, or {@code null}.
+         */
+        Entry(final IdentifiedObject object, final ReferenceQueue<IdentifiedObject> queue) {
+            super(object, queue);
+            hash = object.hashCode();
+        }
+
+        /**
+         * Returns the hash code of the referent, as computed at construction time.
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Compares the referents of the two entries, or the entries themselves if a referent has been collected.
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (other instanceof Entry) {
+                final Entry that = (Entry) other;
+                if (that.hash == hash) {
+                    final IdentifiedObject object = get();
+                    return (object != null) && object.equals(that.get());
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the canonical instance of the given object.
+     * If an equal object is already in this pool, then that object is returned.
+     * Otherwise, the given object is added to this pool and returned.
+     *
+     * <p>If the pool contains an object which is equal to the given object but
+     * is not an instance of the same class, then the given object is returned unchanged.</p>
+     *
+     * @param  <T>     the type of object to intern.
+     * @param  object  the object for which to get the canonical instance, or {@code null}.
+     * @return an object equal to the given object, or {@code null} if the given object was null.
+     */
+    public <T extends IdentifiedObject> T unique(final T object) {
+        if (object == null) {
+            return null;
+        }
+        expungeStaleEntries();
+        final Entry entry = new Entry(object, collected);
+        Entry existing;
+        while ((existing = pool.putIfAbsent(entry, entry)) != null) {
+            final IdentifiedObject canonical = existing.get();
+            if (canonical != null) {
+                entry.clear();              // Prevent the unused entry from being enqueued.
+                if (canonical.getClass() == object.getClass()) {
+                    @SuppressWarnings("unchecked")
+                    final T c = (T) canonical;
+                    return c;
+                }
+                return object;
+            }
+            pool.remove(existing, existing);        // Collected but not yet expunged.
+        }
+        return object;
+    }
+
+    /**
+     * Returns whether the given object is the canonical instance in this pool.
+     *
+     * @param  object  the object to test.
+     * @return whether the given object is the canonical instance of its equivalence class.
+     */
+    public boolean isCanonical(final IdentifiedObject object) {
+        if (object == null) {
+            return false;
+        }
+        final Entry entry = pool.get(new Entry(object, null));
+        return (entry != null) && entry.get() == object;
+    }
+
+    /**
+     * Returns an estimation of the number of canonical instances in this pool.
+     * This number may include instances that have been garbage-collected recently.
+     *
+     * @return approximate number of canonical instances.
+     */
+    public int size() {
+        expungeStaleEntries();
+        return pool.size();
+    }
+
+    /**
+     * Removes the entries of all canonical instances that have been garbage-collected.
+     */
+    private void expungeStaleEntries() {
+        Reference<? extends IdentifiedObject> ref;
+        while ((ref = collected.poll()) != null) {
+            pool.remove(ref, ref);
+        }
+    }
+}
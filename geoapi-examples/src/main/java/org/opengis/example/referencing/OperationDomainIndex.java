@@ -0,0 +1,287 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import javax.measure.Unit;
+import javax.measure.UnitConverter;
+import javax.measure.quantity.Length;
+import tech.uom.seshat.Units;
+import org.opengis.util.Record;
+import org.opengis.util.FactoryException;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicExtent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.metadata.quality.PositionalAccuracy;
+import org.opengis.metadata.quality.QuantitativeResult;
+import org.opengis.metadata.quality.Result;
+import org.opengis.referencing.ObjectDomain;
+import org.opengis.referencing.RegisterOperations;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.example.geometry.EnvelopeTree;
+
+
+/**
+ * An index of coordinate operations by source <abbr>CRS</abbr>, target <abbr>CRS</abbr> and domain of validity.
+ * This index can be used by implementations of {@link RegisterOperations#findCoordinateOperations
+ * RegisterOperations.findCoordinateOperations(…)} for selecting the operations applicable to a dataset
+ * without scanning the domain of validity of all candidate operations.
+ *
+ * <p>For each pair of source and target <abbr>CRS</abbr>, the geographic bounding boxes of the operation
+ * domains are stored in a packed R-tree. Bounding boxes crossing the anti-meridian are split in two parts.
+ * Operations without geographic bounding box are assumed valid everywhere. The accuracy of each operation
+ * is extracted once from {@link CoordinateOperation#getCoordinateOperationAccuracy()} for ranking the results.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public class OperationDomainIndex {
+    /**
+     * Operations and their R-tree for each pair of source and target <abbr>CRS</abbr>.
+     */
+    private final Map<List<CoordinateReferenceSystem>, Group> groups;
+
+    /**
+     * All operations for a given pair of source and target <abbr>CRS</abbr>.
+     * The {@link #tree} contains one or two boxes per operation, with
+     * the operation index stored in the {@link #owners} array.
+     */
+    private static final class Group {
+        /** The operations, in iteration order of the collection given to the index constructor. */
+        final CoordinateOperation[] operations;
+
+        /** Accuracy in metres of each operation, or NaN if unknown. */
+        final double[] accuracies;
+
+        /** Index in the {@link #operations} array of each box in the tree. */
+        final int[] owners;
+
+        /** The domains of all operations, as (west, south, east, north) tuples. */
+        final double[] boxes;
+
+        /** R-tree over the {@link #boxes}. */
+        final EnvelopeTree tree;
+
+        /**
+         * Creates a new group for the given operations.
+         *
+         * @param  list  the operations having the same source and target <abbr>CRS</abbr>.
+         */
+        Group(final List<CoordinateOperation> list) {
+            operations = list.toArray(CoordinateOperation[]::new);
+            accuracies = new double[operations.length];
+            final var ownerList = new ArrayList<Integer>();
+            final var boxList   = new ArrayList<double[]>();
+            for (int i=0; i<operations.length; i++) {
+                final CoordinateOperation op = operations[i];
+                accuracies[i] = accuracy(op);
+                final int before = boxList.size();
+                for (final ObjectDomain domain : op.getDomains()) {
+                    addBoxes(domain.getDomainOfValidity(), boxList);
+                }
+                if (boxList.size() == before) {
+                    boxList.add(new double[] {-180, -90, 180, 90});
+                }
+                while (ownerList.size() < boxList.size()) {
+                    ownerList.add(i);
+                }
+            }
+            owners = ownerList.stream().mapToInt(Integer::intValue).toArray();
+            boxes  = new double[owners.length * 4];
+            for (int i=0; i<owners.length; i++) {
+                System.arraycopy(boxList.get(i), 0, boxes, i*4, 4);
+            }
+            tree = new EnvelopeTree(null, 2, boxes, null);
+        }
+    }
+
+    /**
+     * Creates an index for the given coordinate operations.
+     *
+     * @param  operations  the coordinate operations to index.
+     */
+    public OperationDomainIndex(final Collection<? extends CoordinateOperation> operations) {
+        final Map<List<CoordinateReferenceSystem>, List<CoordinateOperation>> byPair = new HashMap<>();
+        for (final CoordinateOperation op : operations) {
+            byPair.computeIfAbsent(key(op.getSourceCRS(), op.getTargetCRS()), (k) -> new ArrayList<>()).add(op);
+        }
+        groups = new HashMap<>(byPair.size() * 2);
+        byPair.forEach((key, list) -> groups.put(key, new Group(list)));
+    }
+
+    /**
+     * Creates an index for all coordinate operations known to the given register.
+     * Operations that cannot be created are silently excluded from the index.
+     *
+     * @param  register  the register from which to get the coordinate operations.
+     * @return index of all operations known to the given register.
+     * @throws FactoryException if the authority codes cannot be obtained from the register.
+     */
+    public static OperationDomainIndex of(final RegisterOperations register) throws FactoryException {
+        final var operations = new ArrayList<CoordinateOperation>();
+        for (final String code : register.getAuthorityCodes(CoordinateOperation.class)) {
+            try {
+                operations.add(register.findCoordinateOperation(code));
+            } catch (FactoryException | RuntimeException e) {
+                // Unsupported operations are excluded from the index.
+            }
+        }
+        return new OperationDomainIndex(operations);
+    }
+
+    /**
+     * Returns the key to use in the map of groups.
+     * Null <abbr>CRS</abbr> are allowed.
+     *
+     * @param  source  the source <abbr>CRS</abbr>.
+     * @param  target  the target <abbr>CRS</abbr>.
+     * @return the key of the group of operations between the given <abbr>CRS</abbr>.
+     */
+    private static List<CoordinateReferenceSystem> key(final CoordinateReferenceSystem source, final CoordinateReferenceSystem target) {
+        return Arrays.asList(source, target);
+    }
+
+    /**
+     * Adds the (west, south, east, north) tuples of all geographic bounding boxes of the given extent.
+     * Boxes crossing the anti-meridian are split in two boxes.
+     *
+     * @param  extent  the extent from which to get the bounding boxes, or {@code null}.
+     * @param  boxes   the list where to add the bounding boxes.
+     */
+    private static void addBoxes(final Extent extent, final List<double[]> boxes) {
+        if (extent != null) {
+            for (final GeographicExtent element : extent.getGeographicElements()) {
+                if (element instanceof GeographicBoundingBox) {
+                    final var bbox = (GeographicBoundingBox) element;
+                    if (Boolean.FALSE.equals(bbox.getInclusion())) {
+                        continue;               // Exclusion areas not handled by this simple index.
+                    }
+                    final double west  = bbox.getWestBoundLongitude();
+                    final double east  = bbox.getEastBoundLongitude();
+                    final double south = bbox.getSouthBoundLatitude();
+                    final double north = bbox.getNorthBoundLatitude();
+                    if (west > east) {
+                        boxes.add(new double[] {west, south, 180, north});
+                        boxes.add(new double[] {-180, south, east, north});
+                    } else {
+                        boxes.add(new double[] {west, south, east, north});
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the accuracy of the given operation in metres, or NaN if unknown.
+     * This method takes the smallest numerical value found in the quantitative results,
+     * after conversion to metres. Results without unit of measurement or with units
+     * other than lengths are ignored, since they cannot be compared.
+     *
+     * @param  op  the operation for which to get the accuracy.
+     * @return the accuracy, or NaN if unknown.
+     */
+    static double accuracy(final CoordinateOperation op) {
+        double accuracy = Double.NaN;
+        for (final PositionalAccuracy element : op.getCoordinateOperationAccuracy()) {
+            for (final Result result : element.getResults()) {
+                if (result instanceof QuantitativeResult) {
+                    final var quantitative = (QuantitativeResult) result;
+                    final Unit<?> unit = quantitative.getValueUnit();
+                    if (unit == null || !unit.isCompatible(Units.METRE)) {
+                        continue;
+                    }
+                    final UnitConverter toMetres = unit.asType(Length.class).getConverterTo(Units.METRE);
+                    for (final Record record : quantitative.getValues()) {
+                        for (final Object value : record.getFields().values()) {
+                            if (value instanceof Number) {
+                                final double v = toMetres.convert(((Number) value).doubleValue());
+                                if (!(v >= accuracy)) accuracy = v;         // Use `!` for replacing NaN.
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return accuracy;
+    }
+
+    /**
+     * Returns the operations from the given source to the given target <abbr>CRS</abbr>
+     * whose domain of validity intersects the given area of interest.
+     * Operations whose domain contains the whole area of interest are listed first.
+     * Then, operations are sorted by increasing accuracy values (best accuracy first),
+     * with operations of unknown accuracy last.
+     *
+     * @param  source          the source <abbr>CRS</abbr>.
+     * @param  target          the target <abbr>CRS</abbr>.
+     * @param  areaOfInterest  the geographic area where the operation will be applied, or {@code null} for all.
+     * @return the operations applicable in the given area of interest, best candidates first.
+     */
+    public List<CoordinateOperation> find(final CoordinateReferenceSystem source,
+                                          final CoordinateReferenceSystem target,
+                                          final GeographicBoundingBox areaOfInterest)
+    {
+        final Group group = groups.get(key(source, target));
+        if (group == null) {
+            return List.of();
+        }
+        final double[] query;
+        if (areaOfInterest == null) {
+            query = new double[] {-180, -90, 180, 90};
+        } else {
+            final double west  = areaOfInterest.getWestBoundLongitude();
+            final double east  = areaOfInterest.getEastBoundLongitude();
+            final double south = areaOfInterest.getSouthBoundLatitude();
+            final double north = areaOfInterest.getNorthBoundLatitude();
+            query = (west > east) ? new double[] {west, south, 180, north, -180, south, east, north}
+                                  : new double[] {west, south, east, north};
+        }
+        /*
+         * For each operation, set a bit for each query part fully contained in one of its boxes.
+         * An operation covers the area of interest if all parts are covered.
+         */
+        final int allParts = (1 << (query.length / 4)) - 1;
+        final int[] covered = new int[group.operations.length];
+        final boolean[] found = new boolean[covered.length];
+        for (int q=0; q<query.length; q += 4) {
+            final int part = 1 << (q / 4);
+            final double xmin = query[q], ymin = query[q+1], xmax = query[q+2], ymax = query[q+3];
+            group.tree.search(new double[] {xmin, ymin}, new double[] {xmax, ymax}, (box) -> {
+                final int op = group.owners[box];
+                found[op] = true;
+                final int p = box * 4;
+                if (group.boxes[p] <= xmin && group.boxes[p+1] <= ymin && group.boxes[p+2] >= xmax && group.boxes[p+3] >= ymax) {
+                    covered[op] |= part;
+                }
+            });
+        }
+        final var candidates = new ArrayList<Integer>();
+        for (int i=0; i<found.length; i++) {
+            if (found[i]) candidates.add(i);
+        }
+        candidates.sort(Comparator.<Integer>comparingInt((i) -> covered[i] == allParts ? 0 : 1)
+                .thenComparingDouble((i) -> group.accuracies[i]));        // NaN (unknown accuracy) sorted last.
+        final var result = new ArrayList<CoordinateOperation>(candidates.size());
+        for (final int i : candidates) {
+            result.add(group.operations[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a string representation of this index for debugging purposes.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[pairs=" + groups.size() + ']';
+    }
+}
@@ -91,6 +91,16 @@ public class ProjectiveTransform extends SimpleTransform {
         return matrix.getNumRow() - 1;
     }
 
+    /**
+     * Returns a copy of the matrix used for performing the coordinate conversions.
+     * This is useful for applying the transform on data layouts other than interleaved tuples.
+     *
+     * @return a copy of the {@linkplain #matrix}.
+     */
+    public Matrix getMatrix() {
+        return matrix.clone();
+    }
+
     /**
      * Transforms the specified {@code ptSrc}. First, this implementation computes the
      * following matrix product:
@@ -62,7 +62,8 @@ final class TransformedCoordinateSet implements CoordinateSet, CoordinateMetadat
     TransformedCoordinateSet(final CoordinateOperation operation, final CoordinateSet data) throws TransformException {
         final CoordinateMetadata md = data.getCoordinateMetadata();
         crs = Objects.requireNonNull(operation.getTargetCRS(), "Missing target CRS.");
-        if (!crs.equals(md.getCoordinateReferenceSystem())) {
+        final CoordinateReferenceSystem dataCRS = md.getCoordinateReferenceSystem();
+        if (crs != dataCRS && !crs.equals(dataCRS)) {     // Cheap check first, efficient with interned CRS.
             throw new TransformException("Unexpected data CRS.");
         }
         epoch = operation.getTargetEpoch().orElse(null);
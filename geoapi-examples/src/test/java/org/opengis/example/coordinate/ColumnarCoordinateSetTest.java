@@ -0,0 +1,144 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.nio.DoubleBuffer;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.example.referencing.SimpleCRS;
+import org.opengis.example.referencing.SimpleMatrix;
+import org.opengis.example.referencing.ProjectiveTransform;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link ColumnarCoordinateSet}.
+ */
+public class ColumnarCoordinateSetTest {
+    /**
+     * Creates a new test case.
+     */
+    public ColumnarCoordinateSetTest() {
+    }
+
+    /**
+     * Creates interleaved coordinates of 5000 tuples where the first coordinate is the tuple index
+     * and the second coordinate is the tuple index multiplied by 10.
+     *
+     * @return the interleaved coordinates to use for the tests.
+     */
+    private static double[] createTestData() {
+        final double[] coordinates = new double[10000];
+        for (int i=0; i<coordinates.length; i += 2) {
+            coordinates[i]   = i / 2;
+            coordinates[i+1] = i * 5;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Tests the conversions between interleaved and columnar layouts.
+     */
+    @Test
+    public void testTranspose() {
+        final double[] coordinates = createTestData();
+        final var columnar = ColumnarCoordinateSet.fromInterleaved(MappedCoordinateSetTest.wrap(coordinates));
+        assertEquals(5000, columnar.size());
+        assertEquals(2,    columnar.getDimension());
+        assertTrue(columnar.asDoubleBuffers().isEmpty());
+        final DoubleBuffer y = columnar.column(1);
+        assertEquals(5000,  y.remaining());
+        assertEquals(12340, y.get(1234));
+
+        final DirectPosition p = columnar.stream().parallel().skip(4321).findFirst().orElseThrow();
+        assertArrayEquals(new double[] {4321, 43210}, p.getCoordinates());
+
+        final ArrayCoordinateSet back = columnar.toInterleaved();
+        final DoubleBuffer buffer = back.asDoubleBuffers().orElseThrow().findFirst().orElseThrow();
+        final double[] actual = new double[buffer.remaining()];
+        buffer.get(actual);
+        assertArrayEquals(coordinates, actual);
+    }
+
+    /**
+     * Tests {@link ColumnarCoordinateSet#transform(MathTransform, CoordinateReferenceSystem)}
+     * with an affine transform and with a transform which is not recognized as affine.
+     *
+     * @throws TransformException if a coordinate cannot be transformed.
+     */
+    @Test
+    public void testTransform() throws TransformException {
+        final var columnar = ColumnarCoordinateSet.fromInterleaved(MappedCoordinateSetTest.wrap(createTestData()));
+        final var matrix = new SimpleMatrix(3, 3);
+        matrix.setElement(0, 0, 0);  matrix.setElement(0, 1, 1);    // Swap axes.
+        matrix.setElement(1, 0, 2);  matrix.setElement(1, 1, 0);  matrix.setElement(1, 2, 3);
+        final var affine = new ProjectiveTransform(null, "Test", null, null, matrix);
+        final var generic = new ProjectiveTransform(null, "Test", null, null, matrix) {
+            @Override public Matrix getMatrix() {
+                return null;    // Force the use of the generic path.
+            }
+        };
+        for (final MathTransform mt : new MathTransform[] {affine, generic}) {
+            final ColumnarCoordinateSet result = columnar.transform(mt, SimpleCRS.Geographic.WGS84);
+            assertEquals(5000,  result.size());
+            assertEquals(12340, result.column(0).get(1234));
+            assertEquals(2471,  result.column(1).get(1234));
+        }
+    }
+
+    /**
+     * Tests a transform from two to one dimension, which has a non-square matrix.
+     * The transform shall be recognized as affine, without call to its {@code transform} method.
+     *
+     * @throws TransformException if a coordinate cannot be transformed.
+     */
+    @Test
+    public void testNonSquareMatrix() throws TransformException {
+        final var columnar = ColumnarCoordinateSet.fromInterleaved(MappedCoordinateSetTest.wrap(createTestData()));
+        final var matrix = new SimpleMatrix(2, 3);
+        matrix.setElement(0, 1, 1);                                 // Sum of the two coordinates.
+        matrix.setElement(1, 1, 0);
+        matrix.setElement(1, 2, 1);
+        final var affine = new ProjectiveTransform(null, "Test", null, null, matrix) {
+            @Override public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts)
+                    throws TransformException
+            {
+                throw new TransformException("Should use the matrix.");
+            }
+        };
+        final ColumnarCoordinateSet result = columnar.transform(affine, SimpleCRS.Vertical.MSL);
+        assertEquals(1, result.getDimension());
+        assertEquals(1234 + 12340, result.column(0).get(1234));
+    }
+
+    /**
+     * Verifies that a {@link TransformException} thrown in a worker thread is propagated unwrapped.
+     */
+    @Test
+    public void testTransformException() {
+        final var columnar = ColumnarCoordinateSet.fromInterleaved(MappedCoordinateSetTest.wrap(createTestData()));
+        final var failing = new ProjectiveTransform(null, "Test", null, null, new SimpleMatrix(3, 3)) {
+            @Override public Matrix getMatrix() {
+                return null;
+            }
+
+            @Override public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts)
+                    throws TransformException
+            {
+                throw new TransformException("Test failure.");
+            }
+        };
+        for (int i=0; i<10; i++) {
+            final var e = assertThrows(TransformException.class, () -> columnar.transform(failing, SimpleCRS.Geographic.WGS84));
+            assertEquals("Test failure.", e.getMessage());
+        }
+    }
+}
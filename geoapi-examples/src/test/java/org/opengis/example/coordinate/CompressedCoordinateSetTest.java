@@ -0,0 +1,94 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import org.opengis.geometry.DirectPosition;
+import tech.uom.seshat.Units;
+import tech.uom.seshat.Quantities;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link CompressedCoordinateSet}.
+ */
+public class CompressedCoordinateSetTest {
+    /**
+     * Creates a new test case.
+     */
+    public CompressedCoordinateSetTest() {
+    }
+
+    /**
+     * Creates a trajectory of 2500 (φ,λ) tuples with small steps between consecutive tuples.
+     * One coordinate value is NaN.
+     *
+     * @return the (φ,λ) coordinates of the trajectory.
+     */
+    private static double[] createTrajectory() {
+        final double[] coordinates = new double[5000];
+        for (int i=0; i<coordinates.length; i += 2) {
+            coordinates[i]   = 45 + Math.sin(i * 0.001);
+            coordinates[i+1] = -120 + i * 1E-4;
+        }
+        coordinates[3001] = Double.NaN;
+        return coordinates;
+    }
+
+    /**
+     * Verifies that the given values are equal to the expected ones within the given tolerance.
+     *
+     * @param  expected   the array containing the expected values.
+     * @param  offset     index of the first expected value in the {@code expected} array.
+     * @param  actual     the actual values.
+     * @param  tolerance  the maximal difference allowed between expected and actual values.
+     */
+    private static void assertValuesEqual(final double[] expected, final int offset, final double[] actual, final double tolerance) {
+        for (int i=0; i<actual.length; i++) {
+            assertEquals(expected[offset + i], actual[i], tolerance);
+        }
+    }
+
+    /**
+     * Tests compression and decompression with an explicit resolution.
+     */
+    @Test
+    public void testRoundTrip() {
+        final double[] coordinates = createTrajectory();
+        final var compressed = new CompressedCoordinateSet(MappedCoordinateSetTest.wrap(coordinates), new double[] {1E-7, 1E-7}, 100);
+        assertEquals(2500, compressed.size());
+        assertEquals(25,   compressed.getBlockCount());
+        assertTrue(compressed.getCompressedSize() * 3 < coordinates.length * Double.BYTES);
+
+        final double[] block = compressed.decode(15);
+        assertEquals(200, block.length);
+        assertTrue(Double.isNaN(block[1]));
+        block[1] = coordinates[3001];
+        assertValuesEqual(coordinates, 3000, block, 0.5E-7);
+
+        final double[] sum = new double[1];
+        assertEquals(2500, compressed.stream().parallel().count());
+        compressed.stream().forEach((DirectPosition p) -> sum[0] += p.getCoordinate(0));
+        double expected = 0;
+        for (int i=0; i<coordinates.length; i += 2) expected += coordinates[i];
+        assertEquals(expected, sum[0], 1E-4);
+    }
+
+    /**
+     * Tests compression with a tolerance given as a length on geographic axes.
+     */
+    @Test
+    public void testLinearTolerance() {
+        final double[] coordinates = createTrajectory();
+        final var compressed = CompressedCoordinateSet.compress(MappedCoordinateSetTest.wrap(coordinates),
+                                                                Quantities.create(0.01, Units.METRE));
+        final double resolution = compressed.getResolution(0);
+        assertEquals(2 * Math.toDegrees(0.01 / 6378137), resolution, 1E-15);
+        assertEquals(3, compressed.getBlockCount());
+        assertValuesEqual(coordinates, 2048, compressed.decode(1), resolution / 2);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import org.opengis.geometry.Envelope;
+import org.opengis.coordinate.CoordinateSet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link CoordinateTuples}.
+ */
+public class CoordinateTuplesTest {
+    /**
+     * Creates a new test case.
+     */
+    public CoordinateTuplesTest() {
+    }
+
+    /**
+     * Creates a coordinate set of 10000 tuples where the first coordinate is the tuple index
+     * and the second coordinate is the negative of the tuple index.
+     *
+     * @return the coordinate set to use for the tests.
+     */
+    private static CoordinateSet createTestData() {
+        final double[] coordinates = new double[20000];
+        for (int i=0; i<coordinates.length; i += 2) {
+            coordinates[i] = i / 2;
+            coordinates[i+1] = -i / 2;
+        }
+        return MappedCoordinateSetTest.wrap(coordinates);
+    }
+
+    /**
+     * Tests {@link CoordinateTuples#forEach(CoordinateSet, CoordinateTuples.TupleConsumer)}.
+     */
+    @Test
+    public void testForEach() {
+        final double[] sum = new double[2];
+        CoordinateTuples.forEach(createTestData(), (buffer, offset) -> {
+            sum[0] += buffer[offset];
+            sum[1] += buffer[offset + 1];
+        });
+        assertArrayEquals(new double[] {49995000, -49995000}, sum);
+    }
+
+    /**
+     * Tests {@link CoordinateTuples#chunks(CoordinateSet, int)} in a parallel stream.
+     */
+    @Test
+    public void testChunks() {
+        assertEquals(10000, CoordinateTuples.chunks(createTestData(), 100).parallel().mapToInt((c) -> c.count).sum());
+        assertEquals(100,   CoordinateTuples.chunks(createTestData(), 100).parallel().count());
+    }
+
+    /**
+     * Verifies that the sizes reported by the spliterator after splits are consistent,
+     * which is required by {@link java.util.stream.Stream#toArray()} in parallel streams.
+     */
+    @Test
+    public void testParallelToArray() {
+        for (int length = 0; length <= 40; length++) {
+            final double[] coordinates = new double[length * 2];
+            for (int i=0; i<coordinates.length; i++) {
+                coordinates[i] = i;
+            }
+            final CoordinateSet data = MappedCoordinateSetTest.wrap(coordinates);
+            for (int chunkSize = 1; chunkSize <= 5; chunkSize++) {
+                final int expected = (length + chunkSize - 1) / chunkSize;
+                final Object[] chunks = CoordinateTuples.chunks(data, chunkSize).parallel().toArray();
+                assertEquals(expected, chunks.length);
+                assertEquals(expected, CoordinateTuples.chunks(data, chunkSize).parallel().count());
+                int offset = 0;
+                for (final Object chunk : chunks) {
+                    final var c = (CoordinateTuples.Chunk) chunk;
+                    assertEquals(offset * 2, c.coordinates[c.offset]);
+                    offset += c.count;
+                }
+                assertEquals(length, offset);
+            }
+        }
+    }
+
+    /**
+     * Tests {@link CoordinateTuples#envelope(CoordinateSet)}.
+     */
+    @Test
+    public void testEnvelope() {
+        final Envelope envelope = CoordinateTuples.envelope(createTestData());
+        assertEquals(    0, envelope.getMinimum(0));
+        assertEquals( 9999, envelope.getMaximum(0));
+        assertEquals(-9999, envelope.getMinimum(1));
+        assertEquals(    0, envelope.getMaximum(1));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
+import org.opengis.util.FactoryException;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.coordinate.CoordinateSet;
+import org.opengis.coordinate.CoordinateMetadata;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.example.referencing.SimpleCRS;
+import org.opengis.example.referencing.SimpleAuthorityFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link MappedCoordinateSet}.
+ */
+public class MappedCoordinateSetTest {
+    /**
+     * A temporary directory where to write test files.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Creates a new test case.
+     */
+    public MappedCoordinateSetTest() {
+    }
+
+    /**
+     * Creates a coordinate set of (φ,λ) tuples in the WGS84 <abbr>CRS</abbr>.
+     *
+     * @param  coordinates  the coordinate values.
+     * @return a coordinate set wrapping the given array.
+     */
+    static CoordinateSet wrap(final double[] coordinates) {
+        return new CoordinateSet() {
+            @Override public CoordinateMetadata getCoordinateMetadata() {
+                return () -> SimpleCRS.Geographic.WGS84;
+            }
+
+            @Override public Iterator<DirectPosition> iterator() {
+                return stream().iterator();
+            }
+
+            @Override public Optional<Stream<DoubleBuffer>> asDoubleBuffers() {
+                return Optional.of(Stream.of(DoubleBuffer.wrap(coordinates)));
+            }
+        };
+    }
+
+    /**
+     * Writes a coordinate set, then maps it and verifies the values.
+     *
+     * @throws IOException if an error occurred while writing or reading the file.
+     * @throws FactoryException if the CRS cannot be created.
+     */
+    @Test
+    public void testWriteAndMap() throws IOException, FactoryException {
+        final double[] coordinates = new double[2000];
+        for (int i=0; i<coordinates.length; i++) {
+            coordinates[i] = i * 0.25;
+        }
+        final Path file = directory.resolve("points.gcs");
+        MappedCoordinateSet.write(wrap(coordinates), "4326", false, file);
+
+        final var mapped = new MappedCoordinateSet(file, SimpleAuthorityFactory.provider());
+        final CoordinateReferenceSystem crs = mapped.getCoordinateReferenceSystem();
+        assertSame  (SimpleCRS.Geographic.WGS84, crs);
+        assertEquals(2,    mapped.getDimension());
+        assertEquals(1000, mapped.size());
+        assertTrue  (mapped.asFloatBuffers().isEmpty());
+        assertTrue  (mapped.getCoordinateEpoch().isEmpty());
+
+        final DoubleBuffer buffer = mapped.asDoubleBuffers().orElseThrow().findFirst().orElseThrow();
+        assertEquals(coordinates.length, buffer.remaining());
+        assertEquals(499.75, buffer.get(1999));
+        assertEquals(1000, mapped.stream().parallel().count());
+        assertEquals(coordinates.length / 2 * 0.25 * (coordinates.length - 2) / 2,
+                     mapped.stream().parallel().mapToDouble((p) -> p.getCoordinate(0)).sum(), 1E-9);
+
+        MappedCoordinateSet.write(wrap(coordinates), "4326", true, file);
+        final var floats = new MappedCoordinateSet(file, SimpleAuthorityFactory.provider());
+        assertTrue(floats.asDoubleBuffers().isEmpty());
+        assertEquals(499.75f, floats.asFloatBuffers().orElseThrow().findFirst().orElseThrow().get(1999));
+    }
+
+    /**
+     * Maps a file in many small windows and verifies the values read across window boundaries.
+     *
+     * @throws IOException if an error occurred while writing or reading the file.
+     * @throws FactoryException if the CRS cannot be created.
+     */
+    @Test
+    public void testWindows() throws IOException, FactoryException {
+        final double[] coordinates = new double[2000];
+        for (int i=0; i<coordinates.length; i++) {
+            coordinates[i] = i;
+        }
+        final Path file = directory.resolve("windows.gcs");
+        MappedCoordinateSet.write(wrap(coordinates), "4326", false, file);
+        final var mapped = new MappedCoordinateSet(file, SimpleAuthorityFactory.provider(), 100);
+        final List<DoubleBuffer> windows = mapped.asDoubleBuffers().orElseThrow().collect(Collectors.toList());
+        assertEquals(167, windows.size());              // 6 tuples of 16 bytes in each window of 100 bytes.
+        assertEquals(12, windows.get(0).remaining());
+        assertEquals(8,  windows.get(166).remaining());
+        final DoubleBuffer all = DoubleBuffer.allocate(coordinates.length);
+        windows.forEach(all::put);
+        assertArrayEquals(coordinates, all.array());
+
+        int i = 0;
+        for (final DirectPosition position : mapped) {
+            assertEquals(2*i,     position.getCoordinate(0));
+            assertEquals(2*i + 1, position.getCoordinate(1));
+            i++;
+        }
+        assertEquals(1000, i);
+        assertEquals(1000, mapped.stream().parallel().count());
+        assertEquals(999 * 1000, mapped.stream().parallel().mapToDouble((p) -> p.getCoordinate(0)).sum());
+
+        MappedCoordinateSet.write(wrap(coordinates), "4326", true, file);
+        final var floats = new MappedCoordinateSet(file, SimpleAuthorityFactory.provider(), 100);
+        assertEquals(84, floats.asFloatBuffers().orElseThrow().count());       // 12 tuples of 8 bytes.
+        assertEquals(1999f, floats.asFloatBuffers().orElseThrow().reduce((a, b) -> b).orElseThrow().get(7));
+    }
+
+    /**
+     * Verifies that writing a file does not modify the content seen by a set mapping the previous file.
+     *
+     * @throws IOException if an error occurred while writing or reading the file.
+     * @throws FactoryException if the CRS cannot be created.
+     */
+    @Test
+    public void testReplaceMappedFile() throws IOException, FactoryException {
+        final Path file = directory.resolve("replaced.gcs");
+        MappedCoordinateSet.write(wrap(new double[] {1, 2, 3, 4}), "4326", false, file);
+        final var mapped = new MappedCoordinateSet(file, SimpleAuthorityFactory.provider());
+        MappedCoordinateSet.write(wrap(new double[] {5, 6}), "4326", false, file);
+        final DoubleBuffer buffer = mapped.asDoubleBuffers().orElseThrow().findFirst().orElseThrow();
+        assertEquals(4, buffer.remaining());
+        assertEquals(4, buffer.get(3));
+        assertEquals(1, new MappedCoordinateSet(file, SimpleAuthorityFactory.provider()).size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());             // No temporary file left.
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.coordinate;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+import org.opengis.example.referencing.SimpleCRS;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SpaceFillingCurve}.
+ */
+public class SpaceFillingCurveTest {
+    /**
+     * Creates a new test case.
+     */
+    public SpaceFillingCurveTest() {
+    }
+
+    /**
+     * Creates a curve where each cell has a size of 1 in all dimensions.
+     *
+     * @param  type       the type of curve to create.
+     * @param  dimension  the number of dimensions.
+     * @return a curve with unit cells.
+     */
+    private static SpaceFillingCurve unitCells(final SpaceFillingCurve.Type type, final int dimension) {
+        final double[] minimum = new double[dimension];
+        final double[] maximum = new double[dimension];
+        Arrays.fill(maximum, 1L << ((Long.SIZE - 1) / dimension));
+        return new SpaceFillingCurve(type, minimum, maximum);
+    }
+
+    /**
+     * Tests Morton keys of a few cells.
+     */
+    @Test
+    public void testMorton() {
+        final SpaceFillingCurve curve = unitCells(SpaceFillingCurve.Type.MORTON, 2);
+        assertEquals(0, curve.encode(0.5, 0.5));
+        assertEquals(1, curve.encode(0.5, 1.5));
+        assertEquals(2, curve.encode(1.5, 0.5));
+        assertEquals(3, curve.encode(1.5, 1.5));
+        assertEquals(12, curve.encode(2.5, 2.5));
+        assertArrayEquals(new double[] {2.5, 2.5}, curve.decode(12));
+    }
+
+    /**
+     * Tests that consecutive Hilbert keys identify adjacent cells, and that decoding is the inverse of encoding.
+     */
+    @Test
+    public void testHilbert() {
+        final var random = new Random(11);
+        for (int dimension = 2; dimension <= 4; dimension++) {
+            final SpaceFillingCurve curve = unitCells(SpaceFillingCurve.Type.HILBERT, dimension);
+            final long maxKey = 1L << (curve.getBitsPerDimension() * dimension);
+            for (int n=0; n<200; n++) {
+                final long key = Math.floorMod(random.nextLong(), maxKey - 1);
+                final double[] p = curve.decode(key);
+                final double[] q = curve.decode(key + 1);
+                double distance = 0;
+                for (int i=0; i<dimension; i++) {
+                    distance += Math.abs(p[i] - q[i]);
+                }
+                assertEquals(1, distance, "Consecutive cells shall be adjacent.");
+                assertEquals(key, curve.encode(p));
+            }
+        }
+    }
+
+    /**
+     * Tests the reordering of a coordinate set.
+     */
+    @Test
+    public void testReorder() {
+        final var random = new Random(13);
+        final double[] coordinates = new double[20000];
+        for (int i=0; i<coordinates.length; i += 2) {
+            coordinates[i]   = random.nextDouble() * 180 - 90;
+            coordinates[i+1] = random.nextDouble() * 360 - 180;
+        }
+        final SpaceFillingCurve curve = SpaceFillingCurve.forDomain(SpaceFillingCurve.Type.HILBERT,
+                SimpleCRS.Geographic.WGS84.getCoordinateSystem());
+        final ArrayCoordinateSet sorted = curve.reorder(MappedCoordinateSetTest.wrap(coordinates));
+        assertEquals(10000, sorted.size());
+        final double[] values = sorted.asDoubleBuffers().get().findFirst().get().array();
+        final long[] keys = new long[10000];
+        curve.encode(values, 0, keys, 0, keys.length);
+        for (int i=1; i<keys.length; i++) {
+            assertTrue(keys[i-1] <= keys[i]);
+        }
+        assertEquals(Arrays.stream(coordinates).sum(), Arrays.stream(values).sum(), 1E-6);
+    }
+
+    /**
+     * Tests the sort order of tuples, including tuples having the same key.
+     * The keys use 62 bits in two dimensions, so they do not fit with the indices in a {@code long}.
+     * This test verifies that runs of equal truncated keys are sorted again on the full keys.
+     */
+    @Test
+    public void testSortOrder() {
+        final var random = new Random(29);
+        final double[] coordinates = new double[2 * 5000];
+        for (int i=0; i<coordinates.length; i += 2) {
+            final double scale = (i < 600) ? 1E-8 : 1;                          // Clustered tuples.
+            coordinates[i]   = random.nextDouble() * 180 * scale - 90;
+            coordinates[i+1] = random.nextDouble() * 360 * scale - 180;
+        }
+        System.arraycopy(coordinates, 0, coordinates, 2 * 4000, 2 * 1000);     // Duplicated tuples.
+        final SpaceFillingCurve curve = SpaceFillingCurve.forDomain(SpaceFillingCurve.Type.HILBERT,
+                SimpleCRS.Geographic.WGS84.getCoordinateSystem());
+        final long[] keys = new long[5000];
+        curve.encode(coordinates, 0, keys, 0, keys.length);
+        final int[] expected = IntStream.range(0, keys.length).boxed()
+                .sorted((i, j) -> Long.compare(keys[i], keys[j])).mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(expected, curve.sortOrder(MappedCoordinateSetTest.wrap(coordinates)));
+    }
+
+    /**
+     * Tests the sort order of envelopes.
+     */
+    @Test
+    public void testEnvelopeOrder() {
+        final SpaceFillingCurve curve = unitCells(SpaceFillingCurve.Type.MORTON, 2);
+        final var envelopes = List.of(box(3, 3), box(0, 0), box(1, 1), box(0, 1));
+        assertArrayEquals(new int[] {1, 3, 2, 0}, curve.sortOrder(envelopes));
+    }
+
+    /**
+     * Creates an envelope of size 1 at the given location.
+     *
+     * @param  x  the lower <var>x</var> coordinate value.
+     * @param  y  the lower <var>y</var> coordinate value.
+     * @return an envelope of size 1 at the given location.
+     */
+    private static SimpleEnvelope box(final double x, final double y) {
+        return new SimpleEnvelope(new SimpleDirectPosition(null, x, y), new SimpleDirectPosition(null, x + 1, y + 1));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.feature;
+
+import java.util.List;
+import org.opengis.feature.Attribute;
+import org.opengis.feature.PropertyNotFoundException;
+import org.opengis.feature.InvalidPropertyValueException;
+import org.opengis.feature.MultiValuedPropertyException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SimpleFeature} and {@link SimpleFeatureType}.
+ */
+public class SimpleFeatureTest {
+    /**
+     * Creates a new test case.
+     */
+    public SimpleFeatureTest() {
+    }
+
+    /**
+     * Creates a feature type for cities.
+     *
+     * @return the feature type for cities.
+     */
+    static SimpleFeatureType city() {
+        return new SimpleFeatureType("City",
+                new SimpleAttributeType<>("name", String.class),
+                new SimpleAttributeType<>("population", Integer.class, 0, 1, 0),
+                new SimpleAttributeType<>("aliases", String.class, 0, 5, null));
+    }
+
+    /**
+     * Tests reading and writing property values by name and by index.
+     */
+    @Test
+    public void testPropertyValues() {
+        final SimpleFeatureType type = city();
+        assertEquals(1, type.indexOf("population"));
+        assertEquals(-1, type.indexOf("area"));
+        assertFalse(type.isSimple());
+        final SimpleFeature feature = type.newInstance();
+        assertEquals(0, feature.getPropertyValue("population"));
+        assertEquals(List.of(), feature.getPropertyValue("aliases"));
+        feature.setPropertyValue("name", "Paris");
+        feature.setPropertyValue(1, 2_100_000);
+        feature.setPropertyValue("aliases", List.of("Lutèce"));
+        assertEquals("Paris", feature.getPropertyValue(0));
+        assertEquals(2_100_000, feature.getPropertyValue("population"));
+        assertEquals(List.of("Lutèce"), feature.getPropertyValue(2));
+        assertThrows(PropertyNotFoundException.class, () -> feature.getPropertyValue("area"));
+        assertThrows(InvalidPropertyValueException.class, () -> feature.setPropertyValue("population", "many"));
+        assertThrows(InvalidPropertyValueException.class, () -> feature.setPropertyValue("aliases", "Lutèce"));
+    }
+
+    /**
+     * Tests the attribute views.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAttributeView() {
+        final SimpleFeature feature = city().newInstance();
+        final var aliases = (Attribute<String>) feature.getProperty("aliases");
+        aliases.setValues(List.of("Lutèce", "Ville lumière"));
+        assertEquals(List.of("Lutèce", "Ville lumière"), feature.getPropertyValue("aliases"));
+        assertThrows(MultiValuedPropertyException.class, aliases::getValue);
+        final var name = (Attribute<String>) feature.getProperty("name");
+        name.setValue("Paris");
+        assertEquals("Paris", feature.getPropertyValue("name"));
+        assertEquals(List.of("Paris"), name.getValues());
+
+        final SimpleFeature copy = city().newInstance();
+        copy.setProperty(name);
+        copy.setProperty(aliases);
+        assertEquals(feature, copy);
+    }
+}
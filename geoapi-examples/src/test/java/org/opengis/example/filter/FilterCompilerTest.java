@@ -0,0 +1,181 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.function.Predicate;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Expression;
+import org.opengis.filter.NullOperator;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.ComparisonOperatorName;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.ValueReference;
+import org.opengis.example.feature.SimpleFeature;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link FilterCompiler}.
+ */
+public class FilterCompilerTest {
+    /**
+     * The factory to use for creating the filters to compile.
+     */
+    private final SimpleFilterFactory factory;
+
+    /**
+     * Creates a new test case.
+     */
+    public FilterCompilerTest() {
+        factory = new SimpleFilterFactory();
+    }
+
+    /**
+     * Returns the sample features, together with features having unusual values.
+     *
+     * @return the features on which to test the compiled filters.
+     */
+    private static List<SimpleFeature> features() {
+        final var features = new ArrayList<SimpleFeature>(SimpleFilterFactoryTest.cities());
+        SimpleFeature f = SimpleFilterFactoryTest.city("Nowhere", 0, Double.NaN, List.of(), 0, 0);
+        features.add(f);
+        f = SimpleFilterFactoryTest.city("Unknown", 1, 1, List.of(1), 0, 0);
+        f.setPropertyValue("population", null);
+        features.add(f);
+        return features;
+    }
+
+    /**
+     * Verifies that the compiled predicate gives the same results as the given filter on all features.
+     *
+     * @param  filter  the filter to compile and verify.
+     */
+    private static void verify(final Filter<Feature> filter) {
+        final Predicate<Feature> compiled = FilterCompiler.compile(filter);
+        for (final SimpleFeature feature : features()) {
+            assertEquals(filter.test(feature), compiled.test(feature), () -> filter + " on " + feature);
+        }
+    }
+
+    /**
+     * Tests the compilation of comparison operators with literals on both sides.
+     */
+    @Test
+    public void testComparisons() {
+        final ValueReference<Feature,?> population = factory.property("population");
+        final ValueReference<Feature,?> area = factory.property("area");
+        final var literal = factory.literal(500000);
+        final Filter<Feature> filter = factory.greater(population, literal);
+        assertNotSame(filter, FilterCompiler.compile(filter));
+        verify(filter);
+        verify(factory.less          (literal, population));
+        verify(factory.lessOrEqual   (area, factory.literal(71.9)));
+        verify(factory.greaterOrEqual(area, factory.literal(71.9)));
+        verify(factory.equal         (area, factory.literal(118.3)));
+        verify(factory.notEqual      (area, factory.literal(118.3)));
+        verify(factory.less          (population, factory.literal(Long.MAX_VALUE)));
+        verify(factory.equal         (population, factory.literal("500000")));
+        verify(factory.between       (population, factory.literal(500001), factory.literal(3000000)));
+    }
+
+    /**
+     * Tests the compilation of comparisons between arithmetic expressions.
+     */
+    @Test
+    public void testArithmetic() {
+        verify(factory.greater(factory.multiply(factory.property("area", Double.class), factory.literal(10000)),
+                               factory.property("population")));
+        verify(factory.less(factory.divide(factory.property("population", Integer.class), factory.literal(1000)),
+                            factory.literal(600)));
+        verify(factory.equal(factory.add(factory.property("population", Integer.class), factory.literal(Long.MAX_VALUE)),
+                             factory.literal(Long.MAX_VALUE)));
+        /*
+         * 2⁵³ + 1 is rounded to 2⁵³ in double arithmetic, which shall not be considered exact.
+         */
+        final long limit = 1L << 53;
+        verify(factory.equal(factory.add(factory.property("population", Integer.class), factory.literal(limit - 2099999)),
+                             factory.literal(limit)));
+    }
+
+    /**
+     * Tests the compilation of string comparisons, with and without case sensitivity.
+     */
+    @Test
+    public void testStrings() {
+        final ValueReference<Feature,?> name = factory.property("name");
+        verify(factory.equal   (name, factory.literal("LYON"), false, MatchAction.ANY));
+        verify(factory.equal   (name, factory.literal("Lyon")));
+        verify(factory.notEqual(name, factory.literal("Lyon")));
+        verify(factory.less    (factory.literal("M"), name));
+    }
+
+    /**
+     * Tests the compilation of logical operators, multi-valued properties and nodes evaluated by the fallback.
+     */
+    @Test
+    public void testLogicalOperators() {
+        final var big = factory.greater(factory.property("population"), factory.literal(400000));
+        final var n   = factory.like(factory.property("name"), "%n%");
+        final var s   = factory.greaterOrEqual(factory.property("scores"), factory.literal(7), true, MatchAction.ALL);
+        verify(factory.and(big, n));
+        verify(factory.or(List.of(big, n, s)));
+        verify(factory.not(factory.and(List.of(big, n, s))));
+        verify(factory.isNull(factory.property("scores")));
+        verify(factory.and(Filter.include(), big));
+        verify(factory.or(Filter.exclude(), s));
+
+        final Filter<Feature> bbox = factory.bbox(factory.property("location"), new SimpleEnvelope(
+                new SimpleDirectPosition(null, 0, 44), new SimpleDirectPosition(null, 5, 50)));
+        assertSame(bbox, FilterCompiler.compile(bbox));
+        verify(factory.and(bbox, big));
+    }
+
+    /**
+     * Verifies that a {@code IsNull} operator from another implementation is not compiled with the rules of this module.
+     * The operator used in this test considers only the {@code null} value as null, not the empty collections.
+     */
+    @Test
+    public void testForeignNullOperator() {
+        final ValueReference<Feature,?> scores = factory.property("scores");
+        final var foreign = new NullOperator<Feature>() {
+            @Override public Class<Feature> getResourceClass() {return Feature.class;}
+            @Override public List<Expression<Feature,?>> getExpressions() {return List.of(scores);}
+            @Override public boolean test(final Feature feature) {return scores.apply(feature) == null;}
+        };
+        final SimpleFeature toulouse = SimpleFilterFactoryTest.cities().get(2);
+        assertFalse(foreign.test(toulouse));
+        assertFalse(FilterCompiler.compile(foreign).test(toulouse));
+        assertTrue(FilterCompiler.compile(factory.isNull(scores)).test(toulouse));
+    }
+
+    /**
+     * Verifies that a comparison operator from another implementation is not compiled with the rules of this module.
+     * The operator used in this test compares the values as character strings.
+     */
+    @Test
+    public void testForeignComparisonOperator() {
+        final ValueReference<Feature,?> population = factory.property("population");
+        final var literal = factory.literal(500000);
+        final var foreign = new BinaryComparisonOperator<Feature>() {
+            @Override public ComparisonOperatorName getOperatorType() {return ComparisonOperatorName.PROPERTY_IS_GREATER_THAN;}
+            @Override public Class<Feature> getResourceClass() {return Feature.class;}
+            @Override public List<Expression<Feature,?>> getExpressions() {return List.of(population, literal);}
+            @Override public boolean test(final Feature feature) {
+                return String.valueOf(population.apply(feature)).compareTo(String.valueOf(literal.apply(feature))) > 0;
+            }
+        };
+        assertSame(foreign, FilterCompiler.compile(foreign));
+        verify(foreign);
+        verify(factory.not(foreign));
+    }
+}
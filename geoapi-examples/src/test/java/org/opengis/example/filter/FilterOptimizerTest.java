@@ -0,0 +1,198 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.lang.reflect.Proxy;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Literal;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.LogicalOperator;
+import org.opengis.filter.LogicalOperatorName;
+import org.opengis.example.feature.SimpleFeature;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link FilterOptimizer}.
+ */
+public class FilterOptimizerTest {
+    /**
+     * The factory to use for creating the filters to optimize.
+     */
+    private final SimpleFilterFactory factory;
+
+    /**
+     * The optimizer to test.
+     */
+    private final FilterOptimizer<Feature> optimizer;
+
+    /**
+     * Creates a new test case.
+     */
+    public FilterOptimizerTest() {
+        factory   = new SimpleFilterFactory();
+        optimizer = new FilterOptimizer<>(factory);
+    }
+
+    /**
+     * Optimizes the given filter and verifies that the result gives the same results as the original filter.
+     *
+     * @param  filter  the filter to optimize.
+     * @return the optimized filter.
+     */
+    private Filter<Feature> optimize(final Filter<Feature> filter) {
+        final Filter<Feature> optimized = optimizer.optimize(filter);
+        for (final SimpleFeature feature : SimpleFilterFactoryTest.cities()) {
+            assertEquals(filter.test(feature), optimized.test(feature), () -> optimized + " on " + feature);
+        }
+        return optimized;
+    }
+
+    /**
+     * Returns the operands of the given logical operator.
+     *
+     * @param  filter  the filter which is expected to be a logical operator.
+     * @param  type    the expected type of logical operator.
+     * @return the operands of the logical operator.
+     */
+    private static List<Filter<Feature>> operands(final Filter<Feature> filter, final LogicalOperatorName type) {
+        final var logical = assertInstanceOf(LogicalOperator.class, filter);
+        assertEquals(type, logical.getOperatorType());
+        @SuppressWarnings("unchecked")
+        final List<Filter<Feature>> operands = logical.getOperands();
+        return operands;
+    }
+
+    /**
+     * Tests the folding of expressions and comparisons having only literal operands.
+     */
+    @Test
+    public void testConstantFolding() {
+        final Expression<Feature,?> sum = optimizer.optimize(factory.multiply(factory.add(factory.literal(2), factory.literal(3)),
+                                                                              factory.literal(4)));
+        assertEquals(20L, assertInstanceOf(Literal.class, sum).getValue());
+
+        final var big = factory.greater(factory.property("population"), factory.literal(400000));
+        assertSame(Filter.include(), optimize(factory.greater(factory.add(factory.literal(2), factory.literal(3)), factory.literal(4))));
+        assertSame(Filter.exclude(), optimize(factory.equal(factory.literal("a"), factory.literal("b"))));
+        assertSame(big,              optimize(factory.and(factory.less(factory.literal(1), factory.literal(2)), big)));
+        assertSame(Filter.include(), optimize(factory.or(factory.less(factory.literal(1), factory.literal(2)), big)));
+
+        final Filter<Feature> optimized = optimize(factory.less(factory.property("area"),
+                factory.divide(factory.literal(100), factory.literal(2))));
+        assertEquals(factory.less(factory.property("area"), factory.literal(50.0)), optimized);
+    }
+
+    /**
+     * Tests the flattening of nested logical operators and the removal of duplicated operands.
+     */
+    @Test
+    public void testSimplifications() {
+        final var big   = factory.greater(factory.property("population"), factory.literal(400000));
+        final var small = factory.less(factory.property("area"), factory.literal(100));
+        final var named = factory.like(factory.property("name"), "%n%");
+        assertSame(big, optimize(factory.or(big, big)));
+        assertSame(big, optimize(factory.not(factory.not(big))));
+        assertEquals(3, operands(optimize(factory.and(factory.and(big, small), factory.and(named, big))),
+                                 LogicalOperatorName.AND).size());
+    }
+
+    /**
+     * Tests the replacement of equality tests by a membership test.
+     */
+    @Test
+    public void testMembership() {
+        final var names = factory.or(List.of(
+                factory.equal(factory.property("name"), factory.literal("Lyon")),
+                factory.equal(factory.literal("Nice"), factory.property("name")),
+                factory.equal(factory.property("population"), factory.literal(2100000.0)),
+                factory.equal(factory.property("name"), factory.literal("Berlin"))));
+        final List<Filter<Feature>> operands = operands(optimize(names), LogicalOperatorName.OR);
+        assertEquals(2, operands.size());
+        assertInstanceOf(MembershipFilter.class, operands.get(0));
+        assertEquals(3, operands(operands.get(0), LogicalOperatorName.OR).size());
+
+        final Filter<Feature> scores = optimize(factory.or(
+                factory.equal(factory.property("scores"), factory.literal(5)),
+                factory.equal(factory.property("scores"), factory.literal(9.0))));
+        assertInstanceOf(MembershipFilter.class, scores);
+    }
+
+    /**
+     * Verifies that equality tests are not replaced by a membership test when the hash set lookup
+     * could give different results or could not be created by the factory.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMembershipRestrictions() {
+        Filter<Feature> filter = optimize(factory.or(
+                factory.equal(factory.property("name"), factory.literal("lyon"), false, MatchAction.ANY),
+                factory.equal(factory.property("name"), factory.literal("nice"), false, MatchAction.ANY)));
+        assertFalse(operands(filter, LogicalOperatorName.OR).stream().anyMatch(MembershipFilter.class::isInstance));
+
+        filter = optimize(factory.or(
+                factory.equal(factory.property("scores"), factory.literal(5), true, MatchAction.ALL),
+                factory.equal(factory.property("scores"), factory.literal(9), true, MatchAction.ALL)));
+        assertFalse(operands(filter, LogicalOperatorName.OR).stream().anyMatch(MembershipFilter.class::isInstance));
+        /*
+         * A factory of another implementation cannot create the membership test.
+         * The proxy delegates to the factory of this module but is not an instance of it.
+         */
+        final var foreign = (FilterFactory<Feature,Object,Object>) Proxy.newProxyInstance(
+                FilterFactory.class.getClassLoader(), new Class<?>[] {FilterFactory.class},
+                (proxy, method, args) -> method.invoke(factory, args));
+        filter = new FilterOptimizer<>(foreign).optimize(factory.or(
+                factory.equal(factory.property("name"), factory.literal("Lyon")),
+                factory.equal(factory.property("name"), factory.literal("Nice"))));
+        assertFalse(operands(filter, LogicalOperatorName.OR).stream().anyMatch(MembershipFilter.class::isInstance));
+    }
+
+    /**
+     * Verifies that the membership test created by the optimizer is not expanded back
+     * into a chain of equality tests by {@link FilterCompiler}.
+     */
+    @Test
+    public void testMembershipCompilation() {
+        final Filter<Feature> names = optimize(factory.or(List.of(
+                factory.equal(factory.property("name"), factory.literal("Lyon")),
+                factory.equal(factory.property("name"), factory.literal("Nice")),
+                factory.equal(factory.property("name"), factory.literal("Berlin")))));
+        assertInstanceOf(MembershipFilter.class, names);
+        assertSame(names, FilterCompiler.compile(names));
+
+        final Filter<Feature> filter = optimize(factory.and(
+                factory.greater(factory.property("population"), factory.literal(400000)),
+                factory.or(factory.equal(factory.property("name"), factory.literal("Lyon")),
+                           factory.equal(factory.property("name"), factory.literal("Paris")))));
+        assertTrue(operands(filter, LogicalOperatorName.AND).stream().anyMatch(MembershipFilter.class::isInstance));
+        final var compiled = FilterCompiler.compile(filter);
+        for (final SimpleFeature feature : SimpleFilterFactoryTest.cities()) {
+            assertEquals(filter.test(feature), compiled.test(feature));
+        }
+    }
+
+    /**
+     * Tests the reordering of operands by cost.
+     */
+    @Test
+    public void testReordering() {
+        final var bbox  = factory.bbox(factory.property("location"), new SimpleEnvelope(
+                new SimpleDirectPosition(null, 0, 44), new SimpleDirectPosition(null, 5, 50)));
+        final var named = factory.like(factory.property("name"), "%n%");
+        final var big   = factory.greater(factory.property("population"), factory.literal(400000));
+        assertEquals(List.of(big, named, bbox), operands(optimize(factory.and(List.of(bbox, named, big))), LogicalOperatorName.AND));
+        final var filter = factory.and(big, bbox);
+        assertSame(filter, optimize(filter));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link LikePattern}.
+ */
+public class LikePatternTest {
+    /**
+     * Creates a new test case.
+     */
+    public LikePatternTest() {
+    }
+
+    /**
+     * Compiles the given pattern with the {@code %}, {@code _} and {@code \} special characters.
+     *
+     * @param  pattern    the pattern to compile.
+     * @param  matchCase  whether the comparisons are case-sensitive.
+     * @return the compiled pattern.
+     */
+    private static LikePattern compile(final String pattern, final boolean matchCase) {
+        return LikePattern.compile(pattern, '%', '_', '\\', matchCase);
+    }
+
+    /**
+     * Tests patterns without wildcard, with a prefix, a suffix or a substring.
+     */
+    @Test
+    public void testFastPaths() {
+        LikePattern p = compile("Paris", true);
+        assertTrue (p.matches("Paris"));
+        assertFalse(p.matches("paris"));
+        assertFalse(p.matches("Pari"));
+        assertTrue (compile("Paris", false).matches("PARIS"));
+
+        p = compile("Tou%", true);
+        assertTrue (p.matches("Toulouse"));
+        assertTrue (p.matches("Tou"));
+        assertFalse(p.matches("To"));
+        assertTrue (compile("tou%", false).matches("TOULOUSE"));
+
+        p = compile("%louse", true);
+        assertTrue (p.matches("Toulouse"));
+        assertFalse(p.matches("louse!"));
+        assertFalse(p.matches("ouse"));
+
+        p = compile("%ly%", false);
+        assertTrue (p.matches("LYON"));
+        assertTrue (p.matches("Italy"));
+        assertTrue (p.matches("ly"));
+        assertFalse(p.matches("Paris"));
+        assertTrue (compile("%", true).matches(""));
+    }
+
+    /**
+     * Tests the general case with single character wildcards and escaped characters.
+     */
+    @Test
+    public void testGeneral() {
+        LikePattern p = compile("N_c%", true);
+        assertTrue (p.matches("Nice"));
+        assertTrue (p.matches("Nac"));
+        assertFalse(p.matches("Nc"));
+
+        p = compile("%a%b%c", true);
+        assertTrue (p.matches("xaybzc"));
+        assertTrue (p.matches("abcabc"));
+        assertFalse(p.matches("cba"));
+        assertFalse(p.matches("abcb"));
+
+        p = compile("ab%ba", true);
+        assertFalse(p.matches("aba"));              // The prefix and suffix shall not overlap.
+        assertTrue (p.matches("abba"));
+
+        p = compile("100\\%", true);
+        assertTrue (p.matches("100%"));
+        assertFalse(p.matches("1000"));
+        assertTrue (compile("a\\_b", true).matches("a_b"));
+        assertFalse(compile("a\\_b", true).matches("axb"));
+        assertTrue (compile("_", true).matches("𝐀"));        // A surrogate pair is one character.
+    }
+
+    /**
+     * Tests the search of intermediate segments in texts with repetitions,
+     * where a match may begin inside a partial match of the same segment.
+     */
+    @Test
+    public void testIntermediateSegments() {
+        assertTrue (compile("%aab%", true).matches("aaab"));
+        assertTrue (compile("x%abab_c%y", true).matches("xabababdcy"));
+        assertFalse(compile("x%abab_c%y", true).matches("xababadcy"));
+        assertTrue (compile("%a_a_b%", false).matches("AAAAXAXB"));
+        assertTrue (compile("%__%", true).matches("ab"));
+        assertFalse(compile("%___%", true).matches("ab"));
+        assertTrue (compile("%ab%ab%", true).matches("abab"));
+        assertFalse(compile("%ab%ab%", true).matches("aba"));
+        /*
+         * A single character wildcard matches a surrogate pair, which is two `char` values.
+         */
+        assertTrue (compile("%a_b%", true).matches("x𝐀a𝐀by"));
+        assertFalse(compile("%a_b%", true).matches("xa𝐀𝐀b"));
+        /*
+         * The search time is linear in the text length. A naive search would
+         * take about 10⁸ comparisons for the following 100 000 characters.
+         */
+        final String text = "a".repeat(100000);
+        assertFalse(compile("%" + "a".repeat(1000) + "b%", true).matches(text));
+        assertFalse(compile("%" + "a".repeat(500) + '_' + "a".repeat(500) + "b%", true).matches(text));
+        assertTrue (compile("%" + "a".repeat(500) + '_' + "a".repeat(500) + '%', true).matches(text));
+    }
+
+    /**
+     * Compares the results of patterns having many segments with the equivalent regular expressions.
+     */
+    @Test
+    public void compareLongPatternsWithRegex() {
+        final var random = new Random(402718);
+        for (int n=0; n<1000; n++) {
+            final var pattern = new StringBuilder();
+            final var regex   = new StringBuilder();
+            for (int i = random.nextInt(12); --i >= 0;) {
+                final char c = "aab%_".charAt(random.nextInt(5));
+                pattern.append(c);
+                regex.append(c == '%' ? ".*" : c == '_' ? "." : String.valueOf(c));
+            }
+            final Pattern expected = Pattern.compile(regex.toString());
+            final LikePattern actual = compile(pattern.toString(), true);
+            for (int t=0; t<20; t++) {
+                final var text = new StringBuilder();
+                for (int i = random.nextInt(30); --i >= 0;) {
+                    text.append(random.nextInt(4) == 0 ? 'b' : 'a');
+                }
+                final String s = text.toString();
+                assertEquals(expected.matcher(s).matches(), actual.matches(s), () -> pattern + " with " + s);
+            }
+        }
+    }
+
+    /**
+     * Compares the results with the regular expressions equivalent to random patterns.
+     */
+    @Test
+    public void compareWithRegex() {
+        final var random = new Random(837201);
+        final String alphabet = "abAB%_\\";
+        for (int n=0; n<2000; n++) {
+            final var pattern = new StringBuilder();
+            final var regex   = new StringBuilder();
+            for (int i = random.nextInt(8); --i >= 0;) {
+                char c = alphabet.charAt(random.nextInt(alphabet.length()));
+                pattern.append(c);
+                if (c == '\\' && i != 0) {
+                    c = alphabet.charAt(random.nextInt(alphabet.length()));
+                    pattern.append(c);
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    i--;
+                } else switch (c) {
+                    case '%': regex.append(".*"); break;
+                    case '_': regex.append('.');  break;
+                    default:  regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            final boolean matchCase = random.nextBoolean();
+            final Pattern expected = Pattern.compile(regex.toString(), matchCase ? 0 : Pattern.CASE_INSENSITIVE);
+            final LikePattern actual = compile(pattern.toString(), matchCase);
+            for (int t=0; t<20; t++) {
+                final var text = new StringBuilder();
+                for (int i = random.nextInt(10); --i >= 0;) {
+                    text.append("abAB%_".charAt(random.nextInt(6)));
+                }
+                final String s = text.toString();
+                assertEquals(expected.matcher(s).matches(), actual.matches(s), () -> pattern + " with " + s);
+            }
+        }
+    }
+
+    /**
+     * Verifies that compiled patterns are cached.
+     */
+    @Test
+    public void testCache() {
+        assertSame   (compile("Cache%", true), compile("Cache%", true));
+        assertNotSame(compile("Cache%", true), compile("Cache%", false));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.lang.ref.WeakReference;
+import java.util.stream.IntStream;
+import org.opengis.util.GenericName;
+import org.opengis.util.InternationalString;
+import org.opengis.feature.FeatureType;
+import org.opengis.feature.FeatureAssociation;
+import org.opengis.feature.FeatureAssociationRole;
+import org.opengis.example.feature.SimpleFeature;
+import org.opengis.example.feature.SimpleFeatureType;
+import org.opengis.example.feature.SimpleAttributeType;
+import org.opengis.example.util.SimpleNameFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link PropertyAccessor}.
+ */
+public class PropertyAccessorTest {
+    /**
+     * Creates a new test case.
+     */
+    public PropertyAccessorTest() {
+    }
+
+    /**
+     * An association to features of a given type.
+     */
+    private static final class Role implements FeatureAssociationRole {
+        /** The association name. */
+        private final GenericName name;
+
+        /** The type of associated features. */
+        private final FeatureType valueType;
+
+        /** The maximum number of associated features. */
+        private final int maximumOccurs;
+
+        /**
+         * Creates a new association.
+         *
+         * @param  name           the association name.
+         * @param  valueType      the type of associated features.
+         * @param  maximumOccurs  the maximum number of associated features.
+         */
+        Role(final String name, final FeatureType valueType, final int maximumOccurs) {
+            this.name          = SimpleNameFactory.provider().createLocalName(null, name);
+            this.valueType     = valueType;
+            this.maximumOccurs = maximumOccurs;
+        }
+
+        @Override public GenericName         getName()          {return name;}
+        @Override public InternationalString getDefinition()    {return name.toInternationalString();}
+        @Override public FeatureType         getValueType()     {return valueType;}
+        @Override public int                 getMinimumOccurs() {return 0;}
+        @Override public int                 getMaximumOccurs() {return maximumOccurs;}
+        @Override public FeatureAssociation  newInstance()      {throw new UnsupportedOperationException();}
+    }
+
+    /**
+     * Tests the access to a property of the feature itself.
+     */
+    @Test
+    public void testSimpleProperty() {
+        final SimpleFeature paris = SimpleFilterFactoryTest.cities().get(0);
+        final PropertyAccessor accessor = PropertyAccessor.bind(paris.getType(), "population");
+        assertTrue(accessor.isResolved());
+        assertEquals(paris.getPropertyValue("population"), accessor.apply(paris));
+        assertSame(accessor, PropertyAccessor.bind(paris.getType(), "population"));
+
+        final PropertyAccessor missing = PropertyAccessor.bind(paris.getType(), "altitude");
+        assertFalse(missing.isResolved());
+        assertNull(missing.apply(paris));
+        assertFalse(PropertyAccessor.bind(paris.getType(), "name/population").isResolved());
+    }
+
+    /**
+     * Tests concurrent bindings of the same paths on many feature types.
+     * All threads shall get the same accessor for the same type and path.
+     */
+    @Test
+    public void testConcurrentBind() {
+        final FeatureType cityType = SimpleFilterFactoryTest.cities().get(0).getType();
+        final var types = new FeatureType[8];
+        final var expected = new PropertyAccessor[types.length];
+        for (int i=0; i<types.length; i++) {
+            types[i] = new SimpleFeatureType("Region " + i, new Role("capital", cityType, 1));
+            expected[i] = PropertyAccessor.bind(types[i], "capital/name");
+        }
+        IntStream.range(0, 10000).parallel().forEach((i) -> {
+            final int t = i % types.length;
+            final PropertyAccessor accessor = PropertyAccessor.bind(types[t], "capital/name");
+            assertSame(expected[t], accessor);
+            assertSame(types[t], accessor.getFeatureType());
+        });
+    }
+
+    /**
+     * Verifies that the accessors are kept while their feature types are in use,
+     * even if no other code references the accessors. Filters reading features
+     * of alternating types shall not resolve the paths again.
+     */
+    @Test
+    public void testRetainedAccessors() {
+        final FeatureType cityType = SimpleFilterFactoryTest.cities().get(0).getType();
+        final var types = new FeatureType[4];
+        @SuppressWarnings("unchecked")
+        final var accessors = (WeakReference<PropertyAccessor>[]) new WeakReference<?>[types.length];
+        for (int i=0; i<types.length; i++) {
+            types[i] = new SimpleFeatureType("Region " + i, new Role("capital", cityType, 1));
+            accessors[i] = new WeakReference<>(PropertyAccessor.bind(types[i], "capital/name"));
+        }
+        System.gc();
+        for (int i=0; i<types.length; i++) {
+            final PropertyAccessor accessor = accessors[i].get();
+            assertNotNull(accessor);
+            assertSame(accessor, PropertyAccessor.bind(types[i], "capital/name"));
+        }
+    }
+
+    /**
+     * Tests paths following single-valued and multi-valued associations.
+     */
+    @Test
+    public void testAssociations() {
+        final List<SimpleFeature> cities = SimpleFilterFactoryTest.cities();
+        final FeatureType cityType = cities.get(0).getType();
+        final var regionType = new SimpleFeatureType("Region",
+                new SimpleAttributeType<>("name", String.class),
+                new Role("capital", cityType, 1),
+                new Role("cities", cityType, 10));
+        final SimpleFeature region = regionType.newInstance();
+        region.setPropertyValue("name", "Sud");
+        region.setPropertyValue("capital", cities.get(2));
+        region.setPropertyValue("cities", List.of(cities.get(2), cities.get(3)));
+
+        final var countryType = new SimpleFeatureType("Country", new Role("region", regionType, 1));
+        final SimpleFeature country = countryType.newInstance();
+        country.setPropertyValue("region", region);
+
+        assertEquals("Toulouse", PropertyAccessor.bind(regionType, "capital/name").apply(region));
+        assertEquals(List.of("Toulouse", "Nice"), PropertyAccessor.bind(regionType, "cities/name").apply(region));
+        assertEquals("Toulouse", PropertyAccessor.bind(countryType, "region/capital/name").apply(country));
+        assertNull(PropertyAccessor.bind(countryType, "region/capital/altitude").apply(country));
+        assertNull(PropertyAccessor.bind(countryType, "region/capital/name").apply(countryType.newInstance()));
+        /*
+         * Value references shall use the same paths.
+         */
+        final var factory = new SimpleFilterFactory();
+        assertTrue(factory.equal(factory.property("region/capital/name"), factory.literal("Toulouse")).test(country));
+        assertTrue(factory.equal(factory.property("cities/name"), factory.literal("Nice")).test(region));
+        assertEquals("Sud", factory.property("name").apply(region));
+        assertEquals("Paris", factory.property("name").apply(cities.get(0)));
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.Set;
+import java.util.List;
+import java.util.ArrayList;
+import java.time.Instant;
+import java.util.function.Predicate;
+import org.opengis.feature.Feature;
+import org.opengis.filter.SortOrder;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.ValueReference;
+import org.opengis.filter.SpatialOperatorName;
+import org.opengis.filter.TemporalOperatorName;
+import org.opengis.temporal.Period;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.example.feature.SimpleFeature;
+import org.opengis.example.feature.SimpleFeatureType;
+import org.opengis.example.feature.SimpleAttributeType;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+import org.opengis.example.geometry.PreparedGeometry;
+import org.opengis.example.referencing.SimpleCRS;
+import tech.uom.seshat.Units;
+import tech.uom.seshat.Quantities;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SimpleFilterFactory}.
+ */
+public class SimpleFilterFactoryTest {
+    /**
+     * The factory to test.
+     */
+    private final SimpleFilterFactory factory;
+
+    /**
+     * The type of features used in the tests.
+     */
+    static final SimpleFeatureType TYPE = new SimpleFeatureType("City",
+            new SimpleAttributeType<>(SimpleFilterFactory.IDENTIFIER, String.class),
+            new SimpleAttributeType<>("name", String.class),
+            new SimpleAttributeType<>("population", Integer.class),
+            new SimpleAttributeType<>("area", Double.class),
+            new SimpleAttributeType<>("scores", Integer.class, 0, 10, null),
+            new SimpleAttributeType<>("location", DirectPosition.class),
+            new SimpleAttributeType<>("founded", Instant.class, 0, 1, null));
+
+    /**
+     * Creates a new test case.
+     */
+    public SimpleFilterFactoryTest() {
+        factory = new SimpleFilterFactory();
+    }
+
+    /**
+     * Creates a feature with the given values.
+     *
+     * @param  name        the city name.
+     * @param  population  the number of inhabitants.
+     * @param  area        the area in square kilometres.
+     * @param  scores      arbitrary integer values.
+     * @param  x           the first coordinate value of the location.
+     * @param  y           the second coordinate value of the location.
+     * @return the feature for the given city.
+     */
+    static SimpleFeature city(final String name, final int population, final double area,
+                              final List<Integer> scores, final double x, final double y)
+    {
+        final SimpleFeature f = TYPE.newInstance();
+        f.setPropertyValue(0, name.toLowerCase());
+        f.setPropertyValue(1, name);
+        f.setPropertyValue(2, population);
+        f.setPropertyValue(3, area);
+        f.setPropertyValue(4, scores);
+        f.setPropertyValue(5, new SimpleDirectPosition(null, x, y));
+        return f;
+    }
+
+    /**
+     * Returns sample features.
+     *
+     * @return features for a few French cities.
+     */
+    static List<SimpleFeature> cities() {
+        return List.of(city("Paris",    2100000, 105.4, List.of(3, 8),    2.35, 48.86),
+                       city("Lyon",      520000,  47.9, List.of(5),       4.84, 45.76),
+                       city("Toulouse",  500000, 118.3, List.of(),        1.44, 43.60),
+                       city("Nice",      340000,  71.9, List.of(9, 9, 7), 7.26, 43.70));
+    }
+
+    /**
+     * Returns the identifiers of the features accepted by the given filter.
+     *
+     * @param  filter  the filter to apply on the sample features.
+     * @return identifiers of the accepted features.
+     */
+    private static List<String> select(final Predicate<? super Feature> filter) {
+        return select(cities(), filter);
+    }
+
+    /**
+     * Returns the identifiers of the given features accepted by the given filter.
+     *
+     * @param  features  the features to filter.
+     * @param  filter    the filter to apply on the features.
+     * @return identifiers of the accepted features.
+     */
+    private static List<String> select(final List<SimpleFeature> features, final Predicate<? super Feature> filter) {
+        final var ids = new ArrayList<String>();
+        for (final SimpleFeature f : features) {
+            if (filter.test(f)) {
+                ids.add((String) f.getPropertyValue(SimpleFilterFactory.IDENTIFIER));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Tests comparison operators with literals of different types, on both sides.
+     */
+    @Test
+    public void testComparisons() {
+        final ValueReference<Feature,?> population = factory.property("population");
+        final ValueReference<Feature,?> area = factory.property("area");
+        assertEquals(List.of("paris", "lyon"),    select(factory.greater(population, factory.literal(500000))));
+        assertEquals(List.of("paris", "lyon"),    select(factory.less(factory.literal(500000L), population)));
+        assertEquals(List.of("lyon", "nice"),     select(factory.lessOrEqual(area, factory.literal(71.9))));
+        assertEquals(List.of("toulouse"),         select(factory.equal(area, factory.literal(118.3))));
+        assertEquals(List.of("toulouse", "nice"), select(factory.greater(
+                factory.multiply(factory.property("area", Double.class), factory.literal(10000)), population)));
+        assertEquals(List.of("lyon"),             select(factory.equal(factory.property("name"), factory.literal("LYON"),
+                                                                       false, MatchAction.ANY)));
+        assertEquals(List.of(),                   select(factory.equal(factory.property("name"), factory.literal("LYON"))));
+        assertEquals(List.of("paris", "toulouse", "nice"), select(factory.notEqual(factory.property("name"), factory.literal("Lyon"))));
+        assertEquals(List.of("paris", "lyon"),    select(factory.between(population, factory.literal(500001), factory.literal(3000000))));
+    }
+
+    /**
+     * Tests the match action on a multi-valued property.
+     */
+    @Test
+    public void testMatchAction() {
+        final ValueReference<Feature,?> scores = factory.property("scores");
+        final var seven = factory.literal(7);
+        assertEquals(List.of("paris", "nice"), select(factory.greaterOrEqual(scores, seven, true, MatchAction.ANY)));
+        assertEquals(List.of("nice"),          select(factory.greaterOrEqual(scores, seven, true, MatchAction.ALL)));
+        assertEquals(List.of("paris"),         select(factory.greaterOrEqual(scores, seven, true, MatchAction.ONE)));
+        assertEquals(List.of("toulouse"),      select(factory.isNull(scores)));
+    }
+
+    /**
+     * Tests logical operators, "like" and resource identifiers.
+     */
+    @Test
+    public void testLogicalOperators() {
+        final var big = factory.greater(factory.property("population"), factory.literal(400000));
+        final var n   = factory.like(factory.property("name"), "%n%");
+        assertEquals(List.of("lyon"),                     select(factory.and(big, n)));
+        assertEquals(List.of("paris", "lyon", "toulouse"), select(factory.or(big, n)));
+        assertEquals(List.of("nice"),                     select(factory.not(factory.or(big, n))));
+        assertEquals(List.of("nice"),                     select(factory.resourceId("nice")));
+        assertEquals(List.of("paris", "nice"),            select(factory.like(factory.property("name"), "_ari_", '*', '_', '!', true)
+                                                                 .or(factory.like(factory.property("name"), "N*", '*', '_', '!', true))));
+        assertEquals(factory.and(big, n), factory.and(big, n));
+    }
+
+    /**
+     * Tests spatial operators.
+     */
+    @Test
+    public void testSpatialOperators() {
+        final ValueReference<Feature,?> location = factory.property("location");
+        final var south = new SimpleEnvelope(new SimpleDirectPosition(null, 0, 40), new SimpleDirectPosition(null, 10, 45));
+        assertEquals(List.of("toulouse", "nice"), select(factory.bbox(location, south)));
+        final PreparedGeometry triangle = PreparedGeometry.polygon(null, new double[] {0, 44, 0, 52, 8, 52});
+        assertEquals(List.of("paris"), select(factory.within(location, factory.literal(triangle))));
+        assertEquals(List.of("paris"), select(factory.intersects(factory.literal(triangle), location)));
+        assertEquals(List.of("lyon", "toulouse", "nice"), select(factory.disjoint(location, factory.literal(triangle))));
+        final var nice = factory.literal(new SimpleDirectPosition(null, 7, 44));
+        assertEquals(List.of("nice"), select(factory.within(location, nice, Quantities.create(1, Units.METRE))));
+        assertEquals(List.of("paris", "lyon", "toulouse"), select(factory.beyond(location, nice, Quantities.create(1, Units.METRE))));
+    }
+
+    /**
+     * Tests the spatial operators between geometries which are not points.
+     */
+    @Test
+    public void testTopologicalRelations() {
+        final SimpleFeature feature = cities().get(0);
+        final var square   = factory.literal(PreparedGeometry.polygon(null, new double[] {0,0,  4,0,  4,4,  0,4}));
+        final var same     = factory.literal(PreparedGeometry.polygon(null, new double[] {4,4,  0,4,  0,0,  4,0}));
+        final var inner    = factory.literal(PreparedGeometry.polygon(null, new double[] {1,1,  2,1,  2,2,  1,2}));
+        final var adjacent = factory.literal(PreparedGeometry.polygon(null, new double[] {4,0,  6,0,  6,4,  4,4}));
+        final var overlap  = factory.literal(PreparedGeometry.polygon(null, new double[] {2,2,  6,2,  6,6,  2,6}));
+        final var crossing = factory.literal(PreparedGeometry.curves(null, new double[] {-1,2,  5,2}));
+        final var vertical = factory.literal(PreparedGeometry.curves(null, new double[] {2,-1,  2,5}));
+        final var onBorder = factory.literal(new SimpleDirectPosition(null, 0, 2));
+
+        assertTrue (factory.contains(square, inner).test(feature));
+        assertTrue (factory.within  (inner, square).test(feature));
+        assertFalse(factory.contains(inner, square).test(feature));
+        assertFalse(factory.contains(square, overlap).test(feature));
+        assertTrue (factory.equals  (square, same).test(feature));
+        assertFalse(factory.equals  (square, inner).test(feature));
+        assertTrue (factory.touches (square, adjacent).test(feature));
+        assertTrue (factory.touches (onBorder, square).test(feature));
+        assertFalse(factory.touches (square, overlap).test(feature));
+        assertTrue (factory.overlaps(square, overlap).test(feature));
+        assertFalse(factory.overlaps(square, inner).test(feature));
+        assertFalse(factory.overlaps(square, adjacent).test(feature));
+        assertTrue (factory.crosses (crossing, square).test(feature));
+        assertTrue (factory.crosses (crossing, vertical).test(feature));
+        assertFalse(factory.crosses (inner, square).test(feature));
+    }
+
+    /**
+     * Tests distance operators on geographic coordinates, where distances are geodesic distances.
+     * The locations of the sample cities are copied in the (<var>latitude</var>, <var>longitude</var>)
+     * axis order of the geographic <abbr>CRS</abbr>. Nice is at about 39.3 km from (44°N, 7°E).
+     */
+    @Test
+    public void testGeographicDistance() {
+        final List<SimpleFeature> cities = cities();
+        for (final SimpleFeature city : cities) {
+            final var p = (DirectPosition) city.getPropertyValue("location");
+            city.setPropertyValue("location", new SimpleDirectPosition(SimpleCRS.Geographic.WGS84,
+                                                                       p.getCoordinate(1), p.getCoordinate(0)));
+        }
+        final ValueReference<Feature,?> location = factory.property("location");
+        final var nice = factory.literal(new SimpleDirectPosition(SimpleCRS.Geographic.WGS84, 44, 7));
+        assertEquals(List.of("nice"), select(cities, factory.within(location, nice, Quantities.create(40, Units.KILOMETRE))));
+        assertEquals(List.of(),       select(cities, factory.within(location, nice, Quantities.create(39, Units.KILOMETRE))));
+        assertEquals(List.of("paris", "lyon", "toulouse"),
+                select(cities, factory.beyond(location, nice, Quantities.create(40, Units.KILOMETRE))));
+        /*
+         * Distance to a segment along the 60°N parallel. The nearest point is the end of the segment,
+         * at 1° of longitude (about 55.8 km) from the point, while 1° of latitude is about 111.4 km.
+         */
+        final var parallel = factory.literal(PreparedGeometry.curves(SimpleCRS.Geographic.WGS84, new double[] {60,0,  60,1}));
+        final var point = factory.literal(new SimpleDirectPosition(SimpleCRS.Geographic.WGS84, 60, 2));
+        assertTrue (factory.within(parallel, point, Quantities.create(56, Units.KILOMETRE)).test(cities.get(0)));
+        assertFalse(factory.within(parallel, point, Quantities.create(55, Units.KILOMETRE)).test(cities.get(0)));
+        assertTrue (factory.within(point, parallel, Quantities.create(56, Units.KILOMETRE)).test(cities.get(0)));
+    }
+
+    /**
+     * Creates a period between the given instants.
+     *
+     * @param  begin  the beginning instant in ISO 8601 format.
+     * @param  end    the ending instant in ISO 8601 format.
+     * @return the period between the given instants.
+     */
+    private static Period period(final String begin, final String end) {
+        return new Period() {
+            @Override public org.opengis.temporal.Instant getBeginning() {return () -> Instant.parse(begin);}
+            @Override public org.opengis.temporal.Instant getEnding()    {return () -> Instant.parse(end);}
+        };
+    }
+
+    /**
+     * Tests temporal operators on periods.
+     */
+    @Test
+    public void testTemporalPeriods() {
+        final SimpleFeature feature = cities().get(0);
+        final var y2000 = factory.literal(period("2000-01-01T00:00:00Z", "2001-01-01T00:00:00Z"));
+        final var y2001 = factory.literal(period("2001-01-01T00:00:00Z", "2002-01-01T00:00:00Z"));
+        final var h2000 = factory.literal(period("2000-01-01T00:00:00Z", "2000-07-01T00:00:00Z"));
+        final var q2000 = factory.literal(period("2000-04-01T00:00:00Z", "2000-07-01T00:00:00Z"));
+        final var cross = factory.literal(period("2000-07-01T00:00:00Z", "2001-07-01T00:00:00Z"));
+        final var noon  = factory.literal(Instant.parse("2000-06-01T12:00:00Z"));
+
+        assertTrue (factory.meets       (y2000, y2001).test(feature));
+        assertTrue (factory.metBy       (y2001, y2000).test(feature));
+        assertTrue (factory.before      (h2000, y2001).test(feature));
+        assertTrue (factory.after       (y2001, h2000).test(feature));
+        assertFalse(factory.before      (y2000, y2001).test(feature));
+        assertTrue (factory.begins      (h2000, y2000).test(feature));
+        assertTrue (factory.begunBy     (y2000, h2000).test(feature));
+        assertTrue (factory.ends        (q2000, h2000).test(feature));
+        assertTrue (factory.endedBy     (h2000, q2000).test(feature));
+        assertTrue (factory.during      (q2000, y2000).test(feature));
+        assertTrue (factory.tcontains   (y2000, q2000).test(feature));
+        assertTrue (factory.during      (noon,  h2000).test(feature));
+        assertTrue (factory.toverlaps   (y2000, cross).test(feature));
+        assertTrue (factory.overlappedBy(cross, y2000).test(feature));
+        assertFalse(factory.toverlaps   (y2000, y2001).test(feature));
+        assertTrue (factory.tequals     (y2000, y2000).test(feature));
+        assertFalse(factory.tequals     (y2000, h2000).test(feature));
+        assertTrue (factory.anyInteracts(y2000, y2001).test(feature));
+        assertFalse(factory.anyInteracts(h2000, y2001).test(feature));
+        assertFalse(factory.begins      (noon,  noon).test(feature));
+    }
+
+    /**
+     * Tests the capabilities and the functions created by name.
+     */
+    @Test
+    public void testCapabilities() {
+        final var conformance = factory.getCapabilities().getConformance();
+        assertTrue(conformance.implementsSpatialFilter());
+        assertTrue(conformance.implementsTemporalFilter());
+        assertTrue(conformance.implementsFunctions());
+        assertEquals(Set.of(TemporalOperatorName.values()),
+                factory.getCapabilities().getTemporalCapabilities().orElseThrow().getTemporalOperators().keySet());
+        assertEquals(Set.of(SpatialOperatorName.values()),
+                factory.getCapabilities().getSpatialCapabilities().orElseThrow().getSpatialOperators().keySet());
+        assertEquals(Set.of("Add", "Sub", "Mul", "Div"), factory.getCapabilities().getFunctions().keySet());
+
+        final var area = factory.function("Mul", factory.property("area"), factory.literal(2));
+        assertEquals(210.8, ((Number) area.apply(cities().get(0))).doubleValue(), 1E-9);
+        assertThrows(IllegalArgumentException.class, () -> factory.function("Unknown", factory.literal(1)));
+    }
+
+    /**
+     * Tests temporal operators and sorting.
+     */
+    @Test
+    public void testTemporalAndSort() {
+        final List<SimpleFeature> cities = new ArrayList<>(cities());
+        cities.get(0).setPropertyValue("founded", Instant.parse("0300-01-01T00:00:00Z"));
+        cities.get(3).setPropertyValue("founded", Instant.parse("1860-06-14T00:00:00Z"));
+        final var after = factory.after(factory.property("founded"), factory.literal(Instant.parse("1000-01-01T00:00:00Z")));
+        assertFalse(after.test(cities.get(0)));
+        assertFalse(after.test(cities.get(1)));
+        assertTrue (after.test(cities.get(3)));
+        cities.sort(factory.sort(factory.property("area"), SortOrder.DESCENDING));
+        assertEquals("Toulouse", cities.get(0).getPropertyValue("name"));
+        assertEquals("Lyon",     cities.get(3).getPropertyValue("name"));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.Random;
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+import org.opengis.util.CodeList;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Expression;
+import org.opengis.filter.ValueReference;
+import org.opengis.example.feature.SimpleFeature;
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+import org.opengis.example.geometry.PreparedGeometry;
+import org.opengis.example.referencing.SimpleCRS;
+import tech.uom.seshat.Units;
+import tech.uom.seshat.Quantities;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SpatialIndex}.
+ */
+public class SpatialIndexTest {
+    /**
+     * The factory to use for creating the filters.
+     */
+    private final SimpleFilterFactory factory;
+
+    /**
+     * The index to test, over random features.
+     */
+    private final SpatialIndex<Feature> index;
+
+    /**
+     * Creates a new test case with an index over random features.
+     */
+    public SpatialIndexTest() {
+        factory = new SimpleFilterFactory();
+        final var random   = new Random(5281937);
+        final var features = new ArrayList<SimpleFeature>();
+        for (int i=0; i<1000; i++) {
+            features.add(SimpleFilterFactoryTest.city("City " + i, random.nextInt(1000000), 10, List.of(),
+                                                      random.nextInt(1000) / 10.0, random.nextInt(1000) / 10.0));
+        }
+        index = new SpatialIndex<>(features, factory.property("location"));
+    }
+
+    /**
+     * A filter which accepts all resources and counts the number of evaluations.
+     */
+    private static final class Counter implements Filter<Feature> {
+        /** Number of calls to {@link #test(Feature)}. */
+        int count;
+
+        /** Creates a new counter. */
+        Counter() {
+        }
+
+        @Override public CodeList<?> getOperatorType() {return Filter.include().getOperatorType();}
+        @Override public Class<Feature> getResourceClass() {return Feature.class;}
+        @Override public List<Expression<Feature,?>> getExpressions() {return List.of();}
+        @Override public boolean test(final Feature feature) {count++; return true;}
+    }
+
+    /**
+     * Verifies that the index gives the same results as a full scan.
+     *
+     * @param  filter  the filter to verify.
+     */
+    private void verify(final Filter<Feature> filter) {
+        verify(index, filter);
+    }
+
+    /**
+     * Verifies that the given index gives the same results as a full scan.
+     *
+     * @param  index   the index to verify.
+     * @param  filter  the filter to verify.
+     * @return the resources accepted by the filter.
+     */
+    private static List<Feature> verify(final SpatialIndex<Feature> index, final Filter<Feature> filter) {
+        final List<Feature> expected = index.stream().filter(filter).collect(Collectors.toList());
+        assertEquals(expected, index.filter(filter).collect(Collectors.toList()), filter::toString);
+        return expected;
+    }
+
+    /**
+     * Tests the "bbox" operator, and verifies that the filter is evaluated only on the candidates.
+     */
+    @Test
+    public void testBBox() {
+        final ValueReference<Feature,?> location = factory.property("location");
+        final var bbox = factory.bbox(location, new SimpleEnvelope(
+                new SimpleDirectPosition(null, 10, 10), new SimpleDirectPosition(null, 20, 20)));
+        verify(bbox);
+        final var counter = new Counter();
+        final long count = index.filter(factory.and(counter, bbox)).count();
+        assertTrue(count > 0);
+        assertEquals(count, counter.count);             // Because all candidates are in the box.
+        verify(factory.and(factory.greater(factory.property("population"), factory.literal(500000)), bbox));
+    }
+
+    /**
+     * Tests the "intersects" and "within" operators with a polygon.
+     */
+    @Test
+    public void testRelations() {
+        final ValueReference<Feature,?> location = factory.property("location");
+        final var triangle = factory.literal(PreparedGeometry.polygon(null, new double[] {10, 10, 10, 50, 40, 50}));
+        verify(factory.intersects(triangle, location));
+        verify(factory.within(location, triangle));
+        verify(factory.disjoint(location, triangle));
+        final var counter = new Counter();
+        index.filter(factory.and(counter, factory.within(location, triangle))).count();
+        assertTrue(counter.count < index.size() / 4);
+    }
+
+    /**
+     * Tests the distance operators.
+     */
+    @Test
+    public void testDistances() {
+        final ValueReference<Feature,?> location = factory.property("location");
+        final var center = factory.literal(new SimpleDirectPosition(null, 50, 50));
+        final var big = factory.greater(factory.property("population"), factory.literal(500000));
+        verify(factory.within(location, center, Quantities.create(10, Units.METRE)));
+        verify(factory.beyond(location, center, Quantities.create(10, Units.METRE)));
+        verify(factory.and(big, factory.beyond(center, location, Quantities.create(30, Units.METRE))));
+        final var counter = new Counter();
+        index.filter(factory.and(counter, factory.within(location, center, Quantities.create(10, Units.METRE)))).count();
+        assertTrue(counter.count < index.size() / 10);
+    }
+
+    /**
+     * Tests a distance operator with a literal in a geographic <abbr>CRS</abbr>.
+     * The distance in metres shall be converted to degrees for computing the search region.
+     */
+    @Test
+    public void testGeographicDistance() {
+        final ValueReference<Feature,?> location = factory.property("location");
+        final var center = factory.literal(new SimpleDirectPosition(SimpleCRS.Geographic.WGS84, 50, 50));
+        final var within = factory.within(location, center, Quantities.create(500, Units.KILOMETRE));
+        verify(within);
+        verify(factory.beyond(location, center, Quantities.create(500, Units.KILOMETRE)));
+        final var counter = new Counter();
+        final long count = index.filter(factory.and(counter, within)).count();
+        assertTrue(count > 0);
+        assertTrue(counter.count < index.size() / 10);
+    }
+
+    /**
+     * Tests a distance operator with a literal at high latitude in a geographic <abbr>CRS</abbr>.
+     * The longitude range of the search region shall be wider than the latitude range,
+     * and shall not be restricted when the region crosses the anti-meridian.
+     */
+    @Test
+    public void testHighLatitudeDistance() {
+        final var random   = new Random(8392016);
+        final var features = new ArrayList<SimpleFeature>();
+        for (int i=0; i<1000; i++) {
+            features.add(SimpleFilterFactoryTest.city("City " + i, 0, 10, List.of(),
+                    70 + random.nextInt(200) / 10.0, random.nextInt(3600) / 10.0 - 180));
+        }
+        features.add(SimpleFilterFactoryTest.city("East", 0, 10, List.of(), 80,  56));
+        features.add(SimpleFilterFactoryTest.city("West", 0, 10, List.of(), 75, -179.5));
+        final var geographic = new SpatialIndex<Feature>(features, factory.property("location"));
+        final ValueReference<Feature,?> location = factory.property("location");
+        final var north = factory.literal(new SimpleDirectPosition(SimpleCRS.Geographic.WGS84, 80, 50));
+        final var within = factory.within(location, north, Quantities.create(300, Units.KILOMETRE));
+        assertTrue(verify(geographic, within).contains(features.get(1000)));       // 116 km away.
+        verify(geographic, factory.beyond(location, north, Quantities.create(300, Units.KILOMETRE)));
+
+        final var dateLine = factory.literal(new SimpleDirectPosition(SimpleCRS.Geographic.WGS84, 75, 179.5));
+        assertTrue(verify(geographic, factory.within(location, dateLine, Quantities.create(100, Units.KILOMETRE)))
+                .contains(features.get(1001)));                                     // 29 km away.
+        verify(geographic, factory.within(location, factory.literal(new SimpleDirectPosition(
+                SimpleCRS.Geographic.WGS84, 89, 0)), Quantities.create(200, Units.KILOMETRE)));
+    }
+}
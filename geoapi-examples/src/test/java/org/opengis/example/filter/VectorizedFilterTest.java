@@ -0,0 +1,202 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.filter;
+
+import java.util.List;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.opengis.util.CodeList;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Expression;
+import org.opengis.filter.MatchAction;
+import org.opengis.filter.ValueReference;
+import org.opengis.example.feature.SimpleFeature;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link VectorizedFilter}.
+ */
+public class VectorizedFilterTest {
+    /**
+     * The factory to use for creating the filters to vectorize.
+     */
+    private final SimpleFilterFactory factory;
+
+    /**
+     * The features in the batch.
+     */
+    private final List<SimpleFeature> features;
+
+    /**
+     * The batch of columns for the features.
+     */
+    private final ColumnBatch<Feature> batch;
+
+    /**
+     * Creates a new test case with a batch of random features.
+     */
+    public VectorizedFilterTest() {
+        factory  = new SimpleFilterFactory();
+        features = new ArrayList<>(SimpleFilterFactoryTest.cities());
+        final var random = new Random(7851923);
+        for (int i=0; i<200; i++) {
+            final double area = (i % 17 == 0) ? Double.NaN : random.nextInt(2000) / 10.0;
+            features.add(SimpleFilterFactoryTest.city("City " + i, random.nextInt(1000000), area,
+                    (i % 3 == 0) ? List.of() : List.of(random.nextInt(10), random.nextInt(10)), 0, 0));
+        }
+        final int n = features.size();
+        final long[]   population = new long  [n];
+        final double[] area       = new double[n];
+        final Object[] name       = new Object[n];
+        final Object[] scores     = new Object[n];
+        for (int i=0; i<n; i++) {
+            final SimpleFeature f = features.get(i);
+            population[i] = (Integer) f.getPropertyValue("population");
+            area      [i] = (Double)  f.getPropertyValue("area");
+            name      [i] = f.getPropertyValue("name");
+            scores    [i] = f.getPropertyValue("scores");
+        }
+        batch = new ColumnBatch<>(n, features::get);
+        batch.setColumn("population", population);
+        batch.setColumn("area", area);
+        batch.setColumn("name", name);
+        batch.setColumn("scores", scores);
+    }
+
+    /**
+     * Verifies that the vectorized filter gives the same results as the scalar filter on all features.
+     *
+     * @param  filter  the filter to vectorize and verify.
+     */
+    private void verify(final Filter<Feature> filter) {
+        final var expected = new BitSet();
+        for (int i=0; i<features.size(); i++) {
+            if (filter.test(features.get(i))) {
+                expected.set(i);
+            }
+        }
+        assertEquals(expected, new VectorizedFilter<>(filter).evaluate(batch), filter::toString);
+    }
+
+    /**
+     * Tests comparisons of columns with literals.
+     */
+    @Test
+    public void testComparisons() {
+        final ValueReference<Feature,?> population = factory.property("population");
+        final ValueReference<Feature,?> area = factory.property("area");
+        verify(factory.greater       (population, factory.literal(500000)));
+        verify(factory.less          (factory.literal(500000L), population));
+        verify(factory.lessOrEqual   (population, factory.literal(500000.5)));
+        verify(factory.greaterOrEqual(area, factory.literal(71.9)));
+        verify(factory.equal         (area, factory.literal(118.3)));
+        verify(factory.notEqual      (area, factory.literal(118.3)));
+        verify(factory.less          (factory.literal(100), area));
+        verify(factory.between       (population, factory.literal(500001), factory.literal(3000000)));
+        verify(factory.between       (area, factory.literal(50), factory.literal(150)));
+        verify(factory.equal         (factory.property("name"), factory.literal("LYON"), false, MatchAction.ANY));
+        verify(factory.less          (factory.property("name"), factory.literal("M")));
+        verify(factory.equal         (population, factory.literal("500000")));
+    }
+
+    /**
+     * Tests arithmetic expressions and comparisons between columns.
+     */
+    @Test
+    public void testArithmetic() {
+        final ValueReference<Feature,?> population = factory.property("population");
+        verify(factory.greater(factory.multiply(factory.property("area", Double.class), factory.literal(10000)), population));
+        verify(factory.less(factory.divide(factory.property("population", Integer.class), factory.literal(1000)),
+                            factory.property("area")));
+        verify(factory.less(factory.add(factory.property("population", Integer.class), factory.literal(7)),
+                            factory.literal(600000)));
+        verify(factory.lessOrEqual(population, population));
+    }
+
+    /**
+     * Tests logical operators, multi-valued properties and nodes evaluated on the records.
+     */
+    @Test
+    public void testLogicalOperators() {
+        final var big    = factory.greater(factory.property("population"), factory.literal(400000));
+        final var named  = factory.like(factory.property("name"), "%n%");
+        final var scores = factory.greaterOrEqual(factory.property("scores"), factory.literal(7), true, MatchAction.ALL);
+        verify(factory.and(big, named));
+        verify(factory.or(List.of(big, named, scores)));
+        verify(factory.not(factory.and(List.of(big, named, scores))));
+        verify(factory.not(big));
+        verify(factory.isNull(factory.property("scores")));
+        verify(factory.isNull(factory.property("population")));
+        verify(factory.and(Filter.include(), factory.not(Filter.exclude())));
+        verify(factory.equal(factory.property("founded"), factory.literal("x")));
+    }
+
+    /**
+     * Verifies that the filters evaluated on records are invoked only on the records selected by the enclosing
+     * {@code And} operators, or not yet accepted by the enclosing {@code Or} operators.
+     */
+    @Test
+    public void testFallbackOnSelection() {
+        final var named = factory.like(factory.property("name"), "%n%");
+        final var count = new AtomicInteger();
+        final var counted = new Filter<Feature>() {
+            @Override public CodeList<?> getOperatorType() {return named.getOperatorType();}
+            @Override public Class<? super Feature> getResourceClass() {return Feature.class;}
+            @Override public List<Expression<Feature,?>> getExpressions() {return named.getExpressions();}
+            @Override public boolean test(final Feature feature) {
+                count.incrementAndGet();
+                return named.test(feature);
+            }
+        };
+        final var big = factory.greater(factory.property("population"), factory.literal(900000));
+        final long expected = features.stream().filter(big).count();
+        new VectorizedFilter<>(factory.and(big, counted)).evaluate(batch);
+        assertEquals(expected, count.get());
+
+        count.set(0);
+        new VectorizedFilter<>(factory.or(big, counted)).evaluate(batch);
+        assertEquals(features.size() - expected, count.get());
+
+        count.set(0);
+        new VectorizedFilter<>(factory.and(big, factory.not(counted))).evaluate(batch);
+        assertEquals(expected, count.get());
+
+        verify(factory.and(big, counted));
+        verify(factory.or(big, counted));
+        verify(factory.and(big, factory.not(counted)));
+    }
+
+    /**
+     * Tests "between" on integer values which cannot be represented exactly as {@code double} values.
+     */
+    @Test
+    public void testBetweenLargeIntegers() {
+        final long limit = 1L << 53;
+        final var columns = new ColumnBatch<Feature>(3, null);
+        columns.setColumn("population", new long[] {limit, limit + 1, limit + 2});
+        final var between = factory.between(factory.property("population"), factory.literal(limit + 1), factory.literal(limit + 1));
+        assertEquals(BitSet.valueOf(new long[] {0b010}), new VectorizedFilter<>(between).evaluate(columns));
+    }
+
+    /**
+     * Tests that a filter which cannot be vectorized is rejected if the batch does not provide records.
+     */
+    @Test
+    public void testWithoutRecords() {
+        final var columns = new ColumnBatch<Feature>(3, null);
+        columns.setColumn("area", new double[] {10, 20, 30});
+        final BitSet selected = new VectorizedFilter<>(factory.greater(factory.property("area"), factory.literal(15))).evaluate(columns);
+        assertEquals(BitSet.valueOf(new long[] {0b110}), selected);
+        final var like = new VectorizedFilter<>(factory.like(factory.property("name"), "%n%"));
+        assertThrows(UnsupportedOperationException.class, () -> like.evaluate(columns));
+    }
+}
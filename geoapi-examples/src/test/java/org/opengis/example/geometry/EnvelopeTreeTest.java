@@ -0,0 +1,227 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.example.metadata.SimpleGeographicBoundingBox;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link EnvelopeTree}.
+ */
+public class EnvelopeTreeTest {
+    /**
+     * Creates a new test case.
+     */
+    public EnvelopeTreeTest() {
+    }
+
+    /**
+     * Creates random three-dimensional envelopes.
+     *
+     * @param  random  the random number generator to use.
+     * @param  count   the number of envelopes to create.
+     * @return the random envelopes.
+     */
+    private static List<SimpleEnvelope> createEnvelopes(final Random random, final int count) {
+        final var envelopes = new ArrayList<SimpleEnvelope>(count);
+        for (int i=0; i<count; i++) {
+            final double[] lower = new double[3];
+            final double[] upper = new double[3];
+            for (int d=0; d<3; d++) {
+                lower[d] = random.nextDouble() * 1000;
+                upper[d] = lower[d] + random.nextDouble() * 20;
+            }
+            envelopes.add(new SimpleEnvelope(new SimpleDirectPosition(null, lower), new SimpleDirectPosition(null, upper)));
+        }
+        return envelopes;
+    }
+
+    /**
+     * Returns whether the two given envelopes intersect.
+     *
+     * @param  a  the first envelope.
+     * @param  b  the second envelope.
+     * @return whether the two envelopes intersect.
+     */
+    private static boolean intersects(final SimpleEnvelope a, final SimpleEnvelope b) {
+        for (int d=0; d<a.getDimension(); d++) {
+            if (a.getMinimum(d) > b.getMaximum(d) || a.getMaximum(d) < b.getMinimum(d)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares range queries and intersects-join with brute force searches.
+     * The number of envelopes is large enough for using the parallel bulk-load.
+     */
+    @Test
+    public void testRangeAndJoin() {
+        final var random = new Random(7);
+        final List<SimpleEnvelope> envelopes = createEnvelopes(random, 20000);
+        final List<SimpleEnvelope> queries   = createEnvelopes(random, 50);
+        final EnvelopeTree tree = EnvelopeTree.of(envelopes);
+        assertEquals(20000, tree.size());
+        assertEquals(3, tree.getDimension());
+        for (final SimpleEnvelope query : queries) {
+            final int[] expected = IntStream.range(0, envelopes.size()).filter((i) -> intersects(envelopes.get(i), query)).toArray();
+            assertArrayEquals(expected, tree.intersecting(query));
+        }
+        final int[] count = new int[1];
+        final EnvelopeTree other = EnvelopeTree.of(queries);
+        tree.join(other, (a, b) -> {
+            assertTrue(intersects(envelopes.get(a), queries.get(b)));
+            count[0]++;
+        });
+        int expected = 0;
+        for (final SimpleEnvelope a : envelopes) {
+            for (final SimpleEnvelope b : queries) {
+                if (intersects(a, b)) expected++;
+            }
+        }
+        assertEquals(expected, count[0]);
+    }
+
+    /**
+     * Tests the nearest neighbors search.
+     */
+    @Test
+    public void testNearest() {
+        final var random = new Random(3);
+        final List<SimpleEnvelope> envelopes = createEnvelopes(random, 1000);
+        final EnvelopeTree tree = EnvelopeTree.of(envelopes);
+        final var point = new SimpleDirectPosition(null, 500, 500, 500);
+        final double[] distances = envelopes.stream().mapToDouble((e) -> {
+            double sum = 0;
+            for (int d=0; d<3; d++) {
+                final double delta = Math.max(0, Math.max(e.getMinimum(d) - 500, 500 - e.getMaximum(d)));
+                sum += delta * delta;
+            }
+            return sum;
+        }).toArray();
+        final int[] nearest = tree.nearest(point, 5);
+        assertEquals(5, nearest.length);
+        final double[] sorted = distances.clone();
+        Arrays.sort(sorted);
+        for (int i=0; i<nearest.length; i++) {
+            assertEquals(sorted[i], distances[nearest[i]]);
+        }
+    }
+
+    /**
+     * Tests a tree of geographic bounding boxes with a box crossing the anti-meridian.
+     */
+    @Test
+    public void testGeographic() {
+        final var boxes = new ArrayList<SimpleGeographicBoundingBox>();
+        boxes.add(new SimpleGeographicBoundingBox(-10, 10, -10, 10));
+        boxes.add(new SimpleGeographicBoundingBox(170, 180, -20, 20));
+        boxes.add(new SimpleGeographicBoundingBox(-180, -170, -20, 20));
+        final EnvelopeTree tree = EnvelopeTree.ofGeographic(boxes);
+        final var found = new ArrayList<Integer>();
+        tree.search(new SimpleGeographicBoundingBox(0, 5, 0, 5), found::add);
+        assertEquals(List.of(0), found);
+
+        found.clear();
+        tree.search(new SimpleGeographicBoundingBox(175, 176, 0, 5) {
+            @Override public double getEastBoundLongitude() {
+                return -175;                    // Crossing the anti-meridian.
+            }
+        }, found::add);
+        found.sort(null);
+        assertEquals(List.of(1, 2), found);
+
+        final SimpleEnvelope bounds = tree.getBounds();
+        assertEquals(-180, bounds.getMinimum(0));
+        assertEquals( 180, bounds.getMaximum(0));
+        assertEquals( -20, bounds.getMinimum(1));
+    }
+
+    /**
+     * Creates an envelope with the given corners, which may have lower values greater than upper values.
+     * {@link SimpleEnvelope} does not accept such corners, so the corners are returned by overridden methods.
+     *
+     * @param  lower  the lower corner.
+     * @param  upper  the upper corner.
+     * @return the envelope.
+     */
+    private static Envelope envelope(final double[] lower, final double[] upper) {
+        final double[] min = new double[lower.length];
+        final double[] max = new double[upper.length];
+        for (int d=0; d<lower.length; d++) {
+            min[d] = Math.min(lower[d], upper[d]);
+            max[d] = Math.max(lower[d], upper[d]);
+        }
+        return new SimpleEnvelope(new SimpleDirectPosition(null, min), new SimpleDirectPosition(null, max)) {
+            @Override public DirectPosition getLowerCorner() {
+                return new SimpleDirectPosition(null, lower);
+            }
+
+            @Override public DirectPosition getUpperCorner() {
+                return new SimpleDirectPosition(null, upper);
+            }
+        };
+    }
+
+    /**
+     * Creates a two-dimensional envelope with (<var>longitude</var>, <var>latitude</var>) axis order.
+     *
+     * @param  west   the minimal longitude, may be greater than the maximal longitude.
+     * @param  east   the maximal longitude.
+     * @param  south  the minimal latitude.
+     * @param  north  the maximal latitude.
+     * @return the envelope.
+     */
+    private static Envelope envelope(final double west, final double east, final double south, final double north) {
+        return envelope(new double[] {west, south}, new double[] {east, north});
+    }
+
+    /**
+     * Tests that envelopes having an inverted range on an axis which is not a wraparound axis are not indexed.
+     */
+    @Test
+    public void testInvertedEnvelope() {
+        final EnvelopeTree tree = EnvelopeTree.of(List.of(
+                envelope(  0,  10,  0, 10),
+                envelope( 20,  30, 10,  0),             // Empty: latitude is not a wraparound axis.
+                envelope(170, -170, 0, 10)));           // Crossing the anti-meridian.
+        assertEquals(3, tree.size());
+        assertArrayEquals(new int[] {0, 2}, tree.intersecting(envelope(-180, 180, -90, 90)));
+        assertArrayEquals(new int[0], tree.intersecting(envelope(-180, 180, 90, -90)));
+
+        final Envelope inverted = envelope(new double[] {0, 10, 0}, new double[] {10, 0, 10});
+        assertEquals(0, EnvelopeTree.of(List.of(inverted)).size());
+    }
+
+    /**
+     * Tests that a join reports each pair of items only once when many parts of the items intersect.
+     */
+    @Test
+    public void testJoinSplitItems() {
+        final EnvelopeTree tree = EnvelopeTree.of(List.of(
+                envelope( 100, -100, -10, 10),
+                envelope(   0,   10, -10, 10)));
+        final EnvelopeTree other = EnvelopeTree.of(List.of(
+                envelope(-120,  120, -10, 10),          // Intersects the first item in two disjoint regions.
+                envelope( 150, -150,   0,  5),          // Both parts intersect the parts of the first item.
+                envelope(  20,   30,  20, 30)));
+        final var pairs = new ArrayList<String>();
+        tree.join(other, (a, b) -> pairs.add(a + "-" + b));
+        pairs.sort(null);
+        assertEquals(List.of("0-0", "0-1", "1-0"), pairs);
+    }
+}
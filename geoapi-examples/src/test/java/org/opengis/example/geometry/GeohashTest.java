@@ -0,0 +1,75 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link Geohash}.
+ */
+public class GeohashTest {
+    /**
+     * Creates a new test case.
+     */
+    public GeohashTest() {
+    }
+
+    /**
+     * Tests the encoding of a well-known point.
+     */
+    @Test
+    public void testEncode() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("u4pru",       Geohash.encode(57.64911, 10.40744,  5));
+        assertEquals("ezs42",       Geohash.encode(42.6, -5.6, 5));
+        assertEquals("zzzzzz",      Geohash.encode(90, 180, 6));
+        assertEquals("000000",      Geohash.encode(-90, -180, 6));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, 13));
+    }
+
+    /**
+     * Tests the decoding of a cell.
+     */
+    @Test
+    public void testDecodeEnvelope() {
+        final SimpleEnvelope cell = Geohash.decodeEnvelope("ezs42");
+        assertEquals(42.583, cell.getMinimum(0), 0.001);
+        assertEquals(42.627, cell.getMaximum(0), 0.001);
+        assertEquals(-5.625, cell.getMinimum(1), 0.001);
+        assertEquals(-5.581, cell.getMaximum(1), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> Geohash.decodeEnvelope("ab"));
+    }
+
+    /**
+     * Tests batch encoding and decoding of random points, with enough points for parallel execution.
+     */
+    @Test
+    public void testRoundTrip() {
+        final var random = new Random(5);
+        final int count = 20_000;
+        final double[] points = new double[count * 2];
+        for (int i=0; i<points.length; i += 2) {
+            points[i]   = random.nextDouble() * 180 -  90;
+            points[i+1] = random.nextDouble() * 360 - 180;
+        }
+        final String[] hashes = Geohash.encode(points, 0, count, 9);
+        final long[] keys = new long[count];
+        Geohash.encodeBits(points, 0, keys, count);
+        final double[] decoded = new double[points.length];
+        Geohash.decode(hashes, decoded, 0);
+        for (int i=0; i<count; i++) {
+            assertEquals(Geohash.encode(points[i*2], points[i*2+1], 9), hashes[i]);
+            assertEquals(Geohash.encode(points[i*2], points[i*2+1], Geohash.MAX_LENGTH).substring(0, 9), hashes[i]);
+            assertEquals(keys[i] >>> 15, Geohash.encodeBits(decoded[i*2], decoded[i*2+1]) >>> 15);
+            assertEquals(points[i*2],   decoded[i*2],   180d / (1 << 22));
+            assertEquals(points[i*2+1], decoded[i*2+1], 360d / (1 << 23));
+        }
+    }
+}
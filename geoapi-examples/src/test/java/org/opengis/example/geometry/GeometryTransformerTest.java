@@ -0,0 +1,137 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Set;
+import java.util.List;
+import java.nio.DoubleBuffer;
+import org.opengis.referencing.RegisterOperations;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.example.referencing.ProjectiveTransform;
+import org.opengis.example.referencing.SimpleCRS;
+import org.opengis.example.referencing.SimpleMatrix;
+import org.opengis.util.FactoryException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link GeometryTransformer} and {@link PackedGeometry}.
+ */
+public class GeometryTransformerTest {
+    /**
+     * Number of calls to {@link RegisterOperations#findCoordinateOperations}.
+     */
+    private int lookupCount;
+
+    /**
+     * Creates a new test case.
+     */
+    public GeometryTransformerTest() {
+    }
+
+    /**
+     * Returns a registry providing an operation which multiplies coordinates by 2 and adds 1.
+     *
+     * @return a registry of the test operation.
+     */
+    private RegisterOperations register() {
+        final var matrix = new SimpleMatrix(3, 3);
+        matrix.setElement(0, 0, 2);
+        matrix.setElement(1, 1, 2);
+        matrix.setElement(0, 2, 1);
+        matrix.setElement(1, 2, 1);
+        final var operation = new ProjectiveTransform(null, "Test",
+                SimpleCRS.Geographic.WGS84, SimpleCRS.Geographic.SPHERE, matrix);
+        return new RegisterOperations() {
+            @Override public Set<CoordinateOperation> findCoordinateOperations(
+                    CoordinateReferenceSystem source, CoordinateReferenceSystem target)
+            {
+                lookupCount++;
+                return source.equals(operation.getSourceCRS()) ? Set.of(operation) : Set.of();
+            }
+
+            @Override public boolean areMembersOfSameEnsemble(
+                    CoordinateReferenceSystem source, CoordinateReferenceSystem target)
+            {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates a polygon with one hole.
+     *
+     * @return the polygon to transform.
+     */
+    private static PackedGeometry polygon() {
+        return new PackedGeometry(PackedGeometry.Type.POLYGON, SimpleCRS.Geographic.WGS84, 2,
+                new double[] {0,0, 10,0, 10,10, 0,0,  2,2, 3,2, 3,3, 2,2},
+                new int[] {0, 4, 8}, new int[] {0, 2});
+    }
+
+    /**
+     * Tests the views and envelope of a packed geometry.
+     */
+    @Test
+    public void testPackedGeometry() {
+        final PackedGeometry polygon = polygon();
+        assertEquals(1, polygon.getPartCount());
+        assertEquals(2, polygon.getSequenceCount());
+        assertEquals(8, polygon.getPointCount());
+        assertEquals(4, polygon.getSequence(1).size());
+        assertArrayEquals(new double[] {3, 2}, polygon.getSequence(1).get(1).getCoordinates());
+        final SimpleEnvelope envelope = polygon.getEnvelope();
+        assertArrayEquals(new double[] {10, 10}, envelope.getUpperCorner().getCoordinates());
+        assertThrows(IllegalArgumentException.class, () -> new PackedGeometry(PackedGeometry.Type.LINE_STRING,
+                null, 2, new double[4], new int[] {0, 1, 2}, new int[] {0, 2}));
+        assertEquals(PackedGeometry.Type.MULTI_POLYGON, PackedGeometry.Type.POLYGON.multi());
+        assertEquals(PackedGeometry.Type.POINT, PackedGeometry.Type.MULTI_POINT.single());
+    }
+
+    /**
+     * Verifies that the sequences of a packed geometry cannot be used for modifying the geometry.
+     */
+    @Test
+    public void testReadOnlySequence() {
+        final PackedGeometry polygon = polygon();
+        final SimplePointArray ring = polygon.getSequence(1);
+        final var position = new SimpleDirectPosition(null, 7, 7);
+        assertThrows(UnsupportedOperationException.class, () -> ring.set(1, position));
+        assertThrows(UnsupportedOperationException.class, () -> ring.setCoordinates(1, position));
+        assertThrows(UnsupportedOperationException.class, () -> ring.add(position));
+        assertTrue(ring.asDoubleBuffers().orElseThrow().allMatch(DoubleBuffer::isReadOnly));
+        assertArrayEquals(new double[] {3, 2}, polygon.getSequence(1).get(1).getCoordinates());
+    }
+
+    /**
+     * Tests the transformation of many geometries in one batch.
+     *
+     * @throws Exception if an error occurred during the transformation.
+     */
+    @Test
+    public void testTransform() throws Exception {
+        final var transformer = new GeometryTransformer(register());
+        final PackedGeometry line = new PackedGeometry(PackedGeometry.Type.LINE_STRING, SimpleCRS.Geographic.WGS84, 2,
+                new double[] {1,2, 3,4, 5,6}, new int[] {0, 3}, new int[] {0, 1});
+        final PackedGeometry other = new PackedGeometry(PackedGeometry.Type.POINT, SimpleCRS.Geographic.SPHERE, 2,
+                new double[] {7,8}, new int[] {0, 1}, new int[] {0, 1});
+        final List<PackedGeometry> result = transformer.transform(List.of(polygon(), other, line), SimpleCRS.Geographic.SPHERE);
+        assertSame(other, result.get(1));
+        assertEquals(new PackedGeometry(PackedGeometry.Type.LINE_STRING, SimpleCRS.Geographic.SPHERE, 2,
+                new double[] {3,5, 7,9, 11,13}, new int[] {0, 3}, new int[] {0, 1}), result.get(2));
+        final PackedGeometry polygon = result.get(0);
+        assertEquals(SimpleCRS.Geographic.SPHERE, polygon.getCoordinateReferenceSystem());
+        assertArrayEquals(new double[] {7, 5}, polygon.getSequence(1).get(1).getCoordinates());
+        assertEquals(1, lookupCount);
+
+        transformer.transform(List.of(line), SimpleCRS.Geographic.SPHERE);
+        assertEquals(1, lookupCount, "Transform shall be cached.");
+        assertThrows(FactoryException.class, () -> transformer.transform(List.of(other), SimpleCRS.Geographic.WGS84));
+    }
+}
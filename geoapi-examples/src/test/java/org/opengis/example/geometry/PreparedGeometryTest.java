@@ -0,0 +1,204 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.example.referencing.SimpleCRS;
+import org.opengis.example.referencing.SimpleDatum;
+import org.opengis.example.referencing.GeodesicCalculator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link PreparedGeometry}.
+ */
+public class PreparedGeometryTest {
+    /**
+     * Creates a new test case.
+     */
+    public PreparedGeometryTest() {
+    }
+
+    /**
+     * Creates a square of size 10 with a square hole of size 2 in the center.
+     *
+     * @return the square with a hole.
+     */
+    private static PreparedGeometry squareWithHole() {
+        return PreparedGeometry.polygon(null,
+                new double[] {0,0,  10,0,  10,10,  0,10},
+                new double[] {4,4,   4,6,   6,6,   6,4});
+    }
+
+    /**
+     * Creates a point.
+     *
+     * @param  x  the first coordinate value.
+     * @param  y  the second coordinate value.
+     * @return the point at the given coordinates.
+     */
+    private static SimpleDirectPosition point(final double x, final double y) {
+        return new SimpleDirectPosition(null, x, y);
+    }
+
+    /**
+     * Tests {@link PreparedGeometry#getEnvelope()}.
+     */
+    @Test
+    public void testEnvelope() {
+        final SimpleEnvelope envelope = squareWithHole().getEnvelope();
+        assertArrayEquals(new double[] { 0,  0}, envelope.getLowerCorner().getCoordinates());
+        assertArrayEquals(new double[] {10, 10}, envelope.getUpperCorner().getCoordinates());
+        assertNull(envelope.getCoordinateReferenceSystem());
+
+        final PreparedGeometry geographic = PreparedGeometry.polygon(SimpleCRS.Geographic.WGS84,
+                new double[] {0,0,  10,0,  10,10,  0,10});
+        assertSame(SimpleCRS.Geographic.WGS84, geographic.getEnvelope().getCoordinateReferenceSystem());
+        assertSame(SimpleCRS.Geographic.WGS84, geographic.getEnvelope().getLowerCorner().getCoordinateReferenceSystem());
+    }
+
+    /**
+     * Tests {@link PreparedGeometry#contains(DirectPosition)}.
+     */
+    @Test
+    public void testContains() {
+        final PreparedGeometry polygon = squareWithHole();
+        assertTrue (polygon.contains(point( 1,  1)));
+        assertTrue (polygon.contains(point( 9,  5)));
+        assertTrue (polygon.contains(point( 5,  3)));
+        assertFalse(polygon.contains(point( 5,  5)));       // In the hole.
+        assertFalse(polygon.contains(point(11,  5)));
+        assertFalse(polygon.contains(point(-1, -1)));
+    }
+
+    /**
+     * Tests {@link PreparedGeometry#distance(DirectPosition)}.
+     */
+    @Test
+    public void testDistanceToPoint() {
+        final PreparedGeometry polygon = squareWithHole();
+        assertEquals(0, polygon.distance(point(1, 1)));
+        assertEquals(1, polygon.distance(point(5, 5)), 1E-12);
+        assertEquals(5, polygon.distance(point(15, 5)), 1E-12);
+        assertEquals(Math.sqrt(2), polygon.distance(point(-1, 11)), 1E-12);
+        assertEquals(1000, polygon.distance(point(5, 1010)), 1E-9);
+    }
+
+    /**
+     * Tests {@link PreparedGeometry#intersects(PreparedGeometry)}
+     * and {@link PreparedGeometry#distance(PreparedGeometry)}.
+     */
+    @Test
+    public void testIntersects() {
+        final PreparedGeometry polygon = squareWithHole();
+        final PreparedGeometry inHole  = PreparedGeometry.polygon(null, new double[] {4.5,4.5,  5.5,4.5,  5,5.5});
+        final PreparedGeometry inside  = PreparedGeometry.polygon(null, new double[] {1,1,  2,1,  2,2});
+        final PreparedGeometry around  = PreparedGeometry.polygon(null, new double[] {-1,-1,  11,-1,  11,11,  -1,11});
+        final PreparedGeometry crosses = PreparedGeometry.polygon(null, new double[] {8,8,  12,8,  12,12});
+        final PreparedGeometry outside = PreparedGeometry.polygon(null, new double[] {13,0,  14,0,  14,1});
+        assertFalse(polygon.intersects(inHole));
+        assertTrue (polygon.intersects(inside));
+        assertTrue (polygon.intersects(around));
+        assertTrue (around .intersects(polygon));
+        assertTrue (polygon.intersects(crosses));
+        assertFalse(polygon.intersects(outside));
+        assertEquals(0,   polygon.distance(crosses));
+        assertEquals(3,   polygon.distance(outside), 1E-12);
+        assertEquals(0.5, polygon.distance(inHole),  1E-12);
+    }
+
+    /**
+     * Tests {@link PreparedGeometry#intersects(PreparedGeometry)} with geometries made of many components,
+     * where only a component other than the first one is inside the polygon.
+     */
+    @Test
+    public void testIntersectsComponents() {
+        final PreparedGeometry square = PreparedGeometry.polygon(null, new double[] {0,0,  10,0,  10,10,  0,10});
+        final PreparedGeometry points = PreparedGeometry.curves(null, new double[] {100,100}, new double[] {5,5});
+        final PreparedGeometry curves = PreparedGeometry.curves(null, new double[] {20,20,  30,30}, new double[] {4,4,  6,6});
+        final PreparedGeometry multi  = PreparedGeometry.polygon(null, new double[] {20,20,  30,20,  30,30},
+                                                                       new double[] {4,4,  6,4,  6,6});
+        assertTrue(square.intersects(points));
+        assertTrue(points.intersects(square));
+        assertTrue(square.intersects(curves));
+        assertTrue(square.intersects(multi));
+        assertTrue(multi .intersects(square));
+        assertEquals(0, square.distance(points));
+    }
+
+    /**
+     * Tests {@link PreparedGeometry#geodesicDistance(DirectPosition, GeodesicCalculator, int, double)}
+     * with a segment along the 60°N parallel, in (<var>latitude</var>, <var>longitude</var>) axis order.
+     * Near that segment, a degree of longitude is about half the length of a degree of latitude.
+     */
+    @Test
+    public void testGeodesicDistance() {
+        final var calculator = new GeodesicCalculator(SimpleDatum.WGS84.getEllipsoid());
+        final PreparedGeometry parallel = PreparedGeometry.curves(SimpleCRS.Geographic.WGS84, new double[] {60,0,  60,1});
+        assertEquals(calculator.distance(60, 1, 60, 2),   parallel.geodesicDistance(point(60, 2),   calculator, 0, 1), 1E-6);
+        assertEquals(calculator.distance(61, 0.5, 60, 0.5), parallel.geodesicDistance(point(61, 0.5), calculator, 0, 1), 1);
+        /*
+         * The distance to a geometry made of many curves is the distance to the nearest curve.
+         */
+        final PreparedGeometry meridian = PreparedGeometry.curves(SimpleCRS.Geographic.WGS84, new double[] {59,1,  60,1});
+        final PreparedGeometry both = PreparedGeometry.curves(SimpleCRS.Geographic.WGS84,
+                new double[] {60,0,  60,1}, new double[] {59,1,  60,1});
+        assertEquals(Math.min(parallel.geodesicDistance(point(60.2, 1.5), calculator, 0, 1),
+                              meridian.geodesicDistance(point(60.2, 1.5), calculator, 0, 1)),
+                     both.geodesicDistance(point(60.2, 1.5), calculator, 0, 1));
+        assertEquals(0, both.geodesicDistance(parallel, calculator, 0, 1));
+        final PreparedGeometry far = PreparedGeometry.curves(SimpleCRS.Geographic.WGS84, new double[] {62,0,  62,1});
+        assertEquals(calculator.distance(60, 0, 62, 0), parallel.geodesicDistance(far, calculator, 0, 1), 1);
+    }
+
+    /**
+     * Tests {@link PreparedGeometry#covers(PreparedGeometry)} and
+     * {@link PreparedGeometry#interiorIntersectionDimension(PreparedGeometry)}.
+     */
+    @Test
+    public void testRelations() {
+        final PreparedGeometry square   = PreparedGeometry.polygon(null, new double[] {0,0,  4,0,  4,4,  0,4});
+        final PreparedGeometry inner    = PreparedGeometry.polygon(null, new double[] {1,1,  2,1,  2,2,  1,2});
+        final PreparedGeometry adjacent = PreparedGeometry.polygon(null, new double[] {4,0,  6,0,  6,4,  4,4});
+        final PreparedGeometry overlap  = PreparedGeometry.polygon(null, new double[] {2,2,  6,2,  6,6,  2,6});
+        final PreparedGeometry crossing = PreparedGeometry.curves(null, new double[] {-1,2,  5,2});
+        final PreparedGeometry vertical = PreparedGeometry.curves(null, new double[] {2,-1,  2,5});
+        final PreparedGeometry border   = PreparedGeometry.curves(null, new double[] {0,0,  4,0});
+        final PreparedGeometry extended = PreparedGeometry.curves(null, new double[] {5,2,  7,2});
+        assertEquals(2, square.getDimension());
+        assertEquals(1, crossing.getDimension());
+        assertEquals(0, PreparedGeometry.point(point(1, 1)).getDimension());
+
+        assertTrue (square.covers(square));
+        assertTrue (square.covers(inner));
+        assertFalse(inner .covers(square));
+        assertTrue (square.covers(border));
+        assertFalse(square.covers(crossing));
+        assertFalse(square.covers(overlap));
+        assertTrue (square.covers(PreparedGeometry.point(point(0, 2))));
+
+        assertEquals( 2, square.interiorIntersectionDimension(inner));
+        assertEquals( 2, inner .interiorIntersectionDimension(square));
+        assertEquals( 2, square.interiorIntersectionDimension(overlap));
+        assertEquals(-1, square.interiorIntersectionDimension(adjacent));
+        assertEquals( 1, square.interiorIntersectionDimension(crossing));
+        assertEquals( 1, crossing.interiorIntersectionDimension(square));
+        assertEquals(-1, square.interiorIntersectionDimension(border));
+        assertEquals( 0, crossing.interiorIntersectionDimension(vertical));
+        assertEquals(-1, crossing.interiorIntersectionDimension(extended));
+        assertEquals(-1, square.interiorIntersectionDimension(PreparedGeometry.point(point(0, 2))));
+        assertEquals( 0, square.interiorIntersectionDimension(PreparedGeometry.point(point(1, 3))));
+        /*
+         * A polygon covering the hole of another polygon is not covered by that polygon.
+         */
+        final PreparedGeometry holed = squareWithHole();
+        assertFalse(holed.covers(PreparedGeometry.polygon(null, new double[] {3,3,  7,3,  7,7,  3,7})));
+        assertFalse(holed.covers(PreparedGeometry.polygon(null, new double[] {4.5,4.5,  5.5,4.5,  5.5,5.5})));
+        assertTrue (holed.covers(PreparedGeometry.polygon(null, new double[] {1,1,  3,1,  3,3})));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.nio.DoubleBuffer;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.example.referencing.SimpleCRS;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SimplePointArray} created by {@link SimplePositionFactory}.
+ */
+public class SimplePointArrayTest {
+    /**
+     * Creates a new test case.
+     */
+    public SimplePointArrayTest() {
+    }
+
+    /**
+     * Tests a point array wrapping a sub-region of a {@code double[]} array.
+     */
+    @Test
+    public void testWrapDoubles() {
+        final var factory = new SimplePositionFactory(SimpleCRS.Geographic.WGS84);
+        final double[] coordinates = {99, 10, 20, 11, 21, 12, 22, 99};
+        final SimplePointArray array = factory.createPointArray(coordinates, 1, 6);
+        assertEquals(3, array.size());
+        assertEquals(2, array.getDimension());
+        assertArrayEquals(new double[] {11, 21}, array.get(1).getCoordinates());
+
+        DirectPosition reuse = null;
+        double sum = 0;
+        for (int i=0; i<array.size(); i++) {
+            reuse = array.getDirectPosition(i, reuse);
+            sum += reuse.getCoordinate(1);
+        }
+        assertEquals(63, sum);
+
+        array.set(2, new SimpleDirectPosition(null, 13, 23));
+        assertEquals(13, coordinates[5]);               // Verify that the array has not been copied.
+        final DoubleBuffer buffer = array.asDoubleBuffers().orElseThrow().findFirst().orElseThrow();
+        assertEquals(6,  buffer.remaining());
+        assertEquals(10, buffer.get(0));
+        assertTrue(array.asFloatBuffers().isEmpty());
+        assertEquals(3, array.stream().count());
+    }
+
+    /**
+     * Tests a point array of {@code float} values with additions beyond the initial capacity.
+     */
+    @Test
+    public void testAddFloats() {
+        final var factory = new SimplePositionFactory(SimpleCRS.Geographic.WGS84);
+        final SimplePointArray array = factory.createPointArray(new float[] {1, 2}, 0, 2);
+        for (int i=0; i<20; i++) {
+            array.add(new SimpleDirectPosition(null, i, -i));
+        }
+        assertEquals(21, array.size());
+        final double[] all = new double[42];
+        array.getCoordinates(all, 0);
+        assertEquals(  1, all[0]);
+        assertEquals(-19, all[41]);
+        assertEquals(21, array.asFloatBuffers().orElseThrow().findFirst().orElseThrow().remaining() / 2);
+    }
+
+    /**
+     * Verifies that adding a position does not write in the array given by the caller
+     * outside the range of values given to the constructor.
+     */
+    @Test
+    public void testAddDoesNotModifySharedArray() {
+        final double[] shared = {1, 2, 3, 4, 99, 99};
+        final var array = new SimplePointArray(null, 2, shared, 0, 4);
+        array.add(new SimpleDirectPosition(null, 5, 6));
+        assertArrayEquals(new double[] {1, 2, 3, 4, 99, 99}, shared);
+        assertArrayEquals(new double[] {5, 6}, array.get(2).getCoordinates());
+        array.setCoordinates(0, new SimpleDirectPosition(null, 7, 8));
+        assertEquals(1, shared[0]);
+        assertArrayEquals(new double[] {7, 8}, array.get(0).getCoordinates());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import org.opengis.geometry.coordinate.PointArray;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.example.referencing.SimpleMatrix;
+import org.opengis.example.referencing.ProjectiveTransform;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SimplePointGrid}.
+ */
+@SuppressWarnings("removal")
+public class SimplePointGridTest {
+    /**
+     * Creates a new test case.
+     */
+    public SimplePointGridTest() {
+    }
+
+    /**
+     * Creates a grid of 5×3 points where the coordinates are the column and row indices.
+     *
+     * @return the grid to use for the tests.
+     */
+    private static SimplePointGrid createGrid() {
+        final var grid = new SimplePointGrid(null, 2, 5, 3);
+        final SimplePointGrid.Cursor cursor = grid.cursor();
+        while (cursor.next()) {
+            cursor.setCoordinate(0, cursor.column());
+            cursor.setCoordinate(1, cursor.row());
+        }
+        return grid;
+    }
+
+    /**
+     * Tests {@link SimplePointGrid#get(int, int)} and {@link SimplePointGrid#rows()}.
+     */
+    @Test
+    public void testAccess() {
+        final SimplePointGrid grid = createGrid();
+        assertArrayEquals(new double[] {4, 2}, grid.get(2, 4).getCoordinates());
+        final PointArray row = grid.rows().get(1);
+        assertEquals(5, row.size());
+        assertArrayEquals(new double[] {3, 1}, row.get(3).getCoordinates());
+        row.set(3, new SimpleDirectPosition(null, -1, -1));
+        assertArrayEquals(new double[] {-1, -1}, grid.get(1, 3).getCoordinates());
+        assertThrows(UnsupportedOperationException.class, () -> row.add(new SimpleDirectPosition(2)));
+    }
+
+    /**
+     * Tests a cursor visiting the grid by tiles of 2×2 points.
+     */
+    @Test
+    public void testTiledCursor() {
+        final SimplePointGrid grid = createGrid();
+        final SimplePointGrid.Cursor cursor = grid.cursor(2, 2);
+        final var order = new StringBuilder();
+        int count = 0;
+        while (cursor.next()) {
+            assertEquals(cursor.column(), cursor.getCoordinate(0));
+            assertEquals(cursor.row(),    cursor.getCoordinate(1));
+            order.append(cursor.row()).append(cursor.column()).append(' ');
+            count++;
+        }
+        assertEquals(15, count);
+        assertEquals("00 01 10 11 02 03 12 13 04 14 20 21 22 23 24 ", order.toString());
+        assertFalse(cursor.next());
+    }
+
+    /**
+     * Tests {@link SimplePointGrid#transform(MathTransform, CoordinateReferenceSystem)}.
+     *
+     * @throws TransformException if a point cannot be transformed.
+     */
+    @Test
+    public void testTransform() throws TransformException {
+        final var matrix = new SimpleMatrix(3, 3);
+        matrix.setElement(0, 0, 10);
+        matrix.setElement(1, 2, 100);
+        final SimplePointGrid result = createGrid().transform(new ProjectiveTransform(null, "Test", null, null, matrix), null);
+        assertArrayEquals(new double[] {40, 102}, result.get(2, 4).getCoordinates());
+    }
+}
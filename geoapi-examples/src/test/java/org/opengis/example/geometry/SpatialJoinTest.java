@@ -0,0 +1,99 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Set;
+import java.util.List;
+import java.util.Random;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.opengis.geometry.Envelope;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SpatialJoin}.
+ */
+public class SpatialJoinTest {
+    /**
+     * Creates a new test case.
+     */
+    public SpatialJoinTest() {
+    }
+
+    /**
+     * Creates random envelopes.
+     *
+     * @param  random  the random number generator to use.
+     * @param  count   the number of envelopes to create.
+     * @param  size    the maximal width and height of the envelopes.
+     * @return the random envelopes.
+     */
+    private static List<SimpleEnvelope> random(final Random random, final int count, final double size) {
+        final var envelopes = new ArrayList<SimpleEnvelope>(count);
+        for (int i=0; i<count; i++) {
+            final double x = random.nextDouble() * 1000;
+            final double y = random.nextDouble() * 1000;
+            envelopes.add(new SimpleEnvelope(new SimpleDirectPosition(null, x, y),
+                    new SimpleDirectPosition(null, x + random.nextDouble() * size, y + random.nextDouble() * size)));
+        }
+        return envelopes;
+    }
+
+    /**
+     * Returns whether the two envelopes intersect.
+     *
+     * @param  a  the first envelope.
+     * @param  b  the second envelope.
+     * @return whether the two envelopes intersect.
+     */
+    private static boolean intersects(final Envelope a, final Envelope b) {
+        return a.getMinimum(0) <= b.getMaximum(0) && a.getMaximum(0) >= b.getMinimum(0)
+            && a.getMinimum(1) <= b.getMaximum(1) && a.getMaximum(1) >= b.getMinimum(1);
+    }
+
+    /**
+     * Compares the join result with a brute-force search, using small blocks.
+     */
+    @Test
+    public void testJoin() {
+        final var random = new Random(7);
+        final List<SimpleEnvelope> left  = random(random, 3000, 30);
+        final List<SimpleEnvelope> right = random(random, 2000, 50);
+        final var expected = new ArrayList<List<Integer>>();
+        for (int i=0; i<left.size(); i++) {
+            for (int j=0; j<right.size(); j++) {
+                if (intersects(left.get(i), right.get(j))) {
+                    expected.add(List.of(i, j));
+                }
+            }
+        }
+        final var join = new SpatialJoin<Integer,Integer>(left::get, right::get, null, 700);
+        final Set<List<Integer>> actual = ConcurrentHashMap.newKeySet();
+        final List<Integer> li = new ArrayList<>(), ri = new ArrayList<>();
+        for (int i=0; i<left.size();  i++) li.add(i);
+        for (int i=0; i<right.size(); i++) ri.add(i);
+        final long count = join.join(li, ri, (a, b) -> assertTrue(actual.add(List.of(a, b)), "Duplicated pair."));
+        assertEquals(expected.size(), count);
+        assertEquals(Set.copyOf(expected), actual);
+    }
+
+    /**
+     * Tests the refinement predicate.
+     */
+    @Test
+    public void testRefinement() {
+        final List<SimpleEnvelope> boxes = random(new Random(3), 500, 40);
+        final var join = new SpatialJoin<SimpleEnvelope,SimpleEnvelope>(Function.identity(), Function.identity(),
+                (a, b) -> a != b, SpatialJoin.DEFAULT_BLOCK_SIZE);
+        final long all = new SpatialJoin<SimpleEnvelope,SimpleEnvelope>(Function.identity(), Function.identity(),
+                null, SpatialJoin.DEFAULT_BLOCK_SIZE).join(boxes, boxes, (a, b) -> {});
+        assertEquals(all - boxes.size(), join.join(boxes, boxes, (a, b) -> assertNotSame(a, b)));
+    }
+}
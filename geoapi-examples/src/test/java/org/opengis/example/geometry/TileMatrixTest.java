@@ -0,0 +1,125 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Random;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.example.referencing.SimpleCRS;
+import org.opengis.example.referencing.SimpleMatrix;
+import org.opengis.example.referencing.ProjectiveTransform;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link TileMatrix}.
+ */
+public class TileMatrixTest {
+    /**
+     * Creates a new test case.
+     */
+    public TileMatrixTest() {
+    }
+
+    /**
+     * Returns a tile matrix covering the world in (<var>longitude</var>, <var>latitude</var>) order
+     * with two tiles at zoom level 0.
+     *
+     * @return a tile matrix covering the world.
+     */
+    private static TileMatrix world() {
+        return new TileMatrix(new SimpleEnvelope(new SimpleDirectPosition(null, -180, -90),
+                                                 new SimpleDirectPosition(null,  180,  90)), 2, 1);
+    }
+
+    /**
+     * Tests the conversion of points to tile indices.
+     */
+    @Test
+    public void testToTiles() {
+        final TileMatrix matrix = world();
+        assertEquals(8, matrix.getColumnCount(2));
+        assertEquals(4, matrix.getRowCount(2));
+        final double[] points = {
+            -180,  90,
+             179, -89,
+              10,  10,
+             500, -500,
+             Double.NaN, 0
+        };
+        final int[] tiles = new int[10];
+        matrix.toTiles(points, 0, 2, 2, tiles, 0, 5);
+        assertArrayEquals(new int[] {0, 0,  7, 3,  4, 1,  7, 3,  -1, 2}, tiles);
+    }
+
+    /**
+     * Tests the conversion of geographic coordinates in (<var>latitude</var>, <var>longitude</var>) order
+     * with a transform swapping axes.
+     *
+     * @throws TransformException if the points cannot be transformed.
+     */
+    @Test
+    public void testToTilesWithTransform() throws TransformException {
+        final var swap = new SimpleMatrix(3, 3);
+        swap.setElement(0, 0, 0);
+        swap.setElement(1, 1, 0);
+        swap.setElement(0, 1, 1);
+        swap.setElement(1, 0, 1);
+        final var transform = new ProjectiveTransform(null, "Swap", SimpleCRS.Geographic.WGS84, null, swap);
+        final int[] tiles = new int[4];
+        world().toTiles(transform, new double[] {10, -100, -45, 100}, 0, 3, tiles, 0, 2);
+        assertArrayEquals(new int[] {3, 3,  12, 6}, tiles);
+    }
+
+    /**
+     * Tests the computation of tile envelopes and tile ranges.
+     */
+    @Test
+    public void testTileEnvelope() {
+        final TileMatrix matrix = world();
+        final SimpleEnvelope envelope = matrix.getTileEnvelope(1, 3, 1);
+        assertEquals( 90, envelope.getMinimum(0));
+        assertEquals(180, envelope.getMaximum(0));
+        assertEquals(-90, envelope.getMinimum(1));
+        assertEquals(  0, envelope.getMaximum(1));
+        final double[] bounds = new double[8];
+        matrix.getTileBounds(1, new int[] {0, 0, 3, 1}, 0, bounds, 0, 2);
+        assertArrayEquals(new double[] {-180, 0, -90, 90,  90, -90, 180, 0}, bounds);
+        assertArrayEquals(new int[] {1, 0, 2, 1}, matrix.getTileRange(1, new SimpleEnvelope(
+                new SimpleDirectPosition(null, -50, -10), new SimpleDirectPosition(null, 50, 10))));
+        assertNotEquals(TileMatrix.key(1, 3, 1), TileMatrix.key(2, 3, 1));
+        assertNotEquals(TileMatrix.key(24, 0, 0), TileMatrix.key(24, 1 << 28, 0));
+        assertThrows(IllegalArgumentException.class, () -> TileMatrix.key(24, 1 << 29, 0));
+        assertThrows(IllegalArgumentException.class, () -> TileMatrix.key(24, 0, -1));
+    }
+
+    /**
+     * Verifies that the tile containing a point is the parent of the tile containing that point at the next zoom level.
+     */
+    @Test
+    public void testZoomConsistency() {
+        final TileMatrix matrix = world();
+        final var random = new Random(41);
+        final double[] points = new double[2000];
+        for (int i=0; i<points.length; i += 2) {
+            points[i]   = random.nextDouble() * 360 - 180;
+            points[i+1] = random.nextDouble() * 180 - 90;
+        }
+        points[0] = 0.1;                    // A point on a tile boundary at some zoom levels.
+        points[1] = 0.3;
+        final int[] parents  = new int[points.length];
+        final int[] children = new int[points.length];
+        matrix.toTiles(points, 0, 2, 0, parents, 0, points.length / 2);
+        for (int zoom = 1; zoom <= TileMatrix.MAX_ZOOM; zoom++) {
+            matrix.toTiles(points, 0, 2, zoom, children, 0, points.length / 2);
+            for (int i=0; i<children.length; i++) {
+                assertEquals(parents[i], children[i] >> 1);
+            }
+            System.arraycopy(children, 0, parents, 0, children.length);
+        }
+    }
+}
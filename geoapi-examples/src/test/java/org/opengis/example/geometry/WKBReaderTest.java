@@ -0,0 +1,125 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link WKBReader} and {@link WKBWriter}.
+ */
+public class WKBReaderTest {
+    /**
+     * Creates a new test case.
+     */
+    public WKBReaderTest() {
+    }
+
+    /**
+     * Creates a multi-polygon with two polygons, the first one having a hole.
+     *
+     * @return the multi-polygon to encode.
+     */
+    private static PackedGeometry multiPolygon() {
+        return new PackedGeometry(PackedGeometry.Type.MULTI_POLYGON, null, 2,
+                new double[] {0,0, 10,0, 10,10, 0,0,  2,2, 3,2, 3,3, 2,2,  20,20, 21,20, 21,21, 20,20},
+                new int[] {0, 4, 8, 12}, new int[] {0, 2, 3});
+    }
+
+    /**
+     * Creates a three-dimensional line string with many points.
+     *
+     * @return the line string to encode.
+     */
+    private static PackedGeometry longLine() {
+        final double[] coordinates = new double[3000 * 3];
+        for (int i=0; i<coordinates.length; i++) {
+            coordinates[i] = (i % 3) * 100 + (i / 3) * 0.25;
+        }
+        return new PackedGeometry(PackedGeometry.Type.LINE_STRING, null, 3,
+                coordinates, new int[] {0, 3000}, new int[] {0, 1});
+    }
+
+    /**
+     * Tests decoding of a point encoded in big-endian <abbr>WKB</abbr>.
+     *
+     * @throws IOException if an error occurred while decoding the point.
+     */
+    @Test
+    public void testReadPoint() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(21).order(ByteOrder.BIG_ENDIAN);
+        buffer.put((byte) 0).putInt(1).putDouble(4).putDouble(-2).flip();
+        final var reader = new WKBReader(buffer, null, false);
+        assertTrue(reader.hasNext());
+        final PackedGeometry point = reader.read();
+        assertEquals(PackedGeometry.Type.POINT, point.getType());
+        assertArrayEquals(new double[] {4, -2}, point.getSequence(0).get(0).getCoordinates());
+        assertFalse(reader.hasNext());
+    }
+
+    /**
+     * Tests decoding of a point encoded in <abbr>TWKB</abbr>.
+     *
+     * @throws IOException if an error occurred while decoding the point.
+     */
+    @Test
+    public void testReadTinyPoint() throws IOException {
+        final var reader = new WKBReader(ByteBuffer.wrap(new byte[] {0x01, 0x00, 0x02, 0x04}), null, true);
+        assertArrayEquals(new double[] {1, 2}, reader.read().getSequence(0).get(0).getCoordinates());
+    }
+
+    /**
+     * Tests writing and reading geometries in <abbr>WKB</abbr> format, in a buffer.
+     *
+     * @throws IOException if an error occurred while encoding or decoding the geometries.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(100000).order(ByteOrder.LITTLE_ENDIAN);
+        final var writer = new WKBWriter(buffer);
+        writer.write(multiPolygon());
+        writer.write(longLine());
+        buffer.flip();
+        final var reader = new WKBReader(buffer, null, false);
+        final SimpleEnvelope envelope = reader.readEnvelope();
+        assertArrayEquals(new double[] { 0,  0}, envelope.getLowerCorner().getCoordinates());
+        assertArrayEquals(new double[] {21, 21}, envelope.getUpperCorner().getCoordinates());
+        assertEquals(multiPolygon(), reader.read());
+        reader.skip();
+        assertFalse(reader.hasNext());
+    }
+
+    /**
+     * Tests writing and reading geometries in <abbr>TWKB</abbr> format, through channels.
+     * The line is larger than the buffer used by the reader.
+     *
+     * @throws IOException if an error occurred while encoding or decoding the geometries.
+     */
+    @Test
+    public void testChannels() throws IOException {
+        final var out = new ByteArrayOutputStream();
+        final var writer = new WKBWriter(Channels.newChannel(out));
+        writer.setTWKB(2, true);
+        writer.write(longLine());
+        writer.write(multiPolygon());
+        writer.flush();
+        final var reader = new WKBReader(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), null, true);
+        final SimpleEnvelope envelope = reader.readEnvelope();
+        assertArrayEquals(new double[] {  0, 100, 200}, envelope.getLowerCorner().getCoordinates());
+        assertArrayEquals(new double[] {749.75, 849.75, 949.75}, envelope.getUpperCorner().getCoordinates());
+        assertEquals(longLine(), reader.read());
+        assertEquals(multiPolygon(), reader.read());
+        assertFalse(reader.hasNext());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.metadata;
+
+import java.util.BitSet;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link GeographicBoundingBoxArray}.
+ */
+public class GeographicBoundingBoxArrayTest {
+    /**
+     * Creates a new test case.
+     */
+    public GeographicBoundingBoxArrayTest() {
+    }
+
+    /**
+     * Creates an array of 4 boxes, including one crossing the anti-meridian.
+     *
+     * @return the boxes to use for the tests.
+     */
+    private static GeographicBoundingBoxArray createBoxes() {
+        return new GeographicBoundingBoxArray(
+                new double[] {-10,  170, 100, -180},     // West
+                new double[] { 10, -170, 120,  180},     // East
+                new double[] {-10,  -20,  30,  -90},     // South
+                new double[] { 10,   20,  40,   90});    // North
+    }
+
+    /**
+     * Creates a box which may cross the anti-meridian.
+     *
+     * @param  west   the western-most longitude, which may be greater than {@code east}.
+     * @param  east   the eastern-most longitude.
+     * @param  south  the southern-most latitude.
+     * @param  north  the northern-most latitude.
+     * @return the geographic bounding box.
+     */
+    private static GeographicBoundingBox box(final double west, final double east, final double south, final double north) {
+        return new SimpleGeographicBoundingBox(Math.min(west, east), Math.max(west, east), south, north) {
+            @Override public double getWestBoundLongitude() {return west;}
+            @Override public double getEastBoundLongitude() {return east;}
+        };
+    }
+
+    /**
+     * Creates a bitset with the given bits set.
+     *
+     * @param  indices  indices of the bits to set.
+     * @return a bitset with the given bits set.
+     */
+    private static BitSet bits(final int... indices) {
+        final var bits = new BitSet();
+        for (final int i : indices) bits.set(i);
+        return bits;
+    }
+
+    /**
+     * Tests {@link GeographicBoundingBoxArray#intersects(GeographicBoundingBox)}.
+     */
+    @Test
+    public void testIntersects() {
+        final GeographicBoundingBoxArray boxes = createBoxes();
+        assertEquals(bits(0, 3),    boxes.intersects(box(0, 5, 0, 5)));
+        assertEquals(bits(1, 3),    boxes.intersects(box(175, -175, 0, 5)));
+        assertEquals(bits(1, 3),    boxes.intersects(box(-175, -172, 0, 5)));
+        assertEquals(bits(1, 2, 3), boxes.intersects(box(110, -175, 0, 35)));
+    }
+
+    /**
+     * Tests {@link GeographicBoundingBoxArray#contains(GeographicBoundingBox)}
+     * and {@link GeographicBoundingBoxArray#within(GeographicBoundingBox)}.
+     */
+    @Test
+    public void testContainment() {
+        final GeographicBoundingBoxArray boxes = createBoxes();
+        assertEquals(bits(1, 3), boxes.contains(box(-175, -172, 0, 5)));
+        assertEquals(bits(1, 3), boxes.contains(box(175, -175, 0, 5)));
+        assertEquals(bits(0, 3), boxes.contains(box(0, 5, 0, 5)));
+        assertEquals(bits(1),    boxes.within(box(160, -160, -30, 30)));
+        assertEquals(bits(0, 1), boxes.within(box(-20, -25, -30, 30)));
+    }
+
+    /**
+     * Tests {@link GeographicBoundingBoxArray#union(BitSet)}.
+     */
+    @Test
+    public void testUnion() {
+        final GeographicBoundingBoxArray boxes = createBoxes();
+        assertArrayEquals(new double[] {-10, 120, -10, 40}, boxes.union(bits(0, 2)));
+        assertArrayEquals(new double[] {100, -170, -20, 40}, boxes.union(bits(1, 2)));
+        assertArrayEquals(new double[] {-180, 180, -90, 90}, boxes.union(null));
+        assertNull(boxes.union(new BitSet()));
+
+        final var nested = new GeographicBoundingBoxArray(
+                new double[] {-170, -160, 100},         // West
+                new double[] { -10, -150, 170},         // East
+                new double[] {   0,    0,   0},         // South
+                new double[] {  10,   10,  10});        // North
+        assertArrayEquals(new double[] {100, -10, 0, 10}, nested.union(null));
+    }
+
+    /**
+     * Tests {@link GeographicBoundingBoxArray#area(double)}.
+     */
+    @Test
+    public void testArea() {
+        final double[] area = createBoxes().area(1);
+        assertEquals(4 * Math.PI, area[3], 1E-12);
+        assertEquals(Math.toRadians(20) * 2 * Math.sin(Math.toRadians(20)), area[1], 1E-12);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Set;
+import java.nio.file.Path;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.example.metadata.SimpleCitation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link CRSIdentificationIndex} and {@link CRSFingerprint}.
+ */
+public class CRSIdentificationIndexTest {
+    /**
+     * A temporary directory where to write index files.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Creates a new test case.
+     */
+    public CRSIdentificationIndexTest() {
+    }
+
+    /**
+     * Verifies that the fingerprint ignores names but not the ellipsoid.
+     */
+    @Test
+    public void testFingerprint() {
+        final var fingerprint = CRSFingerprint.DEFAULT;
+        final GeographicCRS renamed = new SimpleCRS.Geographic(SimpleCitation.OGC, "Renamed",
+                new SimpleDatum(null, "Renamed datum", 6378137.0, 298.257223563),
+                SimpleAxis.LATITUDE, SimpleAxis.LONGITUDE);
+        assertEquals   (fingerprint.compute(SimpleCRS.Geographic.WGS84), fingerprint.compute(renamed));
+        assertNotEquals(fingerprint.compute(SimpleCRS.Geographic.WGS84), fingerprint.compute(SimpleCRS.Geographic.SPHERE));
+
+        final GeographicCRS swapped = new SimpleCRS.Geographic(SimpleCitation.EPSG, "WGS 84",
+                SimpleDatum.WGS84, SimpleAxis.LONGITUDE, SimpleAxis.LATITUDE);
+        assertNotEquals(fingerprint.compute(SimpleCRS.Geographic.WGS84), fingerprint.compute(swapped));
+    }
+
+    /**
+     * Verifies that fingerprints do not depend on the execution, since they are saved in files.
+     * The expected values shall change only when the fingerprint algorithm changes,
+     * in which case the index file format number shall be incremented.
+     */
+    @Test
+    public void testFingerprintStability() {
+        assertEquals(5077427487038497724L, CRSFingerprint.DEFAULT.compute(SimpleCRS.Geographic.WGS84));
+        assertEquals(6725174826432595727L, CRSFingerprint.DEFAULT.compute(SimpleCRS.Vertical.MSL));
+    }
+
+    /**
+     * Tests the identification of CRS through the index built for {@link SimpleAuthorityFactory}.
+     *
+     * @throws FactoryException if the index cannot be built.
+     */
+    @Test
+    public void testIdentify() throws FactoryException {
+        final var index = CRSIdentificationIndex.forFactory(SimpleAuthorityFactory.provider());
+        assertSame(index, CRSIdentificationIndex.forFactory(SimpleAuthorityFactory.provider()));
+        assertEquals("4326", index.identify(SimpleCRS.Geographic.WGS84).orElseThrow());
+        assertEquals("4047", index.identify(SimpleCRS.Geographic.SPHERE).orElseThrow());
+        assertEquals("5714", index.identify(SimpleCRS.Vertical.MSL).orElseThrow());
+
+        final GeographicCRS perturbed = new SimpleCRS.Geographic(null, "From file",
+                new SimpleDatum(null, "Unnamed", 6378137.0 * (1 + 1E-12), 298.257223563),
+                SimpleAxis.LATITUDE, SimpleAxis.LONGITUDE);
+        assertEquals("4326", index.identify(perturbed).orElseThrow());
+
+        final GeographicCRS unknown = new SimpleCRS.Geographic(null, "Clarke 1866",
+                new SimpleDatum(null, "Clarke 1866", 6378206.4, 294.9786982138982),
+                SimpleAxis.LATITUDE, SimpleAxis.LONGITUDE);
+        assertTrue(index.lookup(unknown).isEmpty());
+    }
+
+    /**
+     * Tests writing an index and reading it back.
+     *
+     * @throws FactoryException if the index cannot be built.
+     * @throws IOException if an error occurred while writing or reading the index.
+     */
+    @Test
+    public void testWriteRead() throws FactoryException, IOException {
+        final var index = CRSIdentificationIndex.forFactory(SimpleAuthorityFactory.provider());
+        final var buffer = new ByteArrayOutputStream();
+        index.write(buffer);
+        final var copy = CRSIdentificationIndex.read(new ByteArrayInputStream(buffer.toByteArray()));
+        assertEquals(index.size(), copy.size());
+        assertEquals("4326", copy.identify(SimpleCRS.Geographic.WGS84).orElseThrow());
+        assertEquals("5714", copy.identify(SimpleCRS.Vertical.MSL).orElseThrow());
+        assertEquals(index.getSource(), copy.getSource());
+        assertThrows(IllegalArgumentException.class, () -> CRSIdentificationIndex.read(
+                new ByteArrayInputStream(new byte[] {1, 2, 3, 4})));
+    }
+
+    /**
+     * Verifies that an index file written for a factory is not reused for another factory.
+     *
+     * @throws FactoryException if an index cannot be built.
+     */
+    @Test
+    public void testSourceVerification() throws FactoryException {
+        final Path file = directory.resolve("index.bin");
+        final var index = CRSIdentificationIndex.forFactory(SimpleAuthorityFactory.provider(), file);
+        final var other = new SimpleAuthorityFactory() {
+            @Override public Set<String> getAuthorityCodes(Class<? extends IdentifiedObject> type) {
+                return Set.of("4047");
+            }
+        };
+        final var rebuilt = CRSIdentificationIndex.forFactory(other, file);
+        assertNotEquals(index.getSource(), rebuilt.getSource());
+        assertEquals(1, rebuilt.size());
+        assertTrue(rebuilt.lookup(SimpleCRS.Geographic.WGS84).isEmpty());
+        assertEquals("4047", rebuilt.identify(SimpleCRS.Geographic.SPHERE).orElseThrow());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link GeodesicCalculator}.
+ */
+public class GeodesicCalculatorTest {
+    /**
+     * Creates a new test case.
+     */
+    public GeodesicCalculatorTest() {
+    }
+
+    /**
+     * Creates a calculator for the WGS 84 ellipsoid.
+     *
+     * @return a geodesic calculator for the WGS 84 ellipsoid.
+     */
+    private static GeodesicCalculator create() {
+        return new GeodesicCalculator(SimpleDatum.WGS84.getEllipsoid());
+    }
+
+    /**
+     * Tests the inverse problem with the Flinders Peak to Buninyong example published by Vincenty.
+     */
+    @Test
+    public void testInverse() {
+        final double[] flinders  = {-(37 + 57/60d +  3.72030/3600), 144 + 25/60d + 29.52440/3600};
+        final double[] buninyong = {-(37 + 39/60d + 10.15610/3600), 143 + 55/60d + 35.38390/3600};
+        final double[] distance = new double[1];
+        final double[] azimuths = new double[2];
+        create().inverse(flinders, buninyong, 1, distance, azimuths);
+        assertEquals(54972.271, distance[0], 0.001);
+        assertEquals(306 + 52/60d +  5.37/3600 - 360, azimuths[0], 1E-5);
+        assertEquals(307 + 10/60d + 25.07/3600 - 360, azimuths[1], 1E-5);
+        assertEquals(0, create().distance(10, 20, 10, 20));
+    }
+
+    /**
+     * Tests that the direct problem is the inverse of the inverse problem.
+     */
+    @Test
+    public void testDirect() {
+        final GeodesicCalculator calculator = create();
+        final double[] start = {45, -170, -30, 20};
+        final double[] end   = {50,  175,  10, 60};
+        final double[] distances = new double[2];
+        final double[] azimuths  = new double[4];
+        calculator.inverse(start, end, 2, distances, azimuths);
+        final double[] result = new double[4];
+        final double[] finalAzimuths = new double[2];
+        calculator.direct(start, new double[] {azimuths[0], azimuths[2]}, distances, 2, result, finalAzimuths);
+        assertArrayEquals(end, result, 1E-9);
+        assertEquals(azimuths[1], finalAzimuths[0], 1E-9);
+        assertEquals(azimuths[3], finalAzimuths[1], 1E-9);
+    }
+
+    /**
+     * Tests the distance matrix with and without the spherical approximation.
+     */
+    @Test
+    public void testDistanceMatrix() {
+        final GeodesicCalculator calculator = create();
+        final var random = new Random(5);
+        final double[] sources = new double[150 * 2];
+        final double[] targets = new double[70 * 2];
+        for (int i=0; i<sources.length; i += 2) {sources[i] = random.nextDouble() * 160 - 80; sources[i+1] = random.nextDouble() * 360 - 180;}
+        for (int i=0; i<targets.length; i += 2) {targets[i] = random.nextDouble() * 160 - 80; targets[i+1] = random.nextDouble() * 360 - 180;}
+        final double[] exact  = calculator.distanceMatrix(sources, targets, 0);
+        final double[] approx = calculator.distanceMatrix(sources, targets, 1E+6);
+        for (int i=0; i<150; i++) {
+            for (int j=0; j<70; j++) {
+                final double expected = calculator.distance(sources[i*2], sources[i*2+1], targets[j*2], targets[j*2+1]);
+                final double e = exact[i*70 + j];
+                assertEquals(expected, e, 1E-6);
+                assertEquals(e, approx[i*70 + j], Math.max(1E-6, e * calculator.getSphericalError()));
+            }
+        }
+    }
+
+    /**
+     * Tests nearly antipodal points, for which the iteration may not converge.
+     */
+    @Test
+    public void testAntipodal() {
+        final GeodesicCalculator calculator = create();
+        assertEquals(19936288.579, calculator.distance(0, 0, 0.5, 179.5), 0.001);
+        /*
+         * Verify that the geodesics found by bisection lead to the expected points,
+         * in all configurations of hemispheres and directions.
+         */
+        final double[] start = { 0,    0,   0.5,  0,   -0.5,   10,   -0.3,  20,   0,  0};
+        final double[] end   = { 0.5, 179.7, 0, -179.8,   0.4, -170.2, 0.2, -160.3, 0, 179.8};
+        final int count = start.length / 2;
+        final double[] distances = new double[count];
+        final double[] azimuths  = new double[count * 2];
+        calculator.inverse(start, end, count, distances, azimuths);
+        final double[] initialAzimuths = new double[count];
+        final double[] finalAzimuths   = new double[count];
+        for (int i=0; i<count; i++) {
+            initialAzimuths[i] = azimuths[i*2];
+            final double d = distances[i];
+            assertTrue(d > 19_900_000 && d < 20_020_000, () -> String.valueOf(d));
+        }
+        final double[] result = new double[count * 2];
+        calculator.direct(start, initialAzimuths, distances, count, result, finalAzimuths);
+        assertArrayEquals(end, result, 1E-7);
+        for (int i=0; i<count; i++) {
+            assertEquals(azimuths[i*2 + 1], finalAzimuths[i], 1E-6);
+        }
+        final double[] matrix = calculator.distanceMatrix(new double[] {0, 0}, new double[] {0.5, 179.7}, 0);
+        assertEquals(calculator.distance(0, 0, 0.5, 179.7), matrix[0]);
+    }
+}
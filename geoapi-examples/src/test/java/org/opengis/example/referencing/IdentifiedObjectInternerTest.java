@@ -0,0 +1,44 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.datum.GeodeticDatum;
+import org.opengis.example.metadata.SimpleCitation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link IdentifiedObjectInterner}.
+ */
+public class IdentifiedObjectInternerTest {
+    /**
+     * Creates a new test case.
+     */
+    public IdentifiedObjectInternerTest() {
+    }
+
+    /**
+     * Tests that equal objects are replaced by a single canonical instance.
+     */
+    @Test
+    public void testUnique() {
+        final var pool = new IdentifiedObjectInterner();
+        final GeodeticDatum datum = pool.unique(SimpleDatum.WGS84);
+        assertSame(SimpleDatum.WGS84, datum);
+        assertSame(datum, pool.unique(new SimpleDatum(SimpleCitation.EPSG, "World Geodetic System 1984", 6378137.0, 298.257223563)));
+        assertNotSame(datum, pool.unique(new SimpleDatum(SimpleCitation.EPSG, "World Geodetic System 1984", 6378137.0, 300)));
+
+        final GeographicCRS crs = pool.unique(new SimpleCRS.Geographic(SimpleCitation.EPSG, "WGS 84",
+                datum, SimpleAxis.LATITUDE, SimpleAxis.LONGITUDE));
+        assertSame(crs, pool.unique(SimpleCRS.Geographic.WGS84));
+        assertTrue (pool.isCanonical(crs));
+        assertFalse(pool.isCanonical(SimpleCRS.Geographic.WGS84));
+        assertNull (pool.unique(null));
+    }
+}
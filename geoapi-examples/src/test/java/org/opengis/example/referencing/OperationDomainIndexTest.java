@@ -0,0 +1,119 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ArrayList;
+import javax.measure.Unit;
+import org.opengis.util.Record;
+import org.opengis.util.RecordType;
+import org.opengis.util.MemberName;
+import org.opengis.util.InternationalString;
+import org.opengis.metadata.quality.PositionalAccuracy;
+import org.opengis.metadata.quality.QuantitativeResult;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.referencing.ObjectDomain;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.example.metadata.SimpleGeographicBoundingBox;
+import tech.uom.seshat.Units;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link OperationDomainIndex}.
+ */
+public class OperationDomainIndexTest {
+    /**
+     * Creates a new test case.
+     */
+    public OperationDomainIndexTest() {
+    }
+
+    /**
+     * Creates an operation from WGS 84 to the sphere, valid in the given domain.
+     *
+     * @param  name    name of the operation.
+     * @param  domain  domain of validity, or {@code null} for an operation valid everywhere.
+     * @return an operation between two geographic <abbr>CRS</abbr> with the given domain of validity.
+     */
+    private static CoordinateOperation operation(final String name, final Extent domain) {
+        return new ProjectiveTransform(null, name, SimpleCRS.Geographic.WGS84, SimpleCRS.Geographic.SPHERE, new SimpleMatrix(3, 3)) {
+            @Override public Collection<ObjectDomain> getDomains() {
+                if (domain == null) return Set.of();
+                return Set.of(new ObjectDomain() {
+                    @Override public InternationalString getScope() {return null;}
+                    @Override public Extent getDomainOfValidity() {return domain;}
+                });
+            }
+        };
+    }
+
+    /**
+     * Tests the selection of operations by domain of validity.
+     */
+    @Test
+    public void testFind() {
+        final CoordinateOperation world  = operation("World",  null);
+        final CoordinateOperation europe = operation("Europe", new SimpleGeographicBoundingBox(-10, 30, 35, 70));
+        final CoordinateOperation paris  = operation("Paris",  new SimpleGeographicBoundingBox(2, 3, 48, 49));
+        final var index = new OperationDomainIndex(List.of(world, europe, paris));
+
+        final var crs = SimpleCRS.Geographic.WGS84;
+        final var sphere = SimpleCRS.Geographic.SPHERE;
+        assertEquals(List.of(world), index.find(crs, sphere, new SimpleGeographicBoundingBox(-80, -70, 40, 45)));
+        assertEquals(List.of(world, europe), index.find(crs, sphere, new SimpleGeographicBoundingBox(25, 40, 40, 45)));
+        assertEquals(Set.of(world, europe, paris), Set.copyOf(index.find(crs, sphere, new SimpleGeographicBoundingBox(2.2, 2.4, 48.8, 48.9))));
+        assertEquals(List.of(world, europe, paris), index.find(crs, sphere, null));
+        assertTrue(index.find(sphere, crs, null).isEmpty());
+    }
+
+    /**
+     * Creates an operation declaring the given accuracy values.
+     *
+     * @param  unit    unit of measurement of the accuracy values, or {@code null} if unspecified.
+     * @param  values  the accuracy values.
+     * @return an operation with the given accuracy.
+     */
+    private static CoordinateOperation operation(final Unit<?> unit, final double... values) {
+        final var records = new ArrayList<Record>();
+        for (final double value : values) {
+            records.add(new Record() {
+                @Override public RecordType getRecordType() {return null;}
+                @Override public Map<MemberName,Object> getFields() {
+                    return Collections.singletonMap(null, value);
+                }
+            });
+        }
+        final QuantitativeResult result = new QuantitativeResult() {
+            @Override public Collection<? extends Record> getValues() {return records;}
+            @Override public Unit<?> getValueUnit() {return unit;}
+        };
+        final PositionalAccuracy accuracy = () -> List.of(result);
+        return new ProjectiveTransform(null, "Accurate", SimpleCRS.Geographic.WGS84, SimpleCRS.Geographic.SPHERE, new SimpleMatrix(3, 3)) {
+            @Override public Collection<PositionalAccuracy> getCoordinateOperationAccuracy() {
+                return List.of(accuracy);
+            }
+        };
+    }
+
+    /**
+     * Tests the extraction of accuracy values, which shall be converted to metres.
+     */
+    @Test
+    public void testAccuracy() {
+        assertEquals(0.5, OperationDomainIndex.accuracy(operation(Units.CENTIMETRE, 80, 50)), 1E-12);
+        assertEquals(2,   OperationDomainIndex.accuracy(operation(Units.METRE, 3, 2)));
+        assertEquals(Double.NaN, OperationDomainIndex.accuracy(operation(Units.SECOND, 0.1)));
+        assertEquals(Double.NaN, OperationDomainIndex.accuracy(operation(null, 0.1)));
+        assertEquals(Double.NaN, OperationDomainIndex.accuracy(operation("World", null)));
+    }
+}